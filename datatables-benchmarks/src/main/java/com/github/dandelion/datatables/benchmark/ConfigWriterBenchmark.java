@@ -0,0 +1,108 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.JSONValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.dandelion.core.asset.generator.js.JsFunction;
+import com.github.dandelion.datatables.core.generator.ConfigWriter;
+import com.github.dandelion.datatables.core.generator.DTConstants;
+
+/**
+ * <p>
+ * Compares the {@link ConfigWriter} with json-simple's {@link JSONValue},
+ * which it replaced, on a table configuration of a growing number of columns.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigWriterBenchmark {
+
+   @Param({ "5", "20", "50" })
+   private int columns;
+
+   private Map<String, Object> config;
+
+   @Setup
+   public void setup() {
+      List<Map<String, Object>> columnConfigs = new ArrayList<Map<String, Object>>();
+      for (int i = 0; i < columns; i++) {
+         Map<String, Object> column = new HashMap<String, Object>();
+         column.put(DTConstants.DT_DATA, "property" + i);
+         column.put(DTConstants.DT_SORTABLE, i % 2 == 0);
+         column.put(DTConstants.DT_SEARCHABLE, true);
+         column.put(DTConstants.DT_S_CLASS, "column \"" + i + "\"");
+         columnConfigs.add(column);
+      }
+
+      config = new HashMap<String, Object>();
+      config.put(DTConstants.DT_AOCOLUMNS, columnConfigs);
+      config.put(DTConstants.DT_PAGING, true);
+      config.put(DTConstants.DT_PAGE_LENGTH, 25);
+      config.put(DTConstants.DT_A_LENGTH_MENU, Arrays.asList(10, 25, 50, 100));
+      config.put(DTConstants.DT_DOM, "lfrtip");
+      config.put("drawCallback", new JsFunction("console.log('drawn');", "settings"));
+   }
+
+   @Benchmark
+   public String configWriter() {
+      return ConfigWriter.appendTo(config, new StringBuilder(1024)).toString();
+   }
+
+   @Benchmark
+   public String jsonSimple() {
+      return JSONValue.toJSONString(config);
+   }
+}
@@ -0,0 +1,99 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.github.dandelion.datatables.core.ajax.DatatablesCriterias;
+
+/**
+ * <p>
+ * Parsing of a server-side DataTables request by
+ * {@link DatatablesCriterias#getFromRequest(javax.servlet.http.HttpServletRequest)}
+ * , for 10, 50 and 200 columns, each of them searchable and orderable, and
+ * ordered on every tenth column.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DatatablesCriteriasBenchmark {
+
+   @Param({ "10", "50", "200" })
+   private int columns;
+
+   private MockHttpServletRequest request;
+
+   @Setup
+   public void setup() {
+      request = new MockHttpServletRequest();
+      request.addParameter("draw", "3");
+      request.addParameter("start", "20");
+      request.addParameter("length", "10");
+      request.addParameter("search[value]", "sel");
+      request.addParameter("search[regex]", "false");
+      for (int i = 0; i < columns; i++) {
+         request.addParameter("columns[" + i + "][data]", "property" + i);
+         request.addParameter("columns[" + i + "][name]", "");
+         request.addParameter("columns[" + i + "][searchable]", "true");
+         request.addParameter("columns[" + i + "][orderable]", "true");
+         request.addParameter("columns[" + i + "][search][value]", i % 5 == 0 ? "a~b" : "");
+         request.addParameter("columns[" + i + "][search][regex]", "false");
+      }
+      for (int j = 0; j * 10 < columns; j++) {
+         request.addParameter("order[" + j + "][column]", String.valueOf(j * 10));
+         request.addParameter("order[" + j + "][dir]", j % 2 == 0 ? "asc" : "desc");
+      }
+   }
+
+   @Benchmark
+   public DatatablesCriterias getFromRequest() {
+      return DatatablesCriterias.getFromRequest(request);
+   }
+}
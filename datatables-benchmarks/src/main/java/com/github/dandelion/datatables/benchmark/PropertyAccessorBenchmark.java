@@ -0,0 +1,145 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.beanutils.PropertyUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.dandelion.datatables.core.util.PropertyAccessor;
+
+/**
+ * <p>
+ * Compares the {@link PropertyAccessor} with
+ * {@link PropertyUtils#getNestedProperty(Object, String)}, which it replaced,
+ * when reading a simple and a nested property, as done for each cell of a
+ * table.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PropertyAccessorBenchmark {
+
+   @Param({ "name", "address.town.name" })
+   private String path;
+
+   private Person person;
+   private PropertyAccessor accessor;
+
+   @Setup
+   public void setup() {
+      person = new Person("Selma", new Address("947 St.", new Town("Denny")));
+      accessor = PropertyAccessor.compile(path);
+   }
+
+   @Benchmark
+   public Object propertyAccessor() throws Exception {
+      return accessor.getValue(person);
+   }
+
+   @Benchmark
+   public Object propertyAccessorLookup() throws Exception {
+      return PropertyAccessor.getValue(person, path);
+   }
+
+   @Benchmark
+   public Object propertyUtils() throws Exception {
+      return PropertyUtils.getNestedProperty(person, path);
+   }
+
+   public static class Person {
+
+      private final String name;
+      private final Address address;
+
+      public Person(String name, Address address) {
+         this.name = name;
+         this.address = address;
+      }
+
+      public String getName() {
+         return name;
+      }
+
+      public Address getAddress() {
+         return address;
+      }
+   }
+
+   public static class Address {
+
+      private final String street;
+      private final Town town;
+
+      public Address(String street, Town town) {
+         this.street = street;
+         this.town = town;
+      }
+
+      public String getStreet() {
+         return street;
+      }
+
+      public Town getTown() {
+         return town;
+      }
+   }
+
+   public static class Town {
+
+      private final String name;
+
+      public Town(String name) {
+         this.name = name;
+      }
+
+      public String getName() {
+         return name;
+      }
+   }
+}
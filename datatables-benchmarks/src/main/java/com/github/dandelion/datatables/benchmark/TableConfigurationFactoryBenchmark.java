@@ -0,0 +1,121 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterConfig;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.github.dandelion.core.Context;
+import com.github.dandelion.core.web.WebConstants;
+import com.github.dandelion.datatables.core.option.TableConfiguration;
+import com.github.dandelion.datatables.core.option.TableConfigurationFactory;
+
+/**
+ * <p>
+ * Throughput of {@link TableConfigurationFactory#newInstance(String, javax.servlet.http.HttpServletRequest, String)}
+ * , called once per rendered table, at 1, 8 and 32 threads.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableConfigurationFactoryBenchmark {
+
+   /**
+    * Dandelion context, shared by all threads.
+    */
+   @State(Scope.Benchmark)
+   public static class SharedContext {
+
+      private Context context;
+
+      @Setup
+      public void setup() {
+         context = new Context(new MockFilterConfig());
+      }
+
+      @TearDown
+      public void tearDown() {
+         TableConfigurationFactory.clear();
+      }
+   }
+
+   /**
+    * Request of each thread.
+    */
+   @State(Scope.Thread)
+   public static class ThreadRequest {
+
+      private MockHttpServletRequest request;
+
+      @Setup
+      public void setup(SharedContext sharedContext) {
+         request = new MockHttpServletRequest();
+         request.setAttribute(WebConstants.DANDELION_CONTEXT_ATTRIBUTE, sharedContext.context);
+      }
+   }
+
+   @Benchmark
+   @Threads(1)
+   public TableConfiguration newInstance1Thread(ThreadRequest state) {
+      return TableConfigurationFactory.newInstance("myTable", state.request, null);
+   }
+
+   @Benchmark
+   @Threads(8)
+   public TableConfiguration newInstance8Threads(ThreadRequest state) {
+      return TableConfigurationFactory.newInstance("myTable", state.request, null);
+   }
+
+   @Benchmark
+   @Threads(32)
+   public TableConfiguration newInstance32Threads(ThreadRequest state) {
+      return TableConfigurationFactory.newInstance("myTable", state.request, null);
+   }
+}
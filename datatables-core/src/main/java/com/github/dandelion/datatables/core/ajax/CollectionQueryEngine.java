@@ -0,0 +1,617 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.ajax;
+
+import java.math.BigDecimal;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.dandelion.core.DandelionException;
+import com.github.dandelion.core.util.StringUtils;
+import com.github.dandelion.core.util.Validate;
+import com.github.dandelion.datatables.core.ajax.ColumnDef.SortDirection;
+import com.github.dandelion.datatables.core.util.PropertyAccessor;
+
+/**
+ * <p>
+ * Evaluates {@link DatatablesCriterias} against a collection held in memory,
+ * and returns the requested page as a {@link DataSet}.
+ * </p>
+ * <p>
+ * The first query builds a snapshot of the collection. Then, for each property
+ * involved in a query, the following indexes are lazily built and reused by
+ * all subsequent queries:
+ * </p>
+ * <ul>
+ * <li>a sort index, i.e. the rows sorted by the property value, used for
+ * sorting and for the range filters ({@code searchFrom}/{@code searchTo}),
+ * answered by binary search</li>
+ * <li>a token index, i.e. the lowercase words of the property value and the
+ * rows containing them, used for the global and column searches</li>
+ * </ul>
+ * <p>
+ * The filtered and sorted rows of the most recent queries are also cached, so
+ * that paging through the same query only costs the size of the page.
+ * </p>
+ * <p>
+ * The indexes are rebuilt when the size of the source collection changes. If
+ * the collection is modified without its size changing, e.g. when an element
+ * is replaced or mutated, {@link #invalidate()} must be called.
+ * </p>
+ * <p>
+ * Searches are case-insensitive and follow the DataTables "smart" search: the
+ * search is split on whitespace and each word must be contained in the value
+ * of at least one searchable column. Strings are sorted case-insensitively and
+ * {@code null} values come first in ascending order.
+ * </p>
+ * 
+ * @param <T>
+ *           Type of the rows.
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+public class CollectionQueryEngine<T> {
+
+   private static final Logger LOG = LoggerFactory.getLogger(CollectionQueryEngine.class);
+
+   /**
+    * Maximum number of query results (filtered and sorted rows) kept per index.
+    */
+   public static final int MAX_CACHED_RESULTS = 32;
+
+   private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+
+   private final Collection<? extends T> source;
+   private volatile Index<T> index;
+
+   public CollectionQueryEngine(Collection<? extends T> source) {
+      Validate.notNull(source, "The source collection cannot be null");
+      this.source = source;
+   }
+
+   /**
+    * <p>
+    * Discards all indexes, which will be rebuilt during the next query.
+    * </p>
+    */
+   public void invalidate() {
+      this.index = null;
+   }
+
+   /**
+    * <p>
+    * Filters, sorts and pages the source collection according to the passed
+    * criterias.
+    * </p>
+    * 
+    * @param criterias
+    *           The criterias sent by DataTables.
+    * @return the rows of the requested page, along with the total and
+    *         filtered number of rows.
+    */
+   public DataSet<T> query(DatatablesCriterias criterias) {
+      Validate.notNull(criterias, "The criterias cannot be null");
+
+      Index<T> current = getIndex();
+      int[] result = current.getResult(criterias);
+
+      int start = criterias.getStart() != null && criterias.getStart() > 0 ? criterias.getStart() : 0;
+      int length = criterias.getLength() != null && criterias.getLength() >= 0 ? criterias.getLength()
+            : result.length;
+      int end = (int) Math.min((long) start + length, result.length);
+
+      List<T> page = new ArrayList<T>(Math.max(end - start, 0));
+      for (int i = start; i < end; i++) {
+         page.add(current.rows.get(result[i]));
+      }
+      return new DataSet<T>(page, (long) current.rows.size(), (long) result.length);
+   }
+
+   private synchronized Index<T> getIndex() {
+      Index<T> current = index;
+      if (current == null || current.rows.size() != source.size()) {
+         current = new Index<T>(new ArrayList<T>(source));
+         index = current;
+      }
+      return current;
+   }
+
+   /**
+    * Snapshot of the source collection and its indexes.
+    */
+   private static final class Index<T> {
+
+      private final List<T> rows;
+      private final Map<String, Column> columns = new ConcurrentHashMap<String, Column>();
+      private final Map<String, int[]> results = Collections.synchronizedMap(new LinkedHashMap<String, int[]>(16,
+            0.75f, true) {
+         private static final long serialVersionUID = 1L;
+
+         @Override
+         protected boolean removeEldestEntry(Map.Entry<String, int[]> eldest) {
+            return size() > MAX_CACHED_RESULTS;
+         }
+      });
+
+      private Index(List<T> rows) {
+         this.rows = rows;
+      }
+
+      private Column getColumn(String property) {
+         Column column = columns.get(property);
+         if (column == null) {
+            column = new Column(property, rows);
+            columns.put(property, column);
+         }
+         return column;
+      }
+
+      private int[] getResult(DatatablesCriterias criterias) {
+         String sortKey = criterias.getSortSignature();
+         String key = criterias.getFilterSignature() + sortKey;
+         int[] result = results.get(key);
+         if (result == null) {
+            int[] order = getSortOrder(criterias, sortKey);
+            BitSet matches = filter(criterias);
+            if (matches == null) {
+               result = order;
+            }
+            else {
+               result = new int[matches.cardinality()];
+               int i = 0;
+               for (int id : order) {
+                  if (matches.get(id)) {
+                     result[i++] = id;
+                  }
+               }
+            }
+            results.put(key, result);
+         }
+         return result;
+      }
+
+      private int[] getSortOrder(DatatablesCriterias criterias, String sortKey) {
+         int[] order = results.get(sortKey);
+         if (order != null) {
+            return order;
+         }
+
+         List<Column> sorted = new ArrayList<Column>();
+         final List<int[]> ranks = new ArrayList<int[]>();
+         final List<Boolean> descending = new ArrayList<Boolean>();
+         if (criterias.getSortedColumnDefs() != null) {
+            for (ColumnDef columnDef : criterias.getSortedColumnDefs()) {
+               if (StringUtils.isNotBlank(columnDef.getName())) {
+                  Column column = getColumn(columnDef.getName());
+                  sorted.add(column);
+                  ranks.add(column.getRanks());
+                  descending.add(columnDef.getSortDirection() == SortDirection.DESC);
+               }
+            }
+         }
+
+         if (sorted.size() == 1 && !descending.get(0)) {
+            order = sorted.get(0).getAscendingOrder();
+         }
+         else {
+            Integer[] ids = new Integer[rows.size()];
+            for (int i = 0; i < ids.length; i++) {
+               ids[i] = i;
+            }
+            if (!ranks.isEmpty()) {
+               Arrays.sort(ids, new Comparator<Integer>() {
+
+                  @Override
+                  public int compare(Integer a, Integer b) {
+                     for (int i = 0; i < ranks.size(); i++) {
+                        int[] rank = ranks.get(i);
+                        int result = rank[a] - rank[b];
+                        if (result != 0) {
+                           return descending.get(i) ? -result : result;
+                        }
+                     }
+                     return a - b;
+                  }
+               });
+            }
+            order = new int[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+               order[i] = ids[i];
+            }
+         }
+         results.put(sortKey, order);
+         return order;
+      }
+
+      /**
+       * @return the rows matching the global and column searches, or
+       *         {@code null} if no filtering is requested.
+       */
+      private BitSet filter(DatatablesCriterias criterias) {
+         BitSet matches = null;
+         List<ColumnDef> columnDefs = criterias.getColumnDefs() != null ? criterias.getColumnDefs()
+               : Collections.<ColumnDef> emptyList();
+
+         if (StringUtils.isNotBlank(criterias.getSearch())) {
+            List<Column> searchable = new ArrayList<Column>();
+            for (ColumnDef columnDef : columnDefs) {
+               if (columnDef.isSearchable() && StringUtils.isNotBlank(columnDef.getName())) {
+                  searchable.add(getColumn(columnDef.getName()));
+               }
+            }
+            matches = and(matches, search(searchable, criterias.getSearch()));
+         }
+
+         for (ColumnDef columnDef : columnDefs) {
+            if (!columnDef.isFiltered() || StringUtils.isBlank(columnDef.getName())) {
+               continue;
+            }
+            Column column = getColumn(columnDef.getName());
+            if (StringUtils.isNotBlank(columnDef.getSearch())) {
+               if (Boolean.parseBoolean(columnDef.getRegex())) {
+                  matches = and(matches, column.matchRegex(columnDef.getSearch()));
+               }
+               else {
+                  matches = and(matches, search(Collections.singletonList(column), columnDef.getSearch()));
+               }
+            }
+            if (StringUtils.isNotBlank(columnDef.getSearchFrom()) || StringUtils.isNotBlank(columnDef.getSearchTo())) {
+               matches = and(matches, column.matchRange(columnDef.getSearchFrom(), columnDef.getSearchTo()));
+            }
+         }
+         return matches;
+      }
+
+      private BitSet search(List<Column> columns, String search) {
+         BitSet matches = null;
+         for (String word : WHITESPACES.split(search.trim().toLowerCase())) {
+            BitSet wordMatches = new BitSet(rows.size());
+            for (Column column : columns) {
+               column.getTokens().addMatches(word, wordMatches);
+            }
+            matches = and(matches, wordMatches);
+         }
+         return matches;
+      }
+
+      private static BitSet and(BitSet matches, BitSet other) {
+         if (matches == null) {
+            return other;
+         }
+         matches.and(other);
+         return matches;
+      }
+   }
+
+   /**
+    * Values of a property for all rows, along with the lazily built indexes.
+    */
+   private static final class Column {
+
+      private final String property;
+      private final Object[] values;
+      private int[] ascendingOrder;
+      private int[] ranks;
+      private TokenIndex tokens;
+
+      private Column(String property, List<?> rows) {
+         this.property = property;
+         this.values = new Object[rows.size()];
+         PropertyAccessor accessor = PropertyAccessor.compile(property);
+         for (int i = 0; i < values.length; i++) {
+            try {
+               values[i] = accessor.getValue(rows.get(i));
+            }
+            catch (Exception e) {
+               throw new DandelionException("Unable to read the property '" + property + "' of the row " + i, e);
+            }
+         }
+      }
+
+      /**
+       * @return the row ids, sorted by ascending value.
+       */
+      private synchronized int[] getAscendingOrder() {
+         if (ascendingOrder == null) {
+            Integer[] ids = new Integer[values.length];
+            for (int i = 0; i < ids.length; i++) {
+               ids[i] = i;
+            }
+            Arrays.sort(ids, new Comparator<Integer>() {
+
+               @Override
+               public int compare(Integer a, Integer b) {
+                  return compareValues(values[a], values[b]);
+               }
+            });
+
+            int[] order = new int[ids.length];
+            int[] rankOfRow = new int[ids.length];
+            int rank = 0;
+            for (int i = 0; i < ids.length; i++) {
+               order[i] = ids[i];
+               if (i > 0 && compareValues(values[order[i - 1]], values[order[i]]) != 0) {
+                  rank++;
+               }
+               rankOfRow[order[i]] = rank;
+            }
+            ascendingOrder = order;
+            ranks = rankOfRow;
+         }
+         return ascendingOrder;
+      }
+
+      /**
+       * @return for each row, the rank of its value, equal values sharing the
+       *         same rank.
+       */
+      private synchronized int[] getRanks() {
+         getAscendingOrder();
+         return ranks;
+      }
+
+      private synchronized TokenIndex getTokens() {
+         if (tokens == null) {
+            tokens = new TokenIndex(values);
+         }
+         return tokens;
+      }
+
+      private BitSet matchRegex(String regex) {
+         BitSet matches = new BitSet(values.length);
+         Pattern pattern;
+         try {
+            pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+         }
+         catch (PatternSyntaxException e) {
+            LOG.debug("Invalid regex '{}' for the property '{}', no row matches", regex, property);
+            return matches;
+         }
+         for (int i = 0; i < values.length; i++) {
+            if (values[i] != null && pattern.matcher(values[i].toString()).find()) {
+               matches.set(i);
+            }
+         }
+         return matches;
+      }
+
+      /**
+       * <p>
+       * Returns the rows whose value is between the passed bounds (inclusive),
+       * using a binary search on the sort index. The bounds are compared as
+       * numbers or dates when the values are, and as strings otherwise. A
+       * blank bound is ignored, as well as an unparseable one.
+       * </p>
+       */
+      private BitSet matchRange(String from, String to) {
+         int[] order = getAscendingOrder();
+
+         // Null values come first and never match a range
+         int low = 0;
+         int high = order.length;
+         while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[order[middle]] == null) {
+               low = middle + 1;
+            }
+            else {
+               high = middle;
+            }
+         }
+         high = order.length;
+         Object fromBound = toBound(from);
+         if (fromBound != null) {
+            low = Math.max(low, firstIndex(order, fromBound, false));
+         }
+         Object toBound = toBound(to);
+         if (toBound != null) {
+            high = firstIndex(order, toBound, true);
+         }
+
+         BitSet matches = new BitSet(values.length);
+         for (int i = low; i < high; i++) {
+            matches.set(order[i]);
+         }
+         return matches;
+      }
+
+      /**
+       * @return the index in the sort order of the first value greater than
+       *         (or equal to, unless {@code strict} is {@code false}) the
+       *         bound.
+       */
+      private int firstIndex(int[] order, Object bound, boolean strict) {
+         int low = 0;
+         int high = order.length;
+         while (low < high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareValues(values[order[middle]], bound);
+            if (comparison < 0 || strict && comparison == 0) {
+               low = middle + 1;
+            }
+            else {
+               high = middle;
+            }
+         }
+         return low;
+      }
+
+      /**
+       * Converts a range bound to the type of the values of the column.
+       */
+      private Object toBound(String bound) {
+         if (StringUtils.isBlank(bound)) {
+            return null;
+         }
+         String trimmed = bound.trim();
+         Object sample = null;
+         for (int i = 0; i < values.length && sample == null; i++) {
+            sample = values[i];
+         }
+         try {
+            if (sample instanceof Number) {
+               return new BigDecimal(trimmed);
+            }
+            else if (sample instanceof Date) {
+               try {
+                  return new Date(Long.parseLong(trimmed));
+               }
+               catch (NumberFormatException e) {
+                  SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+                  format.setLenient(false);
+                  return format.parse(trimmed);
+               }
+            }
+         }
+         catch (NumberFormatException e) {
+            LOG.debug("Ignoring the invalid bound '{}' of the property '{}'", bound, property);
+            return null;
+         }
+         catch (ParseException e) {
+            LOG.debug("Ignoring the invalid bound '{}' of the property '{}'", bound, property);
+            return null;
+         }
+         return trimmed;
+      }
+   }
+
+   /**
+    * Inverted index of the lowercase words contained in the values of a
+    * column.
+    */
+   private static final class TokenIndex {
+
+      private final String[] tokens;
+      private final int[][] postings;
+
+      private TokenIndex(Object[] values) {
+         Map<String, List<Integer>> rowsByToken = new TreeMap<String, List<Integer>>();
+         for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+               continue;
+            }
+            String value = values[i].toString().trim().toLowerCase();
+            if (value.length() == 0) {
+               continue;
+            }
+            for (String token : WHITESPACES.split(value)) {
+               List<Integer> rows = rowsByToken.get(token);
+               if (rows == null) {
+                  rows = new ArrayList<Integer>(2);
+                  rowsByToken.put(token, rows);
+               }
+               if (rows.isEmpty() || rows.get(rows.size() - 1) != i) {
+                  rows.add(i);
+               }
+            }
+         }
+
+         tokens = new String[rowsByToken.size()];
+         postings = new int[rowsByToken.size()][];
+         int t = 0;
+         for (Map.Entry<String, List<Integer>> entry : rowsByToken.entrySet()) {
+            tokens[t] = entry.getKey();
+            List<Integer> rows = entry.getValue();
+            postings[t] = new int[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+               postings[t][i] = rows.get(i);
+            }
+            t++;
+         }
+      }
+
+      /**
+       * <p>
+       * Adds the rows containing the passed word to {@code matches}. Since the
+       * word does not contain any whitespace, it is contained in a value if
+       * and only if it is contained in one of its tokens, so that only the
+       * distinct tokens have to be scanned, not the rows.
+       * </p>
+       */
+      private void addMatches(String word, BitSet matches) {
+         for (int t = 0; t < tokens.length; t++) {
+            if (tokens[t].contains(word)) {
+               for (int row : postings[t]) {
+                  matches.set(row);
+               }
+            }
+         }
+      }
+   }
+
+   @SuppressWarnings({ "unchecked", "rawtypes" })
+   private static int compareValues(Object a, Object b) {
+      if (a == b) {
+         return 0;
+      }
+      else if (a == null) {
+         return -1;
+      }
+      else if (b == null) {
+         return 1;
+      }
+      else if (a instanceof String && b instanceof String) {
+         return String.CASE_INSENSITIVE_ORDER.compare((String) a, (String) b);
+      }
+      else if (a instanceof Comparable && a.getClass() == b.getClass()) {
+         return ((Comparable) a).compareTo(b);
+      }
+      else if (a instanceof Number && b instanceof Number) {
+         try {
+            return new BigDecimal(a.toString()).compareTo(new BigDecimal(b.toString()));
+         }
+         catch (NumberFormatException e) {
+            // NaN or infinite values
+            return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+         }
+      }
+      else if (a instanceof Date && b instanceof Date) {
+         return ((Date) a).compareTo((Date) b);
+      }
+      return String.CASE_INSENSITIVE_ORDER.compare(a.toString(), b.toString());
+   }
+}
@@ -0,0 +1,210 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.ajax;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.dandelion.core.util.StringUtils;
+import com.github.dandelion.core.util.Validate;
+
+/**
+ * <p>
+ * Provides the record counts of a {@link DataSet} for a given table, without
+ * counting the rows on every draw.
+ * </p>
+ * <ul>
+ * <li>the total number of rows is counted once, until {@link #invalidate()} is
+ * called</li>
+ * <li>the number of filtered rows is remembered per
+ * {@link DatatablesCriterias#getFilterSignature() filter signature}, so that
+ * sorting or paging through the same search does not count the rows again</li>
+ * <li>if a threshold is set, counting stops past it and the threshold is
+ * reported instead, the {@link DataSet} being flagged as
+ * {@link DataSet#isApproximate() approximate}. DataTables then pages through
+ * the first rows as if there were exactly as many as the threshold</li>
+ * </ul>
+ * <p>
+ * One instance must be used per table, and {@link #invalidate()} must be
+ * called whenever its rows are modified.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+public class CountProvider {
+
+   /**
+    * Maximum number of remembered filtered counts.
+    */
+   public static final int MAX_CACHED_COUNTS = 1000;
+
+   private final RecordCounter counter;
+   private final long threshold;
+   private volatile Long totalRecords;
+   private final Map<String, Long> filteredCounts = Collections.synchronizedMap(new LinkedHashMap<String, Long>(16,
+         0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+         return size() > MAX_CACHED_COUNTS;
+      }
+   });
+
+   /**
+    * Creates a provider of exact counts.
+    */
+   public CountProvider(RecordCounter counter) {
+      this(counter, -1);
+   }
+
+   /**
+    * @param counter
+    *           The counter called on a cache miss.
+    * @param threshold
+    *           The number of rows past which counting stops, a negative
+    *           threshold meaning exact counts.
+    */
+   public CountProvider(RecordCounter counter, long threshold) {
+      Validate.notNull(counter, "The record counter cannot be null");
+      this.counter = counter;
+      this.threshold = threshold;
+   }
+
+   /**
+    * @return the total number of rows, capped at the threshold if any.
+    */
+   public long getTotalRecords() {
+      return report(countTotal());
+   }
+
+   /**
+    * @param criterias
+    *           The criterias sent by DataTables.
+    * @return the number of rows matching the searches of the criterias,
+    *         capped at the threshold if any.
+    */
+   public long getTotalDisplayRecords(DatatablesCriterias criterias) {
+      return report(countFiltered(criterias));
+   }
+
+   /**
+    * @return {@code true} if the total or the filtered number of rows has
+    *         been capped at the threshold.
+    */
+   public boolean isApproximate(DatatablesCriterias criterias) {
+      return isCapped(countTotal()) || isCapped(countFiltered(criterias));
+   }
+
+   /**
+    * @return a {@link DataSet} holding the passed rows and the counts matching
+    *         the criterias.
+    */
+   public <T> DataSet<T> getDataSet(List<T> rows, DatatablesCriterias criterias) {
+      DataSet<T> dataSet = new DataSet<T>(rows, getTotalRecords(), getTotalDisplayRecords(criterias));
+      dataSet.approximate = isApproximate(criterias);
+      return dataSet;
+   }
+
+   /**
+    * @return an iterator-backed {@link DataSet} holding the passed rows and
+    *         the counts matching the criterias.
+    * @see DataSet#fromIterator(Iterator, Long, Long)
+    */
+   public <T> DataSet<T> getDataSet(Iterator<T> rows, DatatablesCriterias criterias) {
+      DataSet<T> dataSet = DataSet.fromIterator(rows, getTotalRecords(), getTotalDisplayRecords(criterias));
+      dataSet.approximate = isApproximate(criterias);
+      return dataSet;
+   }
+
+   /**
+    * Forgets all counts, which are counted again on the next draw.
+    */
+   public void invalidate() {
+      totalRecords = null;
+      filteredCounts.clear();
+   }
+
+   public long getThreshold() {
+      return threshold;
+   }
+
+   /**
+    * @return the number of remembered filtered counts.
+    */
+   public int getCachedCountCount() {
+      return filteredCounts.size();
+   }
+
+   private long countTotal() {
+      Long count = totalRecords;
+      if (count == null) {
+         count = counter.countTotal(getLimit());
+         totalRecords = count;
+      }
+      return count;
+   }
+
+   private long countFiltered(DatatablesCriterias criterias) {
+      if (!isFiltered(criterias)) {
+         return countTotal();
+      }
+      String signature = criterias.getFilterSignature();
+      Long count = filteredCounts.get(signature);
+      if (count == null) {
+         count = counter.countFiltered(criterias, getLimit());
+         filteredCounts.put(signature, count);
+      }
+      return count;
+   }
+
+   /**
+    * Counting up to one row past the threshold tells whether it is exceeded.
+    */
+   private long getLimit() {
+      return threshold >= 0 ? threshold + 1 : -1;
+   }
+
+   private long report(long count) {
+      return isCapped(count) ? threshold : count;
+   }
+
+   private boolean isCapped(long count) {
+      return threshold >= 0 && count > threshold;
+   }
+
+   private static boolean isFiltered(DatatablesCriterias criterias) {
+      return StringUtils.isNotBlank(criterias.getSearch()) || criterias.hasOneFilteredColumn();
+   }
+}
@@ -29,21 +29,33 @@
  */
 package com.github.dandelion.datatables.core.ajax;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 /**
  * <p>
  * Wrapping bean that must be sent back to Datatables when server-side
  * processing is enabled.
+ * </p>
+ * <p>
+ * The rows can either be held in a {@link List} or be backed by an
+ * {@link Iterator} (e.g. over a database cursor), see
+ * {@link #fromIterator(Iterator, Long, Long)}. In the latter case, the rows can
+ * be streamed to the response using {@link DatatablesResponseWriter} without
+ * ever being loaded together in memory.
+ * </p>
  * 
  * @author Thibault Duchateau
  * @since 0.8.2
  */
 public final class DataSet<T> {
 
-   private final List<T> rows;
+   private List<T> rows;
+   private Iterator<T> rowIterator;
    private final Long totalDisplayRecords;
    private final Long totalRecords;
+   boolean approximate;
 
    public DataSet(List<T> rows, Long totalRecords, Long totalDisplayRecords) {
       this.rows = rows;
@@ -51,10 +63,82 @@ public final class DataSet<T> {
       this.totalDisplayRecords = totalDisplayRecords;
    }
 
+   /**
+    * <p>
+    * Creates a {@link DataSet} whose rows are lazily read from the passed
+    * iterator.
+    * </p>
+    * <p>
+    * The iterator can only be consumed once. If it implements
+    * {@link java.io.Closeable}, it is closed by the
+    * {@link DatatablesResponseWriter} once all rows have been written.
+    * </p>
+    * 
+    * @param rows
+    *           The iterator over the rows to send back.
+    * @param totalRecords
+    *           Total number of records, before filtering.
+    * @param totalDisplayRecords
+    *           Total number of records, after filtering.
+    * @return a new iterator-backed {@link DataSet}.
+    * @since 1.1.1
+    */
+   public static <T> DataSet<T> fromIterator(Iterator<T> rows, Long totalRecords, Long totalDisplayRecords) {
+      DataSet<T> dataSet = new DataSet<T>(null, totalRecords, totalDisplayRecords);
+      dataSet.rowIterator = rows;
+      return dataSet;
+   }
+
+   /**
+    * <p>
+    * Returns the rows as a {@link List}. When the {@link DataSet} is backed by
+    * an iterator, the remaining rows are first drained into a list.
+    * </p>
+    * 
+    * @return the rows of the {@link DataSet}.
+    */
    public List<T> getRows() {
+      if (rows == null && rowIterator != null) {
+         List<T> drained = new ArrayList<T>();
+         while (rowIterator.hasNext()) {
+            drained.add(rowIterator.next());
+         }
+         rows = drained;
+         rowIterator = null;
+      }
       return rows;
    }
 
+   /**
+    * @return an iterator over the rows, which is the backing iterator itself
+    *         for an iterator-backed {@link DataSet}, or {@code null} if there
+    *         are no rows.
+    * @since 1.1.1
+    */
+   public Iterator<T> getRowIterator() {
+      if (rowIterator != null) {
+         return rowIterator;
+      }
+      return rows != null ? rows.iterator() : null;
+   }
+
+   /**
+    * @return {@code true} if the rows are read lazily from an iterator.
+    * @since 1.1.1
+    */
+   public boolean isIteratorBacked() {
+      return rowIterator != null;
+   }
+
+   /**
+    * @return {@code true} if the counts have been capped by a
+    *         {@link CountProvider}, in which case they are lower bounds.
+    * @since 1.1.1
+    */
+   public boolean isApproximate() {
+      return approximate;
+   }
+
    public Long getTotalDisplayRecords() {
       return totalDisplayRecords;
    }
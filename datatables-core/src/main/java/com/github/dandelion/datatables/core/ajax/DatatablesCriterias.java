@@ -31,17 +31,15 @@ package com.github.dandelion.datatables.core.ajax;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Enumeration;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.dandelion.core.DandelionException;
 import com.github.dandelion.core.util.StringUtils;
 import com.github.dandelion.core.util.Validate;
 import com.github.dandelion.datatables.core.ajax.ColumnDef.SortDirection;
@@ -63,7 +61,17 @@ public class DatatablesCriterias implements Serializable {
 
    private static final Logger LOG = LoggerFactory.getLogger(DatatablesCriterias.class);
 
-   private static Pattern pattern = Pattern.compile("columns\\[([0-9]*)?\\]");
+   /**
+    * Maximum number of columns accepted in a request, protecting the server
+    * against oversized requests.
+    */
+   public static final int MAX_COLUMNS = 500;
+
+   private static final String COLUMNS_PREFIX = "columns[";
+   private static final String ORDER_PREFIX = "order[";
+   private static final String[] COLUMN_FIELDS = { "[data]", "[searchable]", "[orderable]", "[search][regex]",
+         "[search][value]" };
+
    private final String search;
    private final Integer start;
    private final Integer length;
@@ -162,86 +170,123 @@ public class DatatablesCriterias implements Serializable {
     * <p>
     * Map all request parameters into a wrapper POJO that eases SQL querying.
     * </p>
+    * <p>
+    * The parameters are read in a single pass over the parameter map: the
+    * {@code columns[i][...]} and {@code order[j][...]} parameters are
+    * dispatched by index, then the {@link ColumnDef}s are built directly.
+    * </p>
     * 
     * @param request
     *           The request sent by Datatables containing all parameters.
     * @return a wrapper POJO.
+    * @throws DandelionException
+    *            if the request refers to more than {@link #MAX_COLUMNS}
+    *            columns.
     */
    public static DatatablesCriterias getFromRequest(HttpServletRequest request) {
 
       Validate.notNull(request, "The HTTP request cannot be null");
 
-      int columnNumber = getColumnNumber(request);
-      LOG.trace("Number of columns: {}", columnNumber);
+      String paramSearch = null;
+      String paramDraw = null;
+      String paramStart = null;
+      String paramLength = null;
+
+      List<String[]> columnParams = new ArrayList<String[]>();
+      List<String[]> orderParams = new ArrayList<String[]>();
+
+      for (Map.Entry<String, String[]> entry : request.getParameterMap().entrySet()) {
+         String name = entry.getKey();
+         String value = entry.getValue() != null && entry.getValue().length > 0 ? entry.getValue()[0] : null;
+
+         if (name.startsWith(COLUMNS_PREFIX)) {
+            int index = parseIndex(name, COLUMNS_PREFIX.length());
+            if (index != -1) {
+               if (index >= MAX_COLUMNS) {
+                  throw new DandelionException("The request exceeds the maximum number of columns ("
+                        + MAX_COLUMNS + ")");
+               }
+               String[] params = getParams(columnParams, index, COLUMN_FIELDS.length);
+               String field = name.substring(name.indexOf(']') + 1);
+               for (int i = 0; i < COLUMN_FIELDS.length; i++) {
+                  if (COLUMN_FIELDS[i].equals(field)) {
+                     params[i] = value;
+                     break;
+                  }
+               }
+            }
+         }
+         else if (name.startsWith(ORDER_PREFIX)) {
+            int index = parseIndex(name, ORDER_PREFIX.length());
+            if (index != -1 && index < MAX_COLUMNS) {
+               String[] params = getParams(orderParams, index, 2);
+               String field = name.substring(name.indexOf(']') + 1);
+               if ("[column]".equals(field)) {
+                  params[0] = value;
+               }
+               else if ("[dir]".equals(field)) {
+                  params[1] = value;
+               }
+            }
+         }
+         else if (DTConstants.DT_S_SEARCH.equals(name)) {
+            paramSearch = value;
+         }
+         else if (DTConstants.DT_I_DRAW.equals(name)) {
+            paramDraw = value;
+         }
+         else if (DTConstants.DT_I_START.equals(name)) {
+            paramStart = value;
+         }
+         else if (DTConstants.DT_I_LENGTH.equals(name)) {
+            paramLength = value;
+         }
+      }
 
-      String paramSearch = request.getParameter(DTConstants.DT_S_SEARCH);
-      String paramDraw = request.getParameter(DTConstants.DT_I_DRAW);
-      String paramStart = request.getParameter(DTConstants.DT_I_START);
-      String paramLength = request.getParameter(DTConstants.DT_I_LENGTH);
+      int columnNumber = columnParams.size();
+      LOG.trace("Number of columns: {}", columnNumber);
 
       Integer draw = StringUtils.isNotBlank(paramDraw) ? Integer.parseInt(paramDraw) : -1;
       Integer start = StringUtils.isNotBlank(paramStart) ? Integer.parseInt(paramStart) : -1;
       Integer length = StringUtils.isNotBlank(paramLength) ? Integer.parseInt(paramLength) : -1;
 
       // Column definitions
-      List<ColumnDef> columnDefs = new ArrayList<ColumnDef>();
+      List<ColumnDef> columnDefs = new ArrayList<ColumnDef>(columnNumber);
 
-      for (int i = 0; i < columnNumber; i++) {
+      for (String[] params : columnParams) {
 
          ColumnDef columnDef = new ColumnDef();
 
-         columnDef.setName(request.getParameter("columns[" + i + "][data]"));
-         columnDef.setSearchable(Boolean.parseBoolean(request.getParameter("columns[" + i + "][searchable]")));
-         columnDef.setSortable(Boolean.parseBoolean(request.getParameter("columns[" + i + "][orderable]")));
-         columnDef.setRegex(request.getParameter("columns[" + i + "][search][regex]"));
-
-         String searchTerm = request.getParameter("columns[" + i + "][search][value]");
+         if (params != null) {
+            columnDef.setName(params[0]);
+            columnDef.setSearchable(Boolean.parseBoolean(params[1]));
+            columnDef.setSortable(Boolean.parseBoolean(params[2]));
+            columnDef.setRegex(params[3]);
 
-         if (StringUtils.isNotBlank(searchTerm)) {
-            columnDef.setFiltered(true);
-            String[] splittedSearch = searchTerm.split("~");
-            if ("~".equals(searchTerm)) {
-               columnDef.setSearch("");
-            }
-            else if (searchTerm.startsWith("~")) {
-               columnDef.setSearchTo(splittedSearch[1]);
-            }
-            else if (searchTerm.endsWith("~")) {
-               columnDef.setSearchFrom(splittedSearch[0]);
-            }
-            else if (searchTerm.contains("~")) {
-               columnDef.setSearchFrom(splittedSearch[0]);
-               columnDef.setSearchTo(splittedSearch[1]);
-            }
-            else {
-               columnDef.setSearch(searchTerm);
-            }
-         }
-
-         for (int j = 0; j < columnNumber; j++) {
-            String ordered = request.getParameter("order[" + j + "][column]");
-            if (ordered != null && ordered.equals(String.valueOf(i))) {
-               columnDef.setSorted(true);
-               break;
+            String searchTerm = params[4];
+            if (StringUtils.isNotBlank(searchTerm)) {
+               columnDef.setFiltered(true);
+               applySearchTerm(columnDef, searchTerm);
             }
          }
 
          columnDefs.add(columnDef);
       }
 
-      // Sorted column definitions
-      List<ColumnDef> sortedColumnDefs = new LinkedList<ColumnDef>();
+      // Sorted column definitions, in the order of the order[j] parameters.
+      // Only the first columnNumber order parameters are taken into account.
+      List<ColumnDef> sortedColumnDefs = new ArrayList<ColumnDef>();
 
-      for (int i = 0; i < columnNumber; i++) {
-         String paramSortedCol = request.getParameter("order[" + i + "][column]");
+      for (int j = 0; j < orderParams.size() && j < columnNumber; j++) {
+         String[] params = orderParams.get(j);
 
          // The column is being sorted
-         if (StringUtils.isNotBlank(paramSortedCol)) {
-            Integer sortedCol = Integer.parseInt(paramSortedCol);
+         if (params != null && StringUtils.isNotBlank(params[0])) {
+            Integer sortedCol = Integer.parseInt(params[0]);
             ColumnDef sortedColumnDef = columnDefs.get(sortedCol);
-            String sortedColDirection = request.getParameter("order[" + i + "][dir]");
-            if (StringUtils.isNotBlank(sortedColDirection)) {
-               sortedColumnDef.setSortDirection(SortDirection.valueOf(sortedColDirection.toUpperCase()));
+            sortedColumnDef.setSorted(true);
+            if (StringUtils.isNotBlank(params[1])) {
+               sortedColumnDef.setSortDirection(SortDirection.valueOf(params[1].toUpperCase()));
             }
 
             sortedColumnDefs.add(sortedColumnDef);
@@ -251,24 +296,140 @@ public class DatatablesCriterias implements Serializable {
       return new DatatablesCriterias(paramSearch, start, length, columnDefs, sortedColumnDefs, draw);
    }
 
-   private static int getColumnNumber(HttpServletRequest request) {
+   /**
+    * <p>
+    * Parses the index of a parameter such as {@code columns[12][data]}, where
+    * {@code offset} is the position of the first digit.
+    * </p>
+    * 
+    * @return the index, {@link #MAX_COLUMNS} if the index is greater or
+    *         {@code -1} if the parameter name is malformed.
+    */
+   private static int parseIndex(String name, int offset) {
+      int index = 0;
+      int i = offset;
+      while (i < name.length() && name.charAt(i) != ']') {
+         char c = name.charAt(i);
+         if (c < '0' || c > '9') {
+            return -1;
+         }
+         if (index >= MAX_COLUMNS) {
+            return MAX_COLUMNS;
+         }
+         index = index * 10 + (c - '0');
+         i++;
+      }
+      return i == offset || i == name.length() ? -1 : index;
+   }
 
-      int columnNumber = 0;
-      for (Enumeration<String> e = request.getParameterNames(); e.hasMoreElements();) {
-         String param = e.nextElement();
-         Matcher matcher = pattern.matcher(param);
-         while (matcher.find()) {
-            Integer col = Integer.parseInt(matcher.group(1));
-            if (col > columnNumber) {
-               columnNumber = col;
-            }
+   private static String[] getParams(List<String[]> paramsByIndex, int index, int size) {
+      while (paramsByIndex.size() <= index) {
+         paramsByIndex.add(null);
+      }
+      String[] params = paramsByIndex.get(index);
+      if (params == null) {
+         params = new String[size];
+         paramsByIndex.set(index, params);
+      }
+      return params;
+   }
+
+   /**
+    * <p>
+    * Applies the search term of a column, which is either a single value or a
+    * range of values separated by a {@code ~}.
+    * </p>
+    */
+   private static void applySearchTerm(ColumnDef columnDef, String searchTerm) {
+      int separator = searchTerm.indexOf('~');
+      if (separator == -1) {
+         columnDef.setSearch(searchTerm);
+      }
+      else if (searchTerm.length() == 1) {
+         columnDef.setSearch("");
+      }
+      else {
+         int nextSeparator = searchTerm.indexOf('~', separator + 1);
+         String from = searchTerm.substring(0, separator);
+         String to = searchTerm.substring(separator + 1, nextSeparator != -1 ? nextSeparator : searchTerm.length());
+         if (from.length() > 0) {
+            columnDef.setSearchFrom(from);
+         }
+         if (to.length() > 0) {
+            columnDef.setSearchTo(to);
          }
       }
+   }
 
-      if (columnNumber != 0) {
-         columnNumber++;
+   /**
+    * <p>
+    * Returns a canonical representation of the searches, i.e. the global
+    * search and the search of each column. It is independent from the draw
+    * counter, the sort and the paging, and can be used as a cache key for
+    * anything that only depends on the filtered rows, such as their count.
+    * </p>
+    * 
+    * @return the signature of the searches.
+    * @since 1.1.1
+    */
+   public String getFilterSignature() {
+      StringBuilder signature = new StringBuilder("search=");
+      appendEscaped(signature, search != null ? search.trim() : null).append(';');
+      for (int i = 0; i < columnDefs.size(); i++) {
+         ColumnDef columnDef = columnDefs.get(i);
+         signature.append('c').append(i).append('=');
+         appendEscaped(signature, columnDef.getName()).append(',').append(columnDef.isSearchable());
+         if (columnDef.isFiltered()) {
+            signature.append(',');
+            appendEscaped(signature, columnDef.getRegex()).append(',');
+            appendEscaped(signature, columnDef.getSearch()).append(',');
+            appendEscaped(signature, columnDef.getSearchFrom()).append(',');
+            appendEscaped(signature, columnDef.getSearchTo());
+         }
+         signature.append(';');
+      }
+      return signature.toString();
+   }
+
+   /**
+    * @return a canonical representation of the sorted columns, in order.
+    * @since 1.1.1
+    */
+   public String getSortSignature() {
+      StringBuilder signature = new StringBuilder("sort=");
+      for (ColumnDef columnDef : sortedColumnDefs) {
+         appendEscaped(signature, columnDef.getName()).append(',').append(columnDef.getSortDirection()).append(';');
+      }
+      return signature.toString();
+   }
+
+   /**
+    * <p>
+    * Returns a canonical representation of the criterias, made of the
+    * {@link #getFilterSignature() searches}, the {@link #getSortSignature()
+    * sort} and the paging. Two requests with the same signature return the
+    * same rows, whatever their draw counter.
+    * </p>
+    * 
+    * @return the signature of the criterias.
+    * @since 1.1.1
+    */
+   public String getSignature() {
+      return getFilterSignature() + getSortSignature() + "start=" + (start != null && start > 0 ? start : 0)
+            + ";length=" + (length != null && length >= 0 ? length : -1) + ";";
+   }
+
+   private static StringBuilder appendEscaped(StringBuilder signature, String value) {
+      if (value != null) {
+         for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == ',' || c == ';' || c == '=') {
+               signature.append('\\');
+            }
+            signature.append(c);
+         }
       }
-      return columnNumber;
+      return signature;
    }
 
    @Override
@@ -0,0 +1,408 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.ajax;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.dandelion.core.DandelionException;
+import com.github.dandelion.core.util.StringUtils;
+import com.github.dandelion.datatables.core.util.JsonWriter;
+import com.github.dandelion.datatables.core.util.PropertyAccessor;
+
+/**
+ * <p>
+ * Writes the JSON response expected by DataTables when server-side processing
+ * is enabled, directly to a {@link Writer} or an {@link OutputStream}.
+ * </p>
+ * <p>
+ * Unlike the serialization of a {@link DatatablesResponse} by a JSON library,
+ * no intermediate tree is built: {@code draw}, {@code recordsTotal} and
+ * {@code recordsFiltered} are written first, then the rows are written one by
+ * one while being read from the {@link DataSet}. Combined with
+ * {@link DataSet#fromIterator(Iterator, Long, Long)}, this allows a large
+ * result set to be sent back while only holding one row in memory.
+ * </p>
+ * <p>
+ * For each row:
+ * </p>
+ * <ul>
+ * <li>a bean is written as an object containing the requested properties only.
+ * Dotted properties, such as {@code address.town.name}, are written as nested
+ * objects, as expected by DataTables. Properties the bean doesn't have are
+ * skipped</li>
+ * <li>a {@link Map} is written as an object containing all its entries</li>
+ * <li>a {@link Collection} or an array is written as an array, for tables
+ * using an array data source</li>
+ * </ul>
+ * <p>
+ * When the counts of the {@link DataSet} are {@link DataSet#isApproximate()
+ * approximate}, an additional {@code recordsApproximate} property is written,
+ * which DataTables ignores but custom callbacks can use.
+ * </p>
+ * <p>
+ * Since the requested properties come from the client, only properties made
+ * of Java identifiers are read, and never the {@code class} property. Values
+ * giving access to the class loader, i.e. {@link Class}, {@link ClassLoader}
+ * and {@link ProtectionDomain} instances, reached for example through
+ * {@code status.declaringClass} on an enum, are neither written nor
+ * traversed. Passing the allowed properties, e.g. the properties of the
+ * columns of the table, restricts them further and is recommended.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+public final class DatatablesResponseWriter {
+
+   private static final String CHARSET = "UTF-8";
+
+   /**
+    * Prevent instantiation.
+    */
+   private DatatablesResponseWriter() {
+   }
+
+   /**
+    * <p>
+    * Writes the response, using the {@code data} of the columns sent by
+    * DataTables as the properties to write.
+    * </p>
+    * 
+    * @param dataSet
+    *           The rows to send back.
+    * @param criterias
+    *           The criterias extracted from the DataTables request.
+    * @param output
+    *           The stream to write to, using the UTF-8 encoding. It is flushed
+    *           but not closed.
+    */
+   public static void write(DataSet<?> dataSet, DatatablesCriterias criterias, OutputStream output)
+         throws IOException {
+      write(dataSet, criterias.getDraw(), getProperties(criterias), output);
+   }
+
+   /**
+    * <p>
+    * Writes the response, using the {@code data} of the columns sent by
+    * DataTables that are allowed as the properties to write.
+    * </p>
+    * 
+    * @param dataSet
+    *           The rows to send back.
+    * @param criterias
+    *           The criterias extracted from the DataTables request.
+    * @param output
+    *           The stream to write to, using the UTF-8 encoding. It is flushed
+    *           but not closed.
+    * @param allowedProperties
+    *           The properties that may be written, e.g. the properties of the
+    *           columns of the table.
+    */
+   public static void write(DataSet<?> dataSet, DatatablesCriterias criterias, OutputStream output,
+         Collection<String> allowedProperties) throws IOException {
+      write(dataSet, criterias.getDraw(), getProperties(criterias, allowedProperties), output);
+   }
+
+   /**
+    * <p>
+    * Writes the response, using the {@code data} of the columns sent by
+    * DataTables as the properties to write.
+    * </p>
+    * 
+    * @param dataSet
+    *           The rows to send back.
+    * @param criterias
+    *           The criterias extracted from the DataTables request.
+    * @param writer
+    *           The writer to write to. It is neither flushed nor closed.
+    */
+   public static void write(DataSet<?> dataSet, DatatablesCriterias criterias, Writer writer) throws IOException {
+      write(dataSet, criterias.getDraw(), getProperties(criterias), writer);
+   }
+
+   /**
+    * <p>
+    * Writes the response, using the {@code data} of the columns sent by
+    * DataTables that are allowed as the properties to write.
+    * </p>
+    * 
+    * @param dataSet
+    *           The rows to send back.
+    * @param criterias
+    *           The criterias extracted from the DataTables request.
+    * @param writer
+    *           The writer to write to. It is neither flushed nor closed.
+    * @param allowedProperties
+    *           The properties that may be written, e.g. the properties of the
+    *           columns of the table.
+    */
+   public static void write(DataSet<?> dataSet, DatatablesCriterias criterias, Writer writer,
+         Collection<String> allowedProperties) throws IOException {
+      write(dataSet, criterias.getDraw(), getProperties(criterias, allowedProperties), writer);
+   }
+
+   /**
+    * <p>
+    * Writes the response using the passed properties.
+    * </p>
+    * 
+    * @param dataSet
+    *           The rows to send back.
+    * @param draw
+    *           The draw counter sent by DataTables.
+    * @param properties
+    *           The properties of the beans to write. Blank and numeric
+    *           properties, used with array data sources, are ignored, as well
+    *           as the properties that are not readable.
+    * @param output
+    *           The stream to write to, using the UTF-8 encoding. It is flushed
+    *           but not closed.
+    */
+   public static void write(DataSet<?> dataSet, Integer draw, List<String> properties, OutputStream output)
+         throws IOException {
+      Writer writer = new BufferedWriter(new OutputStreamWriter(output, CHARSET));
+      write(dataSet, draw, properties, writer);
+      writer.flush();
+   }
+
+   /**
+    * <p>
+    * Writes the response using the passed properties.
+    * </p>
+    * 
+    * @param dataSet
+    *           The rows to send back.
+    * @param draw
+    *           The draw counter sent by DataTables.
+    * @param properties
+    *           The properties of the beans to write. Blank and numeric
+    *           properties, used with array data sources, are ignored, as well
+    *           as the properties that are not readable.
+    * @param writer
+    *           The writer to write to. It is neither flushed nor closed.
+    */
+   public static void write(DataSet<?> dataSet, Integer draw, List<String> properties, Writer writer)
+         throws IOException {
+
+      PropertyNode root = PropertyNode.of(properties);
+      JsonWriter json = new JsonWriter(writer);
+
+      json.beginObject();
+      json.name("draw").value(draw);
+      json.name("recordsTotal").value(dataSet.getTotalRecords());
+      json.name("recordsFiltered").value(dataSet.getTotalDisplayRecords());
+      if (dataSet.isApproximate()) {
+         json.name("recordsApproximate").value(true);
+      }
+      json.name("data").beginArray();
+
+      Iterator<?> rows = dataSet.getRowIterator();
+      if (rows != null) {
+         try {
+            while (rows.hasNext()) {
+               writeRow(json, rows.next(), root);
+            }
+         }
+         finally {
+            if (rows instanceof Closeable) {
+               ((Closeable) rows).close();
+            }
+         }
+      }
+
+      json.endArray();
+      json.endObject();
+   }
+
+   /**
+    * @param criterias
+    *           The criterias extracted from the DataTables request.
+    * @return the readable {@code data} of the columns sent by DataTables, in
+    *         order.
+    */
+   public static List<String> getProperties(DatatablesCriterias criterias) {
+      return getProperties(criterias, null);
+   }
+
+   /**
+    * @param criterias
+    *           The criterias extracted from the DataTables request.
+    * @param allowedProperties
+    *           The properties that may be written, or {@code null} to allow
+    *           any readable property.
+    * @return the readable and allowed {@code data} of the columns sent by
+    *         DataTables, in order.
+    */
+   public static List<String> getProperties(DatatablesCriterias criterias, Collection<String> allowedProperties) {
+      List<String> properties = new ArrayList<String>();
+      if (criterias.getColumnDefs() != null) {
+         for (ColumnDef columnDef : criterias.getColumnDefs()) {
+            String property = columnDef.getName();
+            if (StringUtils.isBlank(property) || isNumeric(property)) {
+               continue;
+            }
+            property = property.trim();
+            if (isReadable(property) && (allowedProperties == null || allowedProperties.contains(property))) {
+               properties.add(property);
+            }
+         }
+      }
+      return properties;
+   }
+
+   /**
+    * @return {@code true} if the passed property is a path of Java
+    *         identifiers, without any {@code class} segment.
+    */
+   private static boolean isReadable(String property) {
+      for (String segment : property.split("\\.", -1)) {
+         if (segment.length() == 0 || segment.equals("class")
+               || !Character.isJavaIdentifierStart(segment.charAt(0))) {
+            return false;
+         }
+         for (int i = 1; i < segment.length(); i++) {
+            if (!Character.isJavaIdentifierPart(segment.charAt(i))) {
+               return false;
+            }
+         }
+      }
+      return true;
+   }
+
+   /**
+    * @return {@code true} if the passed value gives access to the class loader
+    *         and must therefore be neither written nor traversed.
+    */
+   private static boolean isRestricted(Object value) {
+      return value instanceof Class || value instanceof ClassLoader || value instanceof ProtectionDomain;
+   }
+
+   private static boolean isNumeric(String property) {
+      for (int i = 0; i < property.length(); i++) {
+         if (!Character.isDigit(property.charAt(i))) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   private static void writeRow(JsonWriter json, Object row, PropertyNode root) throws IOException {
+      if (row == null || root.children.isEmpty() || row instanceof Map || row instanceof Collection
+            || row.getClass().isArray() || row instanceof CharSequence || row instanceof Number) {
+         json.value(row);
+      }
+      else {
+         writeObject(json, row, root);
+      }
+   }
+
+   private static void writeObject(JsonWriter json, Object bean, PropertyNode node) throws IOException {
+      json.beginObject();
+      for (PropertyNode child : node.children.values()) {
+         if (bean.getClass() == child.missingIn) {
+            continue;
+         }
+         Object value;
+         try {
+            value = child.accessor.getValue(bean);
+         }
+         catch (NoSuchMethodException e) {
+            // Unknown property, e.g. misspelled on the client side
+            child.missingIn = bean.getClass();
+            continue;
+         }
+         catch (Exception e) {
+            throw new DandelionException("Unable to read the property '" + child.name + "' of the bean "
+                  + bean.getClass().getName(), e);
+         }
+         if (isRestricted(value)) {
+            continue;
+         }
+         json.name(child.name);
+         if (value != null && !child.children.isEmpty()) {
+            writeObject(json, value, child);
+         }
+         else {
+            json.value(value);
+         }
+      }
+      json.endObject();
+   }
+
+   /**
+    * Tree of the properties to write, built once per response so that dotted
+    * properties sharing a prefix are read only once per row.
+    */
+   private static final class PropertyNode {
+
+      private final String name;
+      private final PropertyAccessor accessor;
+      private final Map<String, PropertyNode> children = new LinkedHashMap<String, PropertyNode>();
+      private Class<?> missingIn;
+
+      private PropertyNode(String name) {
+         this.name = name;
+         this.accessor = name != null ? PropertyAccessor.compile(name) : null;
+      }
+
+      private static PropertyNode of(List<String> properties) {
+         PropertyNode root = new PropertyNode(null);
+         if (properties != null) {
+            for (String property : properties) {
+               if (StringUtils.isBlank(property) || isNumeric(property) || !isReadable(property.trim())) {
+                  continue;
+               }
+               PropertyNode node = root;
+               for (String segment : property.trim().split("\\.")) {
+                  PropertyNode child = node.children.get(segment);
+                  if (child == null) {
+                     child = new PropertyNode(segment);
+                     node.children.put(segment, child);
+                  }
+                  node = child;
+               }
+            }
+         }
+         return root;
+      }
+   }
+}
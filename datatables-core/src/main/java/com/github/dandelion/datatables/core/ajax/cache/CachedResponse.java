@@ -0,0 +1,100 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.ajax.cache;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.Writer;
+
+/**
+ * <p>
+ * A cached server-side processing response. The JSON content is stored without
+ * its {@code draw} counter, which is written back for each request.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+public final class CachedResponse implements Serializable {
+
+   private static final long serialVersionUID = -2917356001548413392L;
+
+   private final String content;
+   private final String etag;
+   private final long creationTime;
+
+   /**
+    * @param content
+    *           The JSON content following the {@code draw} property, starting
+    *           with a comma and ending with the closing brace.
+    * @param etag
+    *           The quoted entity tag of the content.
+    * @param creationTime
+    *           The creation time of the response, in milliseconds.
+    */
+   public CachedResponse(String content, String etag, long creationTime) {
+      this.content = content;
+      this.etag = etag;
+      this.creationTime = creationTime;
+   }
+
+   public String getContent() {
+      return content;
+   }
+
+   public String getEtag() {
+      return etag;
+   }
+
+   /**
+    * @param draw
+    *           The draw counter of the request.
+    * @return the entity tag of the full response written for the passed draw
+    *         counter.
+    */
+   public String getEtag(Integer draw) {
+      return etag.substring(0, etag.length() - 1) + "-" + draw + "\"";
+   }
+
+   public long getCreationTime() {
+      return creationTime;
+   }
+
+   /**
+    * <p>
+    * Writes the full JSON response, using the passed draw counter.
+    * </p>
+    */
+   public void writeTo(Writer writer, Integer draw) throws IOException {
+      writer.write("{\"draw\":");
+      writer.write(String.valueOf(draw));
+      writer.write(content);
+   }
+}
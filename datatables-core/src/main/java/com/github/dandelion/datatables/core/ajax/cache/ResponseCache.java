@@ -0,0 +1,271 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.ajax.cache;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.github.dandelion.core.DandelionException;
+import com.github.dandelion.core.util.Validate;
+import com.github.dandelion.datatables.core.ajax.DataSet;
+import com.github.dandelion.datatables.core.ajax.DataSetLoader;
+import com.github.dandelion.datatables.core.ajax.DatatablesCriterias;
+import com.github.dandelion.datatables.core.ajax.DatatablesResponseWriter;
+
+/**
+ * <p>
+ * Cache of the JSON responses sent back to DataTables when server-side
+ * processing is enabled.
+ * </p>
+ * <p>
+ * Responses are keyed on a caller-supplied data version and on the
+ * {@link DatatablesCriterias#getSignature() signature} of the criterias, which
+ * ignores the {@code draw} counter. Paging back and forth or re-sorting a table
+ * thus only runs the backing query once per page, until the data version
+ * changes or the response expires.
+ * </p>
+ * <p>
+ * Each response carries a weak {@code ETag}, derived from its content and from
+ * the {@code draw} counter, since DataTables discards the responses whose
+ * {@code draw} is older than its current one. A request whose
+ * {@code If-None-Match} header matches it, i.e. a repeated request with the
+ * same {@code draw}, is answered with a {@code 304 Not Modified} status and no
+ * body. Note that DataTables sends a new {@code draw} with each request, so the
+ * stock client never revalidates: the cache mostly saves the backing queries.
+ * </p>
+ * <p>
+ * Typical usage in a controller:
+ * </p>
+ * 
+ * <pre>
+ * private final ResponseCache cache = new ResponseCache(new InMemoryResponseCacheStore(500), 60000);
+ * 
+ * public void persons(HttpServletRequest request, HttpServletResponse response) throws IOException {
+ *    DatatablesCriterias criterias = DatatablesCriterias.getFromRequest(request);
+ *    cache.write(criterias, personService.getVersion(), personLoader, request, response);
+ * }
+ * </pre>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+public class ResponseCache {
+
+   private static final String CHARSET = "UTF-8";
+   private static final String CONTENT_TYPE = "application/json;charset=" + CHARSET;
+
+   /**
+    * Start of a response rendered without draw counter, stripped from the
+    * cached content.
+    */
+   private static final String NULL_DRAW_PREFIX = "{\"draw\":null";
+
+   private final ResponseCacheStore store;
+   private final long timeToLive;
+   private final Collection<String> allowedProperties;
+
+   /**
+    * @param store
+    *           The store holding the responses.
+    * @param timeToLive
+    *           The maximum age of a response, in milliseconds. A negative or
+    *           zero value disables the expiration.
+    */
+   public ResponseCache(ResponseCacheStore store, long timeToLive) {
+      this(store, timeToLive, null);
+   }
+
+   /**
+    * @param store
+    *           The store holding the responses.
+    * @param timeToLive
+    *           The maximum age of a response, in milliseconds. A negative or
+    *           zero value disables the expiration.
+    * @param allowedProperties
+    *           The bean properties that may be written, e.g. the properties of
+    *           the columns of the table, or {@code null} to allow any readable
+    *           property.
+    * @see DatatablesResponseWriter#getProperties(DatatablesCriterias,
+    *      Collection)
+    */
+   public ResponseCache(ResponseCacheStore store, long timeToLive, Collection<String> allowedProperties) {
+      Validate.notNull(store, "The store cannot be null");
+      this.store = store;
+      this.timeToLive = timeToLive;
+      this.allowedProperties = allowedProperties;
+   }
+
+   /**
+    * <p>
+    * Returns the response matching the passed criterias and data version,
+    * loading it first if it is not cached or has expired.
+    * </p>
+    * 
+    * @param criterias
+    *           The criterias sent by DataTables.
+    * @param dataVersion
+    *           The version of the underlying data, which must change whenever
+    *           the data is modified. May be {@code null} if the data never
+    *           changes or only expires.
+    * @param loader
+    *           The loader called on a cache miss.
+    * @return the cached response.
+    */
+   public CachedResponse get(DatatablesCriterias criterias, String dataVersion, DataSetLoader<?> loader) {
+      String key = getKey(criterias, dataVersion);
+      CachedResponse cached = store.get(key);
+      long now = System.currentTimeMillis();
+      if (cached != null && timeToLive > 0 && now - cached.getCreationTime() > timeToLive) {
+         store.remove(key);
+         cached = null;
+      }
+      if (cached == null) {
+         cached = render(criterias, dataVersion, loader.load(criterias), now);
+         store.put(key, cached);
+      }
+      return cached;
+   }
+
+   /**
+    * <p>
+    * Writes the response matching the passed criterias and data version, or a
+    * {@code 304 Not Modified} status if the client already holds it.
+    * </p>
+    * 
+    * @param criterias
+    *           The criterias sent by DataTables.
+    * @param dataVersion
+    *           The version of the underlying data, see
+    *           {@link #get(DatatablesCriterias, String, DataSetLoader)}.
+    * @param loader
+    *           The loader called on a cache miss.
+    * @param request
+    *           The current request, whose {@code If-None-Match} header is
+    *           checked.
+    * @param response
+    *           The response to write to.
+    */
+   public void write(DatatablesCriterias criterias, String dataVersion, DataSetLoader<?> loader,
+         HttpServletRequest request, HttpServletResponse response) throws IOException {
+      CachedResponse cached = get(criterias, dataVersion, loader);
+      String etag = cached.getEtag(criterias.getDraw());
+      response.setHeader("ETag", etag);
+      response.setHeader("Cache-Control", "private, no-cache");
+      if (matches(request.getHeader("If-None-Match"), etag)) {
+         response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+         return;
+      }
+      response.setContentType(CONTENT_TYPE);
+      Writer writer = response.getWriter();
+      cached.writeTo(writer, criterias.getDraw());
+      writer.flush();
+   }
+
+   /**
+    * Removes all cached responses, whatever their data version.
+    */
+   public void invalidate() {
+      store.clear();
+   }
+
+   private static String getKey(DatatablesCriterias criterias, String dataVersion) {
+      return (dataVersion != null ? dataVersion.length() + ":" + dataVersion : "-") + "|"
+            + criterias.getSignature();
+   }
+
+   private CachedResponse render(DatatablesCriterias criterias, String dataVersion, DataSet<?> dataSet, long now) {
+      StringWriter writer = new StringWriter();
+      try {
+         DatatablesResponseWriter.write(dataSet, null,
+               DatatablesResponseWriter.getProperties(criterias, allowedProperties), writer);
+      }
+      catch (IOException e) {
+         throw new DandelionException("Unable to render the response", e);
+      }
+      // The draw counter is written first and is stripped from the cached
+      // content, see CachedResponse#writeTo
+      String response = writer.toString();
+      if (!response.startsWith(NULL_DRAW_PREFIX)) {
+         throw new DandelionException("Unexpected start of the rendered response: "
+               + response.substring(0, Math.min(response.length(), NULL_DRAW_PREFIX.length())));
+      }
+      String content = response.substring(NULL_DRAW_PREFIX.length());
+      return new CachedResponse(content, "W/\"" + digest(dataVersion + "|" + content) + "\"", now);
+   }
+
+   private static String digest(String content) {
+      try {
+         byte[] hash = MessageDigest.getInstance("MD5").digest(content.getBytes(CHARSET));
+         StringBuilder hex = new StringBuilder(hash.length * 2);
+         for (byte b : hash) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+         }
+         return hex.toString();
+      }
+      catch (NoSuchAlgorithmException e) {
+         throw new DandelionException("Unable to compute the ETag of the response", e);
+      }
+      catch (UnsupportedEncodingException e) {
+         throw new DandelionException("Unable to compute the ETag of the response", e);
+      }
+   }
+
+   /**
+    * Weak comparison of the entity tags listed in an {@code If-None-Match}
+    * header with the passed one.
+    */
+   private static boolean matches(String ifNoneMatch, String etag) {
+      if (ifNoneMatch == null) {
+         return false;
+      }
+      String opaqueTag = etag.startsWith("W/") ? etag.substring(2) : etag;
+      for (String candidate : ifNoneMatch.split(",")) {
+         candidate = candidate.trim();
+         if (candidate.equals("*")) {
+            return true;
+         }
+         if (candidate.startsWith("W/")) {
+            candidate = candidate.substring(2);
+         }
+         if (candidate.equals(opaqueTag)) {
+            return true;
+         }
+      }
+      return false;
+   }
+}
@@ -0,0 +1,149 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.config;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.ResourceBundle.Control;
+import java.util.Set;
+
+import com.github.dandelion.core.util.StringUtils;
+
+/**
+ * <p>
+ * Computes a fingerprint of the user configuration files that would be used to
+ * load the configuration of a given {@link Locale}.
+ * </p>
+ * <p>
+ * The fingerprint combines the location, the last modification date and the
+ * size of every candidate {@code datatables*.properties} file, either in the
+ * directory pointed by the {@link ConfigLoader#DANDELION_DT_CONFIGURATION}
+ * system property or in the classpath. Resources that are not plain files
+ * (e.g. packaged inside a JAR) only contribute their location since they can't
+ * change without a redeployment.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ * @see ConfigLoader
+ */
+final class ConfigFingerprint {
+
+   private static final Control CONTROL = Control.getControl(Control.FORMAT_PROPERTIES);
+
+   /**
+    * @param locale
+    *           The locale used to load the user configuration.
+    * @return the fingerprint of all user configuration files that may be used
+    *         for the given locale.
+    */
+   static long compute(Locale locale) {
+      long fingerprint = 17;
+
+      String path = System.getProperty(ConfigLoader.DANDELION_DT_CONFIGURATION);
+      if (StringUtils.isNotBlank(path)) {
+         File[] files = new File(path).listFiles();
+         if (files != null) {
+            Arrays.sort(files);
+            for (File file : files) {
+               if (file.getName().startsWith(ConfigLoader.DT_USER_PROPERTIES)
+                     && file.getName().endsWith(".properties")) {
+                  fingerprint = 31 * fingerprint + fingerprint(file);
+               }
+            }
+         }
+      }
+
+      for (String resourceName : getResourceNames(locale)) {
+         fingerprint = 31 * fingerprint + fingerprint(ConfigLoader.class.getClassLoader(), resourceName);
+         fingerprint = 31 * fingerprint + fingerprint(Thread.currentThread().getContextClassLoader(), resourceName);
+      }
+
+      return fingerprint;
+   }
+
+   /**
+    * @return the names of all the classpath resources that the
+    *         {@link java.util.ResourceBundle} mechanism may look up for the
+    *         given locale, including the fallback on the default locale.
+    */
+   private static Set<String> getResourceNames(Locale locale) {
+      String baseName = ConfigLoader.DT_USER_PROPERTIES_LOCATION + ConfigLoader.DT_USER_PROPERTIES;
+      Set<String> resourceNames = new LinkedHashSet<String>();
+      for (Locale candidate : CONTROL.getCandidateLocales(baseName, locale)) {
+         resourceNames.add(CONTROL.toResourceName(CONTROL.toBundleName(baseName, candidate), "properties"));
+      }
+      for (Locale candidate : CONTROL.getCandidateLocales(baseName, Locale.getDefault())) {
+         resourceNames.add(CONTROL.toResourceName(CONTROL.toBundleName(baseName, candidate), "properties"));
+      }
+      return resourceNames;
+   }
+
+   private static long fingerprint(ClassLoader classLoader, String resourceName) {
+      if (classLoader == null) {
+         return 0;
+      }
+
+      URL url = classLoader.getResource(resourceName);
+      if (url == null) {
+         return 0;
+      }
+
+      if ("file".equals(url.getProtocol())) {
+         try {
+            return fingerprint(new File(url.toURI()));
+         }
+         catch (URISyntaxException e) {
+            // Falls back to the location only
+         }
+      }
+      return url.toExternalForm().hashCode();
+   }
+
+   private static long fingerprint(File file) {
+      long fingerprint = file.getPath().hashCode();
+      fingerprint = 31 * fingerprint + file.lastModified();
+      fingerprint = 31 * fingerprint + file.length();
+      return fingerprint;
+   }
+
+   /**
+    * <p>
+    * Suppress default constructor for noninstantiability.
+    * </p>
+    */
+   private ConfigFingerprint() {
+      throw new AssertionError();
+   }
+}
@@ -86,10 +86,27 @@ public class ConfigLoader {
    public final static String I18N_LOCALE_RESOLVER = "i18n.locale.resolver";
    public final static String I18N_MESSAGE_RESOLVER = "i18n.message.resolver";
 
+   /**
+    * Minimum delay, in milliseconds, between two checks for updates of the user
+    * configuration files.
+    */
+   public final static long UPDATE_CHECK_INTERVAL = 1000;
+
    private static Properties defaultProperties;
    private Properties userProperties;
    private Set<String> groups;
 
+   /**
+    * Already loaded user configurations, along with the fingerprint of the
+    * files they've been loaded from.
+    */
+   private final Map<Locale, UserConfiguration> userConfigurations = new ConcurrentHashMap<Locale, UserConfiguration>();
+
+   /**
+    * Date of the last check for updates.
+    */
+   private volatile long lastUpdateCheck;
+
    /**
     * <p>
     * Load the default configuration from the internal properties file and both:
@@ -146,7 +163,9 @@ public class ConfigLoader {
     * Load the user configuration which can be localized thanks to the given
     * locale.
     * <p>
-    * Once the bundle loaded, it is converted into Properties.
+    * Once the bundle loaded, it is converted into Properties and cached along
+    * with the fingerprint of the files it's been loaded from. The bundle is
+    * only loaded again when these files change.
     * 
     * @param locale
     *           The current locale used to load the right properties file.
@@ -154,8 +173,54 @@ public class ConfigLoader {
     */
    public Properties loadUserConfiguration(Locale locale) {
 
-      // Always clear the cache
-      ResourceBundle.clearCache();
+      long fingerprint = ConfigFingerprint.compute(locale);
+
+      UserConfiguration userConfiguration = userConfigurations.get(locale);
+      if (userConfiguration == null || userConfiguration.fingerprint != fingerprint) {
+         userConfiguration = new UserConfiguration(PropertiesUtils.bundleToProperties(loadUserBundle(locale)),
+               fingerprint);
+         userConfigurations.put(locale, userConfiguration);
+      }
+
+      // The returned properties may be updated by the auto-configuration
+      Properties properties = new Properties();
+      properties.putAll(userConfiguration.properties);
+      userProperties = properties;
+      return userProperties;
+   }
+
+   /**
+    * <p>
+    * Checks whether any of the user configuration files already loaded has
+    * changed since it was loaded. The check is performed at most once every
+    * {@link #UPDATE_CHECK_INTERVAL} milliseconds, other calls returning
+    * {@code false}.
+    * </p>
+    * <p>
+    * Intended to be used in development only, in order to hot reload the
+    * configuration.
+    * </p>
+    * 
+    * @return {@code true} if the user configuration has changed.
+    */
+   public boolean isUserConfigurationModified() {
+      long now = System.currentTimeMillis();
+      if (now - lastUpdateCheck < UPDATE_CHECK_INTERVAL) {
+         return false;
+      }
+      lastUpdateCheck = now;
+
+      for (Entry<Locale, UserConfiguration> entry : userConfigurations.entrySet()) {
+         if (entry.getValue().fingerprint != ConfigFingerprint.compute(entry.getKey())) {
+            logger.debug("The user configuration for the locale {} has changed", entry.getKey());
+            return true;
+         }
+      }
+      return false;
+   }
+
+   private ResourceBundle loadUserBundle(Locale locale) {
+
       ResourceBundle userBundle = null;
 
       // First check if the resource bundle is externalized
@@ -166,7 +231,7 @@ public class ConfigLoader {
          try {
             URL resourceURL = new File(path).toURI().toURL();
             URLClassLoader urlLoader = new URLClassLoader(new URL[] { resourceURL });
-            userBundle = ResourceBundle.getBundle(DT_USER_PROPERTIES, locale, urlLoader, new UTF8Control());
+            userBundle = ResourceBundle.getBundle(DT_USER_PROPERTIES, locale, urlLoader, new NonCachingControl());
          }
          catch (MalformedURLException e) {
             logger.warn("Wrong path to the externalized bundle", e);
@@ -180,14 +245,14 @@ public class ConfigLoader {
       if (userBundle == null) {
          try {
             userBundle = ResourceBundle.getBundle(DT_USER_PROPERTIES_LOCATION + DT_USER_PROPERTIES, locale,
-                  new UTF8Control());
+                  new NonCachingControl());
          }
          catch (MissingResourceException e) {
             // if no resource bundle is found, try using the context
             // classloader
             try {
                userBundle = ResourceBundle.getBundle(DT_USER_PROPERTIES_LOCATION + DT_USER_PROPERTIES, locale,
-                     Thread.currentThread().getContextClassLoader(), new UTF8Control());
+                     Thread.currentThread().getContextClassLoader(), new NonCachingControl());
             }
             catch (MissingResourceException mre) {
                logger.debug("No custom configuration. Using default one.");
@@ -195,8 +260,7 @@ public class ConfigLoader {
          }
       }
 
-      userProperties = PropertiesUtils.bundleToProperties(userBundle);
-      return userProperties;
+      return userBundle;
    }
 
    /**
@@ -417,4 +481,35 @@ public class ConfigLoader {
          }
       }
    }
-}
\ No newline at end of file
+
+   /**
+    * <p>
+    * User configuration loaded for a locale.
+    * </p>
+    */
+   private static class UserConfiguration {
+
+      private final Properties properties;
+      private final long fingerprint;
+
+      private UserConfiguration(Properties properties, long fingerprint) {
+         this.properties = properties;
+         this.fingerprint = fingerprint;
+      }
+   }
+
+   /**
+    * <p>
+    * {@link UTF8Control} that prevents the loaded bundles from being stored in
+    * the JVM-wide {@link ResourceBundle} cache, since the caching is handled
+    * by the {@link ConfigLoader} itself.
+    * </p>
+    */
+   private static class NonCachingControl extends UTF8Control {
+
+      @Override
+      public long getTimeToLive(String baseName, Locale locale) {
+         return TTL_DONT_CACHE;
+      }
+   }
+}
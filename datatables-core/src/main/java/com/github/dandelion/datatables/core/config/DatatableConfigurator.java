@@ -67,8 +67,13 @@ public class DatatableConfigurator {
 
    private static Logger logger = LoggerFactory.getLogger(DatatableConfigurator.class);
 
-   private static LocaleResolver localeResolver;
-   private static MessageResolver messageResolver;
+   /**
+    * Both resolvers are lazily initialized while holding the lock of the
+    * {@link ConfigLoader}, which is stateful and also used to resolve the
+    * configuration groups, and then safely published to other threads.
+    */
+   private static volatile LocaleResolver localeResolver;
+   private static volatile MessageResolver messageResolver;
 
    /**
     * Return a uniq implementation of {@link LocaleResolver} using the following
@@ -84,95 +89,117 @@ public class DatatableConfigurator {
     * 
     * @return an implementation {@link LocaleResolver}.
     */
-   @SuppressWarnings("unchecked")
    public static LocaleResolver getLocaleResolver() {
+      LocaleResolver resolver = localeResolver;
+      if (resolver == null) {
+         synchronized (getConfigLoader()) {
+            resolver = localeResolver;
+            if (resolver == null) {
+               resolver = newLocaleResolver();
+               localeResolver = resolver;
+            }
+         }
+      }
+      return resolver;
+   }
+
+   @SuppressWarnings("unchecked")
+   private static LocaleResolver newLocaleResolver() {
       Properties userProperties = null;
       String className = null;
       ConfigLoader configurationLoader = getConfigLoader();
+      LocaleResolver resolver = null;
+      try {
+         userProperties = configurationLoader.loadUserConfiguration(Locale.getDefault());
 
-      if (localeResolver == null) {
+         if (userProperties != null) {
+            try {
+               className = userProperties.getProperty(ConfigLoader.I18N_LOCALE_RESOLVER);
+            }
+            catch (MissingResourceException e) {
 
-         try {
-            userProperties = configurationLoader.loadUserConfiguration(Locale.getDefault());
+               logger.debug("No custom LocaleResolver has been configured. Using default one.");
+            }
+         }
 
-            if (userProperties != null) {
-               try {
-                  className = userProperties.getProperty(ConfigLoader.I18N_LOCALE_RESOLVER);
-               }
-               catch (MissingResourceException e) {
+         if (className == null) {
+            Properties defaultProperties = configurationLoader.loadDefaultConfiguration();
+            className = defaultProperties.getProperty(ConfigLoader.I18N_LOCALE_RESOLVER);
+         }
 
-                  logger.debug("No custom LocaleResolver has been configured. Using default one.");
-               }
+         if (className != null) {
+            Class<LocaleResolver> classProperty;
+            try {
+               classProperty = (Class<LocaleResolver>) ClassUtils.getClass(className);
+               resolver = (LocaleResolver) ClassUtils.getNewInstance(classProperty);
             }
-
-            if (className == null) {
-               Properties defaultProperties = configurationLoader.loadDefaultConfiguration();
-               className = defaultProperties.getProperty(ConfigLoader.I18N_LOCALE_RESOLVER);
+            catch (Exception e) {
+               throw new DandelionException(e);
             }
+         }
+      }
+      catch (DandelionException e) {
+         throw new DandelionException("Unable to retrieve the LocaleResolver using the class '" + className + "'",
+               e);
+      }
+      return resolver;
+   }
 
-            if (className != null) {
-               Class<LocaleResolver> classProperty;
-               try {
-                  classProperty = (Class<LocaleResolver>) ClassUtils.getClass(className);
-                  localeResolver = (LocaleResolver) ClassUtils.getNewInstance(classProperty);
-               }
-               catch (Exception e) {
-                  throw new DandelionException(e);
-               }
+   public static MessageResolver getMessageResolver(HttpServletRequest request) {
+      MessageResolver resolver = messageResolver;
+      if (resolver == null) {
+         synchronized (getConfigLoader()) {
+            resolver = messageResolver;
+            if (resolver == null) {
+               resolver = newMessageResolver(request);
+               messageResolver = resolver;
             }
          }
-         catch (DandelionException e) {
-            throw new DandelionException("Unable to retrieve the LocaleResolver using the class '" + className + "'",
-                  e);
-         }
       }
-      return localeResolver;
+      return resolver;
    }
 
    @SuppressWarnings("unchecked")
-   public static MessageResolver getMessageResolver(HttpServletRequest request) {
+   private static MessageResolver newMessageResolver(HttpServletRequest request) {
       Properties userProperties = null;
       String className = null;
       ConfigLoader configurationLoader = getConfigLoader();
+      MessageResolver resolver = null;
+      try {
+         userProperties = configurationLoader.loadUserConfiguration(Locale.getDefault());
 
-      if (messageResolver == null) {
-
-         try {
-            userProperties = configurationLoader.loadUserConfiguration(Locale.getDefault());
-
-            if (userProperties != null) {
-               try {
-                  className = userProperties.getProperty(ConfigLoader.I18N_MESSAGE_RESOLVER);
-               }
-               catch (MissingResourceException e) {
-
-                  logger.debug("No custom MessageResolver has been configured. Using default one.");
-               }
+         if (userProperties != null) {
+            try {
+               className = userProperties.getProperty(ConfigLoader.I18N_MESSAGE_RESOLVER);
             }
+            catch (MissingResourceException e) {
 
-            if (className == null) {
-               Properties defaultProperties = configurationLoader.loadDefaultConfiguration();
-               className = defaultProperties.getProperty(ConfigLoader.I18N_MESSAGE_RESOLVER);
+               logger.debug("No custom MessageResolver has been configured. Using default one.");
             }
+         }
 
-            if (className != null) {
-               Class<MessageResolver> classProperty;
-               try {
-                  classProperty = (Class<MessageResolver>) ClassUtils.getClass(className);
-                  messageResolver = classProperty.getDeclaredConstructor(new Class[] { HttpServletRequest.class })
-                        .newInstance(request);
-               }
-               catch (Exception e) {
-                  throw new DandelionException(e);
-               }
-            }
+         if (className == null) {
+            Properties defaultProperties = configurationLoader.loadDefaultConfiguration();
+            className = defaultProperties.getProperty(ConfigLoader.I18N_MESSAGE_RESOLVER);
          }
-         catch (DandelionException e) {
-            throw new DandelionException("Unable to retrieve the MessageResolver using the class '" + className + "'",
-                  e);
+
+         if (className != null) {
+            Class<MessageResolver> classProperty;
+            try {
+               classProperty = (Class<MessageResolver>) ClassUtils.getClass(className);
+               resolver = classProperty.getDeclaredConstructor(new Class[] { HttpServletRequest.class })
+                     .newInstance(request);
+            }
+            catch (Exception e) {
+               throw new DandelionException(e);
+            }
          }
       }
-      return messageResolver;
+      catch (DandelionException e) {
+         throw new DandelionException("Unable to retrieve the MessageResolver using the class '" + className + "'",
+               e);
+      }
+      return resolver;
    }
 
    /**
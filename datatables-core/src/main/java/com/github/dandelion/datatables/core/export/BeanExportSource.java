@@ -0,0 +1,176 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.export;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.dandelion.core.util.StringUtils;
+import com.github.dandelion.datatables.core.util.FormatUtils;
+import com.github.dandelion.datatables.core.util.PropertyAccessor;
+
+/**
+ * <p>
+ * {@link ExportSource} backed by a collection of beans, used by the
+ * {@link HtmlTableBuilder} to feed export classes directly.
+ * </p>
+ * <p>
+ * The content of each cell is computed from the {@link ColumnElement}s of the
+ * corresponding column only when the row is iterated over, so that no
+ * intermediate representation of the table is ever built.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+class BeanExportSource<T> implements ExportSource {
+
+   private static Logger logger = LoggerFactory.getLogger(BeanExportSource.class);
+
+   private final String tableId;
+   private final List<T> data;
+   private final ExportConf exportConf;
+   private final List<String> headers;
+   private final List<List<ColumnElement>> columns;
+
+   BeanExportSource(String tableId, List<T> data, ExportConf exportConf, List<String> headers,
+         List<List<ColumnElement>> columns) {
+      this.tableId = tableId;
+      this.data = data != null ? data : Collections.<T> emptyList();
+      this.exportConf = exportConf;
+      this.headers = Collections.unmodifiableList(headers);
+      this.columns = columns;
+   }
+
+   @Override
+   public String getTableId() {
+      return tableId;
+   }
+
+   @Override
+   public String getObjectType() {
+      return data.isEmpty() ? "???" : data.get(0).getClass().getSimpleName();
+   }
+
+   @Override
+   public ExportConf getExportConf() {
+      return exportConf;
+   }
+
+   @Override
+   public List<String> getHeaders() {
+      return headers;
+   }
+
+   /**
+    * @return the number of exported beans.
+    */
+   int getRowCount() {
+      return data.size();
+   }
+
+   @Override
+   public Iterator<String[]> iterator() {
+      final Iterator<T> beans = data.iterator();
+      return new Iterator<String[]>() {
+
+         @Override
+         public boolean hasNext() {
+            return beans.hasNext();
+         }
+
+         @Override
+         public String[] next() {
+            T bean = beans.next();
+            String[] values = new String[columns.size()];
+            for (int i = 0; i < values.length; i++) {
+               values[i] = getContent(bean, columns.get(i));
+            }
+            return values;
+         }
+
+         @Override
+         public void remove() {
+            throw new UnsupportedOperationException();
+         }
+      };
+   }
+
+   /**
+    * <p>
+    * Computes the content of a cell by concatenating the contents of all passed
+    * column elements, evaluated against the passed bean.
+    * </p>
+    * 
+    * @param bean
+    *           The bean corresponding to the current row.
+    * @param columnElements
+    *           The elements making up the column.
+    * @return the content of the cell.
+    */
+   static String getContent(Object bean, List<ColumnElement> columnElements) {
+      StringBuilder content = new StringBuilder();
+      for (ColumnElement columnElement : columnElements) {
+
+         if (StringUtils.isNotBlank(columnElement.getPropertyName())) {
+            try {
+               Object tmpObject = PropertyAccessor.getValue(bean, columnElement.getPropertyName());
+
+               if (tmpObject == null) {
+                  content.append(columnElement.getDefaultValue());
+               }
+               else if (StringUtils.isNotBlank(columnElement.getPattern())) {
+                  content.append(FormatUtils.format(columnElement.getPattern(), tmpObject));
+               }
+               else {
+                  content.append(String.valueOf(tmpObject));
+               }
+            }
+            catch (Exception e) {
+               logger.warn(
+                     "Something went wrong with the property {}. Check that an accessor method for this property exists in the bean.",
+                     columnElement.getPropertyName());
+               content.append(columnElement.getDefaultValue());
+            }
+         }
+         else if (columnElement.getContent() != null) {
+            content.append(columnElement.getContent());
+         }
+         else {
+            content.append(columnElement.getDefaultValue());
+         }
+      }
+      return content.toString();
+   }
+}
@@ -0,0 +1,169 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.export;
+
+import java.util.List;
+
+/**
+ * <p>
+ * Estimates the width of the exported columns from the number of characters of
+ * their values, as the rows are written.
+ * </p>
+ * <p>
+ * Unlike the auto-sizing of spreadsheet libraries, which renders each value
+ * with the font of its cell, only the length of the longest line of each value
+ * is tracked, wide characters such as CJK ideographs counting double. The
+ * widths can then be applied once the rows are written, without any font
+ * rendering nor additional pass over the rows.
+ * </p>
+ * <p>
+ * When a sample interval greater than 1 is used, only one body row out of
+ * {@code sampleInterval} is measured.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ * @see ExportConf#getAutoSizeSampleInterval()
+ */
+public class ColumnWidthEstimator {
+
+   /**
+    * Maximum width of a column, in characters, allowed by spreadsheets.
+    */
+   public static final int MAX_WIDTH = 255;
+
+   /**
+    * Number of characters added to the longest value of each column, to
+    * account for the cell margins.
+    */
+   private static final int PADDING = 1;
+
+   private final int[] lengths;
+   private final int sampleInterval;
+   private int sampledRows;
+
+   /**
+    * @param columnCount
+    *           Number of columns to measure.
+    * @param sampleInterval
+    *           Only one row out of {@code sampleInterval} is measured by
+    *           {@link #sample(String[])}. Values lower than 1 are treated as
+    *           1.
+    */
+   public ColumnWidthEstimator(int columnCount, int sampleInterval) {
+      this.lengths = new int[columnCount];
+      this.sampleInterval = Math.max(sampleInterval, 1);
+   }
+
+   /**
+    * <p>
+    * Measures the passed values, regardless of the sample interval. Typically
+    * used for the headers.
+    * </p>
+    * 
+    * @param values
+    *           The values of a row, in column order.
+    */
+   public void measure(List<String> values) {
+      for (int column = 0; column < values.size() && column < lengths.length; column++) {
+         update(column, values.get(column));
+      }
+   }
+
+   /**
+    * <p>
+    * Measures the passed row if it belongs to the sample.
+    * </p>
+    * 
+    * @param values
+    *           The values of a row, in column order.
+    */
+   public void sample(String[] values) {
+      if (sampledRows++ % sampleInterval != 0) {
+         return;
+      }
+      for (int column = 0; column < values.length && column < lengths.length; column++) {
+         update(column, values[column]);
+      }
+   }
+
+   /**
+    * @param column
+    *           Index of the column.
+    * @return the estimated width of the column, in characters, between 0 for
+    *         an empty column and {@link #MAX_WIDTH}.
+    */
+   public int getWidth(int column) {
+      return lengths[column] == 0 ? 0 : Math.min(lengths[column] + PADDING, MAX_WIDTH);
+   }
+
+   /**
+    * @return the number of measured columns.
+    */
+   public int getColumnCount() {
+      return lengths.length;
+   }
+
+   private void update(int column, String value) {
+      if (value == null || value.length() <= lengths[column] / 2) {
+         return;
+      }
+      int length = displayLength(value);
+      if (length > lengths[column]) {
+         lengths[column] = length;
+      }
+   }
+
+   /**
+    * @return the length of the longest line of the passed value, wide
+    *         characters counting double.
+    */
+   static int displayLength(String value) {
+      int longest = 0;
+      int current = 0;
+      for (int i = 0; i < value.length(); i++) {
+         char c = value.charAt(i);
+         if (c == '\n') {
+            longest = Math.max(longest, current);
+            current = 0;
+         }
+         else if (c != '\r') {
+            current += c >= '\u1100' && isWide(c) ? 2 : 1;
+         }
+      }
+      return Math.max(longest, current);
+   }
+
+   private static boolean isWide(char c) {
+      return c <= '\u115F' || c >= '\u2E80' && c <= '\uA4CF' || c >= '\uAC00' && c <= '\uD7A3'
+            || c >= '\uF900' && c <= '\uFAFF' || c >= '\uFE30' && c <= '\uFE4F' || c >= '\uFF00' && c <= '\uFF60'
+            || c >= '\uFFE0' && c <= '\uFFE6';
+   }
+}
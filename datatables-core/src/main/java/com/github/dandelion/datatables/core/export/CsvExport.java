@@ -31,10 +31,11 @@ package com.github.dandelion.datatables.core.export;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
 
 import com.github.dandelion.core.DandelionException;
-import com.github.dandelion.datatables.core.html.HtmlColumn;
-import com.github.dandelion.datatables.core.html.HtmlRow;
 import com.github.dandelion.datatables.core.html.HtmlTable;
 
 /**
@@ -42,50 +43,77 @@ import com.github.dandelion.datatables.core.html.HtmlTable;
  * CSV implementation of {@link DatatablesExport} that exports data in CSV
  * format.
  * </p>
+ * <p>
+ * Rows are written one by one as they are read from the {@link ExportSource},
+ * using a {@link CsvWriter} configured with the delimiter, line ending,
+ * charset and byte order mark of the {@link ExportConf}. Each value is
+ * followed by the delimiter.
+ * </p>
  * 
  * @author Thibault Duchateau
  */
-public class CsvExport implements DatatablesExport {
+public class CsvExport implements RowExport {
 
-   private static final String SEPARATOR_CHAR = ";";
-   private HtmlTable table;
+   private ExportSource source;
    private ExportConf exportConf;
 
    @Override
    public void initExport(HtmlTable table) {
-      this.table = table;
-      this.exportConf = table.getTableConfiguration().getExportConfigurations().get(ReservedFormat.CSV);
+      initExport(new HtmlTableExportSource(table, ReservedFormat.CSV));
+   }
+
+   @Override
+   public void initExport(ExportSource source) {
+      this.source = source;
+      this.exportConf = source.getExportConf();
    }
 
    @Override
    public void processExport(OutputStream output) {
-      StringBuilder buffer = new StringBuilder();
+      try {
+         CsvWriter writer = new CsvWriter(output, exportConf.getDelimiter() != null ? exportConf.getDelimiter()
+               : ExportConf.DEFAULT_DELIMITER, exportConf.getLineEnding() != null ? exportConf.getLineEnding()
+               : ExportConf.DEFAULT_LINE_ENDING, getCharset());
 
-      if (exportConf.getIncludeHeader()) {
-         for (HtmlRow row : table.getHeadRows()) {
-            for (HtmlColumn column : row.getColumns(ReservedFormat.ALL, ReservedFormat.CSV)) {
-               buffer.append(column.getContent()).append(SEPARATOR_CHAR);
-            }
-            buffer.append("\n");
+         if (exportConf.getBom() != null && exportConf.getBom()) {
+            writer.writeBom();
          }
-      }
-      for (HtmlRow row : table.getBodyRows()) {
-         for (HtmlColumn column : row.getColumns(ReservedFormat.ALL, ReservedFormat.CSV)) {
-            buffer.append(column.getContent()).append(SEPARATOR_CHAR);
+         if (exportConf.getIncludeHeader()) {
+            writeRow(writer, source.getHeaders().toArray(new String[0]));
+         }
+         for (String[] row : source) {
+            writeRow(writer, row);
          }
 
-         buffer.append("\n");
-      }
-
-      try {
-         output.write(buffer.toString().getBytes());
+         writer.flush();
       }
       catch (IOException e) {
          StringBuilder sb = new StringBuilder("Something went wrong during the CSV generation of the table '");
-         sb.append(table.getOriginalId());
+         sb.append(source.getTableId());
          sb.append("' and with the following export configuration: ");
          sb.append(exportConf.toString());
          throw new DandelionException(sb.toString(), e);
       }
    }
-}
\ No newline at end of file
+
+   private Charset getCharset() {
+      String charset = exportConf.getCharset() != null ? exportConf.getCharset() : ExportConf.DEFAULT_CHARSET;
+      try {
+         return Charset.forName(charset);
+      }
+      catch (IllegalCharsetNameException e) {
+         throw new DandelionException("'" + charset + "' is not a valid charset name", e);
+      }
+      catch (UnsupportedCharsetException e) {
+         throw new DandelionException("The charset '" + charset + "' is not supported", e);
+      }
+   }
+
+   private void writeRow(CsvWriter writer, String[] values) throws IOException {
+      for (String value : values) {
+         writer.writeValue(value);
+         writer.writeDelimiter();
+      }
+      writer.endRow();
+   }
+}
@@ -0,0 +1,277 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * <p>
+ * Writer of CSV content, encoding the values straight into a byte buffer which
+ * is flushed to the underlying stream each time it is full.
+ * </p>
+ * <p>
+ * Values are quoted as specified by RFC 4180, only when needed, i.e. when they
+ * contain the delimiter, a double quote or a line break. Double quotes are then
+ * escaped by doubling them. Whether a character requires quoting is read from a
+ * lookup table computed once per writer.
+ * </p>
+ * <p>
+ * UTF-8 is encoded directly. Other charsets go through a
+ * {@link CharsetEncoder} writing into the same buffer, unmappable characters
+ * being replaced.
+ * </p>
+ * <p>
+ * Instances are not thread-safe and must be {@link #flush() flushed} once the
+ * last row is written.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+public class CsvWriter {
+
+   /**
+    * Size of the buffer, i.e. number of bytes written at once to the stream.
+    */
+   public static final int BUFFER_SIZE = 8192;
+
+   private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+   private final OutputStream output;
+   private final char delimiter;
+   private final String lineEnding;
+   private final boolean[] needsQuote = new boolean[128];
+   private final CharsetEncoder encoder;
+   private final byte[] buffer = new byte[BUFFER_SIZE];
+   private final ByteBuffer byteBuffer;
+   private int position;
+
+   /**
+    * @param output
+    *           The stream to write to. It is neither flushed nor closed until
+    *           {@link #flush()} is called.
+    * @param delimiter
+    *           The character separating the values.
+    * @param lineEnding
+    *           The characters ending each row.
+    * @param charset
+    *           The charset used to encode the content.
+    */
+   public CsvWriter(OutputStream output, char delimiter, String lineEnding, Charset charset) {
+      this.output = output;
+      this.delimiter = delimiter;
+      this.lineEnding = lineEnding;
+      this.needsQuote['"'] = true;
+      this.needsQuote['\r'] = true;
+      this.needsQuote['\n'] = true;
+      if (delimiter < needsQuote.length) {
+         this.needsQuote[delimiter] = true;
+      }
+      if (UTF_8.equals(charset)) {
+         this.encoder = null;
+         this.byteBuffer = null;
+      }
+      else {
+         // The UTF-16 encoder would write a byte order mark for each value
+         Charset encoderCharset = "UTF-16".equals(charset.name()) ? Charset.forName("UTF-16BE") : charset;
+         this.encoder = encoderCharset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+               .onUnmappableCharacter(CodingErrorAction.REPLACE);
+         this.byteBuffer = ByteBuffer.wrap(buffer);
+      }
+   }
+
+   /**
+    * <p>
+    * Writes the byte order mark of the charset, which helps some spreadsheet
+    * applications to detect the encoding. Must be called before anything else
+    * is written.
+    * </p>
+    */
+   public void writeBom() throws IOException {
+      write("\uFEFF", false);
+   }
+
+   /**
+    * <p>
+    * Writes a value, quoted if needed. A {@code null} value is written as an
+    * empty one.
+    * </p>
+    * 
+    * @param value
+    *           The value to write.
+    */
+   public void writeValue(String value) throws IOException {
+      if (value == null || value.length() == 0) {
+         return;
+      }
+      if (requiresQuoting(value)) {
+         writeChar('"');
+         write(value, true);
+         writeChar('"');
+      }
+      else {
+         write(value, false);
+      }
+   }
+
+   /**
+    * <p>
+    * Writes the delimiter separating two values.
+    * </p>
+    */
+   public void writeDelimiter() throws IOException {
+      writeChar(delimiter);
+   }
+
+   /**
+    * <p>
+    * Ends the current row.
+    * </p>
+    */
+   public void endRow() throws IOException {
+      write(lineEnding, false);
+   }
+
+   /**
+    * <p>
+    * Writes the buffered bytes to the stream and flushes it.
+    * </p>
+    */
+   public void flush() throws IOException {
+      flushBuffer();
+      output.flush();
+   }
+
+   private boolean requiresQuoting(String value) {
+      for (int i = 0; i < value.length(); i++) {
+         char c = value.charAt(i);
+         if (c < needsQuote.length ? needsQuote[c] : c == delimiter) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   private void writeChar(char c) throws IOException {
+      if (encoder == null && c < 0x80) {
+         if (position == buffer.length) {
+            flushBuffer();
+         }
+         buffer[position++] = (byte) c;
+      }
+      else {
+         write(String.valueOf(c), false);
+      }
+   }
+
+   private void write(String value, boolean doubleQuotes) throws IOException {
+      if (encoder != null) {
+         encode(doubleQuotes && value.indexOf('"') != -1 ? value.replace("\"", "\"\"") : value);
+         return;
+      }
+
+      int length = value.length();
+      for (int i = 0; i < length; i++) {
+         if (buffer.length - position < 4) {
+            flushBuffer();
+         }
+         char c = value.charAt(i);
+         if (c < 0x80) {
+            buffer[position++] = (byte) c;
+            if (c == '"' && doubleQuotes) {
+               buffer[position++] = (byte) c;
+            }
+         }
+         else if (c < 0x800) {
+            buffer[position++] = (byte) (0xC0 | c >> 6);
+            buffer[position++] = (byte) (0x80 | c & 0x3F);
+         }
+         else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(++i));
+            buffer[position++] = (byte) (0xF0 | codePoint >> 18);
+            buffer[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+            buffer[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+            buffer[position++] = (byte) (0x80 | codePoint & 0x3F);
+         }
+         else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+            // Unpaired surrogate
+            buffer[position++] = (byte) '?';
+         }
+         else {
+            buffer[position++] = (byte) (0xE0 | c >> 12);
+            buffer[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+            buffer[position++] = (byte) (0x80 | c & 0x3F);
+         }
+      }
+   }
+
+   private void encode(String value) throws IOException {
+      CharBuffer chars = CharBuffer.wrap(value);
+      encoder.reset();
+      byteBuffer.clear();
+      byteBuffer.position(position);
+      CoderResult result;
+      do {
+         result = encoder.encode(chars, byteBuffer, true);
+         if (result.isOverflow()) {
+            flushByteBuffer();
+         }
+      }
+      while (result.isOverflow());
+      do {
+         result = encoder.flush(byteBuffer);
+         if (result.isOverflow()) {
+            flushByteBuffer();
+         }
+      }
+      while (result.isOverflow());
+      position = byteBuffer.position();
+   }
+
+   private void flushByteBuffer() throws IOException {
+      position = byteBuffer.position();
+      flushBuffer();
+      byteBuffer.clear();
+   }
+
+   private void flushBuffer() throws IOException {
+      if (position > 0) {
+         output.write(buffer, 0, position);
+         position = 0;
+      }
+   }
+}
@@ -53,6 +53,33 @@ public class ExportConf {
    public static final String DEFAULT_XLS_CLASS = "com.github.dandelion.datatables.extras.export.poi.XlsExport";
    public static final String DEFAULT_XLSX_CLASS = "com.github.dandelion.datatables.extras.export.poi.XlsxExport";
 
+   /**
+    * Number of rows above which the export classes supporting it switch to a
+    * generation keeping only a window of rows in memory.
+    */
+   public static final int DEFAULT_STREAMING_THRESHOLD = 10000;
+
+   /**
+    * Number of rows kept in memory by the export classes generating the file
+    * in a streaming fashion.
+    */
+   public static final int DEFAULT_ROW_ACCESS_WINDOW = 100;
+
+   /**
+    * Number of rows above which the PDF table is flushed incrementally to the
+    * document.
+    */
+   public static final int DEFAULT_PDF_FLUSH_THRESHOLD = 10000;
+
+   /**
+    * Number of rows after which the PDF table is flushed to the document.
+    */
+   public static final int DEFAULT_PDF_FLUSH_INTERVAL = 100;
+
+   public static final char DEFAULT_DELIMITER = ';';
+   public static final String DEFAULT_LINE_ENDING = "\n";
+   public static final String DEFAULT_CHARSET = "UTF-8";
+
    private String format;
    private String fileName;
    private String fileExtension;
@@ -64,6 +91,18 @@ public class ExportConf {
    private String url;
    private HttpMethod method;
    private Boolean autoSize;
+   private Integer autoSizeSampleInterval;
+   private Boolean streaming;
+   private Boolean async;
+   private Integer streamingThreshold;
+   private Integer rowAccessWindow;
+   private Integer pdfFlushThreshold;
+   private Integer pdfFlushInterval;
+   private Boolean compressTempFiles;
+   private Character delimiter;
+   private String lineEnding;
+   private String charset;
+   private Boolean bom;
    private Boolean hasCustomUrl = false;
    private String exportClass;
    private Orientation orientation;
@@ -116,6 +155,42 @@ public class ExportConf {
       if (this.autoSize == null) {
          this.autoSize = true;
       }
+      if (this.autoSizeSampleInterval == null) {
+         this.autoSizeSampleInterval = 1;
+      }
+      if (this.streaming == null) {
+         this.streaming = false;
+      }
+      if (this.async == null) {
+         this.async = false;
+      }
+      if (this.streamingThreshold == null) {
+         this.streamingThreshold = DEFAULT_STREAMING_THRESHOLD;
+      }
+      if (this.rowAccessWindow == null) {
+         this.rowAccessWindow = DEFAULT_ROW_ACCESS_WINDOW;
+      }
+      if (this.pdfFlushThreshold == null) {
+         this.pdfFlushThreshold = DEFAULT_PDF_FLUSH_THRESHOLD;
+      }
+      if (this.pdfFlushInterval == null) {
+         this.pdfFlushInterval = DEFAULT_PDF_FLUSH_INTERVAL;
+      }
+      if (this.compressTempFiles == null) {
+         this.compressTempFiles = true;
+      }
+      if (this.delimiter == null) {
+         this.delimiter = DEFAULT_DELIMITER;
+      }
+      if (this.lineEnding == null) {
+         this.lineEnding = DEFAULT_LINE_ENDING;
+      }
+      if (StringUtils.isBlank(this.charset)) {
+         this.charset = DEFAULT_CHARSET;
+      }
+      if (this.bom == null) {
+         this.bom = false;
+      }
       if (this.method == null) {
          this.method = HttpMethod.GET;
       }
@@ -188,15 +263,67 @@ public class ExportConf {
       if (StringUtils.isNotBlank(autosize)) {
          this.autoSize = Boolean.parseBoolean(autosize);
       }
+
+      String streaming = request.getParameter(ExportUtils.DDL_DT_REQUESTPARAM_EXPORT_STREAMING);
+      if (StringUtils.isNotBlank(streaming)) {
+         this.streaming = Boolean.parseBoolean(streaming);
+      }
+
+      String async = request.getParameter(ExportUtils.DDL_DT_REQUESTPARAM_EXPORT_ASYNC);
+      if (StringUtils.isNotBlank(async)) {
+         this.async = Boolean.parseBoolean(async);
+      }
    }
 
    public void mergeWith(ExportConf exportConfToMergeFrom) {
+      if (StringUtils.isBlank(this.format)) {
+         this.format = exportConfToMergeFrom.getFormat();
+      }
+      if (StringUtils.isBlank(this.exportClass)) {
+         this.exportClass = exportConfToMergeFrom.getExportClass();
+      }
       if (exportConfToMergeFrom.getIncludeHeader() != null) {
          this.includeHeader = exportConfToMergeFrom.getIncludeHeader();
       }
       if (exportConfToMergeFrom.getAutoSize() != null) {
          this.autoSize = exportConfToMergeFrom.getAutoSize();
       }
+      if (exportConfToMergeFrom.getAutoSizeSampleInterval() != null) {
+         this.autoSizeSampleInterval = exportConfToMergeFrom.getAutoSizeSampleInterval();
+      }
+      if (exportConfToMergeFrom.getStreaming() != null) {
+         this.streaming = exportConfToMergeFrom.getStreaming();
+      }
+      if (exportConfToMergeFrom.getAsync() != null) {
+         this.async = exportConfToMergeFrom.getAsync();
+      }
+      if (exportConfToMergeFrom.getStreamingThreshold() != null) {
+         this.streamingThreshold = exportConfToMergeFrom.getStreamingThreshold();
+      }
+      if (exportConfToMergeFrom.getRowAccessWindow() != null) {
+         this.rowAccessWindow = exportConfToMergeFrom.getRowAccessWindow();
+      }
+      if (exportConfToMergeFrom.getPdfFlushThreshold() != null) {
+         this.pdfFlushThreshold = exportConfToMergeFrom.getPdfFlushThreshold();
+      }
+      if (exportConfToMergeFrom.getPdfFlushInterval() != null) {
+         this.pdfFlushInterval = exportConfToMergeFrom.getPdfFlushInterval();
+      }
+      if (exportConfToMergeFrom.getCompressTempFiles() != null) {
+         this.compressTempFiles = exportConfToMergeFrom.getCompressTempFiles();
+      }
+      if (exportConfToMergeFrom.getDelimiter() != null) {
+         this.delimiter = exportConfToMergeFrom.getDelimiter();
+      }
+      if (exportConfToMergeFrom.getLineEnding() != null) {
+         this.lineEnding = exportConfToMergeFrom.getLineEnding();
+      }
+      if (StringUtils.isNotBlank(exportConfToMergeFrom.getCharset())) {
+         this.charset = exportConfToMergeFrom.getCharset();
+      }
+      if (exportConfToMergeFrom.getBom() != null) {
+         this.bom = exportConfToMergeFrom.getBom();
+      }
       if (StringUtils.isNotBlank(exportConfToMergeFrom.getFileExtension())) {
          this.fileExtension = exportConfToMergeFrom.getFileExtension();
       }
@@ -286,6 +413,170 @@ public class ExportConf {
       this.autoSize = autoSize;
    }
 
+   /**
+    * @return the interval between the rows measured when auto-sizing the
+    *         columns, {@code 1} meaning that every row is measured.
+    * @since 1.1.1
+    * @see ColumnWidthEstimator
+    */
+   public Integer getAutoSizeSampleInterval() {
+      return autoSizeSampleInterval;
+   }
+
+   public void setAutoSizeSampleInterval(Integer autoSizeSampleInterval) {
+      this.autoSizeSampleInterval = autoSizeSampleInterval;
+   }
+
+   /**
+    * @return {@code true} if the export content must be written directly to the
+    *         response, as it is generated, instead of being buffered first.
+    */
+   public Boolean getStreaming() {
+      return streaming;
+   }
+
+   public void setStreaming(Boolean streaming) {
+      this.streaming = streaming;
+   }
+
+   /**
+    * @return {@code true} if the export must be generated by a background job,
+    *         the export link polling the status of the job and downloading the
+    *         file once it is complete.
+    * @since 1.1.1
+    * @see com.github.dandelion.datatables.core.export.async.ExportJobManager
+    */
+   public Boolean getAsync() {
+      return async;
+   }
+
+   public void setAsync(Boolean async) {
+      this.async = async;
+   }
+
+   /**
+    * @return the number of rows above which the export classes supporting it,
+    *         such as the XLSX one, only keep a window of rows in memory
+    *         instead of the whole document. {@code 0} means that such a
+    *         generation is always used and a negative value that it is never
+    *         used.
+    * @since 1.1.1
+    */
+   public Integer getStreamingThreshold() {
+      return streamingThreshold;
+   }
+
+   public void setStreamingThreshold(Integer streamingThreshold) {
+      this.streamingThreshold = streamingThreshold;
+   }
+
+   /**
+    * @return the number of rows kept in memory when the document is generated
+    *         in a streaming fashion. The older rows are flushed to a temporary
+    *         file.
+    * @since 1.1.1
+    */
+   public Integer getRowAccessWindow() {
+      return rowAccessWindow;
+   }
+
+   public void setRowAccessWindow(Integer rowAccessWindow) {
+      this.rowAccessWindow = rowAccessWindow;
+   }
+
+   /**
+    * @return the number of rows above which the PDF table is flushed to the
+    *         document every {@link #getPdfFlushInterval() flush interval},
+    *         instead of being laid out at once. {@code 0} means that the table
+    *         is always flushed incrementally and a negative value that it
+    *         never is.
+    * @since 1.1.1
+    */
+   public Integer getPdfFlushThreshold() {
+      return pdfFlushThreshold;
+   }
+
+   public void setPdfFlushThreshold(Integer pdfFlushThreshold) {
+      this.pdfFlushThreshold = pdfFlushThreshold;
+   }
+
+   /**
+    * @return the number of rows after which the PDF table is flushed to the
+    *         document, once the {@link #getPdfFlushThreshold() flush threshold}
+    *         is reached.
+    * @since 1.1.1
+    */
+   public Integer getPdfFlushInterval() {
+      return pdfFlushInterval;
+   }
+
+   public void setPdfFlushInterval(Integer pdfFlushInterval) {
+      this.pdfFlushInterval = pdfFlushInterval;
+   }
+
+   /**
+    * @return {@code true} if the temporary files used when the document is
+    *         generated in a streaming fashion must be compressed.
+    * @since 1.1.1
+    */
+   public Boolean getCompressTempFiles() {
+      return compressTempFiles;
+   }
+
+   public void setCompressTempFiles(Boolean compressTempFiles) {
+      this.compressTempFiles = compressTempFiles;
+   }
+
+   /**
+    * @return the character separating the values of a row in text formats
+    *         such as CSV.
+    * @since 1.1.1
+    */
+   public Character getDelimiter() {
+      return delimiter;
+   }
+
+   public void setDelimiter(Character delimiter) {
+      this.delimiter = delimiter;
+   }
+
+   /**
+    * @return the characters ending each row in text formats such as CSV.
+    * @since 1.1.1
+    */
+   public String getLineEnding() {
+      return lineEnding;
+   }
+
+   public void setLineEnding(String lineEnding) {
+      this.lineEnding = lineEnding;
+   }
+
+   /**
+    * @return the name of the charset used to encode text formats such as CSV.
+    * @since 1.1.1
+    */
+   public String getCharset() {
+      return charset;
+   }
+
+   public void setCharset(String charset) {
+      this.charset = charset;
+   }
+
+   /**
+    * @return {@code true} if text formats such as CSV must start with a byte
+    *         order mark.
+    * @since 1.1.1
+    */
+   public Boolean getBom() {
+      return bom;
+   }
+
+   public void setBom(Boolean bom) {
+      this.bom = bom;
+   }
+
    public String getExportClass() {
       return exportClass;
    }
@@ -354,6 +645,66 @@ public class ExportConf {
          return this;
       }
 
+      public Builder autoSizeSampleInterval(Integer autoSizeSampleInterval) {
+         exportConf.setAutoSizeSampleInterval(autoSizeSampleInterval);
+         return this;
+      }
+
+      public Builder streaming(Boolean streaming) {
+         exportConf.setStreaming(streaming);
+         return this;
+      }
+
+      public Builder async(Boolean async) {
+         exportConf.setAsync(async);
+         return this;
+      }
+
+      public Builder streamingThreshold(Integer streamingThreshold) {
+         exportConf.setStreamingThreshold(streamingThreshold);
+         return this;
+      }
+
+      public Builder rowAccessWindow(Integer rowAccessWindow) {
+         exportConf.setRowAccessWindow(rowAccessWindow);
+         return this;
+      }
+
+      public Builder pdfFlushThreshold(Integer pdfFlushThreshold) {
+         exportConf.setPdfFlushThreshold(pdfFlushThreshold);
+         return this;
+      }
+
+      public Builder pdfFlushInterval(Integer pdfFlushInterval) {
+         exportConf.setPdfFlushInterval(pdfFlushInterval);
+         return this;
+      }
+
+      public Builder compressTempFiles(Boolean compressTempFiles) {
+         exportConf.setCompressTempFiles(compressTempFiles);
+         return this;
+      }
+
+      public Builder delimiter(Character delimiter) {
+         exportConf.setDelimiter(delimiter);
+         return this;
+      }
+
+      public Builder lineEnding(String lineEnding) {
+         exportConf.setLineEnding(lineEnding);
+         return this;
+      }
+
+      public Builder charset(String charset) {
+         exportConf.setCharset(charset);
+         return this;
+      }
+
+      public Builder bom(Boolean bom) {
+         exportConf.setBom(bom);
+         return this;
+      }
+
       public Builder exportClass(String exportClass) {
          exportConf.setExportClass(exportClass);
          return this;
@@ -387,6 +738,9 @@ public class ExportConf {
       return "ExportConf [format=" + format + ", fileName=" + fileName + ", fileExtension=" + fileExtension
             + ", mimeType=" + mimeType + ", label=" + label + ", cssStyle=" + cssStyle + ", cssClass=" + cssClass
             + ", includeHeader=" + includeHeader + ", url=" + url + ", method=" + method + ", autoSize=" + autoSize
-            + ", hasCustomUrl=" + hasCustomUrl + ", exportClass=" + exportClass + ", orientation=" + orientation + "]";
+            + ", autoSizeSampleInterval=" + autoSizeSampleInterval + ", streaming=" + streaming + ", async=" + async + ", streamingThreshold=" + streamingThreshold + ", rowAccessWindow="
+            + rowAccessWindow + ", pdfFlushThreshold=" + pdfFlushThreshold + ", pdfFlushInterval=" + pdfFlushInterval
+            + ", compressTempFiles=" + compressTempFiles + ", delimiter=" + delimiter + ", charset=" + charset + ", bom="
+            + bom + ", hasCustomUrl=" + hasCustomUrl + ", exportClass=" + exportClass + ", orientation=" + orientation + "]";
    }
 }
\ No newline at end of file
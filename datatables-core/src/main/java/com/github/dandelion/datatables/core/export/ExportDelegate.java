@@ -29,10 +29,10 @@
  */
 package com.github.dandelion.datatables.core.export;
 
-import java.io.ByteArrayOutputStream;
-import java.io.OutputStream;
+import java.io.IOException;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -64,12 +64,22 @@ public class ExportDelegate {
     * Prepares the export by processing the passed export class and setting
     * request attributes that will be used by the {@link DatatablesFilter} to
     * render the export.
+    * <p>
+    * If streaming is enabled in the {@link ExportConf} and the original
+    * response has been made available by the {@link DatatablesFilter}, the
+    * export content is directly written to the response instead.
+    * </p>
+    * <p>
+    * Similarly, if the export is asynchronous, it is submitted as a background
+    * job and the status of the job is written to the response.
+    * </p>
+    * <p>
+    * Otherwise, the export is only generated once admitted by the
+    * {@link ExportGovernor}.
+    * </p>
     */
    public void prepareExport() {
 
-      // The stream containing the export content
-      OutputStream stream = new ByteArrayOutputStream();
-
       // Get the current export type
       String exportFormat = htmlTable.getTableConfiguration().getCurrentExportFormat();
       ExportConf exportConf = htmlTable.getTableConfiguration().getExportConfigurations().get(exportFormat);
@@ -111,12 +121,63 @@ public class ExportDelegate {
       }
 
       ((DatatablesExport) obj).initExport(htmlTable);
-      ((DatatablesExport) obj).processExport(stream);
 
-      // Fill the request so that the filter will intercept it and
-      // override the response with the export content
-      request.setAttribute(ExportUtils.DDL_DT_REQUESTATTR_EXPORT_CONTENT,
-            ((ByteArrayOutputStream) stream).toByteArray());
+      HttpServletResponse response = (HttpServletResponse) request
+            .getAttribute(ExportUtils.DDL_DT_REQUESTATTR_EXPORT_RESPONSE);
+      if (exportConf.getAsync() && response != null) {
+         logger.debug("Submitting the export as a background job");
+         ExportSource source = obj instanceof RowExport ? new HtmlTableExportSource(htmlTable, exportFormat) : null;
+         ExportUtils.submitExport((DatatablesExport) obj, source, exportConf, request, response);
+         request.setAttribute(ExportUtils.DDL_DT_REQUESTATTR_EXPORT_STREAMED, true);
+      }
+      else {
+         ExportGovernor.Permit permit;
+         try {
+            ExportSource source = new HtmlTableExportSource(htmlTable, exportFormat);
+            permit = ExportGovernor.acquire(exportFormat, ExportGovernor.getRowCount(source), source.getHeaders()
+                  .size());
+         }
+         catch (ExportRejectedException e) {
+            if (response == null) {
+               throw e;
+            }
+            ExportUtils.sendRejection(response, e);
+            request.setAttribute(ExportUtils.DDL_DT_REQUESTATTR_EXPORT_STREAMED, true);
+            return;
+         }
+
+         try {
+            if (exportConf.getStreaming() && response != null) {
+               logger.debug("Streaming the export content to the response");
+               ExportUtils.streamExport((DatatablesExport) obj, exportConf, response);
+               request.setAttribute(ExportUtils.DDL_DT_REQUESTATTR_EXPORT_STREAMED, true);
+            }
+            else {
+               // The spool containing the export content, kept in memory or
+               // in a temporary file depending on its size
+               ExportSpool spool = new ExportSpool();
+               try {
+                  ((DatatablesExport) obj).processExport(spool);
+                  spool.close();
+               }
+               catch (IOException e) {
+                  spool.release();
+                  throw new DandelionException("Unable to spool the export content", e);
+               }
+               catch (RuntimeException e) {
+                  spool.release();
+                  throw e;
+               }
+
+               // Fill the request so that the filter will intercept it and
+               // override the response with the export content
+               request.setAttribute(ExportUtils.DDL_DT_REQUESTATTR_EXPORT_CONTENT, spool);
+            }
+         }
+         finally {
+            permit.release();
+         }
+      }
       request.setAttribute(ExportUtils.DDL_DT_REQUESTATTR_EXPORT_CONF, exportConf);
    }
 }
\ No newline at end of file
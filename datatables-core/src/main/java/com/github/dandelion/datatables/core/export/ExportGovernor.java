@@ -0,0 +1,372 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.export;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.dandelion.core.DandelionException;
+
+/**
+ * <p>
+ * Admission control of the exports generated during a request, i.e. not by a
+ * background job.
+ * </p>
+ * <p>
+ * Before being generated, each export must obtain a {@link Permit}, which is
+ * only granted if:
+ * </p>
+ * <ul>
+ * <li>fewer exports than the concurrency limit of its format are in progress.
+ * By default, at most {@link #DEFAULT_CONCURRENCY_LIMIT} PDF, XLS and XLSX
+ * exports run at once, while CSV, XML and custom formats are not limited</li>
+ * <li>its estimated memory footprint, i.e. its number of rows times its number
+ * of columns times the estimated bytes per cell of its format, fits into the
+ * remaining global memory budget. When the number of rows is unknown, e.g.
+ * for a custom {@link ExportSource}, the default reservation is charged
+ * instead. An export exceeding the whole budget on its own is only admitted
+ * when no other export is in progress</li>
+ * </ul>
+ * <p>
+ * Otherwise, the export waits for at most the queue timeout. If the permit
+ * still can't be granted, an {@link ExportRejectedException} is thrown, which
+ * is answered with a {@link #SC_TOO_MANY_REQUESTS} error.
+ * </p>
+ * <p>
+ * Asynchronous exports bypass the governor: they are only bounded by the
+ * threads and the queue of the
+ * {@link com.github.dandelion.datatables.core.export.async.ExportJobManager},
+ * i.e. by the {@code asyncExportThreads} and {@code asyncExportQueueCapacity}
+ * init parameters of the {@code DatatablesFilter}.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+public final class ExportGovernor {
+
+   private static Logger logger = LoggerFactory.getLogger(ExportGovernor.class);
+
+   /**
+    * HTTP status sent when an export is rejected.
+    */
+   public static final int SC_TOO_MANY_REQUESTS = 429;
+
+   /**
+    * Delay, in seconds, suggested to the clients whose export is rejected.
+    */
+   public static final int RETRY_AFTER = 10;
+
+   public static final int DEFAULT_CONCURRENCY_LIMIT = 4;
+   public static final long DEFAULT_QUEUE_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+   public static final int DEFAULT_BYTES_PER_CELL = 100;
+   public static final long DEFAULT_RESERVATION = 10L * 1024 * 1024;
+
+   private static final Object monitor = new Object();
+
+   private static final Map<String, Integer> concurrencyLimits = new HashMap<String, Integer>();
+   private static final Map<String, Integer> bytesPerCell = new HashMap<String, Integer>();
+   private static final Map<String, Integer> activeCounts = new HashMap<String, Integer>();
+   private static long memoryBudget = Runtime.getRuntime().maxMemory() / 4;
+   private static long queueTimeout = DEFAULT_QUEUE_TIMEOUT;
+   private static long defaultReservation = DEFAULT_RESERVATION;
+
+   private static long reservedMemory;
+   private static int activeCount;
+   private static int queuedCount;
+   private static long rejectedCount;
+
+   static {
+      concurrencyLimits.put(ReservedFormat.PDF, DEFAULT_CONCURRENCY_LIMIT);
+      concurrencyLimits.put(ReservedFormat.XLS, DEFAULT_CONCURRENCY_LIMIT);
+      concurrencyLimits.put(ReservedFormat.XLSX, DEFAULT_CONCURRENCY_LIMIT);
+      bytesPerCell.put(ReservedFormat.CSV, 50);
+      bytesPerCell.put(ReservedFormat.XML, 100);
+      bytesPerCell.put(ReservedFormat.PDF, 300);
+      bytesPerCell.put(ReservedFormat.XLS, 200);
+      bytesPerCell.put(ReservedFormat.XLSX, 500);
+   }
+
+   /**
+    * <p>
+    * Permit granted to an export, which must be released once the export is
+    * generated.
+    * </p>
+    */
+   public static final class Permit {
+
+      private final String format;
+      private final long memory;
+      private boolean released;
+
+      private Permit(String format, long memory) {
+         this.format = format;
+         this.memory = memory;
+      }
+
+      /**
+       * @return the estimated memory reserved by the export, in bytes.
+       */
+      public long getMemory() {
+         return memory;
+      }
+
+      /**
+       * <p>
+       * Releases the permit. Subsequent calls have no effect.
+       * </p>
+       */
+      public void release() {
+         synchronized (monitor) {
+            if (released) {
+               return;
+            }
+            released = true;
+            activeCount--;
+            activeCounts.put(format, activeCounts.get(format) - 1);
+            reservedMemory -= memory;
+            monitor.notifyAll();
+         }
+      }
+   }
+
+   /**
+    * <p>
+    * Acquires a permit for the passed export, waiting for at most the queue
+    * timeout.
+    * </p>
+    * 
+    * @param format
+    *           The export format.
+    * @param rows
+    *           The number of rows to export, {@code -1} if unknown, in which
+    *           case the default reservation is charged.
+    * @param columns
+    *           The number of columns to export.
+    * @return the granted permit.
+    * @throws ExportRejectedException
+    *            if the permit can't be granted in time.
+    */
+   public static Permit acquire(String format, long rows, int columns) {
+      synchronized (monitor) {
+         long memory = rows < 0 ? defaultReservation : rows * Math.max(columns, 0) * getBytesPerCell(format);
+         long deadline = System.currentTimeMillis() + queueTimeout;
+         queuedCount++;
+         try {
+            while (!isAdmissible(format, memory)) {
+               long remaining = deadline - System.currentTimeMillis();
+               if (remaining <= 0) {
+                  rejectedCount++;
+                  logger.debug("Rejecting a {} export of {} rows", format, rows);
+                  throw new ExportRejectedException("Too many exports in progress, the " + format
+                        + " export can't be generated right now");
+               }
+               monitor.wait(remaining);
+            }
+         }
+         catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejectedCount++;
+            throw new ExportRejectedException("Interrupted while waiting for the " + format + " export to start", e);
+         }
+         finally {
+            queuedCount--;
+         }
+
+         activeCount++;
+         Integer formatCount = activeCounts.get(format);
+         activeCounts.put(format, formatCount != null ? formatCount + 1 : 1);
+         reservedMemory += memory;
+         return new Permit(format, memory);
+      }
+   }
+
+   /**
+    * @return the number of rows of the passed source, or {@code -1} if it is
+    *         unknown.
+    */
+   static long getRowCount(ExportSource source) {
+      if (source instanceof HtmlTableExportSource) {
+         return ((HtmlTableExportSource) source).getRowCount();
+      }
+      if (source instanceof BeanExportSource) {
+         return ((BeanExportSource<?>) source).getRowCount();
+      }
+      return -1;
+   }
+
+   private static boolean isAdmissible(String format, long memory) {
+      Integer limit = concurrencyLimits.get(format);
+      Integer active = activeCounts.get(format);
+      if (limit != null && active != null && active >= limit) {
+         return false;
+      }
+      return reservedMemory == 0 || reservedMemory + memory <= memoryBudget;
+   }
+
+   private static long getBytesPerCell(String format) {
+      Integer bytes = bytesPerCell.get(format);
+      return bytes != null ? bytes : DEFAULT_BYTES_PER_CELL;
+   }
+
+   /**
+    * @param format
+    *           An export format.
+    * @param limit
+    *           The maximum number of exports of this format generated at
+    *           once, or {@code null} to remove the limit.
+    */
+   public static void setConcurrencyLimit(String format, Integer limit) {
+      if (limit != null && limit <= 0) {
+         throw new DandelionException("The concurrency limit of the " + format + " exports must be positive");
+      }
+      synchronized (monitor) {
+         if (limit != null) {
+            concurrencyLimits.put(format, limit);
+         }
+         else {
+            concurrencyLimits.remove(format);
+         }
+         monitor.notifyAll();
+      }
+   }
+
+   /**
+    * @param format
+    *           An export format.
+    * @param bytes
+    *           The estimated memory used by each cell of an export of this
+    *           format.
+    */
+   public static void setBytesPerCell(String format, int bytes) {
+      synchronized (monitor) {
+         bytesPerCell.put(format, bytes);
+      }
+   }
+
+   /**
+    * @param memoryBudget
+    *           The estimated memory, in bytes, that all exports in progress
+    *           may use. Defaults to a quarter of the maximum heap size.
+    */
+   public static void setMemoryBudget(long memoryBudget) {
+      synchronized (monitor) {
+         ExportGovernor.memoryBudget = memoryBudget;
+         monitor.notifyAll();
+      }
+   }
+
+   /**
+    * @param defaultReservation
+    *           The estimated memory, in bytes, charged for an export whose
+    *           number of rows is unknown. Defaults to
+    *           {@link #DEFAULT_RESERVATION}.
+    */
+   public static void setDefaultReservation(long defaultReservation) {
+      if (defaultReservation < 0) {
+         throw new DandelionException("The default reservation of the exports can't be negative");
+      }
+      synchronized (monitor) {
+         ExportGovernor.defaultReservation = defaultReservation;
+      }
+   }
+
+   /**
+    * @param queueTimeout
+    *           The time, in milliseconds, an export may wait for a permit.
+    *           {@code 0} rejects the exports that can't be admitted right
+    *           away.
+    */
+   public static void setQueueTimeout(long queueTimeout) {
+      synchronized (monitor) {
+         ExportGovernor.queueTimeout = queueTimeout;
+      }
+   }
+
+   /**
+    * @return the number of exports in progress.
+    */
+   public static int getActiveCount() {
+      synchronized (monitor) {
+         return activeCount;
+      }
+   }
+
+   /**
+    * @return the number of exports of the passed format in progress.
+    */
+   public static int getActiveCount(String format) {
+      synchronized (monitor) {
+         Integer count = activeCounts.get(format);
+         return count != null ? count : 0;
+      }
+   }
+
+   /**
+    * @return the number of exports waiting for a permit.
+    */
+   public static int getQueuedCount() {
+      synchronized (monitor) {
+         return queuedCount;
+      }
+   }
+
+   /**
+    * @return the number of exports rejected since the application started.
+    */
+   public static long getRejectedCount() {
+      synchronized (monitor) {
+         return rejectedCount;
+      }
+   }
+
+   /**
+    * @return the estimated memory, in bytes, reserved by the exports in
+    *         progress.
+    */
+   public static long getReservedMemory() {
+      synchronized (monitor) {
+         return reservedMemory;
+      }
+   }
+
+   /**
+    * <p>
+    * Suppress default constructor for noninstantiability.
+    * </p>
+    */
+   private ExportGovernor() {
+      throw new AssertionError();
+   }
+}
@@ -0,0 +1,90 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.export;
+
+import java.util.Iterator;
+import java.util.List;
+
+import com.github.dandelion.datatables.core.html.HtmlTable;
+
+/**
+ * <p>
+ * Columnar view of the data to export, made of a header schema and rows of
+ * values.
+ * </p>
+ * <p>
+ * Unlike {@link HtmlTable}, an export source doesn't hold any HTML object per
+ * cell: each row is handed to the export class as a plain array of values, in
+ * the same order as the headers. Implementations are free to compute the rows
+ * lazily, as they are iterated over, so that export classes implementing
+ * {@link RowExport} can write them one by one without ever holding the whole
+ * table in memory.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ * @see HtmlTableExportSource
+ * @see HtmlTableBuilder.BuildStep#buildSource()
+ */
+public interface ExportSource extends Iterable<String[]> {
+
+   /**
+    * @return the id of the exported table, mainly used in error messages.
+    */
+   public String getTableId();
+
+   /**
+    * @return the simple name of the type of the exported objects, or
+    *         {@code null} if it is unknown.
+    */
+   public String getObjectType();
+
+   /**
+    * @return the export configuration to apply.
+    */
+   public ExportConf getExportConf();
+
+   /**
+    * @return the titles of the exported columns. The returned list may be
+    *         empty, but never {@code null}.
+    */
+   public List<String> getHeaders();
+
+   /**
+    * <p>
+    * Returns an iterator over the rows of the source. Each returned array
+    * contains as many values as there are headers.
+    * </p>
+    * 
+    * @return an iterator over the rows to export.
+    */
+   @Override
+   public Iterator<String[]> iterator();
+}
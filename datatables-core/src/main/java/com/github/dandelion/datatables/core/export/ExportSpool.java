@@ -0,0 +1,290 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.export;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.dandelion.core.DandelionException;
+
+/**
+ * <p>
+ * Holds the content of an export that is not streamed to the response.
+ * </p>
+ * <p>
+ * The content is kept in memory until it exceeds the threshold, then spooled
+ * to a temporary file through a {@link FileChannel}. Either way, its exact
+ * length is known once written, and any range of it can be transferred to
+ * the response. When spooled, the transfer uses
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)} towards a
+ * channel wrapping the response stream. This is not a zero-copy transfer, but
+ * a chunked copy that never holds the whole file in memory.
+ * </p>
+ * <p>
+ * Once sent, the spool must be released, which deletes its temporary file.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+public class ExportSpool extends OutputStream {
+
+   private static Logger logger = LoggerFactory.getLogger(ExportSpool.class);
+
+   public static final int DEFAULT_THRESHOLD = 1024 * 1024;
+
+   private static final int BUFFER_SIZE = 8192;
+
+   private static volatile int threshold = DEFAULT_THRESHOLD;
+
+   private final int memoryLimit;
+   private byte[] buffer;
+   private int count;
+   private long length;
+   private File file;
+   private FileChannel channel;
+   private final boolean temporary;
+   private boolean closed;
+
+   /**
+    * <p>
+    * Creates an empty spool, to which the export is written.
+    * </p>
+    */
+   public ExportSpool() {
+      this.memoryLimit = threshold;
+      this.buffer = new byte[Math.min(BUFFER_SIZE, memoryLimit)];
+      this.temporary = true;
+   }
+
+   private ExportSpool(File file, FileChannel channel) throws IOException {
+      this.memoryLimit = 0;
+      this.file = file;
+      this.channel = channel;
+      this.length = channel.size();
+      this.temporary = false;
+      this.closed = true;
+   }
+
+   /**
+    * <p>
+    * Opens an existing file as a spool, in order to send it. Releasing the
+    * returned spool doesn't delete the file.
+    * </p>
+    * 
+    * @param file
+    *           The file to send.
+    * @return a closed spool containing the file.
+    */
+   public static ExportSpool open(File file) throws IOException {
+      return new ExportSpool(file, new RandomAccessFile(file, "r").getChannel());
+   }
+
+   @Override
+   public void write(int b) throws IOException {
+      if (!closed && count < buffer.length) {
+         buffer[count++] = (byte) b;
+         length++;
+      }
+      else {
+         write(new byte[] { (byte) b }, 0, 1);
+      }
+   }
+
+   @Override
+   public void write(byte[] b, int off, int len) throws IOException {
+      if (closed) {
+         throw new IOException("The export spool is closed");
+      }
+      if (count + len > buffer.length) {
+         if (channel == null && length + len <= memoryLimit) {
+            buffer = Arrays.copyOf(buffer, (int) Math.min(Math.max(buffer.length * 2L, count + len), memoryLimit));
+         }
+         else {
+            if (channel == null) {
+               spool();
+            }
+            flushBuffer();
+            if (len >= buffer.length) {
+               writeFully(ByteBuffer.wrap(b, off, len));
+               length += len;
+               return;
+            }
+         }
+      }
+      System.arraycopy(b, off, buffer, count, len);
+      count += len;
+      length += len;
+   }
+
+   /**
+    * <p>
+    * Ends the writing of the export. The spooled content, if any, is flushed to
+    * the temporary file.
+    * </p>
+    */
+   @Override
+   public void close() throws IOException {
+      if (!closed) {
+         if (channel != null) {
+            flushBuffer();
+         }
+         closed = true;
+      }
+   }
+
+   /**
+    * @return the length of the export content, in bytes.
+    */
+   public long getLength() {
+      return length;
+   }
+
+   /**
+    * @return {@code true} if the content has been spooled to a file,
+    *         {@code false} if it is held in memory.
+    */
+   public boolean isSpooled() {
+      return channel != null;
+   }
+
+   /**
+    * <p>
+    * Transfers a range of the export content to the passed stream.
+    * </p>
+    * 
+    * @param position
+    *           The position of the first byte to transfer.
+    * @param count
+    *           The number of bytes to transfer.
+    * @param output
+    *           The stream to write to, typically the output stream of the
+    *           response.
+    */
+   public void transferTo(long position, long count, OutputStream output) throws IOException {
+      if (!closed) {
+         throw new IOException("The export spool must be closed before being transferred");
+      }
+      if (position < 0 || count < 0 || position + count > length) {
+         throw new IOException("Invalid range " + position + "+" + count + " for a content of " + length + " bytes");
+      }
+
+      if (channel == null) {
+         output.write(buffer, (int) position, (int) count);
+         return;
+      }
+
+      output.flush();
+      WritableByteChannel target = Channels.newChannel(output);
+      while (count > 0) {
+         long transferred = channel.transferTo(position, count, target);
+         if (transferred <= 0) {
+            throw new IOException("Unable to transfer the export content from " + file);
+         }
+         position += transferred;
+         count -= transferred;
+      }
+   }
+
+   /**
+    * <p>
+    * Releases the resources held by the spool, deleting its temporary file if
+    * any. Subsequent calls have no effect.
+    * </p>
+    */
+   public void release() {
+      closed = true;
+      buffer = null;
+      if (channel != null) {
+         try {
+            channel.close();
+         }
+         catch (IOException e) {
+            logger.warn("Unable to close the export spool {}", file, e);
+         }
+         channel = null;
+         if (temporary && file.exists() && !file.delete()) {
+            logger.warn("Unable to delete the temporary file {}", file);
+         }
+      }
+   }
+
+   private void spool() throws IOException {
+      file = File.createTempFile("ddl-dt-export-", ".tmp");
+      logger.debug("Spooling the export content to {}", file);
+      RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+      try {
+         channel = randomAccessFile.getChannel();
+      }
+      catch (RuntimeException e) {
+         randomAccessFile.close();
+         throw e;
+      }
+      if (buffer.length != BUFFER_SIZE) {
+         flushBuffer();
+         buffer = new byte[BUFFER_SIZE];
+      }
+   }
+
+   private void flushBuffer() throws IOException {
+      if (count > 0) {
+         writeFully(ByteBuffer.wrap(buffer, 0, count));
+         count = 0;
+      }
+   }
+
+   private void writeFully(ByteBuffer source) throws IOException {
+      while (source.hasRemaining()) {
+         channel.write(source);
+      }
+   }
+
+   /**
+    * @param threshold
+    *           The size, in bytes, above which the export content is spooled
+    *           to a temporary file. {@code 0} always spools the content.
+    */
+   public static void setThreshold(int threshold) {
+      if (threshold < 0) {
+         throw new DandelionException("The spooling threshold can't be negative");
+      }
+      ExportSpool.threshold = threshold;
+   }
+}
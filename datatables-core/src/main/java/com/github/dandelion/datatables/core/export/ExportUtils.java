@@ -31,6 +31,7 @@ package com.github.dandelion.datatables.core.export;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.servlet.ServletOutputStream;
 import javax.servlet.ServletRequest;
@@ -39,6 +40,9 @@ import javax.servlet.http.HttpServletResponse;
 
 import com.github.dandelion.core.DandelionException;
 import com.github.dandelion.core.util.ClassUtils;
+import com.github.dandelion.datatables.core.export.async.ExportJob;
+import com.github.dandelion.datatables.core.export.async.ExportJobHandler;
+import com.github.dandelion.datatables.core.export.async.ExportJobManager;
 import com.github.dandelion.datatables.core.html.HtmlTable;
 
 /**
@@ -56,9 +60,15 @@ public final class ExportUtils {
    // Export properties
    public static final String DDL_DT_REQUESTATTR_EXPORT_CONF = "ddl-dt-export-conf";
 
-   // Export content
+   // Export content, as an ExportSpool
    public static final String DDL_DT_REQUESTATTR_EXPORT_CONTENT = "ddl-dt-export-content";
 
+   // Original response, in which the export content can be streamed
+   public static final String DDL_DT_REQUESTATTR_EXPORT_RESPONSE = "ddl-dt-export-response";
+
+   // Whether the export content has already been streamed
+   public static final String DDL_DT_REQUESTATTR_EXPORT_STREAMED = "ddl-dt-export-streamed";
+
    /** Request parameters */
 
    // Table is being exported
@@ -79,6 +89,12 @@ public final class ExportUtils {
    public static final String DDL_DT_REQUESTPARAM_EXPORT_EXTENSION = "dte";
    public static final String DDL_DT_REQUESTPARAM_EXPORT_NAME = "dtn";
    public static final String DDL_DT_REQUESTPARAM_EXPORT_AUTOSIZE = "dts";
+   public static final String DDL_DT_REQUESTPARAM_EXPORT_STREAMING = "dtsm";
+   public static final String DDL_DT_REQUESTPARAM_EXPORT_ASYNC = "dta";
+
+   // Background export job, whose status is polled or which is downloaded
+   public static final String DDL_DT_REQUESTPARAM_EXPORT_JOB = "dtj";
+   public static final String DDL_DT_REQUESTPARAM_EXPORT_DOWNLOAD = "dtd";
 
    /**
     * Renders the passed table by writing the data to the response.
@@ -92,7 +108,73 @@ public final class ExportUtils {
     */
    public static void renderExport(HtmlTable table, ExportConf exportConf, HttpServletResponse response) {
 
-      ByteArrayOutputStream stream = new ByteArrayOutputStream();
+      DatatablesExport export = newExport(exportConf);
+      export.initExport(table);
+      writeExport(export, exportConf, table.getBodyRows().size(), table.getHeadRows().isEmpty() ? 0 : table
+            .getLastHeaderRow().getColumns().size(), table.getTableConfiguration().getRequest(), response);
+   }
+
+   /**
+    * <p>
+    * Renders the passed source by writing the data to the response.
+    * </p>
+    * <p>
+    * The rows of the source are consumed one by one by the export class, which
+    * must therefore implement {@link RowExport}.
+    * </p>
+    * 
+    * @param source
+    *           The source of the rows to export, which also holds the export
+    *           configuration.
+    * @param response
+    *           The response to update.
+    * @since 1.1.1
+    * @see #renderExport(ExportSource, HttpServletRequest, HttpServletResponse)
+    */
+   public static void renderExport(ExportSource source, HttpServletResponse response) {
+      renderExport(source, null, response);
+   }
+
+   /**
+    * <p>
+    * Renders the passed source by writing the data to the response.
+    * </p>
+    * <p>
+    * The rows of the source are consumed one by one by the export class, which
+    * must therefore implement {@link RowExport}.
+    * </p>
+    * 
+    * @param source
+    *           The source of the rows to export, which also holds the export
+    *           configuration.
+    * @param request
+    *           The current request, required by asynchronous exports, whose
+    *           job belongs to the user or the session of the request.
+    * @param response
+    *           The response to update.
+    * @since 1.1.1
+    */
+   public static void renderExport(ExportSource source, HttpServletRequest request, HttpServletResponse response) {
+
+      ExportConf exportConf = source.getExportConf();
+      DatatablesExport export = newExport(exportConf);
+
+      if (!(export instanceof RowExport)) {
+         throw new DandelionException("Unable to export in " + exportConf.getFormat() + " format because the class '"
+               + exportConf.getExportClass() + "' doesn't implement " + RowExport.class.getSimpleName());
+      }
+
+      ((RowExport) export).initExport(source);
+      if (exportConf.getAsync()) {
+         submitExport(export, source, exportConf, request, response);
+         return;
+      }
+      writeExport(export, exportConf, ExportGovernor.getRowCount(source), source.getHeaders().size(), request,
+            response);
+   }
+
+   private static DatatablesExport newExport(ExportConf exportConf) {
+
       String exportClass = exportConf.getExportClass();
 
       // Check whether the class can be instantiated
@@ -101,11 +183,9 @@ public final class ExportUtils {
                + " format because the export class cannot be found. Did you forget to add an extra dependency?");
       }
 
-      Class<?> klass = null;
-      DatatablesExport export = null;
       try {
-         klass = ClassUtils.getClass(exportClass);
-         export = (DatatablesExport) ClassUtils.getNewInstance(klass);
+         Class<?> klass = ClassUtils.getClass(exportClass);
+         return (DatatablesExport) ClassUtils.getNewInstance(klass);
       }
       catch (ClassNotFoundException e) {
          throw new DandelionException("Unable to load the class '" + exportClass + "'", e);
@@ -116,16 +196,144 @@ public final class ExportUtils {
       catch (IllegalAccessException e) {
          throw new DandelionException("Unable to access the class '" + exportClass + "'", e);
       }
+   }
 
-      export.initExport(table);
-      export.processExport(stream);
+   private static void writeExport(DatatablesExport export, ExportConf exportConf, long rows, int columns,
+         HttpServletRequest request, HttpServletResponse response) {
+
+      if (exportConf.getAsync()) {
+         submitExport(export, null, exportConf, request, response);
+         return;
+      }
+
+      ExportGovernor.Permit permit;
+      try {
+         permit = ExportGovernor.acquire(exportConf.getFormat(), rows, columns);
+      }
+      catch (ExportRejectedException e) {
+         sendRejection(response, e);
+         return;
+      }
 
+      ExportSpool spool = null;
       try {
-         writeToResponse(response, stream, exportConf.getFileName() + "." + exportConf.getFileExtension(),
+         if (exportConf.getStreaming()) {
+            streamExport(export, exportConf, response);
+            return;
+         }
+
+         spool = new ExportSpool();
+         export.processExport(spool);
+         spool.close();
+
+         writeToResponse(null, response, spool, exportConf.getFileName() + "." + exportConf.getFileExtension(),
                exportConf.getMimeType());
       }
       catch (IOException e) {
-         throw new DandelionException("Unable to write to response using the " + exportClass.getClass().getSimpleName(),
+         throw new DandelionException("Unable to write to response using the " + export.getClass().getSimpleName(),
+               e);
+      }
+      finally {
+         if (spool != null) {
+            spool.release();
+         }
+         permit.release();
+      }
+   }
+
+   /**
+    * <p>
+    * Answers an export rejected by the {@link ExportGovernor} with a
+    * {@link ExportGovernor#SC_TOO_MANY_REQUESTS} error.
+    * </p>
+    */
+   static void sendRejection(HttpServletResponse response, ExportRejectedException e) {
+      try {
+         response.setHeader("Retry-After", String.valueOf(ExportGovernor.RETRY_AFTER));
+         response.sendError(ExportGovernor.SC_TOO_MANY_REQUESTS, e.getMessage());
+      }
+      catch (IOException ioe) {
+         throw new DandelionException("Unable to reject the export", ioe);
+      }
+   }
+
+   /**
+    * <p>
+    * Writes the export content directly to the passed response, as it is
+    * generated by the passed export class.
+    * </p>
+    * <p>
+    * The headers are set up front and no content length is set, so that the
+    * servlet container uses a chunked transfer. Whatever the number of rows, no
+    * copy of the export content is kept in memory. Note however that the
+    * response is committed as soon as the export class starts writing: an
+    * error occurring in the middle of the export can't be reported with an
+    * error page anymore.
+    * </p>
+    * 
+    * @param export
+    *           The initialized export class.
+    * @param exportConf
+    *           The export configuration.
+    * @param response
+    *           The response to write to.
+    */
+   public static void streamExport(DatatablesExport export, ExportConf exportConf, HttpServletResponse response) {
+      response.setContentType(exportConf.getMimeType());
+      response.setHeader("Content-Disposition",
+            "attachment; filename=\"" + exportConf.getFileName() + "." + exportConf.getFileExtension() + "\"");
+
+      try {
+         ServletOutputStream out = response.getOutputStream();
+         export.processExport(out);
+         out.flush();
+      }
+      catch (IOException e) {
+         throw new DandelionException("Unable to stream the export using the " + export.getClass().getSimpleName(),
+               e);
+      }
+   }
+
+   /**
+    * <p>
+    * Submits the export to the {@link ExportJobManager}, to be generated in
+    * the background, and writes the status of the created job to the passed
+    * response, as JSON. If too many jobs are already waiting, a 503 error is
+    * sent instead.
+    * </p>
+    * 
+    * @param export
+    *           The initialized export class.
+    * @param source
+    *           The source of the rows to export, used to report the progress
+    *           of the job. May be {@code null}.
+    * @param exportConf
+    *           The export configuration.
+    * @param request
+    *           The current request, whose user or session owns the job.
+    * @param response
+    *           The response to write to.
+    * @since 1.1.1
+    * @see ExportJobHandler
+    */
+   public static void submitExport(DatatablesExport export, ExportSource source, ExportConf exportConf,
+         HttpServletRequest request, HttpServletResponse response) {
+      if (request == null) {
+         throw new DandelionException("The current request is required to submit an asynchronous export");
+      }
+      try {
+         ExportJob job;
+         try {
+            job = ExportJobManager.submit(export, source, exportConf, ExportJobHandler.getOwner(request));
+         }
+         catch (RejectedExecutionException e) {
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many exports in progress");
+            return;
+         }
+         ExportJobHandler.writeStatus(job, response);
+      }
+      catch (IOException e) {
+         throw new DandelionException("Unable to submit the export using the " + export.getClass().getSimpleName(),
                e);
       }
    }
@@ -156,6 +364,143 @@ public final class ExportUtils {
       out.flush();
    }
 
+   /**
+    * <p>
+    * Writes the passed export content to the response as an attachment, with
+    * its exact content length.
+    * </p>
+    * <p>
+    * If a request is passed and contains a single {@code Range}, only the
+    * requested bytes are sent, with a 206 status, so that interrupted downloads
+    * can be resumed. An unsatisfiable range results in a 416 error, while
+    * multiple or malformed ranges are ignored.
+    * </p>
+    * <p>
+    * Ranges must only be supported for stable content, such as the file of an
+    * asynchronous export job. An export generated again for each request
+    * differs from one request to another, e.g. because of the creation date
+    * written in PDF and XLSX files, so joining ranges of it would result in a
+    * corrupt file.
+    * </p>
+    * 
+    * @param request
+    *           The current request, or {@code null} if the content is not
+    *           stable and ranges must not be supported.
+    * @param response
+    *           The response to write to.
+    * @param spool
+    *           The closed export content.
+    * @param title
+    *           The title of the attachment.
+    * @param contentType
+    *           The MIME type.
+    * @since 1.1.1
+    */
+   public static void writeToResponse(HttpServletRequest request, HttpServletResponse response, ExportSpool spool,
+         String title, String contentType) throws IOException {
+      response.setContentType(contentType);
+      response.setHeader("Content-Disposition", "attachment; filename=\"" + title + "\"");
+
+      long length = spool.getLength();
+      long start = 0;
+      long end = length - 1;
+      long[] range = null;
+      if (request != null) {
+         response.setHeader("Accept-Ranges", "bytes");
+         range = parseRange(request.getHeader("Range"), length);
+      }
+      else {
+         response.setHeader("Accept-Ranges", "none");
+      }
+      if (range != null) {
+         if (range.length == 0) {
+            response.setHeader("Content-Range", "bytes */" + length);
+            response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+         }
+         start = range[0];
+         end = range[1];
+         response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+         response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + length);
+      }
+
+      long count = end - start + 1;
+      if (count <= Integer.MAX_VALUE) {
+         response.setContentLength((int) count);
+      }
+      else {
+         response.setHeader("Content-Length", String.valueOf(count));
+      }
+
+      ServletOutputStream out = response.getOutputStream();
+      spool.transferTo(start, count, out);
+      out.flush();
+   }
+
+   /**
+    * <p>
+    * Parses the value of a {@code Range} header.
+    * </p>
+    * 
+    * @param header
+    *           The value of the header, e.g. {@code bytes=100-199},
+    *           {@code bytes=100-} or {@code bytes=-100}.
+    * @param length
+    *           The length of the content.
+    * @return the first and last positions of the requested range, an empty
+    *         array if the range is not satisfiable, or {@code null} if the
+    *         whole content must be sent.
+    */
+   static long[] parseRange(String header, long length) {
+      if (header == null || !header.startsWith("bytes=") || header.indexOf(',') != -1) {
+         return null;
+      }
+      String spec = header.substring("bytes=".length()).trim();
+      int dash = spec.indexOf('-');
+      if (dash == -1) {
+         return null;
+      }
+
+      long start;
+      long end;
+      try {
+         String first = spec.substring(0, dash).trim();
+         String last = spec.substring(dash + 1).trim();
+         if (first.length() == 0) {
+            if (last.length() == 0) {
+               return null;
+            }
+            long suffix = Long.parseLong(last);
+            if (suffix == 0 || length == 0) {
+               return new long[0];
+            }
+            start = Math.max(length - suffix, 0);
+            end = length - 1;
+         }
+         else {
+            start = Long.parseLong(first);
+            if (last.length() == 0) {
+               end = length - 1;
+            }
+            else {
+               long requestedEnd = Long.parseLong(last);
+               if (requestedEnd < start) {
+                  return null;
+               }
+               end = Math.min(requestedEnd, length - 1);
+            }
+         }
+      }
+      catch (NumberFormatException e) {
+         return null;
+      }
+
+      if (start < 0 || start >= length) {
+         return new long[0];
+      }
+      return new long[] { start, end };
+   }
+
    public static String getCurrentExportType(HttpServletRequest request) {
 
       // Get the URL parameter used to identify the export type
@@ -37,10 +37,6 @@ import java.util.List;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import org.apache.commons.beanutils.PropertyUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 import com.github.dandelion.core.util.StringUtils;
 import com.github.dandelion.datatables.core.ajax.ColumnDef;
 import com.github.dandelion.datatables.core.ajax.DatatablesCriterias;
@@ -97,8 +93,6 @@ import com.github.dandelion.datatables.core.option.DatatableOptions;
  */
 public class HtmlTableBuilder<T> {
 
-   private static Logger logger = LoggerFactory.getLogger(HtmlTableBuilder.class);
-
    public ColumnStep newBuilder(String id, List<T> data, HttpServletRequest request) {
       return new Steps<T>(id, data, request);
    }
@@ -308,6 +302,21 @@ public class HtmlTableBuilder<T> {
        */
       HtmlTable build();
 
+      /**
+       * <p>
+       * Finalizes the build of an {@link ExportSource}, which can be passed to
+       * any {@link RowExport} without building the {@link HtmlTable}.
+       * </p>
+       * <p>
+       * The rows are computed from the collection one by one, while the export
+       * class consumes them.
+       * </p>
+       * 
+       * @return the instance of {@link ExportSource}.
+       * @since 1.1.1
+       */
+      ExportSource buildSource();
+
       FirstContentStep column();
    }
 
@@ -451,37 +460,9 @@ public class HtmlTableBuilder<T> {
                table.addRow();
                for (HtmlColumn column : headerColumns) {
 
-                  String content = "";
-                  for (ColumnElement columnElement : column.getColumnConfiguration().getColumnElements()) {
-
-                     if (StringUtils.isNotBlank(columnElement.getPropertyName())) {
-                        try {
-                           Object tmpObject = PropertyUtils.getNestedProperty(o,
-                                 columnElement.getPropertyName().trim());
-
-                           if (StringUtils.isNotBlank(columnElement.getPattern())) {
-                              MessageFormat messageFormat = new MessageFormat(columnElement.getPattern());
-                              content += messageFormat.format(new Object[] { tmpObject });
-                           }
-                           else {
-                              content += String.valueOf(tmpObject);
-                           }
-                        }
-                        catch (Exception e) {
-                           logger.warn(
-                                 "Something went wrong with the property {}. Check that an accessor method for this property exists in the bean.");
-                           content += columnElement.getDefaultValue();
-                        }
-                     }
-                     else if (columnElement.getContent() != null) {
-                        content += columnElement.getContent();
-                     }
-                     else {
-                        content += columnElement.getDefaultValue();
-                     }
-                  }
-
-                  table.getLastBodyRow().addColumn(String.valueOf(content));
+                  String content = BeanExportSource.getContent(o,
+                        column.getColumnConfiguration().getColumnElements());
+                  table.getLastBodyRow().addColumn(content);
                }
             }
          }
@@ -489,6 +470,17 @@ public class HtmlTableBuilder<T> {
          return table;
       }
 
+      public ExportSource buildSource() {
+         List<String> headers = new ArrayList<String>(headerColumns.size());
+         List<List<ColumnElement>> columns = new ArrayList<List<ColumnElement>>(headerColumns.size());
+         for (HtmlColumn column : headerColumns) {
+            String title = DatatableOptions.TITLE.valueFrom(column.getColumnConfiguration().getOptions());
+            headers.add(StringUtils.isNotBlank(title) ? title : "");
+            columns.add(column.getColumnConfiguration().getColumnElements());
+         }
+         return new BeanExportSource<T>(id, data, exportConf, headers, columns);
+      }
+
       @Override
       public BuildStep auto(DatatablesCriterias criteria) {
          for (ColumnDef columnDef : criteria.getColumnDefs()) {
@@ -0,0 +1,179 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.export;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+
+import com.github.dandelion.datatables.core.html.DisplayFormats;
+import com.github.dandelion.datatables.core.html.HtmlColumn;
+import com.github.dandelion.datatables.core.html.HtmlRow;
+import com.github.dandelion.datatables.core.html.HtmlTable;
+import com.github.dandelion.datatables.core.option.DatatableOptions;
+
+/**
+ * <p>
+ * {@link ExportSource} backed by an already built {@link HtmlTable}, as it is
+ * the case when exporting from the JSP taglib or the Thymeleaf dialect.
+ * </p>
+ * <p>
+ * Only the columns enabled for the given export format are kept. The headers
+ * are extracted from the last header row of the table and each body row is
+ * converted into an array of values only when it is iterated over.
+ * </p>
+ * <p>
+ * The positions of the exported columns are computed once from the header
+ * row. They are then applied to all body rows having the same number of
+ * columns, which is the case of all tables built by the JSP taglib, the
+ * Thymeleaf dialect and the {@link HtmlTableBuilder}. Other rows are filtered
+ * column by column.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+public class HtmlTableExportSource implements ExportSource {
+
+   private final HtmlTable table;
+   private final String format;
+   private final ExportConf exportConf;
+   private final long formatMask;
+   private List<String> headers;
+   private int headerColumnCount;
+   private int[] columnIndexes;
+
+   /**
+    * @param table
+    *           The table to export.
+    * @param format
+    *           The export format, used to select both the columns to export
+    *           and the export configuration of the table.
+    */
+   public HtmlTableExportSource(HtmlTable table, String format) {
+      this.table = table;
+      this.format = format;
+      this.exportConf = table.getTableConfiguration().getExportConfigurations().get(format);
+      this.formatMask = DisplayFormats.maskOf(ReservedFormat.ALL, format);
+   }
+
+   @Override
+   public String getTableId() {
+      return table.getOriginalId();
+   }
+
+   @Override
+   public String getObjectType() {
+      return DatatableOptions.INTERNAL_OBJECTTYPE.valueFrom(table.getTableConfiguration().getOptions());
+   }
+
+   @Override
+   public ExportConf getExportConf() {
+      return exportConf;
+   }
+
+   @Override
+   public List<String> getHeaders() {
+      if (headers == null) {
+         if (table.getHeadRows().isEmpty()) {
+            headers = Collections.emptyList();
+         }
+         else {
+            HtmlRow headerRow = table.getLastHeaderRow();
+            headerColumnCount = headerRow.getColumns().size();
+            columnIndexes = headerRow.getColumnIndexes(ReservedFormat.ALL, format);
+            headers = Collections.unmodifiableList(Arrays.asList(toValues(headerRow)));
+         }
+      }
+      return headers;
+   }
+
+   /**
+    * @return the number of body rows of the table.
+    */
+   int getRowCount() {
+      return table.getBodyRows().size();
+   }
+
+   @Override
+   public Iterator<String[]> iterator() {
+      getHeaders();
+      final Iterator<HtmlRow> rows = table.getBodyRows().iterator();
+      return new Iterator<String[]>() {
+
+         @Override
+         public boolean hasNext() {
+            return rows.hasNext();
+         }
+
+         @Override
+         public String[] next() {
+            return toValues(rows.next());
+         }
+
+         @Override
+         public void remove() {
+            throw new UnsupportedOperationException();
+         }
+      };
+   }
+
+   private String[] toValues(HtmlRow row) {
+      List<HtmlColumn> columns = row.getColumns();
+
+      if (columnIndexes != null && columns.size() == headerColumnCount && columns instanceof RandomAccess) {
+         String[] values = new String[columnIndexes.length];
+         for (int i = 0; i < columnIndexes.length; i++) {
+            values[i] = toValue(columns.get(columnIndexes[i]));
+         }
+         return values;
+      }
+
+      String[] values = new String[columns.size()];
+      int count = 0;
+      for (HtmlColumn column : columns) {
+         if (column.isDisplayedIn(formatMask, ReservedFormat.ALL, format)) {
+            values[count++] = toValue(column);
+         }
+      }
+      if (count == values.length) {
+         return values;
+      }
+      String[] result = new String[count];
+      System.arraycopy(values, 0, result, 0, count);
+      return result;
+   }
+
+   private static String toValue(HtmlColumn column) {
+      return column.getContent() != null ? column.getContent().toString() : "";
+   }
+}
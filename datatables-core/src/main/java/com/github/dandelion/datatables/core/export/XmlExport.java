@@ -39,10 +39,7 @@ import javax.xml.stream.XMLStreamWriter;
 
 import com.github.dandelion.core.DandelionException;
 import com.github.dandelion.core.util.StringUtils;
-import com.github.dandelion.datatables.core.html.HtmlColumn;
-import com.github.dandelion.datatables.core.html.HtmlRow;
 import com.github.dandelion.datatables.core.html.HtmlTable;
-import com.github.dandelion.datatables.core.option.DatatableOptions;
 
 /**
  * <p>
@@ -52,15 +49,20 @@ import com.github.dandelion.datatables.core.option.DatatableOptions;
  * 
  * @author Thibault Duchateau
  */
-public class XmlExport implements DatatablesExport {
+public class XmlExport implements RowExport {
 
-   private HtmlTable table;
+   private ExportSource source;
    private ExportConf exportConf;
 
    @Override
    public void initExport(HtmlTable table) {
-      this.table = table;
-      this.exportConf = table.getTableConfiguration().getExportConfigurations().get(ReservedFormat.XML);
+      initExport(new HtmlTableExportSource(table, ReservedFormat.XML));
+   }
+
+   @Override
+   public void initExport(ExportSource source) {
+      this.source = source;
+      this.exportConf = source.getExportConf();
    }
 
    @Override
@@ -69,15 +71,13 @@ public class XmlExport implements DatatablesExport {
       // Build headers list for attributes name
       List<String> headers = new ArrayList<String>();
 
-      for (HtmlRow row : table.getHeadRows()) {
-         for (HtmlColumn column : row.getColumns(ReservedFormat.ALL, ReservedFormat.XML)) {
-            headers.add(StringUtils.uncapitalize(column.getContent().toString()));
-         }
+      for (String header : source.getHeaders()) {
+         headers.add(StringUtils.uncapitalize(header));
       }
 
       XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
       XMLStreamWriter writer = null;
-      String objectType = DatatableOptions.INTERNAL_OBJECTTYPE.valueFrom(table.getTableConfiguration().getOptions());
+      String objectType = source.getObjectType();
       String normalizedObjectType = objectType.toLowerCase();
 
       try {
@@ -86,13 +86,11 @@ public class XmlExport implements DatatablesExport {
 
          writer.writeStartElement(normalizedObjectType + "s");
 
-         for (HtmlRow row : table.getBodyRows()) {
+         for (String[] row : source) {
             writer.writeStartElement(normalizedObjectType);
 
-            int i = 0;
-            for (HtmlColumn column : row.getColumns(ReservedFormat.ALL, ReservedFormat.XML)) {
-               writer.writeAttribute(headers.get(i), column.getContent().toString());
-               i++;
+            for (int i = 0; i < row.length; i++) {
+               writer.writeAttribute(headers.get(i), row[i]);
             }
 
             writer.writeEndElement();
@@ -105,7 +103,7 @@ public class XmlExport implements DatatablesExport {
       }
       catch (XMLStreamException e) {
          StringBuilder sb = new StringBuilder("Something went wrong during the XML generation of the table '");
-         sb.append(table.getOriginalId());
+         sb.append(source.getTableId());
          sb.append("' and with the following export configuration: ");
          sb.append(exportConf.toString());
          throw new DandelionException(sb.toString(), e);
@@ -116,7 +114,7 @@ public class XmlExport implements DatatablesExport {
          }
          catch (XMLStreamException e) {
             StringBuilder sb = new StringBuilder("Something went wrong during the XML generation of the table '");
-            sb.append(table.getOriginalId());
+            sb.append(source.getTableId());
             sb.append("' and with the following export configuration: ");
             sb.append(exportConf.toString());
             throw new DandelionException(sb.toString(), e);
@@ -0,0 +1,101 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.export.async;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.dandelion.datatables.core.export.ExportConf;
+import com.github.dandelion.datatables.core.export.ExportSource;
+
+/**
+ * <p>
+ * {@link ExportSource} counting the rows consumed by the export class, used to
+ * report the progress of an {@link ExportJob}.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+class CountingExportSource implements ExportSource {
+
+   private final ExportSource source;
+   private final AtomicLong counter;
+
+   CountingExportSource(ExportSource source, AtomicLong counter) {
+      this.source = source;
+      this.counter = counter;
+   }
+
+   @Override
+   public String getTableId() {
+      return source.getTableId();
+   }
+
+   @Override
+   public String getObjectType() {
+      return source.getObjectType();
+   }
+
+   @Override
+   public ExportConf getExportConf() {
+      return source.getExportConf();
+   }
+
+   @Override
+   public List<String> getHeaders() {
+      return source.getHeaders();
+   }
+
+   @Override
+   public Iterator<String[]> iterator() {
+      final Iterator<String[]> rows = source.iterator();
+      return new Iterator<String[]>() {
+
+         @Override
+         public boolean hasNext() {
+            return rows.hasNext();
+         }
+
+         @Override
+         public String[] next() {
+            String[] row = rows.next();
+            counter.incrementAndGet();
+            return row;
+         }
+
+         @Override
+         public void remove() {
+            throw new UnsupportedOperationException();
+         }
+      };
+   }
+}
@@ -0,0 +1,172 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.export.async;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.dandelion.datatables.core.export.ExportConf;
+
+/**
+ * <p>
+ * Export generated in the background by the {@link ExportJobManager}, whose
+ * content is spooled to a temporary file.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+public class ExportJob {
+
+   /**
+    * Lifecycle of a job.
+    */
+   public enum Status {
+      PENDING, RUNNING, COMPLETED, FAILED;
+   }
+
+   private final String id;
+   private final String owner;
+   private final ExportConf exportConf;
+   private final File file;
+   private final AtomicLong rowsWritten = new AtomicLong();
+   private volatile Status status = Status.PENDING;
+   private volatile String error;
+   private volatile long lastAccessTime = System.currentTimeMillis();
+   private volatile long startTime;
+
+   ExportJob(String id, String owner, ExportConf exportConf, File file) {
+      this.id = id;
+      this.owner = owner;
+      this.exportConf = exportConf;
+      this.file = file;
+   }
+
+   /**
+    * @return the unguessable identifier of the job.
+    */
+   public String getId() {
+      return id;
+   }
+
+   /**
+    * @return the user or the session that submitted the job, which is the only
+    *         one allowed to access it.
+    * @see ExportJobHandler#getOwner(javax.servlet.http.HttpServletRequest)
+    */
+   public String getOwner() {
+      return owner;
+   }
+
+   public ExportConf getExportConf() {
+      return exportConf;
+   }
+
+   /**
+    * @return the temporary file the export content is written to.
+    */
+   public File getFile() {
+      return file;
+   }
+
+   /**
+    * @return the name of the file, as proposed to the client.
+    */
+   public String getFileName() {
+      return exportConf.getFileName() + "." + exportConf.getFileExtension();
+   }
+
+   public Status getStatus() {
+      return status;
+   }
+
+   /**
+    * @return the number of rows written so far, only tracked when the export
+    *         class consumes an {@link com.github.dandelion.datatables.core.export.ExportSource}
+    *         .
+    */
+   public long getRowsWritten() {
+      return rowsWritten.get();
+   }
+
+   /**
+    * @return the reason of the failure, if the status is {@link Status#FAILED}
+    *         .
+    */
+   public String getError() {
+      return error;
+   }
+
+   /**
+    * @return the last time the job was submitted or accessed, in milliseconds.
+    */
+   public long getLastAccessTime() {
+      return lastAccessTime;
+   }
+
+   /**
+    * @return the time the job started running, in milliseconds, or 0 if it is
+    *         still pending.
+    */
+   public long getStartTime() {
+      return startTime;
+   }
+
+   AtomicLong getRowCounter() {
+      return rowsWritten;
+   }
+
+   void setStatus(Status status) {
+      this.status = status;
+   }
+
+   void start() {
+      this.startTime = System.currentTimeMillis();
+      this.status = Status.RUNNING;
+   }
+
+   void fail(String error) {
+      this.error = error;
+      this.status = Status.FAILED;
+   }
+
+   void touch() {
+      this.lastAccessTime = System.currentTimeMillis();
+   }
+
+   boolean isDone() {
+      return status == Status.COMPLETED || status == Status.FAILED;
+   }
+
+   @Override
+   public String toString() {
+      return "ExportJob [id=" + id + ", status=" + status + ", rowsWritten=" + rowsWritten + ", file=" + file + "]";
+   }
+}
@@ -0,0 +1,161 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.export.async;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.security.Principal;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.github.dandelion.datatables.core.export.ExportSpool;
+import com.github.dandelion.datatables.core.export.ExportUtils;
+import com.github.dandelion.datatables.core.util.JsonWriter;
+
+/**
+ * <p>
+ * Handles the requests sent by the export links about an {@link ExportJob},
+ * identified by the {@link ExportUtils#DDL_DT_REQUESTPARAM_EXPORT_JOB}
+ * parameter:
+ * </p>
+ * <ul>
+ * <li>by default, the status of the job is written as JSON, e.g.
+ * <code>{"id":"...","status":"RUNNING","rows":1200}</code></li>
+ * <li>when the {@link ExportUtils#DDL_DT_REQUESTPARAM_EXPORT_DOWNLOAD}
+ * parameter is {@code true}, the generated file is sent as an attachment.
+ * Downloads can be resumed with a {@code Range} request</li>
+ * </ul>
+ * <p>
+ * Unknown or expired jobs, as well as the jobs submitted by another user or
+ * session, result in a 404 error.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+public final class ExportJobHandler {
+
+   /**
+    * <p>
+    * Handles a request about an export job.
+    * </p>
+    * 
+    * @param request
+    *           The current request.
+    * @param response
+    *           The response to write the status or the file to.
+    */
+   public static void handle(HttpServletRequest request, HttpServletResponse response) throws IOException {
+      ExportJob job = ExportJobManager.getJob(request.getParameter(ExportUtils.DDL_DT_REQUESTPARAM_EXPORT_JOB));
+      if (job == null || !job.getOwner().equals(getOwner(request))) {
+         response.sendError(HttpServletResponse.SC_NOT_FOUND);
+      }
+      else if (Boolean.parseBoolean(request.getParameter(ExportUtils.DDL_DT_REQUESTPARAM_EXPORT_DOWNLOAD))) {
+         if (job.getStatus() != ExportJob.Status.COMPLETED) {
+            response.sendError(HttpServletResponse.SC_CONFLICT, "The export job is " + job.getStatus());
+         }
+         else {
+            writeFile(job, request, response);
+         }
+      }
+      else {
+         writeStatus(job, response);
+      }
+   }
+
+   /**
+    * <p>
+    * Returns the owner of the jobs submitted with the passed request: the name
+    * of the authenticated user if any, otherwise the id of the session, which
+    * is created if needed.
+    * </p>
+    * 
+    * @param request
+    *           The current request.
+    * @return the owner of the jobs submitted or accessed with the request.
+    */
+   public static String getOwner(HttpServletRequest request) {
+      Principal principal = request.getUserPrincipal();
+      if (principal != null) {
+         return "user:" + principal.getName();
+      }
+      return "session:" + request.getSession(true).getId();
+   }
+
+   /**
+    * <p>
+    * Writes the status of the passed job as JSON.
+    * </p>
+    * 
+    * @param job
+    *           The job to describe.
+    * @param response
+    *           The response to write to.
+    */
+   public static void writeStatus(ExportJob job, HttpServletResponse response) throws IOException {
+      response.setContentType("application/json");
+      response.setCharacterEncoding("UTF-8");
+      response.setHeader("Cache-Control", "no-cache, no-store");
+
+      Writer writer = new OutputStreamWriter(response.getOutputStream(), "UTF-8");
+      JsonWriter json = new JsonWriter(writer);
+      json.beginObject();
+      json.name("id").value(job.getId());
+      json.name("status").value(job.getStatus().name());
+      json.name("rows").value(job.getRowsWritten());
+      if (job.getError() != null) {
+         json.name("error").value(job.getError());
+      }
+      json.endObject();
+      writer.flush();
+   }
+
+   private static void writeFile(ExportJob job, HttpServletRequest request, HttpServletResponse response)
+         throws IOException {
+      ExportSpool spool = ExportSpool.open(job.getFile());
+      try {
+         ExportUtils.writeToResponse(request, response, spool, job.getFileName(), job.getExportConf().getMimeType());
+      }
+      finally {
+         spool.release();
+      }
+   }
+
+   /**
+    * <p>
+    * Suppress default constructor for noninstantiability.
+    * </p>
+    */
+   private ExportJobHandler() {
+      throw new AssertionError();
+   }
+}
@@ -0,0 +1,367 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.export.async;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.dandelion.core.DandelionException;
+import com.github.dandelion.core.util.Validate;
+import com.github.dandelion.datatables.core.export.DatatablesExport;
+import com.github.dandelion.datatables.core.export.ExportConf;
+import com.github.dandelion.datatables.core.export.ExportSource;
+import com.github.dandelion.datatables.core.export.RowExport;
+
+/**
+ * <p>
+ * Registry of the {@link ExportJob}s, generated in the background by a bounded
+ * pool of threads so that large exports don't hold a servlet thread.
+ * </p>
+ * <p>
+ * The content of each export is spooled to a temporary file. Jobs that haven't
+ * been accessed for longer than the time to live are considered abandoned:
+ * they are removed and their file is deleted. Jobs still running after the
+ * maximum running time are considered stuck and are removed as well, even
+ * though their thread can't be stopped. Expired jobs are purged whenever a job
+ * is submitted or looked up.
+ * </p>
+ * <p>
+ * Each job belongs to the user or the session that submitted it, and is only
+ * visible to its owner.
+ * </p>
+ * <p>
+ * Once the pool threads are busy, at most {@code queueCapacity} jobs wait for
+ * a thread. Beyond that, further submissions are rejected.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ * @see ExportJobHandler
+ */
+public final class ExportJobManager {
+
+   private static Logger logger = LoggerFactory.getLogger(ExportJobManager.class);
+
+   public static final int DEFAULT_THREADS = 2;
+   public static final int DEFAULT_QUEUE_CAPACITY = 20;
+   public static final long DEFAULT_TIME_TO_LIVE = TimeUnit.MINUTES.toMillis(10);
+   public static final long DEFAULT_MAX_RUNNING_TIME = TimeUnit.HOURS.toMillis(1);
+
+   private static final ConcurrentMap<String, ExportJob> jobs = new ConcurrentHashMap<String, ExportJob>();
+
+   private static int threads = DEFAULT_THREADS;
+   private static int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+   private static volatile long timeToLive = DEFAULT_TIME_TO_LIVE;
+   private static volatile long maxRunningTime = DEFAULT_MAX_RUNNING_TIME;
+   private static ThreadPoolExecutor executor;
+
+   /**
+    * <p>
+    * Changes the limits of the manager. The running and queued jobs are not
+    * affected: they are still processed by the previous pool, which is shut
+    * down once they're done.
+    * </p>
+    * 
+    * @param threads
+    *           Number of exports generated concurrently.
+    * @param queueCapacity
+    *           Number of exports waiting for a thread.
+    * @param timeToLive
+    *           Time, in milliseconds, after which a job that hasn't been
+    *           accessed is removed.
+    */
+   public static void configure(int threads, int queueCapacity, long timeToLive) {
+      configure(threads, queueCapacity, timeToLive, DEFAULT_MAX_RUNNING_TIME);
+   }
+
+   /**
+    * <p>
+    * Changes the limits of the manager. The running and queued jobs are not
+    * affected: they are still processed by the previous pool, which is shut
+    * down once they're done.
+    * </p>
+    * 
+    * @param threads
+    *           Number of exports generated concurrently.
+    * @param queueCapacity
+    *           Number of exports waiting for a thread.
+    * @param timeToLive
+    *           Time, in milliseconds, after which a job that hasn't been
+    *           accessed is removed.
+    * @param maxRunningTime
+    *           Time, in milliseconds, after which a job that is still running
+    *           is removed.
+    */
+   public static synchronized void configure(int threads, int queueCapacity, long timeToLive, long maxRunningTime) {
+      if (threads <= 0 || queueCapacity < 0 || timeToLive <= 0 || maxRunningTime <= 0) {
+         throw new DandelionException("Invalid export job limits: " + threads + " threads, a queue of "
+               + queueCapacity + " jobs, a time to live of " + timeToLive + "ms and a maximum running time of "
+               + maxRunningTime + "ms");
+      }
+      ExportJobManager.threads = threads;
+      ExportJobManager.queueCapacity = queueCapacity;
+      ExportJobManager.timeToLive = timeToLive;
+      ExportJobManager.maxRunningTime = maxRunningTime;
+      if (executor != null) {
+         executor.shutdown();
+         executor = null;
+      }
+   }
+
+   /**
+    * <p>
+    * Submits an export to be generated in the background.
+    * </p>
+    * 
+    * @param export
+    *           The export class. If a source is passed, it must implement
+    *           {@link RowExport}. Otherwise, it must already be initialized.
+    * @param source
+    *           The source of the rows to export, used to track the progress
+    *           of the job. May be {@code null}.
+    * @param exportConf
+    *           The export configuration.
+    * @param owner
+    *           The user or the session submitting the job, as returned by
+    *           {@link ExportJobHandler#getOwner(javax.servlet.http.HttpServletRequest)}
+    *           .
+    * @return the submitted job.
+    * @throws RejectedExecutionException
+    *            if the queue of waiting jobs is full.
+    */
+   public static ExportJob submit(final DatatablesExport export, ExportSource source, ExportConf exportConf,
+         String owner) {
+      Validate.notNull(export, "The export class cannot be null");
+      Validate.notNull(exportConf, "The export configuration cannot be null");
+      Validate.notNull(owner, "The owner of the job cannot be null");
+      purge();
+
+      File file;
+      try {
+         file = File.createTempFile("ddl-dt-export-", "." + exportConf.getFileExtension());
+      }
+      catch (IOException e) {
+         throw new DandelionException("Unable to create the temporary file of the export", e);
+      }
+
+      final ExportJob job = new ExportJob(UUID.randomUUID().toString(), owner, exportConf, file);
+      if (source != null) {
+         ((RowExport) export).initExport(new CountingExportSource(source, job.getRowCounter()));
+      }
+
+      jobs.put(job.getId(), job);
+      try {
+         getExecutor().execute(new Runnable() {
+
+            @Override
+            public void run() {
+               process(job, export);
+            }
+         });
+      }
+      catch (RejectedExecutionException e) {
+         remove(job);
+         throw e;
+      }
+
+      logger.debug("Submitted the export job {}", job.getId());
+      return job;
+   }
+
+   /**
+    * @param id
+    *           The identifier of a job.
+    * @return the job with the passed identifier, or {@code null} if it doesn't
+    *         exist or has expired.
+    */
+   public static ExportJob getJob(String id) {
+      purge();
+      ExportJob job = id != null ? jobs.get(id) : null;
+      if (job != null) {
+         job.touch();
+      }
+      return job;
+   }
+
+   /**
+    * <p>
+    * Removes the jobs that have been completed, or have failed, and that
+    * haven't been accessed for longer than the time to live, as well as the
+    * jobs running for longer than the maximum running time.
+    * </p>
+    */
+   public static void purge() {
+      long now = System.currentTimeMillis();
+      long expiration = now - timeToLive;
+      long runningExpiration = now - maxRunningTime;
+      for (Iterator<ExportJob> iterator = jobs.values().iterator(); iterator.hasNext();) {
+         ExportJob job = iterator.next();
+         if (job.isDone() && job.getLastAccessTime() < expiration) {
+            logger.debug("Removing the expired export job {}", job.getId());
+            iterator.remove();
+            delete(job);
+         }
+         else if (job.getStatus() == ExportJob.Status.RUNNING && job.getStartTime() < runningExpiration) {
+            logger.warn("Removing the export job {}, still running after {}ms", job.getId(), maxRunningTime);
+            job.fail("The export took too long");
+            iterator.remove();
+            delete(job);
+         }
+      }
+   }
+
+   /**
+    * <p>
+    * Stops the background threads and removes all jobs, along with their
+    * temporary file.
+    * </p>
+    */
+   public static synchronized void shutdown() {
+      if (executor != null) {
+         executor.shutdownNow();
+         executor = null;
+      }
+      for (ExportJob job : jobs.values()) {
+         remove(job);
+      }
+   }
+
+   /**
+    * @return the number of registered jobs, whatever their status.
+    */
+   public static int size() {
+      return jobs.size();
+   }
+
+   private static void process(ExportJob job, DatatablesExport export) {
+      job.start();
+      OutputStream output = null;
+      try {
+         output = new BufferedOutputStream(new FileOutputStream(job.getFile()));
+         export.processExport(output);
+         output.close();
+         output = null;
+         job.setStatus(ExportJob.Status.COMPLETED);
+         logger.debug("Completed the export job {} ({} rows)", job.getId(), job.getRowsWritten());
+      }
+      catch (IOException e) {
+         logger.error("Unable to write the export job " + job.getId(), e);
+         job.fail(e.getMessage());
+      }
+      catch (RuntimeException e) {
+         logger.error("Unable to generate the export job " + job.getId(), e);
+         job.fail(e.getMessage());
+      }
+      catch (Error e) {
+         // e.g. an OutOfMemoryError, which must not leave the job running
+         logger.error("Unable to generate the export job " + job.getId(), e);
+         job.fail(e.toString());
+         throw e;
+      }
+      finally {
+         if (output != null) {
+            try {
+               output.close();
+            }
+            catch (IOException e) {
+               // Already failed
+            }
+         }
+         job.touch();
+         if (job.getStatus() == ExportJob.Status.FAILED || !jobs.containsKey(job.getId())) {
+            delete(job);
+         }
+      }
+   }
+
+   private static void remove(ExportJob job) {
+      jobs.remove(job.getId());
+      delete(job);
+   }
+
+   private static void delete(ExportJob job) {
+      if (job.getFile().exists() && !job.getFile().delete()) {
+         logger.warn("Unable to delete the temporary file {}", job.getFile());
+      }
+   }
+
+   private static synchronized ThreadPoolExecutor getExecutor() {
+      if (executor == null) {
+         BlockingQueue<Runnable> queue = queueCapacity > 0 ? new LinkedBlockingQueue<Runnable>(queueCapacity)
+               : new SynchronousQueue<Runnable>();
+         executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, queue, new ExportThreadFactory());
+         executor.allowCoreThreadTimeOut(true);
+      }
+      return executor;
+   }
+
+   /**
+    * Creates daemon threads, so that the pool never prevents the JVM from
+    * exiting.
+    */
+   private static class ExportThreadFactory implements ThreadFactory {
+
+      private final AtomicInteger count = new AtomicInteger();
+
+      @Override
+      public Thread newThread(Runnable runnable) {
+         Thread thread = new Thread(runnable, "dandelion-datatables-export-" + count.incrementAndGet());
+         thread.setDaemon(true);
+         return thread;
+      }
+   }
+
+   /**
+    * <p>
+    * Suppress default constructor for noninstantiability.
+    * </p>
+    */
+   private ExportJobManager() {
+      throw new AssertionError();
+   }
+}
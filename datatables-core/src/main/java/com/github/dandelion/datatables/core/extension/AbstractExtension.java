@@ -30,8 +30,11 @@
 package com.github.dandelion.datatables.core.extension;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -128,6 +131,8 @@ public abstract class AbstractExtension implements Extension {
    private StringBuilder afterAll;
    private List<Parameter> confs;
    private HtmlTable table;
+   private final Set<DatatableBundles> addedBundles = new LinkedHashSet<DatatableBundles>();
+   private boolean bundleParametersAdded;
 
    public AbstractExtension() {
       this.extensionName = getExtensionName();
@@ -222,11 +227,52 @@ public abstract class AbstractExtension implements Extension {
     */
    public void addBundle(DatatableBundles bundle) {
       AssetRequestContext.get(table.getTableConfiguration().getRequest()).addBundles(bundle);
+      addedBundles.add(bundle);
    }
 
    public void addBundleParameter(String assetName, String paramName, Object paramValue) {
       AssetRequestContext.get(table.getTableConfiguration().getRequest()).addParameter(assetName, paramName,
             paramValue);
+      bundleParametersAdded = true;
+   }
+
+   /**
+    * @return the bundles added to the request using
+    *         {@link #addBundle(DatatableBundles)}, so that they can be added
+    *         again when the generated configuration is reused.
+    * @since 1.1.1
+    */
+   public Set<DatatableBundles> getAddedBundles() {
+      return Collections.unmodifiableSet(addedBundles);
+   }
+
+   /**
+    * @return {@code true} if some asset parameters have been added to the
+    *         request using {@link #addBundleParameter(String, String, Object)}.
+    * @since 1.1.1
+    */
+   public boolean isBundleParametersAdded() {
+      return bundleParametersAdded;
+   }
+
+   /**
+    * <p>
+    * Indicates whether the JavaScript generated for a table using this
+    * extension can be cached and reused for the next tables sharing the same
+    * configuration, in which case {@link #setup(HtmlTable)} is no longer
+    * called for them.
+    * </p>
+    * <p>
+    * Extensions that update the table itself, or the page it is rendered in,
+    * must return {@code false}.
+    * </p>
+    * 
+    * @return {@code true} by default.
+    * @since 1.1.1
+    * @see com.github.dandelion.datatables.core.generator.DatatableConfigCache
+    */
+   public boolean isConfigCacheable() {
+      return true;
    }
 
    /**
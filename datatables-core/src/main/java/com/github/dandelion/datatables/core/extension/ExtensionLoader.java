@@ -31,17 +31,12 @@ package com.github.dandelion.datatables.core.extension;
 
 import java.util.Arrays;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
-import java.util.ServiceLoader;
 import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.github.dandelion.core.DandelionException;
-import com.github.dandelion.core.util.ServiceLoaderUtils;
-import com.github.dandelion.core.util.Validate;
 import com.github.dandelion.datatables.core.generator.DatatableJQueryContent;
 import com.github.dandelion.datatables.core.html.HtmlTable;
 import com.github.dandelion.datatables.core.option.DatatableOptions;
@@ -80,22 +75,11 @@ public class ExtensionLoader {
     * 
     * @param extensionName
     *           The name of the {@link Extension} to retrieve.
-    * @return the corresponding {@link Extension}.
+    * @return a new instance of the corresponding {@link Extension}.
+    * @see ExtensionRegistry
     */
    public static Extension get(String extensionName) {
-
-      Validate.notBlank(extensionName, "The extension name can't be blank");
-
-      ServiceLoader<Extension> loadedExtensions = ServiceLoader.load(Extension.class);
-
-      for (Extension ex : loadedExtensions) {
-         if (ex.getExtensionName().equalsIgnoreCase(extensionName)) {
-            return ex;
-         }
-      }
-
-      throw new DandelionException(
-            "The requested extension \"" + extensionName + "\" is not present in the classpath.");
+      return ExtensionRegistry.newInstance(extensionName);
    }
 
    /**
@@ -109,23 +93,14 @@ public class ExtensionLoader {
     */
    private void registerExtensions(HtmlTable table) {
 
-      logger.debug("Scanning for extensions...");
-
-      // Get all available extensions from the classpath
-      List<Extension> builtInExtensions = ServiceLoaderUtils.getProvidersAsList(Extension.class);
-
       // Load built-in extension if some are enabled
       Set<String> extensionNames = DatatableOptions.MAIN_EXTENSION_NAMES
             .valueFrom(table.getTableConfiguration().getOptions());
-      if (builtInExtensions != null && !builtInExtensions.isEmpty() && extensionNames != null
-            && !extensionNames.isEmpty()) {
+      if (extensionNames != null && !extensionNames.isEmpty()) {
          for (String extensionToRegister : extensionNames) {
-            for (Extension extension : builtInExtensions) {
-               if (extensionToRegister.equalsIgnoreCase(extension.getExtensionName())) {
-                  table.getTableConfiguration().registerExtension(extension);
-                  logger.debug("Extension '{}' registered in table '{}'", extension.getExtensionName(), table.getId());
-                  continue;
-               }
+            for (Extension extension : ExtensionRegistry.newInstances(extensionToRegister)) {
+               table.getTableConfiguration().registerExtension(extension);
+               logger.debug("Extension '{}' registered in table '{}'", extension.getExtensionName(), table.getId());
             }
          }
       }
@@ -34,6 +34,7 @@ import java.util.Map;
 
 import com.github.dandelion.core.asset.generator.js.JsFunction;
 import com.github.dandelion.core.asset.generator.js.JsSnippet;
+import com.github.dandelion.core.asset.generator.js.jquery.JQueryContentPlaceholder;
 import com.github.dandelion.datatables.core.generator.DatatableJQueryContent;
 import com.github.dandelion.datatables.core.html.HtmlTable;
 
@@ -94,19 +95,19 @@ public class ExtensionProcessor {
 
       // Extension configuration loading
       if (extension.getBeforeAll() != null) {
-         datatableContent.appendToBeforeAll(extension.getBeforeAll().toString());
+         datatableContent.append(JQueryContentPlaceholder.BEFORE_ALL, extension.getBeforeAll().toString());
       }
       if (extension.getBeforeStartDocumentReady() != null) {
-         datatableContent.appendToBeforeStartDocumentReady(extension.getBeforeStartDocumentReady().toString());
+         datatableContent.append(JQueryContentPlaceholder.BEFORE_START_DOCUMENT_READY, extension.getBeforeStartDocumentReady().toString());
       }
       if (extension.getAfterStartDocumentReady() != null) {
-         datatableContent.appendToAfterStartDocumentReady(extension.getAfterStartDocumentReady().toString());
+         datatableContent.append(JQueryContentPlaceholder.AFTER_START_DOCUMENT_READY, extension.getAfterStartDocumentReady().toString());
       }
       if (extension.getBeforeEndDocumentReady() != null) {
-         datatableContent.appendToBeforeEndDocumentReady(extension.getBeforeEndDocumentReady().toString());
+         datatableContent.append(JQueryContentPlaceholder.BEFORE_END_DOCUMENT_READY, extension.getBeforeEndDocumentReady().toString());
       }
       if (extension.getAfterAll() != null) {
-         datatableContent.appendToAfterAll(extension.getAfterAll().toString());
+         datatableContent.append(JQueryContentPlaceholder.AFTER_ALL, extension.getAfterAll().toString());
       }
    }
 
@@ -0,0 +1,215 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.extension;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.dandelion.core.DandelionException;
+import com.github.dandelion.core.util.ServiceLoaderUtils;
+import com.github.dandelion.core.util.Validate;
+import com.github.dandelion.datatables.core.generator.DatatableConfigCache;
+
+/**
+ * <p>
+ * Registry of all {@link Extension}s available in the classpath.
+ * </p>
+ * <p>
+ * The classpath is scanned once, at the first access, using the
+ * {@link java.util.ServiceLoader} mechanism. The registry then maps the
+ * extension names, case-insensitively, to the constructors of the
+ * corresponding providers, which allows to create new {@link Extension}
+ * instances without scanning the classpath again. Since extensions hold some
+ * state related to the table being rendered, a new instance is created for
+ * each table.
+ * </p>
+ * <p>
+ * The registry can be rebuilt using {@link #refresh()}, e.g. after a
+ * redeployment that added new extensions.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ * @see ExtensionLoader
+ */
+public final class ExtensionRegistry {
+
+   private static Logger logger = LoggerFactory.getLogger(ExtensionRegistry.class);
+
+   /**
+    * Provider constructors indexed by lower-cased extension name, in the
+    * discovery order.
+    */
+   private static volatile Map<String, List<Constructor<? extends Extension>>> providers;
+
+   /**
+    * <p>
+    * Returns a new instance of the first {@link Extension} found with the
+    * passed name.
+    * </p>
+    * 
+    * @param extensionName
+    *           The name of the {@link Extension} to retrieve.
+    * @return a new instance of the corresponding {@link Extension}.
+    * @throws DandelionException
+    *            if no {@link Extension} is registered with the passed name.
+    */
+   public static Extension newInstance(String extensionName) {
+
+      Validate.notBlank(extensionName, "The extension name can't be blank");
+
+      List<Constructor<? extends Extension>> constructors = getProviders().get(normalize(extensionName));
+      if (constructors == null) {
+         throw new DandelionException(
+               "The requested extension \"" + extensionName + "\" is not present in the classpath.");
+      }
+      return instantiate(constructors.get(0));
+   }
+
+   /**
+    * <p>
+    * Returns new instances of all {@link Extension}s registered with the passed
+    * name, or an empty list if there isn't any.
+    * </p>
+    * 
+    * @param extensionName
+    *           The name of the {@link Extension}s to retrieve.
+    * @return new instances of the corresponding {@link Extension}s.
+    */
+   public static List<Extension> newInstances(String extensionName) {
+
+      List<Constructor<? extends Extension>> constructors = getProviders().get(normalize(extensionName));
+      if (constructors == null) {
+         return Collections.emptyList();
+      }
+
+      List<Extension> extensions = new ArrayList<Extension>(constructors.size());
+      for (Constructor<? extends Extension> constructor : constructors) {
+         extensions.add(instantiate(constructor));
+      }
+      return extensions;
+   }
+
+   /**
+    * @param extensionName
+    *           The name of an {@link Extension}.
+    * @return {@code true} if an {@link Extension} is registered with the passed
+    *         name.
+    */
+   public static boolean contains(String extensionName) {
+      return getProviders().containsKey(normalize(extensionName));
+   }
+
+   /**
+    * <p>
+    * Scans the classpath again for {@link Extension}s and replaces the current
+    * registry. The cached configurations, which may depend on the previous
+    * extensions, are cleared as well.
+    * </p>
+    */
+   public static synchronized void refresh() {
+      providers = scan();
+      DatatableConfigCache.clear();
+   }
+
+   private static Map<String, List<Constructor<? extends Extension>>> getProviders() {
+      Map<String, List<Constructor<? extends Extension>>> current = providers;
+      if (current == null) {
+         synchronized (ExtensionRegistry.class) {
+            current = providers;
+            if (current == null) {
+               current = scan();
+               providers = current;
+            }
+         }
+      }
+      return current;
+   }
+
+   @SuppressWarnings("unchecked")
+   private static Map<String, List<Constructor<? extends Extension>>> scan() {
+
+      logger.debug("Scanning for extensions...");
+
+      Map<String, List<Constructor<? extends Extension>>> map = new HashMap<String, List<Constructor<? extends Extension>>>();
+      for (Extension extension : ServiceLoaderUtils.getProvidersAsList(Extension.class)) {
+         String name = normalize(extension.getExtensionName());
+         Constructor<? extends Extension> constructor;
+         try {
+            constructor = (Constructor<? extends Extension>) extension.getClass().getConstructor();
+         }
+         catch (NoSuchMethodException e) {
+            throw new DandelionException("The extension " + extension.getClass().getName()
+                  + " must provide a public no-arg constructor", e);
+         }
+
+         List<Constructor<? extends Extension>> constructors = map.get(name);
+         if (constructors == null) {
+            constructors = new ArrayList<Constructor<? extends Extension>>(1);
+            map.put(name, constructors);
+         }
+         constructors.add(constructor);
+      }
+
+      logger.debug("{} extension(s) found: {}", map.size(), map.keySet());
+      return map;
+   }
+
+   private static Extension instantiate(Constructor<? extends Extension> constructor) {
+      try {
+         return constructor.newInstance();
+      }
+      catch (Exception e) {
+         throw new DandelionException("Unable to instantiate the extension " + constructor.getDeclaringClass().getName(),
+               e);
+      }
+   }
+
+   private static String normalize(String extensionName) {
+      return extensionName == null ? null : extensionName.trim().toLowerCase(Locale.ENGLISH);
+   }
+
+   /**
+    * <p>
+    * Suppress default constructor for noninstantiability.
+    * </p>
+    */
+   private ExtensionRegistry() {
+      throw new AssertionError();
+   }
+}
@@ -29,17 +29,12 @@
  */
 package com.github.dandelion.datatables.core.extension.feature;
 
-import java.io.IOException;
-import java.io.StringWriter;
-import java.io.Writer;
 import java.util.List;
 import java.util.Map;
 
-import org.json.simple.JSONValue;
-
-import com.github.dandelion.core.DandelionException;
 import com.github.dandelion.datatables.core.DatatableBundles;
 import com.github.dandelion.datatables.core.extension.AbstractExtension;
+import com.github.dandelion.datatables.core.generator.ConfigWriter;
 import com.github.dandelion.datatables.core.generator.YadcfConfigGenerator;
 import com.github.dandelion.datatables.core.html.HtmlTable;
 import com.github.dandelion.datatables.core.option.DatatableOptions;
@@ -97,18 +92,10 @@ public abstract class AbstractFilteringFeature extends AbstractExtension {
       YadcfConfigGenerator configGenerator = new YadcfConfigGenerator();
       List<Map<String, Object>> config = configGenerator.generateConfig(table);
 
-      Writer writer = new StringWriter();
-      try {
-         JSONValue.writeJSONString(config, writer);
-      }
-      catch (IOException e) {
-         throw new DandelionException("Unable to convert the configuration to JSON", e);
-      }
-
       StringBuilder yadcf = new StringBuilder("yadcf.init(oTable_");
       yadcf.append(table.getId());
       yadcf.append(",");
-      yadcf.append(writer.toString());
+      ConfigWriter.appendTo(config, yadcf);
 
       if (filterPlaceHolder != null) {
          yadcf.append(", '");
@@ -120,6 +107,14 @@ public abstract class AbstractFilteringFeature extends AbstractExtension {
       appendToBeforeEndDocumentReady(yadcf.toString());
    }
 
+   /**
+    * The footer of the table is adapted on each rendering.
+    */
+   @Override
+   public boolean isConfigCacheable() {
+      return false;
+   }
+
    protected abstract void adaptHeader(HtmlTable table);
 
    protected abstract void adaptFooter(HtmlTable table);
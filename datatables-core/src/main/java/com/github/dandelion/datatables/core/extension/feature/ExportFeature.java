@@ -32,6 +32,7 @@ package com.github.dandelion.datatables.core.extension.feature;
 import com.github.dandelion.core.util.StringUtils;
 import com.github.dandelion.datatables.core.DatatableBundles;
 import com.github.dandelion.datatables.core.export.ExportConf;
+import com.github.dandelion.datatables.core.export.ExportUtils;
 import com.github.dandelion.datatables.core.export.HttpMethod;
 import com.github.dandelion.datatables.core.extension.AbstractExtension;
 import com.github.dandelion.datatables.core.extension.Parameter.Mode;
@@ -57,6 +58,10 @@ import com.github.dandelion.datatables.core.option.TableConfiguration;
  * container must be added manually thanks to the
  * {@link DatatableOptions#FEATURE_DOM} feature.
  * </p>
+ * <p>
+ * Links of asynchronous exports submit a background job, poll its status and
+ * download the generated file once the job is complete.
+ * </p>
  * 
  * @author Thibault Duchateau
  * @since 0.10.0
@@ -68,6 +73,12 @@ public class ExportFeature extends AbstractExtension {
    public static final String EXTENSION_NAME = "export";
    private static final String TOOLBAR_PREXIX = "fg-toolbar ui-toolbar ui-widget-header ui-helper-clearfix ui-corner-";
 
+   /**
+    * Delay, in milliseconds, between two requests polling the status of an
+    * asynchronous export.
+    */
+   private static final int POLLING_INTERVAL = 1000;
+
    private HtmlTable table;
 
    @Override
@@ -134,7 +145,10 @@ public class ExportFeature extends AbstractExtension {
             link.addCssStyle("margin-left:2px;");
          }
 
-         if (conf.hasCustomUrl()) {
+         if (conf.getAsync() != null && conf.getAsync()) {
+            link.setOnclick(getAsyncOnclick(conf));
+         }
+         else if (conf.hasCustomUrl()) {
             link.setOnclick(getOnclick(conf));
          }
          else {
@@ -194,4 +208,42 @@ public class ExportFeature extends AbstractExtension {
 
       return exportFuncName.append("();").toString();
    }
-}
\ No newline at end of file
+
+   private String getAsyncOnclick(ExportConf exportConf) {
+
+      StringBuilder exportFuncName = new StringBuilder("ddl_dt_launch_export_");
+      exportFuncName.append(table.getId());
+      exportFuncName.append("_");
+      exportFuncName.append(exportConf.getFormat());
+
+      StringBuilder exportFunc = new StringBuilder("function ");
+      exportFunc.append(exportFuncName.toString());
+      exportFunc.append("(){");
+      exportFunc.append("var url=\"").append(exportConf.getUrl()).append("\",base=url.split('?')[0];");
+
+      // Submits the job
+      exportFunc.append("$.ajax({url:url+(url.indexOf('?')<0?'?':'&')+'")
+            .append(ExportUtils.DDL_DT_REQUESTPARAM_EXPORT_ASYNC).append("=true',type:'")
+            .append(exportConf.getMethod()).append("',dataType:'json',cache:false");
+      if (exportConf.hasCustomUrl()) {
+         exportFunc.append(",data:oTable_").append(table.getId()).append(".ajax.params()");
+      }
+      exportFunc.append("}).done(function(job){");
+
+      // Polls its status until it is complete
+      exportFunc.append("(function poll(){$.ajax({url:base,data:{")
+            .append(ExportUtils.DDL_DT_REQUESTPARAM_EXPORT_JOB)
+            .append(":job.id},dataType:'json',cache:false}).done(function(s){");
+      exportFunc.append("if(s.status==='COMPLETED'){window.location=base+'?")
+            .append(ExportUtils.DDL_DT_REQUESTPARAM_EXPORT_JOB).append("='+encodeURIComponent(job.id)+'&")
+            .append(ExportUtils.DDL_DT_REQUESTPARAM_EXPORT_DOWNLOAD).append("=true';}");
+      exportFunc.append("else if(s.status==='FAILED'){if(window.console){console.error('Export failed: '+s.error);}}");
+      exportFunc.append("else{setTimeout(poll,").append(POLLING_INTERVAL).append(");}");
+      exportFunc.append("});})();");
+      exportFunc.append("});}");
+
+      appendToBeforeAll(exportFunc.toString());
+
+      return exportFuncName.append("();").toString();
+   }
+}
@@ -59,4 +59,9 @@ public class ExtraJs {
    public JQueryContentPlaceholder getPlaceholder() {
       return placeholder;
    }
-}
\ No newline at end of file
+
+   @Override
+   public String toString() {
+      return "ExtraJs [bundles=" + bundles + ", placeholder=" + placeholder + "]";
+   }
+}
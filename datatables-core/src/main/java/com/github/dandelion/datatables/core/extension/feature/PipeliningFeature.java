@@ -29,18 +29,13 @@
  */
 package com.github.dandelion.datatables.core.extension.feature;
 
-import java.io.IOException;
-import java.io.StringWriter;
-import java.io.Writer;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.json.simple.JSONValue;
-
-import com.github.dandelion.core.DandelionException;
 import com.github.dandelion.core.asset.generator.js.JsSnippet;
 import com.github.dandelion.datatables.core.DatatableBundles;
 import com.github.dandelion.datatables.core.extension.AbstractExtension;
+import com.github.dandelion.datatables.core.generator.ConfigWriter;
 import com.github.dandelion.datatables.core.generator.DTConstants;
 import com.github.dandelion.datatables.core.html.HtmlTable;
 import com.github.dandelion.datatables.core.option.DatatableOptions;
@@ -80,13 +75,6 @@ public class PipeliningFeature extends AbstractExtension {
          ajaxParams.put("pages", 5);
       }
 
-      Writer writer = new StringWriter();
-      try {
-         JSONValue.writeJSONString(ajaxParams, writer);
-      }
-      catch (IOException e) {
-         throw new DandelionException("Unable to convert the configuration to JSON", e);
-      }
-      addParameter(DTConstants.DT_S_AJAX_SOURCE, new JsSnippet("$.fn.dataTable.pipeline( " + writer.toString() + ")"));
+      addParameter(DTConstants.DT_S_AJAX_SOURCE, new JsSnippet("$.fn.dataTable.pipeline( " + ConfigWriter.toString(ajaxParams) + ")"));
    }
 }
\ No newline at end of file
@@ -32,11 +32,10 @@ package com.github.dandelion.datatables.core.extension.plugin;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.json.simple.JSONValue;
-
 import com.github.dandelion.core.util.StringUtils;
 import com.github.dandelion.datatables.core.DatatableBundles;
 import com.github.dandelion.datatables.core.extension.AbstractExtension;
+import com.github.dandelion.datatables.core.generator.ConfigWriter;
 import com.github.dandelion.datatables.core.generator.DTConstants;
 import com.github.dandelion.datatables.core.html.HtmlTable;
 import com.github.dandelion.datatables.core.option.DatatableOptions;
@@ -65,7 +64,7 @@ public class FixedHeaderPlugin extends AbstractExtension {
       addBundle(DatatableBundles.DATATABLES_FIXEDHEADER);
 
       Map<String, Object> specificConfObj = getSpecificCongiguration(table);
-      String specificConfStr = JSONValue.toJSONString(specificConfObj);
+      String specificConfStr = ConfigWriter.toString(specificConfObj);
       appendToBeforeEndDocumentReady("new FixedHeader(oTable_" + table.getId() + "," + specificConfStr + ");");
    }
 
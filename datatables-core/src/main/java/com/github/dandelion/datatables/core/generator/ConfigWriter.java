@@ -0,0 +1,286 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.generator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import org.json.simple.JSONAware;
+import org.json.simple.JSONStreamAware;
+
+import com.github.dandelion.core.DandelionException;
+import com.github.dandelion.core.asset.generator.js.JsFunction;
+import com.github.dandelion.core.asset.generator.js.JsSnippet;
+import com.github.dandelion.datatables.core.util.JsonWriter;
+
+/**
+ * <p>
+ * Writes the configurations generated for DataTables and its extensions, made
+ * of nested {@link Map}s and {@link Collection}s, as JavaScript object
+ * literals.
+ * </p>
+ * <p>
+ * Unlike {@link JsonWriter}, which writes JSON data, the output may contain
+ * raw JavaScript: {@link JsSnippet}s and {@link JsFunction}s, as well as
+ * values implementing {@link JSONAware} or {@link JSONStreamAware}, are
+ * written as is. Other values are written as JSON, strings being escaped by
+ * {@link JsonWriter#writeString(Writer, String)}.
+ * </p>
+ * <p>
+ * The properties of {@link LinkedHashMap}s and {@link SortedMap}s are written
+ * in iteration order, and those of other maps in the natural order of their
+ * names, so that the same configuration always results in the same output.
+ * The names declared in {@link DTConstants} are quoted once and for all.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+public final class ConfigWriter {
+
+   /**
+    * Quoted names of the DataTables parameters, followed by a colon.
+    */
+   private static final Map<String, String> QUOTED_NAMES = quoteConstants();
+
+   /**
+    * <p>
+    * Writes the passed configuration.
+    * </p>
+    * 
+    * @param config
+    *           The configuration to write, usually a {@link Map}.
+    * @param out
+    *           The writer to write to. It is neither flushed nor closed.
+    */
+   public static void write(Object config, Writer out) throws IOException {
+      writeValue(config, out);
+   }
+
+   /**
+    * <p>
+    * Appends the passed configuration to a buffer, without any intermediate
+    * copy.
+    * </p>
+    * 
+    * @param config
+    *           The configuration to write, usually a {@link Map}.
+    * @param buffer
+    *           The buffer to append to.
+    * @return the passed buffer.
+    */
+   public static StringBuilder appendTo(Object config, StringBuilder buffer) {
+      try {
+         writeValue(config, new StringBuilderWriter(buffer));
+      }
+      catch (IOException e) {
+         throw new DandelionException("Unable to convert the configuration to JSON", e);
+      }
+      return buffer;
+   }
+
+   /**
+    * @param config
+    *           The configuration to write, usually a {@link Map}.
+    * @return the configuration as a JavaScript object literal.
+    */
+   public static String toString(Object config) {
+      return appendTo(config, new StringBuilder()).toString();
+   }
+
+   private static void writeValue(Object value, Writer out) throws IOException {
+      if (value == null) {
+         out.write("null");
+      }
+      else if (value instanceof String) {
+         JsonWriter.writeString(out, (String) value);
+      }
+      else if (value instanceof JsSnippet || value instanceof JsFunction) {
+         out.write(value.toString());
+      }
+      else if (value instanceof JSONStreamAware) {
+         ((JSONStreamAware) value).writeJSONString(out);
+      }
+      else if (value instanceof JSONAware) {
+         out.write(((JSONAware) value).toJSONString());
+      }
+      else if (value instanceof Double && (((Double) value).isNaN() || ((Double) value).isInfinite())
+            || value instanceof Float && (((Float) value).isNaN() || ((Float) value).isInfinite())) {
+         out.write("null");
+      }
+      else if (value instanceof Number || value instanceof Boolean) {
+         out.write(value.toString());
+      }
+      else if (value instanceof Map) {
+         writeObject((Map<?, ?>) value, out);
+      }
+      else if (value instanceof Collection) {
+         out.write('[');
+         boolean first = true;
+         for (Object element : (Collection<?>) value) {
+            if (!first) {
+               out.write(',');
+            }
+            writeValue(element, out);
+            first = false;
+         }
+         out.write(']');
+      }
+      else if (value instanceof Object[]) {
+         writeValue(Arrays.asList((Object[]) value), out);
+      }
+      else {
+         JsonWriter.writeString(out, value.toString());
+      }
+   }
+
+   private static void writeObject(Map<?, ?> map, Writer out) throws IOException {
+      out.write('{');
+      boolean first = true;
+      for (Map.Entry<?, ?> entry : getOrderedEntries(map)) {
+         if (!first) {
+            out.write(',');
+         }
+         String name = String.valueOf(entry.getKey());
+         String quotedName = QUOTED_NAMES.get(name);
+         if (quotedName != null) {
+            out.write(quotedName);
+         }
+         else {
+            JsonWriter.writeString(out, name);
+            out.write(':');
+         }
+         writeValue(entry.getValue(), out);
+         first = false;
+      }
+      out.write('}');
+   }
+
+   @SuppressWarnings("unchecked")
+   private static Collection<Map.Entry<?, ?>> getOrderedEntries(Map<?, ?> map) {
+      Collection<? extends Map.Entry<?, ?>> entries = map.entrySet();
+      if (map instanceof LinkedHashMap || map instanceof SortedMap || map.size() < 2) {
+         return (Collection<Map.Entry<?, ?>>) entries;
+      }
+      List<Map.Entry<?, ?>> sorted = new ArrayList<Map.Entry<?, ?>>(entries);
+      Collections.sort(sorted, new Comparator<Map.Entry<?, ?>>() {
+
+         @Override
+         public int compare(Map.Entry<?, ?> e1, Map.Entry<?, ?> e2) {
+            return String.valueOf(e1.getKey()).compareTo(String.valueOf(e2.getKey()));
+         }
+      });
+      return sorted;
+   }
+
+   private static Map<String, String> quoteConstants() {
+      Map<String, String> quotedNames = new HashMap<String, String>();
+      for (Field field : DTConstants.class.getFields()) {
+         if (Modifier.isStatic(field.getModifiers()) && field.getType() == String.class) {
+            try {
+               String name = (String) field.get(null);
+               StringBuilder quoted = new StringBuilder();
+               JsonWriter.writeString(new StringBuilderWriter(quoted), name);
+               quotedNames.put(name, quoted.append(':').toString());
+            }
+            catch (IllegalAccessException e) {
+               throw new DandelionException("Unable to read the constant " + field.getName(), e);
+            }
+            catch (IOException e) {
+               throw new DandelionException("Unable to quote the constant " + field.getName(), e);
+            }
+         }
+      }
+      return quotedNames;
+   }
+
+   /**
+    * {@link Writer} appending to a {@link StringBuilder}, unlike
+    * {@link java.io.StringWriter} which relies on a synchronized
+    * {@link StringBuffer}.
+    */
+   private static final class StringBuilderWriter extends Writer {
+
+      private final StringBuilder buffer;
+
+      private StringBuilderWriter(StringBuilder buffer) {
+         this.buffer = buffer;
+      }
+
+      @Override
+      public void write(int c) {
+         buffer.append((char) c);
+      }
+
+      @Override
+      public void write(char[] chars, int offset, int length) {
+         buffer.append(chars, offset, length);
+      }
+
+      @Override
+      public void write(String string) {
+         buffer.append(string);
+      }
+
+      @Override
+      public void write(String string, int offset, int length) {
+         buffer.append(string, offset, offset + length);
+      }
+
+      @Override
+      public void flush() {
+      }
+
+      @Override
+      public void close() {
+      }
+   }
+
+   /**
+    * <p>
+    * Suppress default constructor for noninstantiability.
+    * </p>
+    */
+   private ConfigWriter() {
+      throw new AssertionError();
+   }
+}
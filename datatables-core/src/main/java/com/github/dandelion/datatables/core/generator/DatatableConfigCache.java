@@ -0,0 +1,297 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors
+ * may be used to endorse or promote products derived from this software
+ * without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.generator;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.http.HttpServletRequest;
+
+import com.github.dandelion.core.DandelionException;
+import com.github.dandelion.core.asset.generator.js.jquery.JQueryContentPlaceholder;
+import com.github.dandelion.core.option.Option;
+import com.github.dandelion.datatables.core.DatatableBundles;
+import com.github.dandelion.datatables.core.extension.Extension;
+import com.github.dandelion.datatables.core.html.HtmlColumn;
+import com.github.dandelion.datatables.core.html.HtmlTable;
+import com.github.dandelion.datatables.core.option.Callback;
+import com.github.dandelion.datatables.core.option.TableConfiguration;
+
+/**
+ * <p>
+ * Cache of the JavaScript generated by {@link DatatableJQueryContent}.
+ * </p>
+ * <p>
+ * Tables rendered with the same options on every request, which is the most
+ * common case, always generate the same JavaScript. The generated fragments
+ * are thus cached, along with the bundles added by the extensions, under a key
+ * made of the table id, the option group, the locale and a hash of everything
+ * the generation depends on: the effective table options, the column
+ * configurations, the registered extensions, the export configurations, the
+ * extra JavaScript and HTML snippets, the callbacks and the i18n messages.
+ * </p>
+ * <p>
+ * A table whose configuration holds a value that can't be reliably described,
+ * i.e. an object that doesn't override {@link Object#toString()}, or using an
+ * extension that isn't
+ * {@link com.github.dandelion.datatables.core.extension.AbstractExtension#isConfigCacheable()
+ * cacheable}, is never cached.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ * @see DatatableJQueryContent
+ */
+public final class DatatableConfigCache {
+
+   /**
+    * Maximum number of cached configurations.
+    */
+   public static final int MAX_ENTRIES = 500;
+
+   private static final Map<String, Entry> entries = Collections.synchronizedMap(new LinkedHashMap<String, Entry>(
+         16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+         return size() > MAX_ENTRIES;
+      }
+   });
+
+   private static final AtomicLong hits = new AtomicLong();
+   private static final AtomicLong misses = new AtomicLong();
+
+   /**
+    * @return the number of configurations read from the cache.
+    */
+   public static long getHitCount() {
+      return hits.get();
+   }
+
+   /**
+    * @return the number of configurations that had to be generated, either
+    *         because they were not cached yet or because they can't be cached.
+    */
+   public static long getMissCount() {
+      return misses.get();
+   }
+
+   /**
+    * @return the number of cached configurations.
+    */
+   public static int size() {
+      return entries.size();
+   }
+
+   /**
+    * <p>
+    * Removes all cached configurations and resets the statistics.
+    * </p>
+    */
+   public static void clear() {
+      entries.clear();
+      hits.set(0);
+      misses.set(0);
+   }
+
+   static Entry get(String key) {
+      Entry entry = key != null ? entries.get(key) : null;
+      if (entry != null) {
+         hits.incrementAndGet();
+      }
+      else {
+         misses.incrementAndGet();
+      }
+      return entry;
+   }
+
+   static void put(String key, Entry entry) {
+      entries.put(key, entry);
+   }
+
+   /**
+    * @param table
+    *           The table whose configuration is about to be generated.
+    * @return the key of the configuration of the table, or {@code null} if it
+    *         can't be cached.
+    */
+   static String getKey(HtmlTable table) {
+      TableConfiguration configuration = table.getTableConfiguration();
+      HttpServletRequest request = configuration.getRequest();
+      if (request == null || table.getHeadRows().isEmpty()) {
+         return null;
+      }
+
+      Description description = new Description();
+      description.append(configuration.getOptions());
+      for (HtmlColumn column : table.getLastHeaderRow().getColumns()) {
+         description.append(column.getEnabledDisplayTypes());
+         description.append(column.getColumnConfiguration().getOptions());
+      }
+      description.append(configuration.getInternalExtensions());
+      description.append(configuration.getExportConfigurations());
+      description.append(configuration.getExtraJs());
+      description.append(configuration.getExtraHtmlSnippets());
+      description.append(configuration.getCallbacks());
+      description.append(configuration.getMessages());
+      if (!description.stable) {
+         return null;
+      }
+
+      return table.getId() + '|' + table.getOriginalId() + '|' + configuration.getOptionGroupName() + '|'
+            + request.getLocale() + '|' + request.getContextPath() + '|' + digest(description.text.toString());
+   }
+
+   private static String digest(String text) {
+      try {
+         byte[] hash = MessageDigest.getInstance("MD5").digest(text.getBytes("UTF-8"));
+         StringBuilder hex = new StringBuilder(hash.length * 2);
+         for (byte b : hash) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+         }
+         return hex.toString();
+      }
+      catch (NoSuchAlgorithmException e) {
+         throw new DandelionException("Unable to compute the key of the configuration", e);
+      }
+      catch (UnsupportedEncodingException e) {
+         throw new DandelionException("Unable to compute the key of the configuration", e);
+      }
+   }
+
+   /**
+    * Deterministic textual description of the inputs of the generation. Maps
+    * and sets are sorted, so that their iteration order doesn't matter.
+    */
+   private static final class Description {
+
+      private final StringBuilder text = new StringBuilder();
+      private boolean stable = true;
+
+      private void append(Object value) {
+         text.append(describe(value)).append('\n');
+      }
+
+      private String describe(Object value) {
+         if (value == null) {
+            return "null";
+         }
+         else if (value instanceof Option) {
+            return ((Option<?>) value).getName();
+         }
+         else if (value instanceof Extension) {
+            return value.getClass().getName();
+         }
+         else if (value instanceof Callback) {
+            Callback callback = (Callback) value;
+            return "Callback[" + callback.getType() + ","
+                  + (callback.getFunction() != null ? callback.getFunction().getCode() : null) + "]";
+         }
+         else if (value instanceof Map) {
+            List<String> items = new ArrayList<String>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+               items.add(describe(entry.getKey()) + "=" + describe(entry.getValue()));
+            }
+            Collections.sort(items);
+            return items.toString();
+         }
+         else if (value instanceof Collection) {
+            List<String> items = new ArrayList<String>();
+            for (Object item : (Collection<?>) value) {
+               items.add(describe(item));
+            }
+            if (value instanceof Set) {
+               Collections.sort(items);
+            }
+            return items.toString();
+         }
+         else if (value instanceof CharSequence || value instanceof Number || value instanceof Boolean
+               || value instanceof Enum) {
+            return value.toString();
+         }
+
+         try {
+            if (value.getClass().getMethod("toString").getDeclaringClass() == Object.class) {
+               stable = false;
+            }
+         }
+         catch (NoSuchMethodException e) {
+            stable = false;
+         }
+         return value.toString();
+      }
+   }
+
+   /**
+    * The generated JavaScript fragments, per placeholder, and the bundles
+    * added by the extensions.
+    */
+   static final class Entry {
+
+      private final Map<JQueryContentPlaceholder, String> fragments;
+      private final Set<DatatableBundles> bundles;
+
+      Entry(Map<JQueryContentPlaceholder, StringBuilder> fragments, Set<DatatableBundles> bundles) {
+         this.fragments = new EnumMap<JQueryContentPlaceholder, String>(JQueryContentPlaceholder.class);
+         for (Map.Entry<JQueryContentPlaceholder, StringBuilder> fragment : fragments.entrySet()) {
+            this.fragments.put(fragment.getKey(), fragment.getValue().toString());
+         }
+         this.bundles = bundles;
+      }
+
+      Map<JQueryContentPlaceholder, String> getFragments() {
+         return fragments;
+      }
+
+      Set<DatatableBundles> getBundles() {
+         return bundles;
+      }
+   }
+
+   /**
+    * <p>
+    * Suppress default constructor for noninstantiability.
+    * </p>
+    */
+   private DatatableConfigCache() {
+      throw new AssertionError();
+   }
+}
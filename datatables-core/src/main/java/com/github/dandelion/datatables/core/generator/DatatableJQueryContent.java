@@ -29,26 +29,35 @@
  */
 package com.github.dandelion.datatables.core.generator;
 
-import java.io.IOException;
-import java.io.StringWriter;
-import java.io.Writer;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
-import org.json.simple.JSONValue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.github.dandelion.core.DandelionException;
 import com.github.dandelion.core.asset.generator.js.jquery.JQueryContent;
+import com.github.dandelion.core.asset.generator.js.jquery.JQueryContentPlaceholder;
+import com.github.dandelion.core.web.AssetRequestContext;
+import com.github.dandelion.datatables.core.DatatableBundles;
+import com.github.dandelion.datatables.core.extension.AbstractExtension;
 import com.github.dandelion.datatables.core.extension.Extension;
 import com.github.dandelion.datatables.core.extension.ExtensionLoader;
 import com.github.dandelion.datatables.core.html.HtmlTable;
+import com.github.dandelion.datatables.core.option.DatatableOptions;
 
 /**
  * <p>
  * Extension of {@link JQueryContent} designed for buffering DataTable
  * configuration.
  * </p>
+ * <p>
+ * Since 1.1.1, the generated fragments are cached in the
+ * {@link DatatableConfigCache}, and reused as is for the next tables sharing
+ * the same configuration.
+ * </p>
  * 
  * @author Thibault Duchateau
  * @since 1.0.0
@@ -69,14 +78,10 @@ public class DatatableJQueryContent extends JQueryContent {
    private final String originalId;
 
    /**
-    * Loader of {@link Extension}s.
-    */
-   private final ExtensionLoader extensionLoader;
-
-   /**
-    * The generator in charge of generating the DataTables' configuration.
+    * Fragments appended so far, per placeholder, to be cached.
     */
-   private final DatatableConfigGenerator configGenerator;
+   private final Map<JQueryContentPlaceholder, StringBuilder> fragments = new EnumMap<JQueryContentPlaceholder, StringBuilder>(
+         JQueryContentPlaceholder.class);
 
    /**
     * <p>
@@ -92,38 +97,122 @@ public class DatatableJQueryContent extends JQueryContent {
       this.processedId = htmlTable.getId();
       this.originalId = htmlTable.getOriginalId();
 
+      String cacheKey = DatatableConfigCache.getKey(htmlTable);
+      DatatableConfigCache.Entry cached = DatatableConfigCache.get(cacheKey);
+      if (cached != null) {
+         logger.debug("Reusing the cached configuration of the table with id: {}", this.originalId);
+         for (DatatableBundles bundle : cached.getBundles()) {
+            AssetRequestContext.get(htmlTable.getTableConfiguration().getRequest()).addBundles(bundle);
+         }
+         for (Map.Entry<JQueryContentPlaceholder, String> fragment : cached.getFragments().entrySet()) {
+            append(fragment.getKey(), fragment.getValue());
+         }
+         return;
+      }
+
       /**
        * Main configuration file building
        */
       logger.debug("Generating the main configuration for the table with id: {}", this.originalId);
-      this.configGenerator = new DatatableConfigGenerator();
+      DatatableConfigGenerator configGenerator = new DatatableConfigGenerator();
       Map<String, Object> mainConf = configGenerator.generateConfig(htmlTable);
 
       /**
        * Extension loading
        */
       logger.debug("Loading extensions for the table with id: {}", this.originalId);
-      this.extensionLoader = new ExtensionLoader();
-      this.extensionLoader.loadExtensions(htmlTable, this, mainConf);
+      ExtensionLoader extensionLoader = new ExtensionLoader();
+      extensionLoader.loadExtensions(htmlTable, this, mainConf);
 
       /**
        * Main configuration generation
        */
       logger.debug("Transforming configuration to JSON...");
-      Writer writer = null;
-      try {
-         writer = new StringWriter();
-         JSONValue.writeJSONString(mainConf, writer);
-      }
-      catch (IOException e) {
-         throw new DandelionException("Unable to generate the JSON configuration", e);
-      }
 
       /**
        * Finalization
        */
-      appendToBeforeAll(getJavaScriptVariables(this, writer.toString()).toString());
-      appendToComponentConfiguration(getComponentConf(this).toString());
+      append(JQueryContentPlaceholder.BEFORE_ALL, getJavaScriptVariables(mainConf).toString());
+      append(JQueryContentPlaceholder.COMPONENT_CONFIGURATION, getComponentConf(this).toString());
+
+      /**
+       * Caching
+       */
+      if (cacheKey != null) {
+         Set<DatatableBundles> bundles = getAddedBundles(htmlTable);
+         if (bundles != null) {
+            DatatableConfigCache.put(cacheKey, new DatatableConfigCache.Entry(fragments, bundles));
+         }
+      }
+   }
+
+   /**
+    * <p>
+    * Appends the passed JavaScript to the passed placeholder.
+    * </p>
+    * 
+    * @param placeholder
+    *           The placeholder where to append the JavaScript.
+    * @param content
+    *           The JavaScript to append.
+    * @since 1.1.1
+    */
+   public void append(JQueryContentPlaceholder placeholder, String content) {
+      switch (placeholder) {
+      case BEFORE_ALL:
+         appendToBeforeAll(content);
+         break;
+      case BEFORE_START_DOCUMENT_READY:
+         appendToBeforeStartDocumentReady(content);
+         break;
+      case AFTER_START_DOCUMENT_READY:
+         appendToAfterStartDocumentReady(content);
+         break;
+      case COMPONENT_CONFIGURATION:
+         appendToComponentConfiguration(content);
+         break;
+      case BEFORE_END_DOCUMENT_READY:
+         appendToBeforeEndDocumentReady(content);
+         break;
+      case AFTER_ALL:
+         appendToAfterAll(content);
+         break;
+      default:
+         throw new DandelionException("The placeholder " + placeholder + " is not supported");
+      }
+
+      StringBuilder fragment = fragments.get(placeholder);
+      if (fragment == null) {
+         fragment = new StringBuilder();
+         fragments.put(placeholder, fragment);
+      }
+      fragment.append(content);
+   }
+
+   /**
+    * @return the bundles added by the extensions processed for the table, or
+    *         {@code null} if some of them may have updated the request or the
+    *         table in a way that can't be replayed.
+    */
+   private Set<DatatableBundles> getAddedBundles(HtmlTable htmlTable) {
+      Set<Extension> extensions = new LinkedHashSet<Extension>();
+      if (htmlTable.getTableConfiguration().getInternalExtensions() != null) {
+         extensions.addAll(htmlTable.getTableConfiguration().getInternalExtensions());
+      }
+      Extension theme = DatatableOptions.CSS_THEME.valueFrom(htmlTable.getTableConfiguration().getOptions());
+      if (theme != null) {
+         extensions.add(theme);
+      }
+
+      Set<DatatableBundles> bundles = new LinkedHashSet<DatatableBundles>();
+      for (Extension extension : extensions) {
+         if (!(extension instanceof AbstractExtension) || !((AbstractExtension) extension).isConfigCacheable()
+               || ((AbstractExtension) extension).isBundleParametersAdded()) {
+            return null;
+         }
+         bundles.addAll(((AbstractExtension) extension).getAddedBundles());
+      }
+      return bundles;
    }
 
    private StringBuilder getComponentConf(DatatableJQueryContent datatableContent) {
@@ -138,11 +227,12 @@ public class DatatableJQueryContent extends JQueryContent {
       return datatablesConfiguration;
    }
 
-   private StringBuilder getJavaScriptVariables(DatatableJQueryContent datatableAssetBuffer, String datatableConfig) {
+   private StringBuilder getJavaScriptVariables(Map<String, Object> mainConf) {
 
       StringBuilder variables = new StringBuilder();
       variables.append("var oTable_").append(this.processedId).append(";");
-      variables.append("var oTable_").append(this.processedId).append("_params=").append(datatableConfig).append(";");
+      variables.append("var oTable_").append(this.processedId).append("_params=");
+      ConfigWriter.appendTo(mainConf, variables).append(";");
 
       return variables;
    }
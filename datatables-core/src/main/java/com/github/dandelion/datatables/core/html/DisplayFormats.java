@@ -0,0 +1,297 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.html;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.github.dandelion.core.DandelionException;
+import com.github.dandelion.datatables.core.export.ReservedFormat;
+
+/**
+ * <p>
+ * Registry of the display formats (e.g. {@code all}, {@code html},
+ * {@code csv}...) enabled on columns.
+ * </p>
+ * <p>
+ * Each format is interned once and assigned a bit, so that the formats enabled
+ * on a column can be stored in a single {@code long} instead of a set of
+ * strings, and that filtering columns by format boils down to a bitwise
+ * operation. The reserved formats are always interned.
+ * </p>
+ * <p>
+ * At most {@link #MAX_FORMATS} formats are interned, so that the registry
+ * stays bounded. Once it is full, the other formats are still supported but
+ * stored by name on the columns that use them.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+public final class DisplayFormats {
+
+   /**
+    * Maximum number of interned formats, i.e. the number of bits of a mask.
+    */
+   public static final int MAX_FORMATS = 64;
+
+   private static final ConcurrentMap<String, Integer> indexes = new ConcurrentHashMap<String, Integer>();
+   private static final String[] names = new String[MAX_FORMATS];
+   private static volatile int count = 0;
+
+   static {
+      for (String format : new String[] { ReservedFormat.ALL, ReservedFormat.HTML, ReservedFormat.CSV,
+            ReservedFormat.XML, ReservedFormat.PDF, ReservedFormat.XLS, ReservedFormat.XLSX }) {
+         register(format);
+      }
+   }
+
+   /**
+    * <p>
+    * Returns the bit corresponding to the passed format, interning the format
+    * if needed.
+    * </p>
+    * 
+    * @param format
+    *           The display format.
+    * @return the bit assigned to the format, or {@code 0} if the registry is
+    *         full.
+    */
+   public static long bitOf(String format) {
+      Integer index = indexes.get(format);
+      if (index == null) {
+         index = register(format);
+      }
+      return index != null ? 1L << index : 0L;
+   }
+
+   /**
+    * <p>
+    * Returns the mask corresponding to the passed formats. Formats that are
+    * not interned are ignored, since they can't match any bit of a column.
+    * </p>
+    * 
+    * @param formats
+    *           The display formats.
+    * @return the union of the bits of all interned formats.
+    */
+   public static long maskOf(String... formats) {
+      long mask = 0L;
+      for (String format : formats) {
+         Integer index = format != null ? indexes.get(format) : null;
+         if (index != null) {
+            mask |= 1L << index;
+         }
+      }
+      return mask;
+   }
+
+   private static synchronized Integer register(String format) {
+      if (format == null) {
+         throw new DandelionException("A display format cannot be null");
+      }
+      Integer index = indexes.get(format);
+      if (index == null && count < MAX_FORMATS) {
+         index = count;
+         names[index] = format;
+         count = index + 1;
+         indexes.put(format, index);
+      }
+      return index;
+   }
+
+   private static String nameOf(int index) {
+      // Reading the volatile count guarantees the visibility of the name
+      return index < count ? names[index] : null;
+   }
+
+   /**
+    * <p>
+    * {@link Set} of formats, stored as a mask of the interned formats and, if
+    * the registry is full, a set of the other format names.
+    * </p>
+    */
+   static final class MaskSet extends AbstractSet<String> {
+
+      private long mask;
+      private Set<String> overflow;
+
+      /**
+       * @return the mask of the interned formats of the set.
+       */
+      long getMask() {
+         return mask;
+      }
+
+      /**
+       * @param formatMask
+       *           The mask of the passed formats.
+       * @param formats
+       *           The formats to test.
+       * @return {@code true} if the set contains any of the passed formats.
+       */
+      boolean matches(long formatMask, String... formats) {
+         if ((mask & formatMask) != 0) {
+            return true;
+         }
+         if (overflow != null) {
+            for (String format : formats) {
+               if (overflow.contains(format)) {
+                  return true;
+               }
+            }
+         }
+         return false;
+      }
+
+      @Override
+      public boolean contains(Object o) {
+         if (!(o instanceof String)) {
+            return false;
+         }
+         Integer index = indexes.get(o);
+         if (index != null) {
+            return (mask & (1L << index)) != 0;
+         }
+         return overflow != null && overflow.contains(o);
+      }
+
+      @Override
+      public boolean add(String format) {
+         long bit = bitOf(format);
+         if (bit != 0) {
+            long oldMask = mask;
+            mask |= bit;
+            return mask != oldMask;
+         }
+         if (overflow == null) {
+            overflow = new HashSet<String>();
+         }
+         return overflow.add(format);
+      }
+
+      @Override
+      public boolean remove(Object o) {
+         if (!(o instanceof String)) {
+            return false;
+         }
+         long bit = maskOf((String) o);
+         if (bit != 0) {
+            long oldMask = mask;
+            mask &= ~bit;
+            return mask != oldMask;
+         }
+         return overflow != null && overflow.remove(o);
+      }
+
+      @Override
+      public boolean addAll(Collection<? extends String> formats) {
+         boolean changed = false;
+         for (String format : formats) {
+            changed |= add(format);
+         }
+         return changed;
+      }
+
+      @Override
+      public void clear() {
+         mask = 0L;
+         overflow = null;
+      }
+
+      @Override
+      public int size() {
+         return Long.bitCount(mask) + (overflow != null ? overflow.size() : 0);
+      }
+
+      @Override
+      public Iterator<String> iterator() {
+         return new Iterator<String>() {
+
+            private long remaining = mask;
+            private int last = -1;
+            private Iterator<String> overflowIterator;
+
+            @Override
+            public boolean hasNext() {
+               return remaining != 0 || getOverflowIterator().hasNext();
+            }
+
+            @Override
+            public String next() {
+               if (remaining != 0) {
+                  last = Long.numberOfTrailingZeros(remaining);
+                  remaining &= remaining - 1;
+                  return nameOf(last);
+               }
+               last = -1;
+               Iterator<String> iterator = getOverflowIterator();
+               if (!iterator.hasNext()) {
+                  throw new NoSuchElementException();
+               }
+               return iterator.next();
+            }
+
+            @Override
+            public void remove() {
+               if (last != -1) {
+                  mask &= ~(1L << last);
+                  last = -1;
+               }
+               else if (overflowIterator != null) {
+                  overflowIterator.remove();
+               }
+               else {
+                  throw new IllegalStateException();
+               }
+            }
+
+            private Iterator<String> getOverflowIterator() {
+               if (overflowIterator == null) {
+                  overflowIterator = overflow != null ? overflow.iterator() : new HashSet<String>().iterator();
+               }
+               return overflowIterator;
+            }
+         };
+      }
+   }
+
+   /**
+    * Prevent instantiation.
+    */
+   private DisplayFormats() {
+   }
+}
@@ -29,7 +29,6 @@
  */
 package com.github.dandelion.datatables.core.html;
 
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -50,7 +49,7 @@ public class HtmlColumn extends HtmlTagWithContent {
    private Boolean isHeaderColumn;
    protected StringBuilder cssCellStyle;
    protected StringBuilder cssCellClass;
-   private Set<String> enabledDisplayTypes = new HashSet<String>();
+   private final DisplayFormats.MaskSet enabledDisplayTypes = new DisplayFormats.MaskSet();
 
    public HtmlColumn() {
       setHeaderColumn(false);
@@ -195,12 +194,46 @@ public class HtmlColumn extends HtmlTagWithContent {
       this.cssCellStyle.append(cssCellStyle);
    }
 
+   /**
+    * <p>
+    * Returns a live view of the formats in which the column is displayed.
+    * Changes made to the returned set are reflected in the column.
+    * </p>
+    * 
+    * @return the enabled display formats.
+    */
    public Set<String> getEnabledDisplayTypes() {
       return enabledDisplayTypes;
    }
 
    public void setEnabledDisplayTypes(Set<String> enabledDisplayTypes) {
-      this.enabledDisplayTypes = enabledDisplayTypes;
+      if (enabledDisplayTypes != this.enabledDisplayTypes) {
+         this.enabledDisplayTypes.clear();
+         this.enabledDisplayTypes.addAll(enabledDisplayTypes);
+      }
+   }
+
+   /**
+    * @return the interned formats in which the column is displayed, as a mask
+    *         of bits assigned by {@link DisplayFormats}.
+    * @since 1.1.1
+    */
+   public long getEnabledDisplayMask() {
+      return enabledDisplayTypes.getMask();
+   }
+
+   /**
+    * @param formatMask
+    *           A mask of formats, as returned by
+    *           {@link DisplayFormats#maskOf(String...)}.
+    * @param formats
+    *           The formats of the mask, only needed to match the formats that
+    *           are not interned.
+    * @return {@code true} if the column is displayed in any of the formats.
+    * @since 1.1.1
+    */
+   public boolean isDisplayedIn(long formatMask, String... formats) {
+      return enabledDisplayTypes.matches(formatMask, formats);
    }
 
    public StringBuilder getCssCellStyle() {
@@ -29,15 +29,12 @@
  */
 package com.github.dandelion.datatables.core.html;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Set;
 
 import com.github.dandelion.core.html.AbstractHtmlTag;
 import com.github.dandelion.datatables.core.export.ReservedFormat;
-import com.github.dandelion.datatables.core.util.CollectionUtils;
 
 /**
  * Plain old HTML <code>tr</code> tag.
@@ -50,7 +47,7 @@ public class HtmlRow extends AbstractHtmlTag {
    /**
     * List of columns (<code>td</code> tag) inside the row (<code>tr</code> tag)
     */
-   private List<HtmlColumn> columns = new LinkedList<HtmlColumn>();
+   private List<HtmlColumn> columns = new ArrayList<HtmlColumn>();
 
    public HtmlRow() {
       this.tag = "tr";
@@ -67,20 +64,37 @@ public class HtmlRow extends AbstractHtmlTag {
    @Override
    public StringBuilder toHtml() {
       StringBuilder html = new StringBuilder();
-      html.append(getHtmlOpeningTag());
-      html.append(getHtmlColumns());
-      html.append(getHtmlClosingTag());
+      try {
+         renderTo(html);
+      }
+      catch (IOException e) {
+         // Never thrown by a StringBuilder
+         throw new IllegalStateException(e);
+      }
       return html;
    }
 
-   private StringBuilder getHtmlColumns() {
-      StringBuilder html = new StringBuilder();
+   /**
+    * <p>
+    * Renders the row and all its columns directly into the passed output,
+    * without building any intermediate markup.
+    * </p>
+    * 
+    * @param out
+    *           The output to write the HTML code to.
+    * @throws IOException
+    *            if writing to the output failed.
+    * @since 1.1.1
+    */
+   public void renderTo(Appendable out) throws IOException {
+      out.append(getHtmlOpeningTag());
+      long htmlMask = DisplayFormats.maskOf(ReservedFormat.ALL, ReservedFormat.HTML);
       for (HtmlColumn column : this.columns) {
-         if (CollectionUtils.containsAny(column.getEnabledDisplayTypes(), ReservedFormat.ALL, ReservedFormat.HTML)) {
-            html.append(column.toHtml());
+         if (column.isDisplayedIn(htmlMask)) {
+            column.renderTo(out);
          }
       }
-      return html;
+      out.append(getHtmlClosingTag());
    }
 
    /**
@@ -95,14 +109,41 @@ public class HtmlRow extends AbstractHtmlTag {
     * @return a filtered list of {@link HtmlColumn}.
     */
    public List<HtmlColumn> getColumns(String... enabledFormats) {
-      List<HtmlColumn> result = new ArrayList<HtmlColumn>();
+      long mask = DisplayFormats.maskOf(enabledFormats);
+      List<HtmlColumn> result = new ArrayList<HtmlColumn>(this.columns.size());
+      for (HtmlColumn column : this.columns) {
+         if (column.isDisplayedIn(mask, enabledFormats)) {
+            result.add(column);
+         }
+      }
+      return result;
+   }
+
+   /**
+    * <p>
+    * Returns the positions of the columns enabled for any of the passed
+    * formats, so that other rows sharing the same layout can be filtered
+    * without testing each of their columns.
+    * </p>
+    * 
+    * @param enabledFormats
+    *           The enabled formats used to filter the columns.
+    * @return the indexes of the matching columns, in ascending order.
+    * @since 1.1.1
+    */
+   public int[] getColumnIndexes(String... enabledFormats) {
+      long mask = DisplayFormats.maskOf(enabledFormats);
+      int[] indexes = new int[this.columns.size()];
+      int count = 0;
+      int i = 0;
       for (HtmlColumn column : this.columns) {
-         for (String enabledFormat : enabledFormats) {
-            if (column.getEnabledDisplayTypes().contains(enabledFormat)) {
-               result.add(column);
-            }
+         if (column.isDisplayedIn(mask, enabledFormats)) {
+            indexes[count++] = i;
          }
+         i++;
       }
+      int[] result = new int[count];
+      System.arraycopy(indexes, 0, result, 0, count);
       return result;
    }
 
@@ -138,9 +179,8 @@ public class HtmlRow extends AbstractHtmlTag {
 
    public HtmlColumn addColumn(String columnContent, String displayFormat) {
       HtmlColumn newColumn = new HtmlColumn(false, columnContent);
-      Set<String> enabledDisplayTypes = new HashSet<String>();
-      enabledDisplayTypes.add(displayFormat.trim().toLowerCase());
-      newColumn.setEnabledDisplayTypes(enabledDisplayTypes);
+      newColumn.getEnabledDisplayTypes().clear();
+      newColumn.getEnabledDisplayTypes().add(displayFormat.trim().toLowerCase());
       this.columns.add(newColumn);
       return newColumn;
    }
@@ -170,7 +210,7 @@ public class HtmlRow extends AbstractHtmlTag {
    }
 
    public HtmlColumn getLastColumn() {
-      return ((LinkedList<HtmlColumn>) this.columns).getLast();
+      return this.columns.get(this.columns.size() - 1);
    }
 
    @Override
@@ -28,7 +28,8 @@
  */
 package com.github.dandelion.datatables.core.html;
 
-import java.util.LinkedList;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -45,7 +46,7 @@ import com.github.dandelion.datatables.core.option.TableConfigurationFactory;
  * Plain old HTML <code>table</code> tag.
  * </p>
  * <p>
- * All rows are backed by different {@link LinkedList}, one for each part of the
+ * All rows are backed by different {@link ArrayList}, one for each part of the
  * table.
  * </p>
  * <p>
@@ -60,9 +61,9 @@ public class HtmlTable extends AbstractHtmlTag {
    // Internal attributes
    private String originalId;
    private HtmlCaption caption;
-   private List<HtmlRow> head = new LinkedList<HtmlRow>();
-   private List<HtmlRow> body = new LinkedList<HtmlRow>();
-   private List<HtmlRow> foot = new LinkedList<HtmlRow>();
+   private List<HtmlRow> head = new ArrayList<HtmlRow>();
+   private List<HtmlRow> body = new ArrayList<HtmlRow>();
+   private List<HtmlRow> foot = new ArrayList<HtmlRow>();
    private TableConfiguration tableConfiguration;
 
    public HtmlTable(String id, HttpServletRequest request, HttpServletResponse response) {
@@ -85,50 +86,61 @@ public class HtmlTable extends AbstractHtmlTag {
    @Override
    public StringBuilder toHtml() {
       StringBuilder html = new StringBuilder();
-      html.append(getHtmlOpeningTag());
-      html.append(getHtmlHeader());
-      html.append(getHtmlBody());
-      html.append(getHtmlFooter());
-      html.append(getHtmlClosingTag());
+      try {
+         renderTo(html);
+      }
+      catch (IOException e) {
+         // Never thrown by a StringBuilder
+         throw new IllegalStateException(e);
+      }
       return html;
    }
 
-   private StringBuilder getHtmlHeader() {
-      StringBuilder html = new StringBuilder();
+   /**
+    * <p>
+    * Renders the whole table directly into the passed output, e.g. the
+    * {@code JspWriter} of the current page.
+    * </p>
+    * <p>
+    * Unlike {@link #toHtml()}, the markup is never held in memory: each row is
+    * written as soon as it is rendered.
+    * </p>
+    * 
+    * @param out
+    *           The output to write the HTML code to.
+    * @throws IOException
+    *            if writing to the output failed.
+    * @since 1.1.1
+    */
+   public void renderTo(Appendable out) throws IOException {
+      out.append(getHtmlOpeningTag());
+
       if (this.caption != null) {
-         html.append(this.caption.toHtml());
+         this.caption.renderTo(out);
       }
-      html.append("<thead>");
+      out.append("<thead>");
       for (HtmlRow row : this.head) {
-         html.append(row.toHtml());
+         row.renderTo(out);
       }
-      html.append("</thead>");
-      return html;
-   }
+      out.append("</thead>");
 
-   private StringBuilder getHtmlBody() {
-      StringBuilder html = new StringBuilder();
       if (!this.body.isEmpty()) {
-         html.append("<tbody>");
+         out.append("<tbody>");
          for (HtmlRow row : this.body) {
-            html.append(row.toHtml());
+            row.renderTo(out);
          }
-         html.append("</tbody>");
+         out.append("</tbody>");
       }
-      return html;
-   }
 
-   private StringBuilder getHtmlFooter() {
-      StringBuilder html = new StringBuilder();
       if (!this.foot.isEmpty()) {
-         html.append("<tfoot>");
+         out.append("<tfoot>");
          for (HtmlRow row : this.foot) {
-            html.append(row.toHtml());
+            row.renderTo(out);
          }
-
-         html.append("</tfoot>");
+         out.append("</tfoot>");
       }
-      return html;
+
+      out.append(getHtmlClosingTag());
    }
 
    protected StringBuilder getHtmlAttributes() {
@@ -187,19 +199,19 @@ public class HtmlTable extends AbstractHtmlTag {
    }
 
    public HtmlRow getLastFooterRow() {
-      return ((LinkedList<HtmlRow>) this.foot).getLast();
+      return this.foot.get(this.foot.size() - 1);
    }
 
    public HtmlRow getFirstHeaderRow() {
-      return ((LinkedList<HtmlRow>) this.head).getFirst();
+      return this.head.get(0);
    }
 
    public HtmlRow getLastHeaderRow() {
-      return ((LinkedList<HtmlRow>) this.head).getLast();
+      return this.head.get(this.head.size() - 1);
    }
 
    public HtmlRow getLastBodyRow() {
-      return ((LinkedList<HtmlRow>) this.body).getLast();
+      return this.body.get(this.body.size() - 1);
    }
 
    public void addCssStyle(String cssStyle) {
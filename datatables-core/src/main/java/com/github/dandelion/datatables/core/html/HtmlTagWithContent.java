@@ -29,6 +29,8 @@
  */
 package com.github.dandelion.datatables.core.html;
 
+import java.io.IOException;
+
 import com.github.dandelion.core.html.AbstractHtmlTag;
 
 /**
@@ -57,6 +59,21 @@ public abstract class HtmlTagWithContent extends AbstractHtmlTag {
       return html;
    }
 
+   /**
+    * Render the tag in HTML code directly into the passed output.
+    * 
+    * @param out
+    *           The output to write the HTML code to.
+    * @throws IOException
+    *            if writing to the output failed.
+    * @since 1.1.1
+    */
+   public void renderTo(Appendable out) throws IOException {
+      out.append(getHtmlOpeningTag());
+      out.append(this.content);
+      out.append(getHtmlClosingTag());
+   }
+
    public StringBuilder getContent() {
       return content;
    }
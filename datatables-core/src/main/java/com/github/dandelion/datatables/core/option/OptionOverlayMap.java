@@ -0,0 +1,264 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.option;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.github.dandelion.core.option.Option;
+
+/**
+ * <p>
+ * Copy-on-write view of an option template, used by each
+ * {@link TableConfiguration} instead of a full copy of the template.
+ * </p>
+ * <p>
+ * Reads are first looked up in a local overlay, then in the template, which is
+ * shared among all tables using the same group and locale and must never be
+ * modified. Writes (including {@link java.util.Map.Entry#setValue(Object)} on
+ * the entries returned by {@link #entrySet()}) and removals only affect the
+ * overlay, which is allocated lazily on the first write.
+ * </p>
+ * <p>
+ * Instances are not thread-safe, just as the {@link HashMap} they replace.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+final class OptionOverlayMap extends AbstractMap<Option<?>, Object> {
+
+   /**
+    * Marker stored in the overlay for options removed from the template.
+    */
+   private static final Object REMOVED = new Object();
+
+   /**
+    * The shared, immutable template.
+    */
+   private final Map<Option<?>, Object> template;
+
+   /**
+    * Local modifications, lazily initialized.
+    */
+   private Map<Option<?>, Object> overlay;
+
+   OptionOverlayMap(Map<Option<?>, Object> template) {
+      this.template = template;
+   }
+
+   @Override
+   public Object get(Object key) {
+      if (overlay != null && overlay.containsKey(key)) {
+         Object value = overlay.get(key);
+         return value == REMOVED ? null : value;
+      }
+      return template.get(key);
+   }
+
+   @Override
+   public boolean containsKey(Object key) {
+      if (overlay != null && overlay.containsKey(key)) {
+         return overlay.get(key) != REMOVED;
+      }
+      return template.containsKey(key);
+   }
+
+   @Override
+   public Object put(Option<?> key, Object value) {
+      Object previous = get(key);
+      getOverlay().put(key, value);
+      return previous;
+   }
+
+   @Override
+   public Object remove(Object key) {
+      if (!containsKey(key)) {
+         return null;
+      }
+      Object previous = get(key);
+      if (template.containsKey(key)) {
+         getOverlay().put((Option<?>) key, REMOVED);
+      }
+      else {
+         overlay.remove(key);
+      }
+      return previous;
+   }
+
+   @Override
+   public void clear() {
+      getOverlay().clear();
+      for (Option<?> key : template.keySet()) {
+         overlay.put(key, REMOVED);
+      }
+   }
+
+   @Override
+   public int size() {
+      if (overlay == null) {
+         return template.size();
+      }
+      int size = template.size();
+      for (Entry<Option<?>, Object> entry : overlay.entrySet()) {
+         boolean inTemplate = template.containsKey(entry.getKey());
+         if (entry.getValue() == REMOVED) {
+            if (inTemplate) {
+               size--;
+            }
+         }
+         else if (!inTemplate) {
+            size++;
+         }
+      }
+      return size;
+   }
+
+   @Override
+   public Set<Entry<Option<?>, Object>> entrySet() {
+      return new AbstractSet<Entry<Option<?>, Object>>() {
+
+         @Override
+         public Iterator<Entry<Option<?>, Object>> iterator() {
+            return new OverlayIterator();
+         }
+
+         @Override
+         public int size() {
+            return OptionOverlayMap.this.size();
+         }
+      };
+   }
+
+   private Map<Option<?>, Object> getOverlay() {
+      if (overlay == null) {
+         overlay = new HashMap<Option<?>, Object>();
+      }
+      return overlay;
+   }
+
+   /**
+    * <p>
+    * Iterates over the template entries first, replacing or skipping those
+    * overridden in the overlay, and then over a snapshot of the keys only
+    * present in the overlay, so that the map can be freely updated during the
+    * iteration.
+    * </p>
+    */
+   private class OverlayIterator implements Iterator<Entry<Option<?>, Object>> {
+
+      private final Iterator<Option<?>> templateKeys = template.keySet().iterator();
+      private Iterator<Option<?>> overlayKeys;
+      private Entry<Option<?>, Object> next;
+      private Entry<Option<?>, Object> current;
+
+      @Override
+      public boolean hasNext() {
+         if (next == null) {
+            next = advance();
+         }
+         return next != null;
+      }
+
+      @Override
+      public Entry<Option<?>, Object> next() {
+         if (!hasNext()) {
+            throw new NoSuchElementException();
+         }
+         current = next;
+         next = null;
+         return current;
+      }
+
+      @Override
+      public void remove() {
+         if (current == null) {
+            throw new IllegalStateException();
+         }
+         OptionOverlayMap.this.remove(current.getKey());
+         current = null;
+      }
+
+      private Entry<Option<?>, Object> advance() {
+         while (overlayKeys == null && templateKeys.hasNext()) {
+            Option<?> key = templateKeys.next();
+            if (overlay == null || !overlay.containsKey(key)) {
+               return new OverlayEntry(key, template.get(key));
+            }
+            Object value = overlay.get(key);
+            if (value != REMOVED) {
+               return new OverlayEntry(key, value);
+            }
+         }
+         if (overlayKeys == null) {
+            if (overlay == null) {
+               return null;
+            }
+            overlayKeys = new ArrayList<Option<?>>(overlay.keySet()).iterator();
+         }
+         while (overlayKeys.hasNext()) {
+            Option<?> key = overlayKeys.next();
+            if (!template.containsKey(key) && overlay.containsKey(key)) {
+               Object value = overlay.get(key);
+               if (value != REMOVED) {
+                  return new OverlayEntry(key, value);
+               }
+            }
+         }
+         return null;
+      }
+   }
+
+   /**
+    * <p>
+    * Entry whose {@link #setValue(Object)} writes through the overlay.
+    * </p>
+    */
+   private class OverlayEntry extends SimpleEntry<Option<?>, Object> {
+
+      private static final long serialVersionUID = 1L;
+
+      OverlayEntry(Option<?> key, Object value) {
+         super(key, value);
+      }
+
+      @Override
+      public Object setValue(Object value) {
+         getOverlay().put(getKey(), value);
+         return super.setValue(value);
+      }
+   }
+}
@@ -29,10 +29,13 @@
  */
 package com.github.dandelion.datatables.core.option;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -53,8 +56,11 @@ import com.github.dandelion.datatables.core.config.DatatableConfigurator;
  * Factory that creates {@link TableConfiguration} instances.
  * </p>
  * <p>
- * Once created, the instance is cached by {@link Locale} and then by group
- * name.
+ * The options of each group are resolved once per {@link Locale} into
+ * immutable templates, cached by {@link Locale} and then by group name. Once
+ * resolved, templates are read without any locking. Each
+ * {@link TableConfiguration} then gets a copy-on-write view of its template
+ * rather than a full copy.
  * </p>
  * 
  * @author Thibault Duchateau
@@ -65,9 +71,10 @@ public class TableConfigurationFactory {
    private static Logger LOGGER = LoggerFactory.getLogger(TableConfigurationFactory.class);
 
    /**
-    * Static map containing all templates of configuration.
+    * Static map containing all templates of configuration. Both the per-locale
+    * maps and the templates themselves are immutable.
     */
-   private static final Map<Locale, Map<String, Map<Option<?>, Object>>> OPTIONS_BY_GROUP_BY_LOCALE = new ConcurrentHashMap<Locale, Map<String, Map<Option<?>, Object>>>();
+   private static final ConcurrentMap<Locale, Map<String, Map<Option<?>, Object>>> OPTIONS_BY_GROUP_BY_LOCALE = new ConcurrentHashMap<Locale, Map<String, Map<Option<?>, Object>>>();
 
    /**
     * <p>
@@ -100,8 +107,8 @@ public class TableConfigurationFactory {
     * will be used.
     * </p>
     * <p>
-    * The instance is duplicated from the template instance stored in the
-    * {@link #OPTIONS_BY_GROUP_BY_LOCALE} map.
+    * The instance is backed by a copy-on-write view of the template stored in
+    * the {@link #OPTIONS_BY_GROUP_BY_LOCALE} map.
     * </p>
     * 
     * @param tableId
@@ -112,7 +119,7 @@ public class TableConfigurationFactory {
     *           Name of the configuration group to load.
     * @return a new and initialized instance of {@link TableConfiguration}.
     */
-   public synchronized static TableConfiguration newInstance(String tableId, HttpServletRequest request,
+   public static TableConfiguration newInstance(String tableId, HttpServletRequest request,
          String groupName) {
 
       // Process group
@@ -128,33 +135,37 @@ public class TableConfigurationFactory {
          locale = Locale.getDefault();
       }
 
-      // Clear the map only in dev profile
-      // WARNING: not thread safe
+      // Hot reload of the configuration, only in dev profile
       Context context = (Context) request.getAttribute(WebConstants.DANDELION_CONTEXT_ATTRIBUTE);
       if (context == null) {
          LOGGER.warn(
                "The Dandelion context doesn't seem to be available. Did you forget to declare the DandelionFilter in your web.xml file?");
       }
+      else if (context.isDevProfileEnabled()
+            && DatatableConfigurator.getConfigLoader().isUserConfigurationModified()) {
+         LOGGER.info("The configuration has changed and will be reloaded");
+         clear();
+      }
 
       // Feed the map for the corresponding locale if it doesn't exist
-      if (!OPTIONS_BY_GROUP_BY_LOCALE.containsKey(locale)) {
-         resolveGroupsForLocale(locale, request);
+      Map<String, Map<Option<?>, Object>> optionsByGroup = OPTIONS_BY_GROUP_BY_LOCALE.get(locale);
+      if (optionsByGroup == null) {
+         optionsByGroup = resolveGroupsForLocale(locale, request);
       }
 
-      if (!OPTIONS_BY_GROUP_BY_LOCALE.get(locale).containsKey(group)) {
+      Map<Option<?>, Object> template = optionsByGroup.get(group);
+      if (template == null) {
          StringBuilder msg = new StringBuilder("The group '");
          msg.append(group);
          msg.append("' doesn't exist in your configuration files. Either create it or choose an existing one among ");
-         msg.append(OPTIONS_BY_GROUP_BY_LOCALE.get(locale).keySet());
+         msg.append(optionsByGroup.keySet());
          throw new DandelionException(msg.toString());
       }
 
       MessageResolver messageResolver = DatatableConfigurator.getMessageResolver(request);
 
-      // Return a fresh instance from the template instance
-      return new TableConfiguration(tableId,
-            new HashMap<Option<?>, Object>(OPTIONS_BY_GROUP_BY_LOCALE.get(locale).get(group)), messageResolver, request,
-            group);
+      // Return a fresh instance backed by the template instance
+      return new TableConfiguration(tableId, new OptionOverlayMap(template), messageResolver, request, group);
    }
 
    /**
@@ -168,18 +179,41 @@ public class TableConfigurationFactory {
     *           request.
     * @param request
     *           The current request.
+    * @return the immutable templates of the given locale, indexed by group
+    *         name.
     */
-   public static void resolveGroupsForLocale(Locale locale, HttpServletRequest request) {
-      Map<String, Map<Option<?>, Object>> map = new ConcurrentHashMap<String, Map<Option<?>, Object>>();
+   public static Map<String, Map<Option<?>, Object>> resolveGroupsForLocale(Locale locale,
+         HttpServletRequest request) {
 
       ConfigLoader confLoader = DatatableConfigurator.getConfigLoader();
 
-      confLoader.loadDefaultConfiguration();
-      confLoader.loadUserConfiguration(locale);
-      confLoader.resolveGroups(locale);
-      confLoader.resolveConfigurations(map, locale, request);
-
-      OPTIONS_BY_GROUP_BY_LOCALE.put(locale, map);
+      // The loader is stateful, so the resolution itself is serialized, using
+      // the same lock as the lazy initialization of the resolvers in
+      // DatatableConfigurator. This only happens the first time a locale is
+      // requested.
+      synchronized (confLoader) {
+         Map<String, Map<Option<?>, Object>> existing = OPTIONS_BY_GROUP_BY_LOCALE.get(locale);
+         if (existing != null) {
+            return existing;
+         }
+
+         Map<String, Map<Option<?>, Object>> map = new HashMap<String, Map<Option<?>, Object>>();
+
+         confLoader.loadDefaultConfiguration();
+         confLoader.loadUserConfiguration(locale);
+         confLoader.resolveGroups(locale);
+         confLoader.resolveConfigurations(map, locale, request);
+
+         Map<String, Map<Option<?>, Object>> templates = new HashMap<String, Map<Option<?>, Object>>();
+         for (Entry<String, Map<Option<?>, Object>> entry : map.entrySet()) {
+            templates.put(entry.getKey(),
+                  Collections.unmodifiableMap(new HashMap<Option<?>, Object>(entry.getValue())));
+         }
+         templates = Collections.unmodifiableMap(templates);
+
+         OPTIONS_BY_GROUP_BY_LOCALE.put(locale, templates);
+         return templates;
+      }
    }
 
    /**
@@ -0,0 +1,193 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.util;
+
+import java.text.Format;
+import java.text.MessageFormat;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * Utilities used to format values with {@link MessageFormat} patterns, such as
+ * the ones set in the {@code format} attribute of columns.
+ * </p>
+ * <p>
+ * Since {@link MessageFormat} is both expensive to create and not thread-safe,
+ * instances are pooled per pattern and locale: a formatter is borrowed from the
+ * pool for the duration of a single call and then given back, so that it is
+ * never used by two threads at the same time.
+ * </p>
+ * <p>
+ * Patterns made of a single date, time or number element, e.g.
+ * {@code {0,date,dd/MM/yyyy}} or {@code {0,number,#.##}}, are formatted
+ * directly using the underlying {@link java.text.DateFormat} or
+ * {@link java.text.NumberFormat}.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+public final class FormatUtils {
+
+   /**
+    * Maximum number of distinct patterns for which formatters are pooled.
+    * Beyond this limit, a new formatter is created on each call.
+    */
+   private static final int MAX_POOLED_PATTERNS = 500;
+
+   private static final Pattern SINGLE_ELEMENT_PATTERN = Pattern.compile("\\{\\s*0\\s*,\\s*(date|time|number)[^{}']*\\}");
+
+   private static final ConcurrentMap<FormatKey, Queue<Formatter>> pools = new ConcurrentHashMap<FormatKey, Queue<Formatter>>();
+
+   /**
+    * <p>
+    * Formats the passed value with the passed pattern, using the default
+    * locale.
+    * </p>
+    * 
+    * @see #format(String, Locale, Object)
+    */
+   public static String format(String pattern, Object value) {
+      return format(pattern, Locale.getDefault(), value);
+   }
+
+   /**
+    * <p>
+    * Formats the passed value with the passed pattern, exactly as
+    * {@code new MessageFormat(pattern, locale).format(new Object[] { value })}
+    * would.
+    * </p>
+    * 
+    * @param pattern
+    *           The {@link MessageFormat} pattern, in which the value is
+    *           referenced as {@code {0}}.
+    * @param locale
+    *           The locale used to format the value.
+    * @param value
+    *           The value to format.
+    * @return the formatted value.
+    * @throws IllegalArgumentException
+    *            if the pattern is invalid or if the value can't be formatted
+    *            with it.
+    */
+   public static String format(String pattern, Locale locale, Object value) {
+      FormatKey key = new FormatKey(pattern, locale);
+      Queue<Formatter> pool = pools.get(key);
+      if (pool == null) {
+         if (pools.size() >= MAX_POOLED_PATTERNS) {
+            return new Formatter(pattern, locale).format(value);
+         }
+         pool = new ConcurrentLinkedQueue<Formatter>();
+         Queue<Formatter> existing = pools.putIfAbsent(key, pool);
+         if (existing != null) {
+            pool = existing;
+         }
+      }
+
+      Formatter formatter = pool.poll();
+      if (formatter == null) {
+         formatter = new Formatter(pattern, locale);
+      }
+      try {
+         return formatter.format(value);
+      }
+      finally {
+         pool.offer(formatter);
+      }
+   }
+
+   /**
+    * <p>
+    * Either a {@link MessageFormat} or, for single element patterns, the
+    * {@link Format} of its unique element.
+    * </p>
+    */
+   private static final class Formatter {
+
+      private final MessageFormat messageFormat;
+      private final Format elementFormat;
+
+      private Formatter(String pattern, Locale locale) {
+         this.messageFormat = new MessageFormat(pattern, locale);
+         if (SINGLE_ELEMENT_PATTERN.matcher(pattern).matches()) {
+            this.elementFormat = this.messageFormat.getFormatsByArgumentIndex()[0];
+         }
+         else {
+            this.elementFormat = null;
+         }
+      }
+
+      private String format(Object value) {
+         if (elementFormat != null && value != null) {
+            return elementFormat.format(value);
+         }
+         return messageFormat.format(new Object[] { value });
+      }
+   }
+
+   private static final class FormatKey {
+
+      private final String pattern;
+      private final Locale locale;
+
+      private FormatKey(String pattern, Locale locale) {
+         this.pattern = pattern;
+         this.locale = locale;
+      }
+
+      @Override
+      public int hashCode() {
+         return 31 * pattern.hashCode() + (locale != null ? locale.hashCode() : 0);
+      }
+
+      @Override
+      public boolean equals(Object obj) {
+         if (this == obj) {
+            return true;
+         }
+         if (!(obj instanceof FormatKey)) {
+            return false;
+         }
+         FormatKey other = (FormatKey) obj;
+         return pattern.equals(other.pattern) && (locale != null ? locale.equals(other.locale) : other.locale == null);
+      }
+   }
+
+   /**
+    * Prevent instantiation.
+    */
+   private FormatUtils() {
+   }
+}
@@ -0,0 +1,325 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * <p>
+ * Minimal streaming JSON writer, writing tokens directly to the underlying
+ * {@link Writer} without building any intermediate tree.
+ * </p>
+ * <p>
+ * Commas and colons are handled by the writer itself, e.g.:
+ * </p>
+ * 
+ * <pre>
+ * new JsonWriter(writer).beginObject().name(&quot;draw&quot;).value(1).name(&quot;data&quot;).beginArray().endArray().endObject();
+ * </pre>
+ * <p>
+ * Strings are escaped so that the output can safely be embedded in a
+ * {@code script} tag.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+public class JsonWriter {
+
+   private static final int EMPTY_OBJECT = 1;
+   private static final int NONEMPTY_OBJECT = 2;
+   private static final int EMPTY_ARRAY = 3;
+   private static final int NONEMPTY_ARRAY = 4;
+   private static final int DANGLING_NAME = 5;
+
+   private final Writer out;
+   private int[] stack = new int[16];
+   private int depth = 0;
+
+   public JsonWriter(Writer out) {
+      this.out = out;
+   }
+
+   public JsonWriter beginObject() throws IOException {
+      beforeValue();
+      push(EMPTY_OBJECT);
+      out.write('{');
+      return this;
+   }
+
+   public JsonWriter endObject() throws IOException {
+      return close(EMPTY_OBJECT, NONEMPTY_OBJECT, '}');
+   }
+
+   public JsonWriter beginArray() throws IOException {
+      beforeValue();
+      push(EMPTY_ARRAY);
+      out.write('[');
+      return this;
+   }
+
+   public JsonWriter endArray() throws IOException {
+      return close(EMPTY_ARRAY, NONEMPTY_ARRAY, ']');
+   }
+
+   /**
+    * <p>
+    * Writes the name of the next property of the current object.
+    * </p>
+    * 
+    * @param name
+    *           The name of the property.
+    * @return the current writer.
+    */
+   public JsonWriter name(String name) throws IOException {
+      int context = peek();
+      if (context == NONEMPTY_OBJECT) {
+         out.write(',');
+      }
+      else if (context != EMPTY_OBJECT) {
+         throw new IllegalStateException("A name can only be written inside an object");
+      }
+      stack[depth - 1] = DANGLING_NAME;
+      writeString(out, name);
+      out.write(':');
+      return this;
+   }
+
+   public JsonWriter nullValue() throws IOException {
+      beforeValue();
+      out.write("null");
+      return this;
+   }
+
+   public JsonWriter value(String value) throws IOException {
+      if (value == null) {
+         return nullValue();
+      }
+      beforeValue();
+      writeString(out, value);
+      return this;
+   }
+
+   public JsonWriter value(long value) throws IOException {
+      beforeValue();
+      out.write(Long.toString(value));
+      return this;
+   }
+
+   public JsonWriter value(boolean value) throws IOException {
+      beforeValue();
+      out.write(value ? "true" : "false");
+      return this;
+   }
+
+   /**
+    * <p>
+    * Writes any value, using the most appropriate JSON type:
+    * </p>
+    * <ul>
+    * <li>{@link Number}s and {@link Boolean}s are written as is (except
+    * non-finite numbers, written as {@code null})</li>
+    * <li>{@link Date}s are written as a number of milliseconds</li>
+    * <li>{@link Map}s are written as objects</li>
+    * <li>{@link Collection}s and arrays are written as arrays</li>
+    * <li>any other object is written as a string using its {@code toString()}
+    * method</li>
+    * </ul>
+    * 
+    * @param value
+    *           The value to write, possibly {@code null}.
+    * @return the current writer.
+    */
+   public JsonWriter value(Object value) throws IOException {
+      if (value == null) {
+         return nullValue();
+      }
+      else if (value instanceof String) {
+         return value((String) value);
+      }
+      else if (value instanceof Number) {
+         if (value instanceof Double && (((Double) value).isNaN() || ((Double) value).isInfinite())
+               || value instanceof Float && (((Float) value).isNaN() || ((Float) value).isInfinite())) {
+            return nullValue();
+         }
+         beforeValue();
+         out.write(value.toString());
+         return this;
+      }
+      else if (value instanceof Boolean) {
+         return value(((Boolean) value).booleanValue());
+      }
+      else if (value instanceof Date) {
+         return value(((Date) value).getTime());
+      }
+      else if (value instanceof Enum) {
+         return value(((Enum<?>) value).name());
+      }
+      else if (value instanceof Map) {
+         beginObject();
+         for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+            name(String.valueOf(entry.getKey()));
+            value(entry.getValue());
+         }
+         return endObject();
+      }
+      else if (value instanceof Collection) {
+         beginArray();
+         for (Object element : (Collection<?>) value) {
+            value(element);
+         }
+         return endArray();
+      }
+      else if (value.getClass().isArray()) {
+         if (value instanceof Object[]) {
+            return value(Arrays.asList((Object[]) value));
+         }
+         beginArray();
+         for (int i = 0, length = Array.getLength(value); i < length; i++) {
+            value(Array.get(value, i));
+         }
+         return endArray();
+      }
+      return value(value.toString());
+   }
+
+   public void flush() throws IOException {
+      out.flush();
+   }
+
+   /**
+    * <p>
+    * Writes the passed string as a quoted and escaped JSON string.
+    * </p>
+    * <p>
+    * Besides the characters that must be escaped in JSON, the line and
+    * paragraph separators as well as the {@code /} of {@code </} are escaped,
+    * so that the string can be embedded in a {@code script} tag.
+    * </p>
+    * 
+    * @param out
+    *           The output to write to.
+    * @param value
+    *           The string to write.
+    */
+   public static void writeString(Writer out, String value) throws IOException {
+      out.write('"');
+      int last = 0;
+      int length = value.length();
+      for (int i = 0; i < length; i++) {
+         char c = value.charAt(i);
+         String replacement;
+         if (c == '"') {
+            replacement = "\\\"";
+         }
+         else if (c == '\\') {
+            replacement = "\\\\";
+         }
+         else if (c == '\n') {
+            replacement = "\\n";
+         }
+         else if (c == '\r') {
+            replacement = "\\r";
+         }
+         else if (c == '\t') {
+            replacement = "\\t";
+         }
+         else if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+            replacement = String.format("\\u%04x", (int) c);
+         }
+         else if (c == '/' && i > 0 && value.charAt(i - 1) == '<') {
+            replacement = "\\/";
+         }
+         else {
+            continue;
+         }
+         if (last < i) {
+            out.write(value, last, i - last);
+         }
+         out.write(replacement);
+         last = i + 1;
+      }
+      if (last < length) {
+         out.write(value, last, length - last);
+      }
+      out.write('"');
+   }
+
+   private void beforeValue() throws IOException {
+      if (depth == 0) {
+         return;
+      }
+      int context = stack[depth - 1];
+      if (context == NONEMPTY_ARRAY) {
+         out.write(',');
+      }
+      else if (context == EMPTY_ARRAY) {
+         stack[depth - 1] = NONEMPTY_ARRAY;
+      }
+      else if (context == DANGLING_NAME) {
+         stack[depth - 1] = NONEMPTY_OBJECT;
+      }
+      else {
+         throw new IllegalStateException("A name must be written before a value inside an object");
+      }
+   }
+
+   private JsonWriter close(int empty, int nonEmpty, char closing) throws IOException {
+      int context = peek();
+      if (context != empty && context != nonEmpty) {
+         throw new IllegalStateException("Nesting problem");
+      }
+      depth--;
+      out.write(closing);
+      return this;
+   }
+
+   private void push(int context) {
+      if (depth == stack.length) {
+         int[] newStack = new int[depth * 2];
+         System.arraycopy(stack, 0, newStack, 0, depth);
+         stack = newStack;
+      }
+      stack[depth++] = context;
+   }
+
+   private int peek() {
+      if (depth == 0) {
+         throw new IllegalStateException("The JSON document is already closed");
+      }
+      return stack[depth - 1];
+   }
+}
@@ -0,0 +1,275 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.util;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.beanutils.DynaBean;
+import org.apache.commons.beanutils.MethodUtils;
+import org.apache.commons.beanutils.PropertyUtils;
+
+/**
+ * <p>
+ * Compiled accessor to a (possibly nested) property of a bean, e.g.
+ * {@code address.town.name}.
+ * </p>
+ * <p>
+ * The path is parsed only once, when the accessor is compiled, and the read
+ * method of each segment is resolved once per bean class and then cached.
+ * Reading a property therefore boils down to a chain of cached reflective
+ * invocations, without the introspection and path parsing performed by
+ * {@link PropertyUtils#getNestedProperty(Object, String)} on each call.
+ * </p>
+ * <p>
+ * The traversal is null-safe: if any intermediate property is {@code null},
+ * {@code null} is returned. {@link Map}s are supported at any level, using the
+ * segment as key. Paths using the indexed or mapped syntax (e.g.
+ * {@code addresses[0].town} or {@code phones(home)}), as well as
+ * {@link DynaBean}s, are delegated to {@link PropertyUtils}.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+public final class PropertyAccessor {
+
+   /**
+    * Maximum number of compiled accessors kept in cache. Beyond this limit,
+    * accessors are compiled on each call, which protects against paths coming
+    * from the request, e.g. in {@code HtmlTableBuilder.auto()}.
+    */
+   private static final int MAX_CACHED_PATHS = 1000;
+
+   /**
+    * Maximum number of classes whose read methods are kept in cache. Beyond
+    * this limit, the classes are introspected on each resolution, so that the
+    * cache can't grow with the classes of redeployed applications.
+    */
+   private static final int MAX_CACHED_CLASSES = 1000;
+
+   private static final ConcurrentMap<String, PropertyAccessor> accessors = new ConcurrentHashMap<String, PropertyAccessor>();
+   private static final ConcurrentMap<Class<?>, Map<String, Method>> readMethods = new ConcurrentHashMap<Class<?>, Map<String, Method>>();
+
+   private final String path;
+   private final Segment[] segments;
+
+   private PropertyAccessor(String path) {
+      this.path = path;
+      if (path.indexOf('[') != -1 || path.indexOf('(') != -1) {
+         this.segments = null;
+      }
+      else {
+         String[] names = path.split("\\.", -1);
+         this.segments = new Segment[names.length];
+         for (int i = 0; i < names.length; i++) {
+            this.segments[i] = new Segment(names[i]);
+         }
+      }
+   }
+
+   /**
+    * <p>
+    * Returns the compiled accessor for the passed path.
+    * </p>
+    * 
+    * @param path
+    *           The path of the property, using the dot notation for nested
+    *           properties.
+    * @return the corresponding accessor.
+    */
+   public static PropertyAccessor compile(String path) {
+      String trimmedPath = path.trim();
+      PropertyAccessor accessor = accessors.get(trimmedPath);
+      if (accessor == null) {
+         accessor = new PropertyAccessor(trimmedPath);
+         if (accessors.size() < MAX_CACHED_PATHS) {
+            PropertyAccessor existing = accessors.putIfAbsent(trimmedPath, accessor);
+            if (existing != null) {
+               accessor = existing;
+            }
+         }
+      }
+      return accessor;
+   }
+
+   /**
+    * <p>
+    * Shortcut for {@code PropertyAccessor.compile(path).getValue(bean)}.
+    * </p>
+    * 
+    * @see #getValue(Object)
+    */
+   public static Object getValue(Object bean, String path) throws IllegalAccessException,
+         InvocationTargetException, NoSuchMethodException {
+      return compile(path).getValue(bean);
+   }
+
+   /**
+    * <p>
+    * Reads the property from the passed bean.
+    * </p>
+    * 
+    * @param bean
+    *           The bean from which the property is read.
+    * @return the value of the property, or {@code null} if either the bean or
+    *         any intermediate property is {@code null}.
+    * @throws IllegalAccessException
+    *            if the read method of a segment is not accessible.
+    * @throws InvocationTargetException
+    *            if the read method of a segment throws an exception.
+    * @throws NoSuchMethodException
+    *            if a segment has no read method.
+    */
+   public Object getValue(Object bean) throws IllegalAccessException, InvocationTargetException,
+         NoSuchMethodException {
+      if (segments == null) {
+         return bean != null ? PropertyUtils.getNestedProperty(bean, path) : null;
+      }
+
+      Object current = bean;
+      for (Segment segment : segments) {
+         if (current == null) {
+            return null;
+         }
+         current = segment.get(current);
+      }
+      return current;
+   }
+
+   public String getPath() {
+      return path;
+   }
+
+   /**
+    * <p>
+    * Clears the cached accessors and read methods, which hold references to
+    * the classes of the beans.
+    * </p>
+    * <b>FOR INTERNAL USE ONLY</b>
+    */
+   public static void clear() {
+      accessors.clear();
+      readMethods.clear();
+   }
+
+   /**
+    * <p>
+    * Returns the read method of the property, using a cache of all readable
+    * properties per class.
+    * </p>
+    */
+   private static Method getReadMethod(Class<?> type, String name) throws NoSuchMethodException {
+      Map<String, Method> methods = readMethods.get(type);
+      if (methods == null) {
+         methods = introspect(type);
+         if (readMethods.size() < MAX_CACHED_CLASSES) {
+            readMethods.putIfAbsent(type, methods);
+         }
+      }
+
+      Method method = methods.get(name);
+      if (method == null) {
+         throw new NoSuchMethodException("Unknown property '" + name + "' on class '" + type + "'");
+      }
+      return method;
+   }
+
+   private static Map<String, Method> introspect(Class<?> type) {
+      Map<String, Method> methods = new HashMap<String, Method>();
+      try {
+         for (PropertyDescriptor descriptor : Introspector.getBeanInfo(type).getPropertyDescriptors()) {
+            // Public methods declared in a non-public class must be looked up
+            // in its public superclasses or interfaces
+            if (descriptor.getReadMethod() != null) {
+               Method readMethod = MethodUtils.getAccessibleMethod(type, descriptor.getReadMethod());
+               if (readMethod != null) {
+                  methods.put(descriptor.getName(), readMethod);
+               }
+            }
+         }
+      }
+      catch (IntrospectionException e) {
+         // No readable property at all, reported as missing methods
+      }
+      return Collections.unmodifiableMap(methods);
+   }
+
+   /**
+    * Single segment of the path, with an inline cache of the read method of
+    * the last seen class.
+    */
+   private static final class Segment {
+
+      private final String name;
+      private volatile ResolvedMethod resolved;
+
+      private Segment(String name) {
+         this.name = name;
+      }
+
+      @SuppressWarnings("rawtypes")
+      private Object get(Object target) throws IllegalAccessException, InvocationTargetException,
+            NoSuchMethodException {
+         if (target instanceof Map) {
+            return ((Map) target).get(name);
+         }
+         if (target instanceof DynaBean) {
+            return PropertyUtils.getSimpleProperty(target, name);
+         }
+
+         ResolvedMethod current = resolved;
+         if (current == null || current.type != target.getClass()) {
+            current = new ResolvedMethod(target.getClass(), getReadMethod(target.getClass(), name));
+            resolved = current;
+         }
+         return current.method.invoke(target);
+      }
+   }
+
+   private static final class ResolvedMethod {
+
+      private final Class<?> type;
+      private final Method method;
+
+      private ResolvedMethod(Class<?> type, Method method) {
+         this.type = type;
+         this.method = method;
+      }
+   }
+}
@@ -29,22 +29,31 @@
  */
 package com.github.dandelion.datatables.core.web.filter;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
 import javax.servlet.ServletOutputStream;
 
 /**
- * TODO
+ * <p>
+ * {@link ServletOutputStream} that discards everything written to it.
+ * </p>
+ * <p>
+ * Used by the {@link DatatablesResponseWrapper} during exports, since the
+ * rendered page is replaced by the export content and doesn't need to be kept
+ * in memory.
+ * </p>
  *
  * @author Thibault Duchateau
  */
 public class BasicServletOutputStream extends ServletOutputStream {
 
-   ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-
    @Override
    public void write(int b) throws IOException {
-      this.outputStream.write(b);
+      // Discarded
+   }
+
+   @Override
+   public void write(byte[] b, int off, int len) throws IOException {
+      // Discarded
    }
-}
+}
\ No newline at end of file
@@ -30,7 +30,8 @@
 package com.github.dandelion.datatables.core.web.filter;
 
 import java.io.IOException;
-import java.io.OutputStream;
+import java.util.Enumeration;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
@@ -43,19 +44,114 @@ import javax.servlet.http.HttpServletResponse;
 
 import com.github.dandelion.core.util.StringUtils;
 import com.github.dandelion.datatables.core.export.ExportConf;
+import com.github.dandelion.datatables.core.export.ExportGovernor;
+import com.github.dandelion.datatables.core.export.ExportSpool;
 import com.github.dandelion.datatables.core.export.ExportUtils;
+import com.github.dandelion.datatables.core.export.async.ExportJobHandler;
+import com.github.dandelion.datatables.core.export.async.ExportJobManager;
+import com.github.dandelion.datatables.core.util.PropertyAccessor;
 
 /**
+ * <p>
  * Filter used to render DataTables exported files.
+ * </p>
+ * <p>
+ * It also answers the requests about the background export jobs, whose limits
+ * can be set using the following init parameters:
+ * </p>
+ * <ul>
+ * <li>{@code asyncExportThreads}: number of exports generated concurrently</li>
+ * <li>{@code asyncExportQueueCapacity}: number of exports waiting for a thread
+ * </li>
+ * <li>{@code asyncExportTimeToLive}: time, in seconds, after which an
+ * abandoned export is deleted</li>
+ * <li>{@code asyncExportMaxRunningTime}: time, in seconds, after which an
+ * export still running is considered stuck and is deleted</li>
+ * </ul>
+ * <p>
+ * The other exports, admitted by the {@link ExportGovernor} and spooled by an
+ * {@link ExportSpool}, can be tuned as well:
+ * </p>
+ * <ul>
+ * <li>{@code exportConcurrencyLimit.<format>}: number of exports of the given
+ * format generated concurrently, e.g. {@code exportConcurrencyLimit.xlsx}</li>
+ * <li>{@code exportMemoryBudget}: estimated memory, in megabytes, that all
+ * exports in progress may use</li>
+ * <li>{@code exportDefaultReservation}: estimated memory, in megabytes,
+ * charged for an export whose number of rows is unknown</li>
+ * <li>{@code exportQueueTimeout}: time, in milliseconds, an export may wait
+ * before being rejected</li>
+ * <li>{@code exportSpoolThreshold}: size, in kilobytes, above which the
+ * content of an export is spooled to a temporary file instead of being held
+ * in memory</li>
+ * </ul>
+ * <p>
+ * The asynchronous exports bypass the {@link ExportGovernor}: they are only
+ * bounded by {@code asyncExportThreads} and {@code asyncExportQueueCapacity}.
+ * </p>
  * 
  * @author Thibault Duchateau
  * @since 0.7.0
+ * @see ExportJobManager
+ * @see ExportGovernor
  */
 public class DatatablesFilter implements Filter {
 
+   private static final String CONCURRENCY_LIMIT_PREFIX = "exportConcurrencyLimit.";
+
    @Override
    public void init(FilterConfig filterConfig) throws ServletException {
-      // Nothing to do
+      String threads = filterConfig.getInitParameter("asyncExportThreads");
+      String queueCapacity = filterConfig.getInitParameter("asyncExportQueueCapacity");
+      String timeToLive = filterConfig.getInitParameter("asyncExportTimeToLive");
+      String maxRunningTime = filterConfig.getInitParameter("asyncExportMaxRunningTime");
+      if (StringUtils.isNotBlank(threads) || StringUtils.isNotBlank(queueCapacity)
+            || StringUtils.isNotBlank(timeToLive) || StringUtils.isNotBlank(maxRunningTime)) {
+         try {
+            ExportJobManager.configure(
+                  StringUtils.isNotBlank(threads) ? Integer.parseInt(threads.trim())
+                        : ExportJobManager.DEFAULT_THREADS,
+                  StringUtils.isNotBlank(queueCapacity) ? Integer.parseInt(queueCapacity.trim())
+                        : ExportJobManager.DEFAULT_QUEUE_CAPACITY,
+                  StringUtils.isNotBlank(timeToLive) ? TimeUnit.SECONDS.toMillis(Long.parseLong(timeToLive.trim()))
+                        : ExportJobManager.DEFAULT_TIME_TO_LIVE,
+                  StringUtils.isNotBlank(maxRunningTime) ? TimeUnit.SECONDS.toMillis(Long.parseLong(maxRunningTime
+                        .trim())) : ExportJobManager.DEFAULT_MAX_RUNNING_TIME);
+         }
+         catch (NumberFormatException e) {
+            throw new ServletException("Invalid limits for the asynchronous exports", e);
+         }
+      }
+
+      try {
+         Enumeration<?> names = filterConfig.getInitParameterNames();
+         while (names.hasMoreElements()) {
+            String name = (String) names.nextElement();
+            if (name.startsWith(CONCURRENCY_LIMIT_PREFIX)) {
+               ExportGovernor.setConcurrencyLimit(name.substring(CONCURRENCY_LIMIT_PREFIX.length()),
+                     Integer.valueOf(filterConfig.getInitParameter(name).trim()));
+            }
+         }
+         String memoryBudget = filterConfig.getInitParameter("exportMemoryBudget");
+         if (StringUtils.isNotBlank(memoryBudget)) {
+            ExportGovernor.setMemoryBudget(Long.parseLong(memoryBudget.trim()) * 1024 * 1024);
+         }
+         String defaultReservation = filterConfig.getInitParameter("exportDefaultReservation");
+         if (StringUtils.isNotBlank(defaultReservation)) {
+            ExportGovernor.setDefaultReservation(Long.parseLong(defaultReservation.trim()) * 1024 * 1024);
+         }
+         String queueTimeout = filterConfig.getInitParameter("exportQueueTimeout");
+         if (StringUtils.isNotBlank(queueTimeout)) {
+            ExportGovernor.setQueueTimeout(Long.parseLong(queueTimeout.trim()));
+         }
+         String spoolThreshold = filterConfig.getInitParameter("exportSpoolThreshold");
+         if (StringUtils.isNotBlank(spoolThreshold)) {
+            ExportSpool.setThreshold(Integer.parseInt(spoolThreshold.trim()) * 1024);
+         }
+      }
+      catch (NumberFormatException e) {
+         throw new ServletException("Invalid limits for the exports", e);
+      }
    }
 
    @Override
@@ -65,6 +161,13 @@ public class DatatablesFilter implements Filter {
       if (servletRequest instanceof HttpServletRequest) {
 
          HttpServletRequest request = (HttpServletRequest) servletRequest;
+
+         // Status or download of a background export
+         if (StringUtils.isNotBlank(request.getParameter(ExportUtils.DDL_DT_REQUESTPARAM_EXPORT_JOB))) {
+            ExportJobHandler.handle(request, (HttpServletResponse) servletResponse);
+            return;
+         }
+
          String exportInProgress = request.getParameter(ExportUtils.DDL_DT_REQUESTPARAM_EXPORT_IN_PROGRESS);
          String exportType = request.getParameter(ExportUtils.DDL_DT_REQUESTPARAM_EXPORT_TYPE);
 
@@ -85,20 +188,36 @@ public class DatatablesFilter implements Filter {
             HttpServletResponse response = (HttpServletResponse) servletResponse;
             DatatablesResponseWrapper resWrapper = new DatatablesResponseWrapper(response);
 
-            chain.doFilter(request, resWrapper);
-
-            ExportConf exportConf = (ExportConf) request.getAttribute(ExportUtils.DDL_DT_REQUESTATTR_EXPORT_CONF);
-
-            String finalFileName = exportConf.getFileName() + "." + exportConf.getFileExtension();
-            response.setHeader("Content-Disposition", "attachment; filename=\"" + finalFileName + "\"");
-            response.setContentType(exportConf.getMimeType());
-
-            byte[] content = (byte[]) servletRequest.getAttribute(ExportUtils.DDL_DT_REQUESTATTR_EXPORT_CONTENT);
-
-            response.setContentLength(content.length);
-            OutputStream out = response.getOutputStream();
-            out.write(content);
-            out.close();
+            // Made available for streaming exports
+            request.setAttribute(ExportUtils.DDL_DT_REQUESTATTR_EXPORT_RESPONSE, response);
+
+            try {
+               chain.doFilter(request, resWrapper);
+
+               // The export content has already been written to the response
+               if (request.getAttribute(ExportUtils.DDL_DT_REQUESTATTR_EXPORT_STREAMED) != null) {
+                  response.flushBuffer();
+                  return;
+               }
+
+               ExportConf exportConf = (ExportConf) request.getAttribute(ExportUtils.DDL_DT_REQUESTATTR_EXPORT_CONF);
+
+               String finalFileName = exportConf.getFileName() + "." + exportConf.getFileExtension();
+               ExportSpool spool = (ExportSpool) request.getAttribute(ExportUtils.DDL_DT_REQUESTATTR_EXPORT_CONTENT);
+
+               // The export is generated again for each request, so ranges of
+               // it can't be joined
+               ExportUtils.writeToResponse(null, response, spool, finalFileName, exportConf.getMimeType());
+               response.getOutputStream().close();
+            }
+            finally {
+               // Deletes the temporary file in which the export may have been
+               // spooled
+               Object spool = request.getAttribute(ExportUtils.DDL_DT_REQUESTATTR_EXPORT_CONTENT);
+               if (spool instanceof ExportSpool) {
+                  ((ExportSpool) spool).release();
+               }
+            }
          }
 
       }
@@ -109,6 +228,7 @@ public class DatatablesFilter implements Filter {
 
    @Override
    public void destroy() {
-      // Nothing to do
+      ExportJobManager.shutdown();
+      PropertyAccessor.clear();
    }
 }
\ No newline at end of file
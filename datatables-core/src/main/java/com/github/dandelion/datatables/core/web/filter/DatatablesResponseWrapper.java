@@ -37,7 +37,15 @@ import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpServletResponseWrapper;
 
 /**
- * TODO
+ * <p>
+ * Response wrapper used by the {@link DatatablesFilter} during exports.
+ * </p>
+ * <p>
+ * The page rendered by the wrapped request is discarded, since it is replaced
+ * with the export content. Once the export content has been streamed into the
+ * original response, resetting the wrapper doesn't affect the original
+ * response anymore.
+ * </p>
  *
  * @author Thibault Duchateau
  */
@@ -64,4 +72,18 @@ public class DatatablesResponseWrapper extends HttpServletResponseWrapper {
       stream = createOutputStream();
       return new PrintWriter(stream);
    }
+
+   @Override
+   public void reset() {
+      if (!originalResponse.isCommitted()) {
+         super.reset();
+      }
+   }
+
+   @Override
+   public void resetBuffer() {
+      if (!originalResponse.isCommitted()) {
+         super.resetBuffer();
+      }
+   }
 }
\ No newline at end of file
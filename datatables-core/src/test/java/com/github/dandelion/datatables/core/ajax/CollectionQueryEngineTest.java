@@ -0,0 +1,159 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.ajax;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.github.dandelion.datatables.core.generator.DTConstants;
+import com.github.dandelion.datatables.core.mock.Mock;
+import com.github.dandelion.datatables.core.mock.Person;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * <p>
+ * Test the evaluation of {@link DatatablesCriterias} against an in-memory
+ * collection.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ */
+public class CollectionQueryEngineTest {
+
+	private List<Person> persons;
+	private CollectionQueryEngine<Person> engine;
+	private MockHttpServletRequest request;
+
+	@Before
+	public void setup() {
+		persons = new ArrayList<Person>(Mock.persons);
+		engine = new CollectionQueryEngine<Person>(persons);
+		request = new MockHttpServletRequest();
+		addColumn(0, "id");
+		addColumn(1, "firstName");
+		addColumn(2, "lastName");
+		addColumn(3, "address.town.name");
+	}
+
+	@Test
+	public void should_return_the_requested_page_in_natural_order() {
+		page(5, 10);
+
+		DataSet<Person> dataSet = engine.query(DatatablesCriterias.getFromRequest(request));
+
+		assertThat(dataSet.getTotalRecords()).isEqualTo(Mock.persons.size());
+		assertThat(dataSet.getTotalDisplayRecords()).isEqualTo(Mock.persons.size());
+		assertThat(dataSet.getRows()).containsExactlyElementsOf(Mock.persons.subList(5, 15));
+	}
+
+	@Test
+	public void should_sort_on_several_columns() {
+		page(0, -1);
+		order(0, 2, "desc");
+		order(1, 1, "asc");
+
+		List<Person> rows = engine.query(DatatablesCriterias.getFromRequest(request)).getRows();
+
+		assertThat(rows).hasSize(Mock.persons.size());
+		for (int i = 1; i < rows.size(); i++) {
+			Person previous = rows.get(i - 1);
+			Person current = rows.get(i);
+			int comparison = previous.getLastName().compareToIgnoreCase(current.getLastName());
+			assertThat(comparison).isGreaterThanOrEqualTo(0);
+			if (comparison == 0) {
+				assertThat(previous.getFirstName().compareToIgnoreCase(current.getFirstName())).isLessThanOrEqualTo(0);
+			}
+		}
+	}
+
+	@Test
+	public void should_apply_the_global_search_to_searchable_columns_only() {
+		page(0, 10);
+		request.addParameter("columns[1][searchable]", "true");
+		request.addParameter("columns[3][searchable]", "true");
+		request.addParameter(DTConstants.DT_S_SEARCH, "LAS veg");
+
+		DataSet<Person> dataSet = engine.query(DatatablesCriterias.getFromRequest(request));
+
+		assertThat(dataSet.getTotalDisplayRecords()).isEqualTo(2);
+		assertThat(dataSet.getRows()).extracting("id").containsExactly(3L, 398L);
+
+		// The last name is not searchable
+		request.setParameter(DTConstants.DT_S_SEARCH, "Maldonado");
+		assertThat(engine.query(DatatablesCriterias.getFromRequest(request)).getTotalDisplayRecords()).isEqualTo(0);
+	}
+
+	@Test
+	public void should_filter_on_a_range() {
+		page(0, -1);
+		request.addParameter("columns[0][search][value]", "3~7");
+		order(0, 0, "desc");
+
+		List<Person> rows = engine.query(DatatablesCriterias.getFromRequest(request)).getRows();
+
+		assertThat(rows).extracting("id").containsExactly(7L, 6L, 5L, 4L, 3L);
+	}
+
+	@Test
+	public void should_rebuild_the_indexes_when_the_source_changes() {
+		page(0, -1);
+		request.addParameter("columns[1][search][value]", "zoe");
+
+		assertThat(engine.query(DatatablesCriterias.getFromRequest(request)).getRows()).isEmpty();
+
+		persons.add(new Person(1000L, "Zoe", "Doe", "zoe@mail.com"));
+		assertThat(engine.query(DatatablesCriterias.getFromRequest(request)).getRows()).extracting("id").containsExactly(
+				1000L);
+
+		persons.get(persons.size() - 1).setFirstName("Jane");
+		assertThat(engine.query(DatatablesCriterias.getFromRequest(request)).getRows()).hasSize(1);
+		engine.invalidate();
+		assertThat(engine.query(DatatablesCriterias.getFromRequest(request)).getRows()).isEmpty();
+	}
+
+	private void addColumn(int index, String property) {
+		request.addParameter("columns[" + index + "][data]", property);
+	}
+
+	private void page(int start, int length) {
+		request.addParameter(DTConstants.DT_I_START, String.valueOf(start));
+		request.addParameter(DTConstants.DT_I_LENGTH, String.valueOf(length));
+	}
+
+	private void order(int index, int column, String direction) {
+		request.addParameter("order[" + index + "][column]", String.valueOf(column));
+		request.addParameter("order[" + index + "][dir]", direction);
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2012 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.ajax;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CountProviderTest {
+
+	private CountingCounter counter;
+
+	@Before
+	public void createCounter() {
+		counter = new CountingCounter();
+	}
+
+	@Test
+	public void should_count_the_total_once_until_invalidated() {
+		CountProvider provider = new CountProvider(counter);
+
+		assertThat(provider.getTotalRecords()).isEqualTo(500);
+		assertThat(provider.getTotalDisplayRecords(criterias(null, "asc", "0"))).isEqualTo(500);
+		assertThat(counter.totals).isEqualTo(1);
+		assertThat(counter.filtered).isEqualTo(0);
+
+		provider.invalidate();
+		provider.getTotalRecords();
+		assertThat(counter.totals).isEqualTo(2);
+	}
+
+	@Test
+	public void should_count_the_filtered_rows_once_per_search_whatever_the_sort_and_the_page() {
+		CountProvider provider = new CountProvider(counter);
+
+		assertThat(provider.getTotalDisplayRecords(criterias("foo", "asc", "0"))).isEqualTo(30);
+		assertThat(provider.getTotalDisplayRecords(criterias("foo", "desc", "10"))).isEqualTo(30);
+		assertThat(provider.getTotalDisplayRecords(criterias("bar", "asc", "0"))).isEqualTo(30);
+		assertThat(counter.filtered).isEqualTo(2);
+		assertThat(provider.getCachedCountCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void should_cap_the_counts_at_the_threshold() throws IOException {
+		CountProvider provider = new CountProvider(counter, 100);
+		DatatablesCriterias criterias = criterias("foo", "asc", "0");
+
+		DataSet<String> dataSet = provider.getDataSet(Collections.singletonList("row"), criterias);
+
+		assertThat(counter.limit).isEqualTo(101);
+		assertThat(dataSet.getTotalRecords()).isEqualTo(100);
+		assertThat(dataSet.getTotalDisplayRecords()).isEqualTo(30);
+		assertThat(dataSet.isApproximate()).isTrue();
+
+		StringWriter writer = new StringWriter();
+		DatatablesResponseWriter.write(dataSet, 1, Arrays.<String> asList(), writer);
+		assertThat(writer.toString()).startsWith(
+				"{\"draw\":1,\"recordsTotal\":100,\"recordsFiltered\":30,\"recordsApproximate\":true,");
+	}
+
+	@Test
+	public void should_not_flag_exact_counts_below_the_threshold() {
+		CountProvider provider = new CountProvider(counter, 500);
+
+		DataSet<String> dataSet = provider.getDataSet(Collections.<String> emptyList(), criterias(null, "asc", "0"));
+
+		assertThat(dataSet.getTotalRecords()).isEqualTo(500);
+		assertThat(dataSet.isApproximate()).isFalse();
+	}
+
+	private static DatatablesCriterias criterias(String search, String direction, String start) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addParameter("columns[0][data]", "name");
+		request.addParameter("columns[0][searchable]", "true");
+		request.addParameter("order[0][column]", "0");
+		request.addParameter("order[0][dir]", direction);
+		request.addParameter("start", start);
+		if (search != null) {
+			request.addParameter("search[value]", search);
+		}
+		return DatatablesCriterias.getFromRequest(request);
+	}
+
+	private static class CountingCounter implements RecordCounter {
+
+		private int totals;
+		private int filtered;
+		private long limit;
+
+		@Override
+		public long countTotal(long limit) {
+			totals++;
+			this.limit = limit;
+			return limit >= 0 ? Math.min(500, limit) : 500;
+		}
+
+		@Override
+		public long countFiltered(DatatablesCriterias criterias, long limit) {
+			filtered++;
+			return 30;
+		}
+	}
+}
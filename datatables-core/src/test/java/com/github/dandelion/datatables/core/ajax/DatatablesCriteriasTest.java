@@ -35,6 +35,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.springframework.mock.web.MockHttpServletRequest;
 
+import com.github.dandelion.core.DandelionException;
 import com.github.dandelion.datatables.core.generator.DTConstants;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -354,4 +355,48 @@ public class DatatablesCriteriasTest {
 
 		assertThat(criterias.getColumnDefs().get(1).isFiltered()).isFalse();
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void should_keep_the_order_of_the_sorted_columns() {
+
+		request.addParameter("columns[0][data]", "prop1");
+		request.addParameter("columns[1][data]", "prop2");
+		request.addParameter("columns[2][data]", "prop3");
+		request.addParameter("order[0][column]", "2");
+		request.addParameter("order[0][dir]", "desc");
+		request.addParameter("order[1][column]", "0");
+
+		DatatablesCriterias criterias = DatatablesCriterias.getFromRequest(request);
+
+		assertThat(criterias.getColumnDefs()).hasSize(3);
+		assertThat(criterias.getColumnDefs().get(1).isSorted()).isFalse();
+		assertThat(criterias.getSortedColumnDefs()).hasSize(2);
+		assertThat(criterias.getSortedColumnDefs().get(0).getName()).isEqualTo("prop3");
+		assertThat(criterias.getSortedColumnDefs().get(0).getSortDirection()).isEqualTo(ColumnDef.SortDirection.DESC);
+		assertThat(criterias.getSortedColumnDefs().get(1).getName()).isEqualTo("prop1");
+		assertThat(criterias.getSortedColumnDefs().get(1).isSorted()).isTrue();
+	}
+
+	@Test
+	public void should_map_a_single_column() {
+
+		request.addParameter("columns[0][data]", "prop1");
+		request.addParameter("columns[0][search][value]", "~to~");
+
+		DatatablesCriterias criterias = DatatablesCriterias.getFromRequest(request);
+
+		assertThat(criterias.getColumnDefs()).hasSize(1);
+		assertThat(criterias.getColumnDefs().get(0).getName()).isEqualTo("prop1");
+		assertThat(criterias.getColumnDefs().get(0).getSearchFrom()).isNull();
+		assertThat(criterias.getColumnDefs().get(0).getSearchTo()).isEqualTo("to");
+	}
+
+	@Test
+	public void should_reject_requests_with_too_many_columns() {
+
+		request.addParameter("columns[" + DatatablesCriterias.MAX_COLUMNS + "][data]", "prop");
+
+		exception.expect(DandelionException.class);
+		DatatablesCriterias.getFromRequest(request);
+	}
+}
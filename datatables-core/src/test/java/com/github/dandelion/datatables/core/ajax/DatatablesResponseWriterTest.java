@@ -0,0 +1,188 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.ajax;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.github.dandelion.datatables.core.mock.Address;
+import com.github.dandelion.datatables.core.mock.Person;
+import com.github.dandelion.datatables.core.mock.Town;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DatatablesResponseWriterTest {
+
+	private static final List<Person> PERSONS = Arrays.asList(
+			new Person(1L, "Selma", "Maldonado", "selma@mail.com", null),
+			new Person(2L, "Vanna", "Sa\"las", "vanna@mail.com", new Address("947 St.", new Town("Denny"))));
+
+	@Test
+	public void should_write_the_counters_and_the_requested_properties() throws IOException {
+		StringWriter writer = new StringWriter();
+		DatatablesResponseWriter.write(new DataSet<Person>(PERSONS, 10L, 2L), 3,
+				Arrays.asList("id", "lastName", "address.town.name", "address.street"), writer);
+
+		assertThat(writer.toString()).isEqualTo(
+				"{\"draw\":3,\"recordsTotal\":10,\"recordsFiltered\":2,\"data\":["
+						+ "{\"id\":1,\"lastName\":\"Maldonado\",\"address\":null},"
+						+ "{\"id\":2,\"lastName\":\"Sa\\\"las\",\"address\":{\"town\":{\"name\":\"Denny\"},\"street\":\"947 St.\"}}"
+						+ "]}");
+	}
+
+	@Test
+	public void should_stream_the_rows_of_an_iterator_and_close_it() throws IOException {
+		ClosingIterator<Person> iterator = new ClosingIterator<Person>(PERSONS.iterator());
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		DatatablesResponseWriter.write(DataSet.fromIterator(iterator, 2L, 2L), null, Arrays.asList("firstName"),
+				output);
+
+		assertThat(new String(output.toByteArray(), "UTF-8")).isEqualTo(
+				"{\"draw\":null,\"recordsTotal\":2,\"recordsFiltered\":2,\"data\":[{\"firstName\":\"Selma\"},{\"firstName\":\"Vanna\"}]}");
+		assertThat(iterator.closed).isTrue();
+	}
+
+	@Test
+	public void should_write_maps_and_arrays_as_is() throws IOException {
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		map.put("name", "</script>");
+		map.put("rate", Double.NaN);
+		StringWriter writer = new StringWriter();
+		DatatablesResponseWriter.write(new DataSet<Object>(Arrays.<Object> asList(map, new int[] { 1, 2 }), 2L, 2L),
+				1, Arrays.asList("0", "name"), writer);
+
+		assertThat(writer.toString()).endsWith(
+				"\"data\":[{\"name\":\"<\\/script>\",\"rate\":null},[1,2]]}");
+	}
+
+	@Test
+	public void should_skip_the_class_and_unknown_properties() throws IOException {
+		StringWriter writer = new StringWriter();
+		DatatablesResponseWriter.write(new DataSet<Person>(PERSONS.subList(0, 1), 1L, 1L), 1, Arrays.asList(
+				"class.protectionDomain.codeSource.location", "address.class", "unknown", "first-name", "firstName"),
+				writer);
+
+		assertThat(writer.toString()).endsWith("\"data\":[{\"firstName\":\"Selma\"}]}");
+	}
+
+	@Test
+	public void should_not_traverse_values_giving_access_to_the_class_loader() throws IOException {
+		StringWriter writer = new StringWriter();
+		DatatablesResponseWriter.write(new DataSet<Task>(Arrays.asList(new Task("Export", TimeUnit.SECONDS)), 1L, 1L),
+				1, Arrays.asList("unit.declaringClass.classLoader", "unit.declaringClass.protectionDomain",
+						"unit.declaringClass", "name"), writer);
+
+		assertThat(writer.toString()).endsWith("\"data\":[{\"unit\":{},\"name\":\"Export\"}]}");
+	}
+
+	@Test
+	public void should_only_write_the_allowed_properties() throws IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addParameter("draw", "2");
+		request.addParameter("columns[0][data]", "firstName");
+		request.addParameter("columns[1][data]", "mail");
+		request.addParameter("columns[2][data]", "class.classLoader");
+		DatatablesCriterias criterias = DatatablesCriterias.getFromRequest(request);
+
+		assertThat(DatatablesResponseWriter.getProperties(criterias)).containsExactly("firstName", "mail");
+		assertThat(DatatablesResponseWriter.getProperties(criterias, Arrays.asList("firstName", "lastName")))
+				.containsExactly("firstName");
+
+		StringWriter writer = new StringWriter();
+		DatatablesResponseWriter.write(new DataSet<Person>(PERSONS.subList(0, 1), 1L, 1L), criterias, writer,
+				Arrays.asList("firstName"));
+		assertThat(writer.toString()).isEqualTo(
+				"{\"draw\":2,\"recordsTotal\":1,\"recordsFiltered\":1,\"data\":[{\"firstName\":\"Selma\"}]}");
+	}
+
+	@Test
+	public void should_drain_the_iterator_when_the_rows_are_requested() {
+		DataSet<Person> dataSet = DataSet.fromIterator(PERSONS.iterator(), 2L, 2L);
+		assertThat(dataSet.isIteratorBacked()).isTrue();
+		assertThat(dataSet.getRows()).containsExactlyElementsOf(PERSONS);
+		assertThat(dataSet.isIteratorBacked()).isFalse();
+	}
+
+	public static class Task {
+
+		private final String name;
+		private final TimeUnit unit;
+
+		public Task(String name, TimeUnit unit) {
+			this.name = name;
+			this.unit = unit;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public TimeUnit getUnit() {
+			return unit;
+		}
+	}
+
+	private static class ClosingIterator<T> implements Iterator<T>, Closeable {
+
+		private final Iterator<T> delegate;
+		private boolean closed;
+
+		ClosingIterator(Iterator<T> delegate) {
+			this.delegate = delegate;
+		}
+
+		public boolean hasNext() {
+			return delegate.hasNext();
+		}
+
+		public T next() {
+			return delegate.next();
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		public void close() {
+			closed = true;
+		}
+	}
+}
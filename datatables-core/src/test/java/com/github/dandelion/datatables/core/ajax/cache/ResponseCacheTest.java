@@ -0,0 +1,169 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2012 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.ajax.cache;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.github.dandelion.datatables.core.ajax.DataSet;
+import com.github.dandelion.datatables.core.ajax.DataSetLoader;
+import com.github.dandelion.datatables.core.ajax.DatatablesCriterias;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ResponseCacheTest {
+
+	private CountingLoader loader;
+	private ResponseCache cache;
+
+	@Before
+	public void createCache() {
+		loader = new CountingLoader();
+		cache = new ResponseCache(new InMemoryResponseCacheStore(10), 0);
+	}
+
+	@Test
+	public void should_load_once_per_page_whatever_the_draw_counter() throws IOException {
+		MockHttpServletResponse first = write(criterias("1", "0"), "v1", null);
+		MockHttpServletResponse second = write(criterias("2", "0"), "v1", null);
+
+		assertThat(loader.count).isEqualTo(1);
+		assertThat(first.getContentAsString()).isEqualTo(
+				"{\"draw\":1,\"recordsTotal\":2,\"recordsFiltered\":2,\"data\":[{\"name\":\"a\"},{\"name\":\"b\"}]}");
+		assertThat(second.getContentAsString()).startsWith("{\"draw\":2,\"recordsTotal\":2");
+		assertThat(second.getHeader("ETag")).isNotEqualTo(first.getHeader("ETag"));
+	}
+
+	@Test
+	public void should_load_again_when_the_page_or_the_data_version_changes() throws IOException {
+		write(criterias("1", "0"), "v1", null);
+		write(criterias("2", "10"), "v1", null);
+		write(criterias("3", "0"), "v2", null);
+
+		assertThat(loader.count).isEqualTo(3);
+	}
+
+	@Test
+	public void should_answer_not_modified_when_the_same_draw_is_revalidated() throws IOException {
+		MockHttpServletResponse first = write(criterias("1", "0"), "v1", null);
+		String etag = first.getHeader("ETag");
+
+		MockHttpServletResponse response = write(criterias("1", "0"), "v1", "\"other\", " + etag);
+
+		assertThat(response.getStatus()).isEqualTo(304);
+		assertThat(response.getContentAsString()).isEmpty();
+		assertThat(response.getHeader("ETag")).isEqualTo(etag);
+		// The body reused by the client carries the draw of its request
+		assertThat(first.getContentAsString()).startsWith("{\"draw\":1,");
+		assertThat(loader.count).isEqualTo(1);
+	}
+
+	@Test
+	public void should_send_the_body_when_a_new_draw_is_revalidated() throws IOException {
+		String etag = write(criterias("1", "0"), "v1", null).getHeader("ETag");
+
+		MockHttpServletResponse response = write(criterias("2", "0"), "v1", etag);
+
+		assertThat(response.getStatus()).isEqualTo(200);
+		assertThat(response.getContentAsString()).startsWith("{\"draw\":2,");
+		assertThat(loader.count).isEqualTo(1);
+	}
+
+	@Test
+	public void should_load_again_when_the_response_expired() throws InterruptedException {
+		cache = new ResponseCache(new InMemoryResponseCacheStore(10), 1);
+		cache.get(criterias("1", "0"), null, loader);
+		Thread.sleep(5);
+		cache.get(criterias("1", "0"), null, loader);
+
+		assertThat(loader.count).isEqualTo(2);
+	}
+
+	@Test
+	public void should_evict_the_least_recently_used_response() {
+		InMemoryResponseCacheStore store = new InMemoryResponseCacheStore(1);
+		cache = new ResponseCache(store, 0);
+		cache.get(criterias("1", "0"), null, loader);
+		cache.get(criterias("1", "10"), null, loader);
+		cache.get(criterias("1", "0"), null, loader);
+
+		assertThat(store.size()).isEqualTo(1);
+		assertThat(loader.count).isEqualTo(3);
+	}
+
+	private MockHttpServletResponse write(DatatablesCriterias criterias, String dataVersion, String ifNoneMatch)
+			throws IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		if (ifNoneMatch != null) {
+			request.addHeader("If-None-Match", ifNoneMatch);
+		}
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		cache.write(criterias, dataVersion, loader, request, response);
+		return response;
+	}
+
+	private static DatatablesCriterias criterias(String draw, String start) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addParameter("draw", draw);
+		request.addParameter("start", start);
+		request.addParameter("length", "10");
+		request.addParameter("columns[0][data]", "name");
+		return DatatablesCriterias.getFromRequest(request);
+	}
+
+	private static class CountingLoader implements DataSetLoader<Named> {
+
+		private int count;
+
+		@Override
+		public DataSet<Named> load(DatatablesCriterias criterias) {
+			count++;
+			return new DataSet<Named>(Arrays.asList(new Named("a"), new Named("b")), 2L, 2L);
+		}
+	}
+
+	public static class Named {
+
+		private final String name;
+
+		public Named(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return name;
+		}
+	}
+}
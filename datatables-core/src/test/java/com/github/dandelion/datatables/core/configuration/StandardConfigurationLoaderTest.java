@@ -30,6 +30,9 @@
 package com.github.dandelion.datatables.core.configuration;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
@@ -174,4 +177,42 @@ public class StandardConfigurationLoaderTest {
 		assertThat(map.get("global").get(DatatableOptions.I18N_MSG_INFO)).isEqualTo(
 				"Showing _START_ to _END_ of _TOTAL_ entries"); // Overriden value
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void should_reload_user_properties_only_when_files_change() throws Exception {
+		File dir = new File(System.getProperty("java.io.tmpdir"), "ddl-dt-reloading-" + System.nanoTime());
+		dir.mkdirs();
+		File file = new File(dir, "datatables.properties");
+		writeProperties(file, "global.main.extension.names=ext1");
+		file.setLastModified(System.currentTimeMillis() - 10000);
+		System.setProperty(ConfigLoader.DANDELION_DT_CONFIGURATION, dir.getAbsolutePath());
+
+		try {
+			Properties userProperties = loader.loadUserConfiguration(request.getLocale());
+			assertThat(userProperties.getProperty("global.main.extension.names")).isEqualTo("ext1");
+			Thread.sleep(ConfigLoader.UPDATE_CHECK_INTERVAL);
+			assertThat(loader.isUserConfigurationModified()).isFalse();
+
+			writeProperties(file, "global.main.extension.names=ext1,ext2");
+			Thread.sleep(ConfigLoader.UPDATE_CHECK_INTERVAL);
+			assertThat(loader.isUserConfigurationModified()).isTrue();
+
+			userProperties = loader.loadUserConfiguration(request.getLocale());
+			assertThat(userProperties.getProperty("global.main.extension.names")).isEqualTo("ext1,ext2");
+		}
+		finally {
+			file.delete();
+			dir.delete();
+		}
+	}
+
+	private void writeProperties(File file, String content) throws IOException {
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content.getBytes("UTF-8"));
+		}
+		finally {
+			out.close();
+		}
+	}
+}
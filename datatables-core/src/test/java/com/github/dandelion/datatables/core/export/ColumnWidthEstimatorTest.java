@@ -0,0 +1,78 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2012 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.export;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ColumnWidthEstimatorTest {
+
+	@Test
+	public void should_track_the_longest_value_of_each_column() {
+		ColumnWidthEstimator estimator = new ColumnWidthEstimator(3, 1);
+		estimator.measure(Arrays.asList("Id", "Name", "Mail"));
+		estimator.sample(new String[] { "1", "Selma", null });
+		estimator.sample(new String[] { "2", "Vanna", "" });
+
+		assertThat(estimator.getWidth(0)).isEqualTo(3);
+		assertThat(estimator.getWidth(1)).isEqualTo(6);
+		assertThat(estimator.getWidth(2)).isEqualTo(5);
+	}
+
+	@Test
+	public void should_only_measure_the_sampled_rows() {
+		ColumnWidthEstimator estimator = new ColumnWidthEstimator(1, 2);
+		estimator.sample(new String[] { "abc" });
+		estimator.sample(new String[] { "abcdefgh" });
+		estimator.sample(new String[] { "abcd" });
+
+		assertThat(estimator.getWidth(0)).isEqualTo(5);
+	}
+
+	@Test
+	public void should_measure_the_longest_line_and_count_wide_characters_double() {
+		assertThat(ColumnWidthEstimator.displayLength("abc\r\nabcdef\nab")).isEqualTo(6);
+		assertThat(ColumnWidthEstimator.displayLength("日本")).isEqualTo(4);
+	}
+
+	@Test
+	public void should_cap_the_width() {
+		char[] value = new char[1000];
+		Arrays.fill(value, 'a');
+		ColumnWidthEstimator estimator = new ColumnWidthEstimator(2, 1);
+		estimator.sample(new String[] { new String(value) });
+
+		assertThat(estimator.getWidth(0)).isEqualTo(ColumnWidthEstimator.MAX_WIDTH);
+		assertThat(estimator.getWidth(1)).isEqualTo(0);
+	}
+}
@@ -32,9 +32,12 @@ package com.github.dandelion.datatables.core.export;
 import java.util.Scanner;
 
 import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.util.StringUtils;
 
 import com.github.dandelion.datatables.core.mock.Mock;
+import com.github.dandelion.datatables.core.mock.Person;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -85,4 +88,54 @@ public class CsvExportTest extends ExportTest {
 		String firstLine = new Scanner(new String(baos.toByteArray())).nextLine();
 		assertThat(StringUtils.countOccurrencesOf(firstLine, ";")).isEqualTo(4);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void should_stream_table_to_the_response() throws Exception {
+		
+		initDefaultTable();
+		ExportConf exportConf = new ExportConf.Builder("csv").header(true).streaming(true).build();
+		configureExport(exportConf);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		ExportUtils.renderExport(table, exportConf, response);
+		
+		assertThat(response.getContentType()).isEqualTo("text/csv");
+		assertThat(response.getHeader("Content-Disposition")).endsWith(".csv\"");
+		assertThat(response.getContentAsString().split("\n")).hasSize(Mock.persons.size() + 1);
+	}
+
+	@Test
+	public void should_export_the_rows_of_a_source() throws Exception {
+
+		ExportSource source = new HtmlTableBuilder<Person>()
+				.newBuilder("dummyId", Mock.persons, new MockHttpServletRequest(),
+						new ExportConf.Builder("csv").header(true).build())
+				.column().fillWithProperty("id").title("Id")
+				.column().fillWithProperty("firstName").title("FirstName")
+				.buildSource();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		ExportUtils.renderExport(source, response);
+
+		String[] lines = response.getContentAsString().split("\n");
+		assertThat(lines).hasSize(Mock.persons.size() + 1);
+		assertThat(lines[0]).isEqualTo("Id;FirstName;");
+		assertThat(lines[1]).isEqualTo(Mock.persons.get(0).getId() + ";" + Mock.persons.get(0).getFirstName() + ";");
+	}
+
+	@Test
+	public void should_apply_the_text_settings_of_the_configuration() throws Exception {
+
+		ExportSource source = new HtmlTableBuilder<Person>()
+				.newBuilder("dummyId", Mock.persons, new MockHttpServletRequest(),
+						new ExportConf.Builder("csv").header(true).delimiter(',').lineEnding("\r\n").charset("UTF-8")
+								.bom(true).build())
+				.column().fillWithProperty("id").title("Id")
+				.column().fillWithProperty("firstName").title("First, name")
+				.buildSource();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		ExportUtils.renderExport(source, response);
+
+		String content = new String(response.getContentAsByteArray(), "UTF-8");
+		assertThat(content).startsWith("\uFEFFId,\"First, name\",\r\n");
+		assertThat(content.split("\r\n")).hasSize(Mock.persons.size() + 1);
+	}
+}
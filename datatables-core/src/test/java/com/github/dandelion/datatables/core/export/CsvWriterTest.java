@@ -0,0 +1,103 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2012 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.export;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CsvWriterTest {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+	@Test
+	public void should_quote_values_only_when_needed() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		CsvWriter writer = new CsvWriter(output, ',', "\r\n", UTF_8);
+		writer.writeValue("plain");
+		writer.writeDelimiter();
+		writer.writeValue("a,b");
+		writer.writeDelimiter();
+		writer.writeValue("say \"hi\"");
+		writer.writeDelimiter();
+		writer.writeValue("two\nlines");
+		writer.writeDelimiter();
+		writer.writeValue(null);
+		writer.endRow();
+		writer.flush();
+
+		assertThat(new String(output.toByteArray(), UTF_8)).isEqualTo(
+				"plain,\"a,b\",\"say \"\"hi\"\"\",\"two\nlines\",\r\n");
+	}
+
+	@Test
+	public void should_encode_utf8_directly() throws Exception {
+		String value = "\u00E9\u20AC\uD83D\uDE00;";
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		CsvWriter writer = new CsvWriter(output, ';', "\n", UTF_8);
+		writer.writeBom();
+		writer.writeValue(value);
+		writer.flush();
+
+		assertThat(output.toByteArray()).isEqualTo(("\uFEFF\"" + value + "\"").getBytes(UTF_8));
+	}
+
+	@Test
+	public void should_encode_other_charsets_with_replacement() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		CsvWriter writer = new CsvWriter(output, '\t', "\n", ISO_8859_1);
+		writer.writeValue("caf\u00E9\t\"\u20AC\"");
+		writer.endRow();
+		writer.flush();
+
+		assertThat(new String(output.toByteArray(), ISO_8859_1)).isEqualTo("\"caf\u00E9\t\"\"?\"\"\"\n");
+	}
+
+	@Test
+	public void should_flush_when_the_buffer_is_full() throws Exception {
+		StringBuilder value = new StringBuilder();
+		for (int i = 0; i < CsvWriter.BUFFER_SIZE; i++) {
+			value.append(i % 2 == 0 ? 'a' : '\u00E9');
+		}
+		for (Charset charset : new Charset[] { UTF_8, ISO_8859_1 }) {
+			ByteArrayOutputStream output = new ByteArrayOutputStream();
+			CsvWriter writer = new CsvWriter(output, ';', "\n", charset);
+			writer.writeValue(value.toString());
+			writer.writeValue(value.toString());
+			writer.flush();
+
+			assertThat(new String(output.toByteArray(), charset)).isEqualTo(value.toString() + value.toString());
+		}
+	}
+}
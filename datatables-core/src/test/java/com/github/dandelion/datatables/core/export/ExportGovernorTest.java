@@ -0,0 +1,148 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2012 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.export;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class ExportGovernorTest {
+
+	@Before
+	public void setup() {
+		ExportGovernor.setQueueTimeout(0);
+	}
+
+	@After
+	public void restoreDefaults() {
+		ExportGovernor.setQueueTimeout(ExportGovernor.DEFAULT_QUEUE_TIMEOUT);
+		ExportGovernor.setMemoryBudget(Runtime.getRuntime().maxMemory() / 4);
+		ExportGovernor.setDefaultReservation(ExportGovernor.DEFAULT_RESERVATION);
+		ExportGovernor.setConcurrencyLimit(ReservedFormat.XLSX, ExportGovernor.DEFAULT_CONCURRENCY_LIMIT);
+	}
+
+	@Test
+	public void should_reject_exports_above_the_concurrency_limit() {
+		ExportGovernor.setConcurrencyLimit(ReservedFormat.XLSX, 1);
+		long rejected = ExportGovernor.getRejectedCount();
+
+		ExportGovernor.Permit permit = ExportGovernor.acquire(ReservedFormat.XLSX, 10, 2);
+		assertThat(ExportGovernor.getActiveCount(ReservedFormat.XLSX)).isEqualTo(1);
+		try {
+			ExportGovernor.acquire(ReservedFormat.XLSX, 10, 2);
+			fail("The second export should have been rejected");
+		}
+		catch (ExportRejectedException e) {
+			assertThat(ExportGovernor.getRejectedCount()).isEqualTo(rejected + 1);
+		}
+
+		ExportGovernor.Permit csvPermit = ExportGovernor.acquire(ReservedFormat.CSV, 10, 2);
+		csvPermit.release();
+
+		permit.release();
+		permit.release();
+		assertThat(ExportGovernor.getActiveCount(ReservedFormat.XLSX)).isEqualTo(0);
+		ExportGovernor.acquire(ReservedFormat.XLSX, 10, 2).release();
+	}
+
+	@Test
+	public void should_reject_exports_above_the_memory_budget() {
+		ExportGovernor.setMemoryBudget(1000);
+
+		ExportGovernor.Permit permit = ExportGovernor.acquire(ReservedFormat.CSV, 10, 1);
+		assertThat(permit.getMemory()).isEqualTo(500);
+		assertThat(ExportGovernor.getReservedMemory()).isEqualTo(500);
+		try {
+			ExportGovernor.acquire(ReservedFormat.CSV, 20, 1);
+			fail("The second export should have been rejected");
+		}
+		catch (ExportRejectedException e) {
+			assertThat(ExportGovernor.getReservedMemory()).isEqualTo(500);
+		}
+		permit.release();
+		assertThat(ExportGovernor.getReservedMemory()).isEqualTo(0);
+	}
+
+	@Test
+	public void should_charge_the_default_reservation_when_the_row_count_is_unknown() {
+		ExportGovernor.setMemoryBudget(1000);
+		ExportGovernor.setDefaultReservation(600);
+
+		ExportGovernor.Permit permit = ExportGovernor.acquire(ReservedFormat.CSV, -1, 2);
+		assertThat(permit.getMemory()).isEqualTo(600);
+		try {
+			ExportGovernor.acquire(ReservedFormat.CSV, -1, 2);
+			fail("The second export should have been rejected");
+		}
+		catch (ExportRejectedException e) {
+			assertThat(ExportGovernor.getReservedMemory()).isEqualTo(600);
+		}
+		permit.release();
+		assertThat(ExportGovernor.getReservedMemory()).isEqualTo(0);
+	}
+
+	@Test
+	public void should_admit_an_oversized_export_when_alone() {
+		ExportGovernor.setMemoryBudget(1000);
+
+		ExportGovernor.Permit permit = ExportGovernor.acquire(ReservedFormat.CSV, 1000, 10);
+		assertThat(ExportGovernor.getActiveCount()).isEqualTo(1);
+		permit.release();
+		assertThat(ExportGovernor.getActiveCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void should_admit_a_waiting_export_once_a_permit_is_released() throws Exception {
+		ExportGovernor.setConcurrencyLimit(ReservedFormat.XLSX, 1);
+		ExportGovernor.setQueueTimeout(5000);
+
+		final ExportGovernor.Permit permit = ExportGovernor.acquire(ReservedFormat.XLSX, 10, 2);
+		Thread releaser = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(100);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				permit.release();
+			}
+		};
+		releaser.start();
+
+		ExportGovernor.acquire(ReservedFormat.XLSX, 10, 2).release();
+		releaser.join();
+		assertThat(ExportGovernor.getActiveCount()).isEqualTo(0);
+	}
+}
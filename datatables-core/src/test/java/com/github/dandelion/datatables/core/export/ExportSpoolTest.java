@@ -0,0 +1,161 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2012 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.export;
+
+import java.io.ByteArrayOutputStream;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExportSpoolTest {
+
+	@After
+	public void restoreThreshold() {
+		ExportSpool.setThreshold(ExportSpool.DEFAULT_THRESHOLD);
+	}
+
+	@Test
+	public void should_keep_small_exports_in_memory() throws Exception {
+		ExportSpool spool = new ExportSpool();
+		spool.write(content(100));
+		spool.close();
+
+		assertThat(spool.isSpooled()).isFalse();
+		assertThat(spool.getLength()).isEqualTo(100);
+		assertThat(transfer(spool, 0, 100)).isEqualTo(content(100));
+		spool.release();
+	}
+
+	@Test
+	public void should_spool_large_exports_to_a_file() throws Exception {
+		ExportSpool.setThreshold(1000);
+		ExportSpool spool = new ExportSpool();
+		byte[] content = content(50000);
+		spool.write(content, 0, 10);
+		spool.write(content[10]);
+		spool.write(content, 11, content.length - 11);
+		spool.close();
+
+		assertThat(spool.isSpooled()).isTrue();
+		assertThat(spool.getLength()).isEqualTo(content.length);
+		assertThat(transfer(spool, 0, content.length)).isEqualTo(content);
+		assertThat(transfer(spool, 40000, 3)).isEqualTo(new byte[] { content[40000], content[40001], content[40002] });
+		spool.release();
+		spool.release();
+	}
+
+	@Test
+	public void should_always_spool_with_a_zero_threshold() throws Exception {
+		ExportSpool.setThreshold(0);
+		ExportSpool spool = new ExportSpool();
+		spool.write('a');
+		spool.write('b');
+		spool.close();
+
+		assertThat(spool.isSpooled()).isTrue();
+		assertThat(transfer(spool, 0, 2)).isEqualTo("ab".getBytes("UTF-8"));
+		spool.release();
+	}
+
+	@Test
+	public void should_parse_ranges() {
+		assertThat(ExportUtils.parseRange("bytes=10-19", 100)).containsExactly(10, 19);
+		assertThat(ExportUtils.parseRange("bytes=10-", 100)).containsExactly(10, 99);
+		assertThat(ExportUtils.parseRange("bytes=-30", 100)).containsExactly(70, 99);
+		assertThat(ExportUtils.parseRange("bytes=90-500", 100)).containsExactly(90, 99);
+		assertThat(ExportUtils.parseRange("bytes=100-", 100)).isEmpty();
+		assertThat(ExportUtils.parseRange("bytes=0-1,5-6", 100)).isNull();
+		assertThat(ExportUtils.parseRange("bytes=20-10", 100)).isNull();
+		assertThat(ExportUtils.parseRange("items=0-1", 100)).isNull();
+		assertThat(ExportUtils.parseRange("bytes=a-b", 100)).isNull();
+		assertThat(ExportUtils.parseRange(null, 100)).isNull();
+	}
+
+	@Test
+	public void should_write_the_requested_range_to_the_response() throws Exception {
+		ExportSpool.setThreshold(0);
+		ExportSpool spool = new ExportSpool();
+		spool.write(content(100));
+		spool.close();
+
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Range", "bytes=10-19");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		ExportUtils.writeToResponse(request, response, spool, "export.csv", "text/csv");
+
+		assertThat(response.getStatus()).isEqualTo(206);
+		assertThat(response.getHeader("Content-Range")).isEqualTo("bytes 10-19/100");
+		assertThat(response.getContentLength()).isEqualTo(10);
+		assertThat(response.getContentAsByteArray()).isEqualTo(transfer(spool, 10, 10));
+
+		request = new MockHttpServletRequest();
+		response = new MockHttpServletResponse();
+		ExportUtils.writeToResponse(request, response, spool, "export.csv", "text/csv");
+
+		assertThat(response.getStatus()).isEqualTo(200);
+		assertThat(response.getHeader("Accept-Ranges")).isEqualTo("bytes");
+		assertThat(response.getContentLength()).isEqualTo(100);
+		assertThat(response.getContentAsByteArray()).isEqualTo(content(100));
+
+		request = new MockHttpServletRequest();
+		request.addHeader("Range", "bytes=200-");
+		response = new MockHttpServletResponse();
+		ExportUtils.writeToResponse(request, response, spool, "export.csv", "text/csv");
+
+		assertThat(response.getStatus()).isEqualTo(416);
+		assertThat(response.getHeader("Content-Range")).isEqualTo("bytes */100");
+
+		response = new MockHttpServletResponse();
+		ExportUtils.writeToResponse(null, response, spool, "export.csv", "text/csv");
+
+		assertThat(response.getStatus()).isEqualTo(200);
+		assertThat(response.getHeader("Accept-Ranges")).isEqualTo("none");
+		assertThat(response.getContentAsByteArray()).isEqualTo(content(100));
+		spool.release();
+	}
+
+	private static byte[] content(int length) {
+		byte[] content = new byte[length];
+		for (int i = 0; i < length; i++) {
+			content[i] = (byte) ('a' + i % 26);
+		}
+		return content;
+	}
+
+	private static byte[] transfer(ExportSpool spool, long position, long count) throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		spool.transferTo(position, count, output);
+		return output.toByteArray();
+	}
+}
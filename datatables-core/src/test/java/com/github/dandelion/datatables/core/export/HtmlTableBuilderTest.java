@@ -137,4 +137,28 @@ public class HtmlTableBuilderTest {
       assertThat(table.getBodyRows().get(9).getColumns().get(2).getContent().toString()).isEqualTo("lastName10");
       assertThat(table.getBodyRows().get(9).getColumns().get(3).getContent().toString()).isEqualTo("mail10");
    }
+
+   @Test
+   public void should_build_an_export_source_from_the_collection() {
+
+      ExportSource source = new HtmlTableBuilder<Person>()
+            .newBuilder("tableId", persons, request, new ExportConf.Builder("csv").build())
+            .column().fillWithProperty("id").title("Id")
+            .column().fillWithProperty("firstName").and("suffix").title("Firtname")
+            .column().fillWithProperty("mail", "formatted-{0}").title("Mail")
+            .buildSource();
+
+      assertThat(source.getTableId()).isEqualTo("tableId");
+      assertThat(source.getObjectType()).isEqualTo("Person");
+      assertThat(source.getExportConf().getFormat()).isEqualTo("csv");
+      assertThat(source.getHeaders()).containsExactly("Id", "Firtname", "Mail");
+
+      List<String[]> rows = new ArrayList<String[]>();
+      for (String[] row : source) {
+         rows.add(row);
+      }
+      assertThat(rows).hasSize(10);
+      assertThat(rows.get(0)).containsExactly("1", "firstName1suffix", "formatted-mail1");
+      assertThat(rows.get(9)).containsExactly("10", "firstName10suffix", "formatted-mail10");
+   }
 }
@@ -0,0 +1,209 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2012 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.export.async;
+
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.github.dandelion.datatables.core.export.CsvExport;
+import com.github.dandelion.datatables.core.export.DatatablesExport;
+import com.github.dandelion.datatables.core.export.ExportConf;
+import com.github.dandelion.datatables.core.export.ExportSource;
+import com.github.dandelion.datatables.core.export.ExportUtils;
+import com.github.dandelion.datatables.core.export.HtmlTableBuilder;
+import com.github.dandelion.datatables.core.html.HtmlTable;
+import com.github.dandelion.datatables.core.mock.Mock;
+import com.github.dandelion.datatables.core.mock.Person;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExportJobManagerTest {
+
+	private static final String OWNER = "session:test";
+
+	@After
+	public void shutdown() {
+		ExportJobManager.shutdown();
+		ExportJobManager.configure(ExportJobManager.DEFAULT_THREADS, ExportJobManager.DEFAULT_QUEUE_CAPACITY,
+				ExportJobManager.DEFAULT_TIME_TO_LIVE);
+	}
+
+	@Test
+	public void should_generate_the_export_in_the_background() throws Exception {
+		ExportSource source = newSource();
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		ExportUtils.renderExport(source, request, response);
+
+		assertThat(response.getContentType()).startsWith("application/json");
+		String id = response.getContentAsString().replaceAll(".*\"id\":\"([^\"]+)\".*", "$1");
+		ExportJob job = ExportJobManager.getJob(id);
+		awaitCompletion(job);
+
+		assertThat(job.getStatus()).isEqualTo(ExportJob.Status.COMPLETED);
+		assertThat(job.getRowsWritten()).isEqualTo(Mock.persons.size());
+
+		MockHttpServletRequest statusRequest = new MockHttpServletRequest();
+		statusRequest.setSession(request.getSession());
+		statusRequest.addParameter(ExportUtils.DDL_DT_REQUESTPARAM_EXPORT_JOB, id);
+		MockHttpServletResponse statusResponse = new MockHttpServletResponse();
+		ExportJobHandler.handle(statusRequest, statusResponse);
+		assertThat(statusResponse.getContentAsString()).contains("\"status\":\"COMPLETED\"").contains(
+				"\"rows\":" + Mock.persons.size());
+
+		MockHttpServletRequest downloadRequest = new MockHttpServletRequest();
+		downloadRequest.setSession(request.getSession());
+		downloadRequest.addParameter(ExportUtils.DDL_DT_REQUESTPARAM_EXPORT_JOB, id);
+		downloadRequest.addParameter(ExportUtils.DDL_DT_REQUESTPARAM_EXPORT_DOWNLOAD, "true");
+		MockHttpServletResponse downloadResponse = new MockHttpServletResponse();
+		ExportJobHandler.handle(downloadRequest, downloadResponse);
+		assertThat(downloadResponse.getContentType()).isEqualTo("text/csv");
+		assertThat(downloadResponse.getContentAsString().split("\n")).hasSize(Mock.persons.size() + 1);
+		assertThat(downloadResponse.getContentLength()).isEqualTo((int) job.getFile().length());
+	}
+
+	@Test
+	public void should_remove_the_jobs_on_shutdown() throws Exception {
+		ExportJob job = ExportJobManager.submit(new CsvExport(), newSource(), newSource().getExportConf(), OWNER);
+		awaitCompletion(job);
+		ExportJobManager.shutdown();
+
+		assertThat(ExportJobManager.size()).isEqualTo(0);
+		assertThat(job.getFile().exists()).isFalse();
+		assertThat(ExportJobManager.getJob(job.getId())).isNull();
+	}
+
+	@Test
+	public void should_answer_404_for_unknown_jobs() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addParameter(ExportUtils.DDL_DT_REQUESTPARAM_EXPORT_JOB, "unknown");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		ExportJobHandler.handle(request, response);
+
+		assertThat(response.getStatus()).isEqualTo(404);
+	}
+
+	@Test
+	public void should_answer_404_to_another_session() throws Exception {
+		ExportJob job = ExportJobManager.submit(new CsvExport(), newSource(), newSource().getExportConf(), OWNER);
+		awaitCompletion(job);
+
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addParameter(ExportUtils.DDL_DT_REQUESTPARAM_EXPORT_JOB, job.getId());
+		request.addParameter(ExportUtils.DDL_DT_REQUESTPARAM_EXPORT_DOWNLOAD, "true");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		ExportJobHandler.handle(request, response);
+
+		assertThat(response.getStatus()).isEqualTo(404);
+		assertThat(response.getContentLength()).isEqualTo(0);
+	}
+
+	@Test
+	public void should_fail_the_job_when_the_export_throws_an_error() throws Exception {
+		ExportJob job = ExportJobManager.submit(new BlockingExport(null, new OutOfMemoryError("Java heap space")),
+				null, newSource().getExportConf(), OWNER);
+		awaitCompletion(job);
+
+		assertThat(job.getStatus()).isEqualTo(ExportJob.Status.FAILED);
+		assertThat(job.getError()).contains("Java heap space");
+		assertThat(job.getFile().exists()).isFalse();
+	}
+
+	@Test
+	public void should_remove_the_jobs_running_for_too_long() throws Exception {
+		ExportJobManager.configure(1, 1, 60000, 50);
+		CountDownLatch latch = new CountDownLatch(1);
+		try {
+			ExportJob job = ExportJobManager.submit(new BlockingExport(latch, null), null, newSource()
+					.getExportConf(), OWNER);
+			for (int i = 0; i < 500 && job.getStatus() == ExportJob.Status.PENDING; i++) {
+				Thread.sleep(10);
+			}
+			assertThat(job.getStatus()).isEqualTo(ExportJob.Status.RUNNING);
+
+			Thread.sleep(100);
+			assertThat(ExportJobManager.getJob(job.getId())).isNull();
+			assertThat(job.getStatus()).isEqualTo(ExportJob.Status.FAILED);
+			assertThat(job.getFile().exists()).isFalse();
+		}
+		finally {
+			latch.countDown();
+		}
+	}
+
+	private static ExportSource newSource() {
+		return new HtmlTableBuilder<Person>()
+				.newBuilder("dummyId", Mock.persons, new MockHttpServletRequest(),
+						new ExportConf.Builder("csv").header(true).async(true).build())
+				.column().fillWithProperty("id").title("Id")
+				.column().fillWithProperty("firstName").title("FirstName")
+				.buildSource();
+	}
+
+	private static class BlockingExport implements DatatablesExport {
+
+		private final CountDownLatch latch;
+		private final Error error;
+
+		BlockingExport(CountDownLatch latch, Error error) {
+			this.latch = latch;
+			this.error = error;
+		}
+
+		@Override
+		public void initExport(HtmlTable table) {
+		}
+
+		@Override
+		public void processExport(OutputStream output) {
+			if (error != null) {
+				throw error;
+			}
+			try {
+				latch.await();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private static void awaitCompletion(ExportJob job) throws InterruptedException {
+		for (int i = 0; i < 500 && (job.getStatus() == ExportJob.Status.PENDING
+				|| job.getStatus() == ExportJob.Status.RUNNING); i++) {
+			Thread.sleep(10);
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package com.github.dandelion.datatables.core.extension;
+
+import org.junit.Test;
+
+import com.github.dandelion.core.DandelionException;
+import com.github.dandelion.datatables.core.extension.feature.AjaxFeature;
+import com.github.dandelion.datatables.core.extension.plugin.ScrollerPlugin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExtensionRegistryTest {
+
+	@Test
+	public void should_create_new_instances_by_name_ignoring_case() {
+		Extension extension = ExtensionRegistry.newInstance("SCROLLER");
+
+		assertThat(extension).isInstanceOf(ScrollerPlugin.class);
+		assertThat(ExtensionRegistry.newInstance("scroller")).isNotSameAs(extension);
+	}
+
+	@Test
+	public void should_create_all_extensions_registered_with_a_name() {
+		assertThat(ExtensionRegistry.newInstances(new AjaxFeature().getExtensionName())).hasSize(1);
+		assertThat(ExtensionRegistry.newInstances("unknown")).isEmpty();
+		assertThat(ExtensionRegistry.contains("unknown")).isFalse();
+	}
+
+	@Test
+	public void should_still_resolve_extensions_after_a_refresh() {
+		ExtensionRegistry.refresh();
+
+		assertThat(ExtensionRegistry.contains("scroller")).isTrue();
+	}
+
+	@Test(expected = DandelionException.class)
+	public void should_throw_an_exception_when_the_extension_does_not_exist() {
+		ExtensionRegistry.newInstance("unknown");
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2012 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.generator;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.github.dandelion.core.asset.generator.js.JsFunction;
+import com.github.dandelion.core.asset.generator.js.JsSnippet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConfigWriterTest {
+
+	@Test
+	public void should_write_nested_maps_and_collections() {
+		Map<String, Object> column = new LinkedHashMap<String, Object>();
+		column.put(DTConstants.DT_DATA, "name");
+		column.put(DTConstants.DT_SORTABLE, false);
+		Map<String, Object> conf = new LinkedHashMap<String, Object>();
+		conf.put(DTConstants.DT_AOCOLUMNS, Arrays.asList(column, null));
+		conf.put("pages", 5);
+
+		assertThat(ConfigWriter.toString(conf)).isEqualTo(
+				"{\"" + DTConstants.DT_AOCOLUMNS + "\":[{\"" + DTConstants.DT_DATA + "\":\"name\",\""
+						+ DTConstants.DT_SORTABLE + "\":false},null],\"pages\":5}");
+	}
+
+	@Test
+	public void should_write_javascript_snippets_as_is() {
+		Map<String, Object> conf = new LinkedHashMap<String, Object>();
+		conf.put("url", new JsSnippet("myFunction()"));
+
+		assertThat(ConfigWriter.toString(conf)).isEqualTo("{\"url\":myFunction()}");
+	}
+
+	@Test
+	public void should_write_javascript_functions_as_is() {
+		JsFunction function = new JsFunction("alert('ok');", "data");
+		Map<String, Object> conf = new LinkedHashMap<String, Object>();
+		conf.put("fnDrawCallback", function);
+
+		assertThat(ConfigWriter.toString(conf)).isEqualTo("{\"fnDrawCallback\":" + function.toString() + "}");
+	}
+
+	@Test
+	public void should_escape_strings() {
+		assertThat(ConfigWriter.toString(Arrays.asList("a\"b\\c\n</script>"))).isEqualTo(
+				"[\"a\\\"b\\\\c\\n<\\/script>\"]");
+	}
+
+	@Test
+	public void should_sort_the_properties_of_unordered_maps() {
+		Map<String, Object> conf = new HashMap<String, Object>();
+		conf.put("b", 1);
+		conf.put("c", 2);
+		conf.put("a", 3);
+
+		assertThat(ConfigWriter.toString(conf)).isEqualTo("{\"a\":3,\"b\":1,\"c\":2}");
+	}
+
+	@Test
+	public void should_write_non_finite_numbers_as_null() throws Exception {
+		StringWriter writer = new StringWriter();
+		ConfigWriter.write(Double.NaN, writer);
+
+		assertThat(writer.toString()).isEqualTo("null");
+	}
+}
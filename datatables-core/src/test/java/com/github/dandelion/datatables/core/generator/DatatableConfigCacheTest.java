@@ -0,0 +1,94 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2012 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.generator;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterConfig;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.github.dandelion.core.Context;
+import com.github.dandelion.core.web.WebConstants;
+import com.github.dandelion.datatables.core.html.HtmlTable;
+import com.github.dandelion.datatables.core.option.DatatableOptions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DatatableConfigCacheTest {
+
+	@Before
+	public void clearCache() {
+		DatatableConfigCache.clear();
+	}
+
+	@Test
+	public void should_reuse_the_configuration_of_identical_tables() {
+		new DatatableJQueryContent(newTable("myTable"));
+		new DatatableJQueryContent(newTable("myTable"));
+
+		assertThat(DatatableConfigCache.getMissCount()).isEqualTo(1);
+		assertThat(DatatableConfigCache.getHitCount()).isEqualTo(1);
+		assertThat(DatatableConfigCache.size()).isEqualTo(1);
+	}
+
+	@Test
+	public void should_generate_the_configuration_again_when_an_option_changes() {
+		new DatatableJQueryContent(newTable("myTable"));
+		HtmlTable table = newTable("myTable");
+		table.getTableConfiguration().addOption(DatatableOptions.FEATURE_PAGEABLE, false);
+		new DatatableJQueryContent(table);
+		new DatatableJQueryContent(newTable("otherTable"));
+
+		assertThat(DatatableConfigCache.getMissCount()).isEqualTo(3);
+		assertThat(DatatableConfigCache.getHitCount()).isEqualTo(0);
+		assertThat(DatatableConfigCache.size()).isEqualTo(3);
+	}
+
+	@Test
+	public void should_not_cache_values_that_cannot_be_described() {
+		HtmlTable table = newTable("myTable");
+		table.getLastHeaderRow().getLastColumn().getColumnConfiguration()
+				.addOption(DatatableOptions.NAME, new Object());
+
+		assertThat(DatatableConfigCache.getKey(table)).isNull();
+	}
+
+	private static HtmlTable newTable(String id) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAttribute(WebConstants.DANDELION_CONTEXT_ATTRIBUTE, new Context(new MockFilterConfig()));
+		HtmlTable table = new HtmlTable(id, request, new MockHttpServletResponse());
+		table.getTableConfiguration().getOptions().clear();
+		table.addHeaderRow();
+		table.getLastHeaderRow().addHeaderColumn("column1");
+		table.getLastHeaderRow().addHeaderColumn("column2");
+		return table;
+	}
+}
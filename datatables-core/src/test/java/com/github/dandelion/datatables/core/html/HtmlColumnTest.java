@@ -58,6 +58,38 @@ public class HtmlColumnTest {
 		assertThat(column.isHeaderColumn()).isFalse();
 	}
 
+	@Test
+	public void should_reflect_display_types_changes_in_the_column() {
+		column = new HtmlColumn(false, "content", null, "csv, pdf");
+		assertThat(column.getEnabledDisplayTypes()).containsOnly(ReservedFormat.CSV, ReservedFormat.PDF);
+		assertThat(column.isDisplayedIn(DisplayFormats.maskOf(ReservedFormat.ALL, ReservedFormat.PDF))).isTrue();
+		assertThat(column.isDisplayedIn(DisplayFormats.maskOf(ReservedFormat.ALL, ReservedFormat.XML))).isFalse();
+
+		column.getEnabledDisplayTypes().remove(ReservedFormat.PDF);
+		column.getEnabledDisplayTypes().add(ReservedFormat.HTML);
+		assertThat(column.getEnabledDisplayTypes()).containsOnly(ReservedFormat.CSV, ReservedFormat.HTML);
+		assertThat(column.isDisplayedIn(DisplayFormats.maskOf(ReservedFormat.PDF))).isFalse();
+	}
+
+	@Test
+	public void should_support_more_formats_than_the_bits_of_a_mask() {
+		for (int i = 0; i <= DisplayFormats.MAX_FORMATS; i++) {
+			new HtmlColumn("custom" + i);
+		}
+		column = new HtmlColumn(false, "content", null, "csv, custom" + DisplayFormats.MAX_FORMATS);
+
+		assertThat(column.getEnabledDisplayTypes()).containsOnly(ReservedFormat.CSV,
+				"custom" + DisplayFormats.MAX_FORMATS);
+		String overflow = "custom" + DisplayFormats.MAX_FORMATS;
+		assertThat(column.isDisplayedIn(DisplayFormats.maskOf(ReservedFormat.ALL, overflow), ReservedFormat.ALL,
+				overflow)).isTrue();
+		assertThat(column.isDisplayedIn(DisplayFormats.maskOf(ReservedFormat.ALL, "unknown"), ReservedFormat.ALL,
+				"unknown")).isFalse();
+
+		column.getEnabledDisplayTypes().remove(overflow);
+		assertThat(column.getEnabledDisplayTypes()).containsOnly(ReservedFormat.CSV);
+	}
+
 	@Test
 	public void should_create_header_column_with_id() {
 		column = new HtmlColumn(true, "content");
@@ -102,6 +102,20 @@ public class HtmlRowTest {
 		assertThat(row.getLastColumn()).isEqualTo(column2);
 	}
 
+	@Test
+	public void should_filter_columns_by_format() {
+		row.addColumn("a");
+		row.addColumn("b", ReservedFormat.HTML);
+		row.addColumn("c", ReservedFormat.CSV);
+		row.addColumn("d");
+
+		assertThat(row.getColumns(ReservedFormat.ALL, ReservedFormat.CSV)).hasSize(3);
+		assertThat(row.getColumns(ReservedFormat.ALL, ReservedFormat.CSV).get(1).getContent().toString()).isEqualTo("c");
+		assertThat(row.getColumnIndexes(ReservedFormat.ALL, ReservedFormat.CSV)).containsExactly(0, 2, 3);
+		assertThat(row.getColumnIndexes(ReservedFormat.ALL, ReservedFormat.HTML)).containsExactly(0, 1, 3);
+		assertThat(row.getColumnIndexes("unknown")).isEmpty();
+	}
+
 	private void populateColumns() {
 		headerColumn = new HtmlColumn(true, "ColumnHeaderContent");
 		column1 = new HtmlColumn(false, "ColumnContent1");
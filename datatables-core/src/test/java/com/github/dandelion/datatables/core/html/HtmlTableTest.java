@@ -29,6 +29,8 @@
  */
 package com.github.dandelion.datatables.core.html;
 
+import java.io.StringWriter;
+
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -196,4 +198,22 @@ public class HtmlTableTest {
 		assertThat(table.getLastBodyRow()).isEqualTo(body2);
 		assertThat(table.getLastFooterRow()).isEqualTo(foot2);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void should_render_table_to_a_writer() throws Exception {
+		table = new HtmlTable("tableId", request, response);
+		HtmlCaption caption = new HtmlCaption();
+		caption.setTitle("title");
+		table.setCaption(caption);
+		table.addHeaderRow().addHeaderColumns("Id", "Name");
+		table.addRow("body1").addColumns("1", "John");
+		table.addRow("body2").addColumns("2", "Jane");
+		table.addFooterRow().addColumns("Id", "Name");
+
+		StringWriter writer = new StringWriter();
+		table.renderTo(writer);
+
+		assertThat(writer.toString()).isEqualTo(table.toHtml().toString());
+		assertThat(writer.toString()).contains("<tbody><tr id=\"body1\"><td>1</td><td>John</td></tr>");
+	}
+}
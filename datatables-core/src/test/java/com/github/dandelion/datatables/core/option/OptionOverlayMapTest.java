@@ -0,0 +1,99 @@
+package com.github.dandelion.datatables.core.option;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.dandelion.core.option.Option;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OptionOverlayMapTest {
+
+	private Map<Option<?>, Object> template;
+	private OptionOverlayMap options;
+
+	@Before
+	public void setup() {
+		Map<Option<?>, Object> map = new HashMap<Option<?>, Object>();
+		map.put(DatatableOptions.FEATURE_INFO, "true");
+		map.put(DatatableOptions.FEATURE_PAGEABLE, "false");
+		template = Collections.unmodifiableMap(map);
+		options = new OptionOverlayMap(template);
+	}
+
+	@Test
+	public void should_read_through_the_template() {
+		assertThat(options).hasSize(2);
+		assertThat(options.get(DatatableOptions.FEATURE_INFO)).isEqualTo("true");
+		assertThat(options.containsKey(DatatableOptions.FEATURE_SORTABLE)).isFalse();
+	}
+
+	@Test
+	public void should_write_into_the_overlay_only() {
+		options.put(DatatableOptions.FEATURE_INFO, false);
+		options.put(DatatableOptions.FEATURE_SORTABLE, true);
+
+		assertThat(options).hasSize(3);
+		assertThat(options.get(DatatableOptions.FEATURE_INFO)).isEqualTo(false);
+		assertThat(options.get(DatatableOptions.FEATURE_SORTABLE)).isEqualTo(true);
+		assertThat(template.get(DatatableOptions.FEATURE_INFO)).isEqualTo("true");
+		assertThat(template).hasSize(2);
+	}
+
+	@Test
+	public void should_remove_template_entries_without_altering_the_template() {
+		assertThat(options.remove(DatatableOptions.FEATURE_INFO)).isEqualTo("true");
+
+		assertThat(options).hasSize(1);
+		assertThat(options.containsKey(DatatableOptions.FEATURE_INFO)).isFalse();
+		assertThat(template.containsKey(DatatableOptions.FEATURE_INFO)).isTrue();
+
+		options.put(DatatableOptions.FEATURE_INFO, "false");
+		assertThat(options.get(DatatableOptions.FEATURE_INFO)).isEqualTo("false");
+	}
+
+	@Test
+	public void should_update_entries_while_iterating() {
+		options.put(DatatableOptions.FEATURE_SORTABLE, "true");
+
+		for (Entry<Option<?>, Object> entry : options.entrySet()) {
+			entry.setValue(Boolean.valueOf(entry.getValue().toString()));
+		}
+
+		assertThat(options).hasSize(3);
+		assertThat(options.get(DatatableOptions.FEATURE_INFO)).isEqualTo(Boolean.TRUE);
+		assertThat(options.get(DatatableOptions.FEATURE_PAGEABLE)).isEqualTo(Boolean.FALSE);
+		assertThat(options.get(DatatableOptions.FEATURE_SORTABLE)).isEqualTo(Boolean.TRUE);
+		assertThat(template.get(DatatableOptions.FEATURE_INFO)).isEqualTo("true");
+	}
+
+	@Test
+	public void should_remove_entries_through_the_iterator() {
+		options.put(DatatableOptions.FEATURE_SORTABLE, "true");
+
+		Iterator<Entry<Option<?>, Object>> iterator = options.entrySet().iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next().getKey() != DatatableOptions.FEATURE_PAGEABLE) {
+				iterator.remove();
+			}
+		}
+
+		assertThat(options).hasSize(1);
+		assertThat(options.keySet()).containsOnly(DatatableOptions.FEATURE_PAGEABLE);
+	}
+
+	@Test
+	public void should_clear_the_view() {
+		options.put(DatatableOptions.FEATURE_SORTABLE, "true");
+		options.clear();
+
+		assertThat(options).isEmpty();
+		assertThat(template).hasSize(2);
+	}
+}
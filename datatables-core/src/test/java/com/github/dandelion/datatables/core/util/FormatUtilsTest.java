@@ -0,0 +1,92 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.util;
+
+import java.text.MessageFormat;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FormatUtilsTest {
+
+	@Test
+	public void should_format_like_message_format() {
+		Date date = new GregorianCalendar(2014, 0, 31).getTime();
+
+		assertThat(FormatUtils.format("{0,date,dd-MM-yyyy}", date)).isEqualTo("31-01-2014");
+		assertThat(FormatUtils.format("{0,number,#.00}", Locale.FRANCE, 3.14159)).isEqualTo("3,14");
+		assertThat(FormatUtils.format("formatted-{0}", "mail")).isEqualTo("formatted-mail");
+		assertThat(FormatUtils.format("{0,number,currency}", Locale.US, 12.5)).isEqualTo(
+				new MessageFormat("{0,number,currency}", Locale.US).format(new Object[] { 12.5 }));
+		assertThat(FormatUtils.format("'{0}' {0}", "x")).isEqualTo("{0} x");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void should_fail_when_the_value_does_not_match_the_pattern() {
+		FormatUtils.format("{0,number,#.00}", "not a number");
+	}
+
+	@Test
+	public void should_format_concurrently() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			Future<?>[] futures = new Future<?>[8];
+			for (int i = 0; i < futures.length; i++) {
+				final int day = i + 1;
+				futures[i] = executor.submit(new Callable<Void>() {
+
+					@Override
+					public Void call() throws Exception {
+						Date date = new GregorianCalendar(2014, 0, day).getTime();
+						for (int j = 0; j < 1000; j++) {
+							assertThat(FormatUtils.format("{0,date,dd/MM/yyyy}", date)).isEqualTo(
+									String.format("%02d/01/2014", day));
+						}
+						return null;
+					}
+				});
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+}
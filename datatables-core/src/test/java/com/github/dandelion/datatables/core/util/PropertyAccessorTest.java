@@ -0,0 +1,87 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.core.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.beanutils.PropertyUtils;
+import org.junit.Test;
+
+import com.github.dandelion.datatables.core.mock.Address;
+import com.github.dandelion.datatables.core.mock.Person;
+import com.github.dandelion.datatables.core.mock.Town;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PropertyAccessorTest {
+
+	@Test
+	public void should_read_simple_and_nested_properties() throws Exception {
+		Person person = new Person(1L, "John", "Doe", "john@doe.com", new Address("street", new Town("Paris")));
+
+		assertThat(PropertyAccessor.getValue(person, "firstName")).isEqualTo("John");
+		assertThat(PropertyAccessor.getValue(person, " address.town.name ")).isEqualTo("Paris");
+		assertThat(PropertyAccessor.getValue(person, "address.town.name")).isEqualTo(
+				PropertyUtils.getNestedProperty(person, "address.town.name"));
+	}
+
+	@Test
+	public void should_return_null_when_an_intermediate_property_is_null() throws Exception {
+		Person person = new Person(1L, "John", "Doe", "john@doe.com");
+
+		assertThat(PropertyAccessor.getValue(person, "address.town.name")).isNull();
+		assertThat(PropertyAccessor.getValue(null, "address")).isNull();
+	}
+
+	@Test
+	public void should_read_map_entries() throws Exception {
+		Map<String, Object> map = new HashMap<String, Object>();
+		map.put("person", new Person(1L, "John", "Doe", "john@doe.com"));
+
+		assertThat(PropertyAccessor.getValue(map, "person.lastName")).isEqualTo("Doe");
+		assertThat(PropertyAccessor.getValue(map, "unknown.lastName")).isNull();
+	}
+
+	@Test
+	public void should_resolve_the_read_method_of_each_runtime_class() throws Exception {
+		PropertyAccessor accessor = PropertyAccessor.compile("name");
+
+		assertThat(accessor.getValue(new Town("Paris"))).isEqualTo("Paris");
+		assertThat(accessor.getValue(new Town("Lyon") {
+		})).isEqualTo("Lyon");
+		assertThat(PropertyAccessor.compile("name")).isSameAs(accessor);
+	}
+
+	@Test(expected = NoSuchMethodException.class)
+	public void should_fail_when_the_property_does_not_exist() throws Exception {
+		PropertyAccessor.getValue(new Town("Paris"), "unknown");
+	}
+}
@@ -35,17 +35,18 @@ import com.github.dandelion.core.DandelionException;
 import com.github.dandelion.datatables.core.export.DatatablesExport;
 import com.github.dandelion.datatables.core.export.ExportConf;
 import com.github.dandelion.datatables.core.export.ExportConf.Orientation;
+import com.github.dandelion.datatables.core.export.ExportSource;
+import com.github.dandelion.datatables.core.export.HtmlTableExportSource;
 import com.github.dandelion.datatables.core.export.ReservedFormat;
-import com.github.dandelion.datatables.core.html.HtmlColumn;
-import com.github.dandelion.datatables.core.html.HtmlRow;
+import com.github.dandelion.datatables.core.export.RowExport;
 import com.github.dandelion.datatables.core.html.HtmlTable;
 import com.itextpdf.text.Document;
 import com.itextpdf.text.DocumentException;
 import com.itextpdf.text.Element;
+import com.itextpdf.text.Font;
 import com.itextpdf.text.PageSize;
 import com.itextpdf.text.Paragraph;
 import com.itextpdf.text.Phrase;
-import com.itextpdf.text.pdf.PdfPCell;
 import com.itextpdf.text.pdf.PdfPTable;
 import com.itextpdf.text.pdf.PdfWriter;
 
@@ -54,18 +55,30 @@ import com.itextpdf.text.pdf.PdfWriter;
  * PDF implementation of {@link DatatablesExport} that exports data in PDF
  * format using iText.
  * </p>
+ * <p>
+ * Once more than {@link ExportConf#getPdfFlushThreshold()} rows have been
+ * added, the table is marked as incomplete and handed to the document every
+ * {@link ExportConf#getPdfFlushInterval()} rows, so that iText lays out the
+ * completed rows, writes the completed pages to the output stream and frees
+ * them, instead of keeping the whole table in memory.
+ * </p>
  * 
  * @author Thibault Duchateau
  */
-public class PdfExport implements DatatablesExport {
+public class PdfExport implements RowExport {
 
-   private HtmlTable table;
+   private ExportSource source;
    private ExportConf exportConf;
 
    @Override
    public void initExport(HtmlTable table) {
-      this.table = table;
-      this.exportConf = table.getTableConfiguration().getExportConfigurations().get(ReservedFormat.PDF);
+      initExport(new HtmlTableExportSource(table, ReservedFormat.PDF));
+   }
+
+   @Override
+   public void initExport(ExportSource source) {
+      this.source = source;
+      this.exportConf = source.getExportConf();
    }
 
    @Override
@@ -91,7 +104,7 @@ public class PdfExport implements DatatablesExport {
       }
       catch (DocumentException e) {
          StringBuilder sb = new StringBuilder("Something went wrong during the PDF generation of the table '");
-         sb.append(table.getOriginalId());
+         sb.append(source.getTableId());
          sb.append("' and with the following export configuration: ");
          sb.append(exportConf.toString());
          throw new DandelionException(sb.toString(), e);
@@ -110,41 +123,60 @@ public class PdfExport implements DatatablesExport {
 
    private void addTable(Document document) throws DocumentException {
 
-      PdfPCell cell = null;
-
       // Compute the column count in order to initialize the iText table
-      int columnCount = table.getLastHeaderRow().getColumns(ReservedFormat.ALL, ReservedFormat.PDF).size();
+      int columnCount = source.getHeaders().size();
 
       if (columnCount != 0) {
 
          PdfPTable pdfTable = new PdfPTable(columnCount);
          pdfTable.setWidthPercentage(100f);
 
-         // Header
-         if (exportConf != null && exportConf.getIncludeHeader()) {
+         // All cells are copied from the default cell and share the same font
+         Font font = new Font();
 
-            for (HtmlRow htmlRow : table.getHeadRows()) {
-
-               for (HtmlColumn column : htmlRow.getColumns(ReservedFormat.ALL, ReservedFormat.PDF)) {
+         // Header, repeated on each page
+         if (exportConf != null && exportConf.getIncludeHeader()) {
 
-                  cell = new PdfPCell();
-                  cell.setPhrase(new Phrase(column.getContent().toString()));
-                  pdfTable.addCell(cell);
-               }
+            for (String header : source.getHeaders()) {
+               pdfTable.addCell(new Phrase(header, font));
             }
+            pdfTable.setHeaderRows(1);
          }
 
-         for (HtmlRow htmlRow : table.getBodyRows()) {
+         int threshold = getSetting(exportConf != null ? exportConf.getPdfFlushThreshold() : null,
+               ExportConf.DEFAULT_PDF_FLUSH_THRESHOLD);
+         int flushInterval = Math.max(getSetting(exportConf != null ? exportConf.getPdfFlushInterval() : null,
+               ExportConf.DEFAULT_PDF_FLUSH_INTERVAL), 1);
+         int rowCount = 0;
+         boolean flushed = false;
+         boolean pending = false;
 
-            for (HtmlColumn column : htmlRow.getColumns(ReservedFormat.ALL, ReservedFormat.PDF)) {
+         for (String[] values : source) {
 
-               cell = new PdfPCell();
-               cell.setPhrase(new Phrase(column.getContent().toString()));
-               pdfTable.addCell(cell);
+            for (String value : values) {
+               pdfTable.addCell(new Phrase(value, font));
+            }
+            rowCount++;
+            pending = true;
+
+            // Large table: flush the completed rows
+            if (threshold >= 0 && rowCount > threshold && (rowCount - threshold) % flushInterval == 0) {
+               pdfTable.setComplete(false);
+               document.add(pdfTable);
+               flushed = true;
+               pending = false;
             }
          }
 
-         document.add(pdfTable);
+         // Adding an empty completed table would repeat the header row
+         if (pending || !flushed) {
+            pdfTable.setComplete(true);
+            document.add(pdfTable);
+         }
       }
    }
-}
\ No newline at end of file
+
+   private static int getSetting(Integer value, int defaultValue) {
+      return value != null ? value : defaultValue;
+   }
+}
@@ -31,18 +31,25 @@ package com.github.dandelion.datatables.extras.export.poi;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import com.github.dandelion.core.DandelionException;
+import com.github.dandelion.datatables.core.export.ColumnWidthEstimator;
 import com.github.dandelion.datatables.core.export.DatatablesExport;
 import com.github.dandelion.datatables.core.export.ExportConf;
+import com.github.dandelion.datatables.core.export.ExportSource;
+import com.github.dandelion.datatables.core.export.HtmlTableExportSource;
 import com.github.dandelion.datatables.core.export.ReservedFormat;
-import com.github.dandelion.datatables.core.html.HtmlColumn;
-import com.github.dandelion.datatables.core.html.HtmlRow;
+import com.github.dandelion.datatables.core.export.RowExport;
 import com.github.dandelion.datatables.core.html.HtmlTable;
 
 /**
@@ -50,63 +57,91 @@ import com.github.dandelion.datatables.core.html.HtmlTable;
  * XLSX implementation of {@link DatatablesExport} that exports data in XLSX
  * format using Apache POI.
  * </p>
+ * <p>
+ * Up to {@link ExportConf#getStreamingThreshold()} rows, the document is built
+ * in memory using a {@link XSSFWorkbook}. Above, a {@link SXSSFWorkbook} is
+ * used instead: only the last {@link ExportConf#getRowAccessWindow()} rows are
+ * kept in memory, the older ones being flushed to a temporary file, deleted
+ * once the document is written.
+ * </p>
+ * <p>
+ * In both cases, the columns are auto-sized using a
+ * {@link ColumnWidthEstimator}, fed as the rows are written.
+ * </p>
  * 
  * @author Thibault Duchateau
  */
-public class XlsxExport implements DatatablesExport {
+public class XlsxExport implements RowExport {
 
-   private HtmlTable table;
+   private ExportSource source;
    private ExportConf exportConf;
 
    @Override
    public void initExport(HtmlTable table) {
-      this.table = table;
-      this.exportConf = table.getTableConfiguration().getExportConfigurations().get(ReservedFormat.XLSX);
+      initExport(new HtmlTableExportSource(table, ReservedFormat.XLSX));
+   }
+
+   @Override
+   public void initExport(ExportSource source) {
+      this.source = source;
+      this.exportConf = source.getExportConf();
    }
 
    @Override
    public void processExport(OutputStream output) {
 
+      // The first rows are buffered until the threshold is reached, so that
+      // small exports keep the in-memory workbook
+      Iterator<String[]> rows = source.iterator();
+      List<String[]> bufferedRows = new ArrayList<String[]>();
+      int threshold = exportConf.getStreamingThreshold() != null ? exportConf.getStreamingThreshold()
+            : ExportConf.DEFAULT_STREAMING_THRESHOLD;
+      boolean streaming = threshold == 0;
+      if (threshold > 0) {
+         while (!streaming && rows.hasNext()) {
+            bufferedRows.add(rows.next());
+            streaming = bufferedRows.size() > threshold;
+         }
+      }
+
+      Workbook workbook = streaming ? createStreamingWorkbook() : new XSSFWorkbook();
       try {
-         XSSFWorkbook workbook = new XSSFWorkbook();
-         XSSFSheet sheet = workbook.createSheet(exportConf.getFileName());
-         Row row = null;
-         Cell cell = null;
+         Sheet sheet = workbook.createSheet(exportConf.getFileName());
+         ColumnWidthEstimator widthEstimator = exportConf.getAutoSize() ? new ColumnWidthEstimator(source
+               .getHeaders().size(), exportConf.getAutoSizeSampleInterval() != null ? exportConf
+               .getAutoSizeSampleInterval() : 1) : null;
          int rowIndex = 0;
-         int columnIndex;
 
          // Header
          if (exportConf.getIncludeHeader()) {
-
-            for (HtmlRow htmlRow : table.getHeadRows()) {
-
-               row = sheet.createRow(rowIndex++);
-               columnIndex = 0;
-
-               for (HtmlColumn column : htmlRow.getColumns(ReservedFormat.ALL, ReservedFormat.XLSX)) {
-                  cell = row.createCell(columnIndex++);
-                  cell.setCellValue(column.getContent().toString());
-               }
+            writeRow(sheet, rowIndex++, source.getHeaders().toArray(new String[0]));
+            if (widthEstimator != null) {
+               widthEstimator.measure(source.getHeaders());
             }
          }
 
          // Body
-         for (HtmlRow htmlRow : table.getBodyRows()) {
-
-            row = sheet.createRow(rowIndex++);
-            columnIndex = 0;
-
-            for (HtmlColumn column : htmlRow.getColumns(ReservedFormat.ALL, ReservedFormat.XLSX)) {
-               cell = row.createCell(columnIndex++);
-               cell.setCellValue(column.getContent().toString());
+         for (String[] values : bufferedRows) {
+            writeRow(sheet, rowIndex++, values);
+            if (widthEstimator != null) {
+               widthEstimator.sample(values);
+            }
+         }
+         bufferedRows = null;
+         while (rows.hasNext()) {
+            String[] values = rows.next();
+            writeRow(sheet, rowIndex++, values);
+            if (widthEstimator != null) {
+               widthEstimator.sample(values);
             }
          }
 
          // Column auto-sizing
-         if (exportConf.getAutoSize()) {
-            for (columnIndex = 0; columnIndex < table.getLastHeaderRow()
-                  .getColumns(ReservedFormat.ALL, ReservedFormat.XLSX).size(); columnIndex++) {
-               sheet.autoSizeColumn(columnIndex);
+         if (widthEstimator != null) {
+            for (int columnIndex = 0; columnIndex < widthEstimator.getColumnCount(); columnIndex++) {
+               if (widthEstimator.getWidth(columnIndex) > 0) {
+                  sheet.setColumnWidth(columnIndex, widthEstimator.getWidth(columnIndex) * 256);
+               }
             }
          }
 
@@ -114,10 +149,30 @@ public class XlsxExport implements DatatablesExport {
       }
       catch (IOException e) {
          StringBuilder sb = new StringBuilder("Something went wrong during the XLSX generation of the table '");
-         sb.append(table.getOriginalId());
+         sb.append(source.getTableId());
          sb.append("' and with the following export configuration: ");
          sb.append(exportConf.toString());
          throw new DandelionException(sb.toString(), e);
       }
+      finally {
+         if (workbook instanceof SXSSFWorkbook) {
+            ((SXSSFWorkbook) workbook).dispose();
+         }
+      }
+   }
+
+   private SXSSFWorkbook createStreamingWorkbook() {
+      int rowAccessWindow = exportConf.getRowAccessWindow() != null ? exportConf.getRowAccessWindow()
+            : ExportConf.DEFAULT_ROW_ACCESS_WINDOW;
+      boolean compressTempFiles = exportConf.getCompressTempFiles() == null || exportConf.getCompressTempFiles();
+      return new SXSSFWorkbook(null, rowAccessWindow, compressTempFiles);
+   }
+
+   private static void writeRow(Sheet sheet, int rowIndex, String[] values) {
+      Row row = sheet.createRow(rowIndex);
+      for (int columnIndex = 0; columnIndex < values.length; columnIndex++) {
+         Cell cell = row.createCell(columnIndex);
+         cell.setCellValue(values[columnIndex]);
+      }
    }
-}
\ No newline at end of file
+}
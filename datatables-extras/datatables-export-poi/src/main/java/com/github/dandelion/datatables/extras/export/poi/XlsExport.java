@@ -38,11 +38,13 @@ import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
 
 import com.github.dandelion.core.DandelionException;
+import com.github.dandelion.datatables.core.export.ColumnWidthEstimator;
 import com.github.dandelion.datatables.core.export.DatatablesExport;
 import com.github.dandelion.datatables.core.export.ExportConf;
+import com.github.dandelion.datatables.core.export.ExportSource;
+import com.github.dandelion.datatables.core.export.HtmlTableExportSource;
 import com.github.dandelion.datatables.core.export.ReservedFormat;
-import com.github.dandelion.datatables.core.html.HtmlColumn;
-import com.github.dandelion.datatables.core.html.HtmlRow;
+import com.github.dandelion.datatables.core.export.RowExport;
 import com.github.dandelion.datatables.core.html.HtmlTable;
 
 /**
@@ -53,15 +55,20 @@ import com.github.dandelion.datatables.core.html.HtmlTable;
  * 
  * @author Thibault Duchateau
  */
-public class XlsExport implements DatatablesExport {
+public class XlsExport implements RowExport {
 
-   private HtmlTable table;
+   private ExportSource source;
    private ExportConf exportConf;
 
    @Override
    public void initExport(HtmlTable table) {
-      this.table = table;
-      this.exportConf = table.getTableConfiguration().getExportConfigurations().get(ReservedFormat.XLS);
+      initExport(new HtmlTableExportSource(table, ReservedFormat.XLS));
+   }
+
+   @Override
+   public void initExport(ExportSource source) {
+      this.source = source;
+      this.exportConf = source.getExportConf();
    }
 
    @Override
@@ -74,39 +81,46 @@ public class XlsExport implements DatatablesExport {
          Cell cell = null;
          int rowIndex = 0;
          int columnIndex;
+         ColumnWidthEstimator widthEstimator = exportConf.getAutoSize() ? new ColumnWidthEstimator(source
+               .getHeaders().size(), exportConf.getAutoSizeSampleInterval() != null ? exportConf
+               .getAutoSizeSampleInterval() : 1) : null;
 
          // Header
          if (exportConf.getIncludeHeader()) {
 
-            for (HtmlRow htmlRow : table.getHeadRows()) {
-
-               row = sheet.createRow(rowIndex++);
-               columnIndex = 0;
+            row = sheet.createRow(rowIndex++);
+            columnIndex = 0;
 
-               for (HtmlColumn column : htmlRow.getColumns(ReservedFormat.ALL, ReservedFormat.XLS)) {
-                  cell = row.createCell(columnIndex++);
-                  cell.setCellValue(column.getContent().toString());
-               }
+            for (String header : source.getHeaders()) {
+               cell = row.createCell(columnIndex++);
+               cell.setCellValue(header);
+            }
+            if (widthEstimator != null) {
+               widthEstimator.measure(source.getHeaders());
             }
          }
 
          // Body
-         for (HtmlRow htmlRow : table.getBodyRows()) {
+         for (String[] values : source) {
 
             row = sheet.createRow(rowIndex++);
             columnIndex = 0;
 
-            for (HtmlColumn column : htmlRow.getColumns(ReservedFormat.ALL, ReservedFormat.XLS)) {
+            for (String value : values) {
                cell = row.createCell(columnIndex++);
-               cell.setCellValue(column.getContent().toString());
+               cell.setCellValue(value);
+            }
+            if (widthEstimator != null) {
+               widthEstimator.sample(values);
             }
          }
 
-         // Column auto-sizing
-         if (exportConf.getAutoSize()) {
-            for (columnIndex = 0; columnIndex < table.getLastHeaderRow()
-                  .getColumns(ReservedFormat.ALL, ReservedFormat.XLS).size(); columnIndex++) {
-               sheet.autoSizeColumn(columnIndex);
+         // Column auto-sizing, without rendering the values
+         if (widthEstimator != null) {
+            for (columnIndex = 0; columnIndex < widthEstimator.getColumnCount(); columnIndex++) {
+               if (widthEstimator.getWidth(columnIndex) > 0) {
+                  sheet.setColumnWidth(columnIndex, widthEstimator.getWidth(columnIndex) * 256);
+               }
             }
          }
 
@@ -115,7 +129,7 @@ public class XlsExport implements DatatablesExport {
       }
       catch (IOException e) {
          StringBuilder sb = new StringBuilder("Something went wrong during the XLS generation of the table '");
-         sb.append(table.getOriginalId());
+         sb.append(source.getTableId());
          sb.append("' and with the following export configuration: ");
          sb.append(exportConf.toString());
          throw new DandelionException(sb.toString(), e);
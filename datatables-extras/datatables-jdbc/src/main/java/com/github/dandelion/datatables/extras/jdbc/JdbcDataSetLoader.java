@@ -0,0 +1,202 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.extras.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import com.github.dandelion.core.DandelionException;
+import com.github.dandelion.core.util.Validate;
+import com.github.dandelion.datatables.core.ajax.CountProvider;
+import com.github.dandelion.datatables.core.ajax.DataSet;
+import com.github.dandelion.datatables.core.ajax.DataSetLoader;
+import com.github.dandelion.datatables.core.ajax.DatatablesCriterias;
+
+/**
+ * <p>
+ * Loads the {@link DataSet} requested by DataTables from a {@link DataSource},
+ * using the queries generated by a {@link SqlTranslator}.
+ * </p>
+ * <p>
+ * The sort keys of the last row of each loaded page are remembered, so that
+ * the next page of the same query is selected using keyset pagination when
+ * the criterias are {@link SqlTranslator#isSeekable(DatatablesCriterias)
+ * seekable}. Other pages, e.g. when jumping to the last page, are selected
+ * using an offset.
+ * </p>
+ * <p>
+ * The rows are counted by a {@link CountProvider}, which remembers the counts.
+ * Since both the keysets and the counts depend on the rows, {@link #invalidate()}
+ * must be called whenever rows are inserted, updated or deleted.
+ * </p>
+ * 
+ * @param <T>
+ *           Type of the rows.
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+public class JdbcDataSetLoader<T> implements DataSetLoader<T> {
+
+   /**
+    * Maximum number of remembered keysets.
+    */
+   public static final int MAX_CACHED_KEYSETS = 1000;
+
+   private final DataSource dataSource;
+   private final SqlTranslator translator;
+   private final RowMapper<T> rowMapper;
+   private final CountProvider countProvider;
+   private final Map<String, Object[]> keysets = Collections.synchronizedMap(new LinkedHashMap<String, Object[]>(
+         16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Object[]> eldest) {
+         return size() > MAX_CACHED_KEYSETS;
+      }
+   });
+
+   public JdbcDataSetLoader(DataSource dataSource, SqlTranslator translator, RowMapper<T> rowMapper) {
+      this(dataSource, translator, rowMapper, -1);
+   }
+
+   /**
+    * @param countThreshold
+    *           The number of rows past which counting stops, a negative
+    *           threshold meaning exact counts.
+    * @see CountProvider#CountProvider(com.github.dandelion.datatables.core.ajax.RecordCounter,
+    *      long)
+    */
+   public JdbcDataSetLoader(DataSource dataSource, SqlTranslator translator, RowMapper<T> rowMapper,
+         long countThreshold) {
+      Validate.notNull(dataSource, "The data source cannot be null");
+      Validate.notNull(translator, "The SQL translator cannot be null");
+      Validate.notNull(rowMapper, "The row mapper cannot be null");
+      this.dataSource = dataSource;
+      this.translator = translator;
+      this.rowMapper = rowMapper;
+      this.countProvider = new CountProvider(new JdbcRecordCounter(dataSource, translator), countThreshold);
+   }
+
+   public CountProvider getCountProvider() {
+      return countProvider;
+   }
+
+   /**
+    * <p>
+    * Forgets the remembered keysets and counts, so that the next pages are
+    * selected and counted again from the current rows.
+    * </p>
+    */
+   public void invalidate() {
+      keysets.clear();
+      countProvider.invalidate();
+   }
+
+   /**
+    * <p>
+    * Loads the requested page, the rows being counted only if their counts
+    * are not known yet.
+    * </p>
+    * 
+    * @param criterias
+    *           The criterias sent by DataTables.
+    * @return the requested page, along with the total and filtered number of
+    *         rows.
+    * @throws DandelionException
+    *            if a SQL error occurs.
+    */
+   @Override
+   public DataSet<T> load(DatatablesCriterias criterias) {
+      // The rows are counted once the connection is released, so that at most
+      // one connection is used at a time
+      return countProvider.getDataSet(loadRows(criterias), criterias);
+   }
+
+   private List<T> loadRows(DatatablesCriterias criterias) {
+      Connection connection = null;
+      try {
+         connection = dataSource.getConnection();
+
+         int start = criterias.getStart() != null && criterias.getStart() > 0 ? criterias.getStart() : 0;
+         String queryKey = translator.isSeekable(criterias) ? criterias.getFilterSignature()
+               + criterias.getSortSignature() + "start=" : null;
+         Object[] seekKey = queryKey != null && start > 0 ? keysets.get(queryKey + start) : null;
+
+         List<T> rows = new ArrayList<T>();
+         int keyCount = translator.getSortKeys(criterias).size();
+         Object[] lastKey = null;
+         PreparedStatement statement = translator.dataQuery(criterias, seekKey).prepare(connection);
+         try {
+            ResultSet resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+               rows.add(rowMapper.mapRow(resultSet));
+               if (queryKey != null) {
+                  lastKey = new Object[keyCount];
+                  for (int i = 0; i < keyCount; i++) {
+                     lastKey[i] = resultSet.getObject(SqlTranslator.KEY_ALIAS_PREFIX + i);
+                  }
+               }
+            }
+            resultSet.close();
+         }
+         finally {
+            statement.close();
+         }
+
+         if (lastKey != null) {
+            keysets.put(queryKey + (start + rows.size()), lastKey);
+         }
+         return rows;
+      }
+      catch (SQLException e) {
+         throw new DandelionException("Unable to load the data set", e);
+      }
+      finally {
+         if (connection != null) {
+            try {
+               connection.close();
+            }
+            catch (SQLException e) {
+               // Nothing more to do
+            }
+         }
+      }
+   }
+}
@@ -0,0 +1,110 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.extras.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import com.github.dandelion.core.DandelionException;
+import com.github.dandelion.core.util.Validate;
+import com.github.dandelion.datatables.core.ajax.DatatablesCriterias;
+import com.github.dandelion.datatables.core.ajax.RecordCounter;
+
+/**
+ * <p>
+ * {@link RecordCounter} running the count queries generated by a
+ * {@link SqlTranslator}. A limited count only selects up to the limit before
+ * counting, so that the database can stop scanning early.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+public class JdbcRecordCounter implements RecordCounter {
+
+   private final DataSource dataSource;
+   private final SqlTranslator translator;
+
+   public JdbcRecordCounter(DataSource dataSource, SqlTranslator translator) {
+      Validate.notNull(dataSource, "The data source cannot be null");
+      Validate.notNull(translator, "The SQL translator cannot be null");
+      this.dataSource = dataSource;
+      this.translator = translator;
+   }
+
+   @Override
+   public long countTotal(long limit) {
+      return count(translator.countQuery(toInt(limit)));
+   }
+
+   @Override
+   public long countFiltered(DatatablesCriterias criterias, long limit) {
+      return count(translator.filteredCountQuery(criterias, toInt(limit)));
+   }
+
+   private long count(SqlQuery query) {
+      Connection connection = null;
+      try {
+         connection = dataSource.getConnection();
+         PreparedStatement statement = query.prepare(connection);
+         try {
+            ResultSet resultSet = statement.executeQuery();
+            resultSet.next();
+            long count = resultSet.getLong(1);
+            resultSet.close();
+            return count;
+         }
+         finally {
+            statement.close();
+         }
+      }
+      catch (SQLException e) {
+         throw new DandelionException("Unable to count the rows", e);
+      }
+      finally {
+         if (connection != null) {
+            try {
+               connection.close();
+            }
+            catch (SQLException e) {
+               // Nothing more to do
+            }
+         }
+      }
+   }
+
+   private static int toInt(long limit) {
+      return limit < 0 ? -1 : (int) Math.min(limit, Integer.MAX_VALUE);
+   }
+}
@@ -0,0 +1,108 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.extras.jdbc;
+
+import java.util.List;
+
+/**
+ * <p>
+ * SQL syntax variations supported by the {@link SqlTranslator}.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+public enum SqlDialect {
+
+   /**
+    * {@code LIMIT ? OFFSET ?} pagination, as supported by H2, HSQLDB,
+    * PostgreSQL or SQLite.
+    */
+   STANDARD {
+      @Override
+      void appendPagination(StringBuilder sql, List<Object> parameters, int offset, int limit) {
+         if (limit >= 0) {
+            sql.append(" LIMIT ?");
+            parameters.add(limit);
+         }
+         if (offset > 0) {
+            sql.append(" OFFSET ?");
+            parameters.add(offset);
+         }
+      }
+   },
+
+   /**
+    * Same as {@link #STANDARD}, but casting to {@code CHAR}, as required by
+    * MySQL and MariaDB.
+    */
+   MYSQL {
+      @Override
+      void appendPagination(StringBuilder sql, List<Object> parameters, int offset, int limit) {
+         STANDARD.appendPagination(sql, parameters, offset, limit);
+      }
+
+      @Override
+      String castToText(String expression) {
+         return "CAST(" + expression + " AS CHAR)";
+      }
+   },
+
+   /**
+    * SQL:2008 {@code OFFSET ? ROWS FETCH NEXT ? ROWS ONLY} pagination, as
+    * supported by Oracle 12c, SQL Server 2012 or DB2.
+    */
+   ANSI {
+      @Override
+      void appendPagination(StringBuilder sql, List<Object> parameters, int offset, int limit) {
+         if (offset > 0 || limit >= 0) {
+            sql.append(" OFFSET ? ROWS");
+            parameters.add(Math.max(offset, 0));
+         }
+         if (limit >= 0) {
+            sql.append(" FETCH NEXT ? ROWS ONLY");
+            parameters.add(limit);
+         }
+      }
+   };
+
+   /**
+    * Appends the pagination clause, a negative limit meaning no limit.
+    */
+   abstract void appendPagination(StringBuilder sql, List<Object> parameters, int offset, int limit);
+
+   /**
+    * @return an expression converting the passed one to text, to be searched
+    *         using {@code LIKE}.
+    */
+   String castToText(String expression) {
+      return "CAST(" + expression + " AS VARCHAR(255))";
+   }
+}
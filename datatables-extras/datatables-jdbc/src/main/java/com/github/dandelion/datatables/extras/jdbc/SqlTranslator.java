@@ -0,0 +1,551 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.extras.jdbc;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.dandelion.core.util.StringUtils;
+import com.github.dandelion.core.util.Validate;
+import com.github.dandelion.datatables.core.ajax.ColumnDef;
+import com.github.dandelion.datatables.core.ajax.ColumnDef.SortDirection;
+import com.github.dandelion.datatables.core.ajax.DatatablesCriterias;
+import com.github.dandelion.datatables.extras.jdbc.TableMapping.ColumnMapping;
+
+/**
+ * <p>
+ * Translates {@link DatatablesCriterias} into parameterized SQL queries, using
+ * a {@link TableMapping} as a whitelist of the searchable and sortable
+ * columns.
+ * </p>
+ * <p>
+ * The generated queries are:
+ * </p>
+ * <ul>
+ * <li>{@link #countQuery()}: the total number of rows</li>
+ * <li>{@link #filteredCountQuery(DatatablesCriterias)}: the number of rows
+ * matching the searches</li>
+ * <li>{@link #dataQuery(DatatablesCriterias, Object[])}: the rows of the
+ * requested page</li>
+ * </ul>
+ * <p>
+ * The global and column searches follow the DataTables "smart" search: each
+ * whitespace-separated word must be contained, case-insensitively, in one of
+ * the searched columns. The {@code searchFrom}/{@code searchTo} bounds are
+ * converted to the type of the column and compared inclusively. Regex
+ * searches, which are not portable across databases, are handled as plain
+ * searches.
+ * </p>
+ * <p>
+ * When the sort only involves indexed columns and the mapping declares a
+ * unique key, the rows of a page can be fetched using keyset (seek)
+ * pagination, i.e. with a {@code WHERE} clause starting right after the last
+ * row of the previous page, instead of an {@code OFFSET} whose cost grows
+ * with the page number.
+ * </p>
+ * <p>
+ * The statement text only depends on the shape of the criterias (which
+ * columns are searched and sorted, how many words are searched...), not on
+ * the searched values. It is therefore cached per shape, which also lets the
+ * JDBC driver or the connection pool reuse the prepared statements.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+public class SqlTranslator {
+
+   private static final Logger LOG = LoggerFactory.getLogger(SqlTranslator.class);
+
+   /**
+    * Maximum number of cached statement texts.
+    */
+   public static final int MAX_CACHED_STATEMENTS = 500;
+
+   /**
+    * Prefix of the aliases of the sort keys, added to the select list of the
+    * data query so that the keyset of the last row can be read.
+    */
+   public static final String KEY_ALIAS_PREFIX = "dt_key";
+
+   private static final char LIKE_ESCAPE = '!';
+   private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+
+   private final TableMapping mapping;
+   private final SqlDialect dialect;
+   private final ConcurrentMap<String, String> statements = new ConcurrentHashMap<String, String>();
+
+   public SqlTranslator(TableMapping mapping) {
+      this(mapping, SqlDialect.STANDARD);
+   }
+
+   public SqlTranslator(TableMapping mapping, SqlDialect dialect) {
+      Validate.notNull(mapping, "The table mapping cannot be null");
+      Validate.notNull(dialect, "The SQL dialect cannot be null");
+      this.mapping = mapping;
+      this.dialect = dialect;
+   }
+
+   public TableMapping getMapping() {
+      return mapping;
+   }
+
+   /**
+    * @return the query counting all rows.
+    */
+   public SqlQuery countQuery() {
+      return new SqlQuery("SELECT COUNT(*) FROM " + mapping.getFrom(), Collections.emptyList());
+   }
+
+   /**
+    * @param limit
+    *           The maximum number of rows to count, a negative limit meaning no
+    *           limit.
+    * @return the query counting all rows, but stopping at the limit.
+    */
+   public SqlQuery countQuery(int limit) {
+      if (limit < 0) {
+         return countQuery();
+      }
+      List<Object> parameters = new ArrayList<Object>();
+      StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM (SELECT 1 AS dt_row FROM ").append(mapping
+            .getFrom());
+      dialect.appendPagination(sql, parameters, -1, limit);
+      return new SqlQuery(sql.append(") dt_capped").toString(), parameters);
+   }
+
+   /**
+    * @return the query counting the rows matching the searches of the
+    *         criterias.
+    */
+   public SqlQuery filteredCountQuery(DatatablesCriterias criterias) {
+      return filteredCountQuery(criterias, -1);
+   }
+
+   /**
+    * @param limit
+    *           The maximum number of rows to count, a negative limit meaning no
+    *           limit.
+    * @return the query counting the rows matching the searches of the
+    *         criterias, but stopping at the limit.
+    */
+   public SqlQuery filteredCountQuery(DatatablesCriterias criterias, int limit) {
+      Plan plan = new Plan(criterias, null, false, limit);
+      return toQuery(plan);
+   }
+
+   /**
+    * @return the query selecting the requested page, using an offset.
+    */
+   public SqlQuery dataQuery(DatatablesCriterias criterias) {
+      return dataQuery(criterias, null);
+   }
+
+   /**
+    * <p>
+    * Returns the query selecting the requested page.
+    * </p>
+    * 
+    * @param criterias
+    *           The criterias sent by DataTables.
+    * @param seekKey
+    *           The sort keys of the row preceding the requested page, as read
+    *           from the {@link #KEY_ALIAS_PREFIX} columns of the previous
+    *           page, or {@code null}. If not {@code null} and the criterias are
+    *           {@link #isSeekable(DatatablesCriterias) seekable}, the page is
+    *           selected using keyset pagination. Otherwise, an offset is used.
+    * @return the query selecting the requested page.
+    */
+   public SqlQuery dataQuery(DatatablesCriterias criterias, Object[] seekKey) {
+      Plan plan = new Plan(criterias, seekKey, true, -1);
+      return toQuery(plan);
+   }
+
+   /**
+    * @return {@code true} if the page requested by the criterias can be
+    *         selected using keyset pagination, i.e. if all sorted columns are
+    *         indexed and a unique key is mapped.
+    */
+   public boolean isSeekable(DatatablesCriterias criterias) {
+      return isSeekable(getSortKeys(criterias));
+   }
+
+   /**
+    * @return the columns the rows are sorted by, the unique key of the mapping
+    *         being appended if needed.
+    */
+   public List<ColumnMapping> getSortKeys(DatatablesCriterias criterias) {
+      List<ColumnMapping> keys = new ArrayList<ColumnMapping>();
+      for (Order order : getOrders(criterias)) {
+         keys.add(order.column);
+      }
+      return keys;
+   }
+
+   /**
+    * @return the number of cached statement texts.
+    */
+   public int getCachedStatementCount() {
+      return statements.size();
+   }
+
+   private boolean isSeekable(List<ColumnMapping> keys) {
+      if (mapping.getUniqueKey() == null) {
+         return false;
+      }
+      for (ColumnMapping key : keys) {
+         if (!key.isIndexed()) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   private List<Order> getOrders(DatatablesCriterias criterias) {
+      List<Order> orders = new ArrayList<Order>();
+      boolean unique = false;
+      if (criterias.getSortedColumnDefs() != null) {
+         for (ColumnDef columnDef : criterias.getSortedColumnDefs()) {
+            ColumnMapping column = mapping.getColumn(columnDef.getName());
+            if (column == null) {
+               LOG.debug("Ignoring the sort on the unmapped column '{}'", columnDef.getName());
+               continue;
+            }
+            orders.add(new Order(column, columnDef.getSortDirection() == SortDirection.DESC));
+            unique |= column == mapping.getUniqueKey();
+         }
+      }
+      if (!unique && mapping.getUniqueKey() != null) {
+         orders.add(new Order(mapping.getUniqueKey(), false));
+      }
+      return orders;
+   }
+
+   private SqlQuery toQuery(Plan plan) {
+      String key = plan.shape.toString();
+      String sql = statements.get(key);
+      if (sql == null) {
+         sql = plan.toSql();
+         if (statements.size() < MAX_CACHED_STATEMENTS) {
+            statements.putIfAbsent(key, sql);
+         }
+      }
+      return new SqlQuery(sql, plan.parameters);
+   }
+
+   /**
+    * Converts a range bound to the type of the column.
+    */
+   private static Object toParameter(String bound, ColumnMapping column) {
+      String value = bound.trim();
+      Class<?> type = column.getType();
+      try {
+         if (type == Long.class) {
+            return Long.valueOf(value);
+         }
+         else if (type == Integer.class) {
+            return Integer.valueOf(value);
+         }
+         else if (type == Short.class) {
+            return Short.valueOf(value);
+         }
+         else if (type == Byte.class) {
+            return Byte.valueOf(value);
+         }
+         else if (type == Double.class) {
+            return Double.valueOf(value);
+         }
+         else if (type == Float.class) {
+            return Float.valueOf(value);
+         }
+         else if (type == BigDecimal.class) {
+            return new BigDecimal(value);
+         }
+         else if (type == BigInteger.class) {
+            return new BigInteger(value);
+         }
+         else if (type == Date.class) {
+            return Date.valueOf(value);
+         }
+         else if (type == Timestamp.class) {
+            return value.length() == 10 ? new Timestamp(Date.valueOf(value).getTime()) : Timestamp.valueOf(value);
+         }
+      }
+      catch (IllegalArgumentException e) {
+         LOG.debug("Ignoring the invalid bound '{}' of the column '{}'", bound, column.getProperty());
+         return null;
+      }
+      return value;
+   }
+
+   private static String toLikePattern(String word) {
+      StringBuilder pattern = new StringBuilder(word.length() + 4).append('%');
+      for (int i = 0; i < word.length(); i++) {
+         char c = word.charAt(i);
+         if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+            pattern.append(LIKE_ESCAPE);
+         }
+         pattern.append(c);
+      }
+      return pattern.append('%').toString();
+   }
+
+   private static List<String> toWords(String search) {
+      List<String> words = new ArrayList<String>();
+      for (String word : WHITESPACES.split(search.trim().toLowerCase())) {
+         if (word.length() > 0) {
+            words.add(word);
+         }
+      }
+      return words;
+   }
+
+   private static final class Order {
+
+      private final ColumnMapping column;
+      private final boolean descending;
+
+      private Order(ColumnMapping column, boolean descending) {
+         this.column = column;
+         this.descending = descending;
+      }
+   }
+
+   /**
+    * <p>
+    * Analysis of the criterias, computing both the parameters and the shape
+    * of the statement. The statement text itself is only generated when it is
+    * not cached yet.
+    * </p>
+    */
+   private final class Plan {
+
+      private final boolean data;
+      private final StringBuilder shape = new StringBuilder();
+      private final List<Object> parameters = new ArrayList<Object>();
+
+      private int globalWords;
+      private final List<ColumnMapping> searchable = new ArrayList<ColumnMapping>();
+      private final List<ColumnMapping> searched = new ArrayList<ColumnMapping>();
+      private final List<Integer> searchedWords = new ArrayList<Integer>();
+      private final List<ColumnMapping> ranged = new ArrayList<ColumnMapping>();
+      private final List<boolean[]> rangeBounds = new ArrayList<boolean[]>();
+      private List<Order> orders = Collections.emptyList();
+      private boolean seek;
+      private int offset = -1;
+      private int limit = -1;
+
+      private Plan(DatatablesCriterias criterias, Object[] seekKey, boolean data, int countLimit) {
+         this.data = data;
+         shape.append(data ? "data" : "count");
+
+         List<ColumnDef> columnDefs = criterias.getColumnDefs() != null ? criterias.getColumnDefs() : Collections
+               .<ColumnDef> emptyList();
+
+         // Global search
+         if (StringUtils.isNotBlank(criterias.getSearch())) {
+            for (ColumnDef columnDef : columnDefs) {
+               ColumnMapping column = mapping.getColumn(columnDef.getName());
+               if (columnDef.isSearchable() && column != null) {
+                  searchable.add(column);
+                  shape.append("|g:").append(column.getProperty());
+               }
+            }
+            List<String> words = toWords(criterias.getSearch());
+            globalWords = words.size();
+            shape.append("|gw:").append(globalWords);
+            for (String word : words) {
+               String pattern = toLikePattern(word);
+               for (int i = 0; i < searchable.size(); i++) {
+                  parameters.add(pattern);
+               }
+            }
+         }
+
+         // Column searches
+         for (ColumnDef columnDef : columnDefs) {
+            ColumnMapping column = mapping.getColumn(columnDef.getName());
+            if (!columnDef.isFiltered() || column == null) {
+               continue;
+            }
+            if (StringUtils.isNotBlank(columnDef.getSearch())) {
+               List<String> words = toWords(columnDef.getSearch());
+               searched.add(column);
+               searchedWords.add(words.size());
+               shape.append("|c:").append(column.getProperty()).append(':').append(words.size());
+               for (String word : words) {
+                  parameters.add(toLikePattern(word));
+               }
+            }
+            Object from = StringUtils.isNotBlank(columnDef.getSearchFrom()) ? toParameter(columnDef.getSearchFrom(),
+                  column) : null;
+            Object to = StringUtils.isNotBlank(columnDef.getSearchTo()) ? toParameter(columnDef.getSearchTo(),
+                  column) : null;
+            if (from != null || to != null) {
+               ranged.add(column);
+               rangeBounds.add(new boolean[] { from != null, to != null });
+               shape.append("|r:").append(column.getProperty()).append(':').append(from != null)
+                     .append(':').append(to != null);
+               if (from != null) {
+                  parameters.add(from);
+               }
+               if (to != null) {
+                  parameters.add(to);
+               }
+            }
+         }
+
+         if (!data) {
+            // Capped count, wrapping the limited selection of the rows
+            if (countLimit >= 0) {
+               limit = countLimit;
+               shape.append("|cap");
+               dialect.appendPagination(new StringBuilder(), parameters, -1, limit);
+            }
+            return;
+         }
+
+         // Keyset
+         orders = getOrders(criterias);
+         List<ColumnMapping> keys = new ArrayList<ColumnMapping>();
+         for (Order order : orders) {
+            keys.add(order.column);
+            shape.append("|o:").append(order.column.getProperty()).append(':').append(order.descending);
+         }
+         seek = seekKey != null && seekKey.length == keys.size() && isSeekable(keys);
+         if (seek) {
+            shape.append("|seek");
+            for (int i = 0; i < keys.size(); i++) {
+               for (int j = 0; j <= i; j++) {
+                  parameters.add(seekKey[j]);
+               }
+            }
+         }
+
+         // Pagination
+         if (!seek && criterias.getStart() != null && criterias.getStart() > 0) {
+            offset = criterias.getStart();
+         }
+         if (criterias.getLength() != null && criterias.getLength() >= 0) {
+            limit = criterias.getLength();
+         }
+         shape.append("|p:").append(offset > 0).append(':').append(limit >= 0);
+         StringBuilder ignored = new StringBuilder();
+         dialect.appendPagination(ignored, parameters, offset, limit);
+      }
+
+      private String toSql() {
+         StringBuilder sql = new StringBuilder("SELECT ");
+         if (data) {
+            sql.append(mapping.getSelect());
+            for (int i = 0; i < orders.size(); i++) {
+               sql.append(", ").append(orders.get(i).column.getExpression()).append(" AS ").append(KEY_ALIAS_PREFIX)
+                     .append(i);
+            }
+         }
+         else {
+            sql.append(limit >= 0 ? "1 AS dt_row" : "COUNT(*)");
+         }
+         sql.append(" FROM ").append(mapping.getFrom());
+
+         List<String> conditions = new ArrayList<String>();
+         for (int w = 0; w < globalWords; w++) {
+            if (searchable.isEmpty()) {
+               conditions.add("1 = 0");
+               continue;
+            }
+            StringBuilder condition = new StringBuilder("(");
+            for (int i = 0; i < searchable.size(); i++) {
+               condition.append(i > 0 ? " OR " : "").append(like(searchable.get(i)));
+            }
+            conditions.add(condition.append(')').toString());
+         }
+         for (int i = 0; i < searched.size(); i++) {
+            for (int w = 0; w < searchedWords.get(i); w++) {
+               conditions.add(like(searched.get(i)));
+            }
+         }
+         for (int i = 0; i < ranged.size(); i++) {
+            String expression = ranged.get(i).getExpression();
+            if (rangeBounds.get(i)[0]) {
+               conditions.add(expression + " >= ?");
+            }
+            if (rangeBounds.get(i)[1]) {
+               conditions.add(expression + " <= ?");
+            }
+         }
+         if (seek) {
+            StringBuilder condition = new StringBuilder("(");
+            for (int i = 0; i < orders.size(); i++) {
+               condition.append(i > 0 ? " OR " : "").append('(');
+               for (int j = 0; j < i; j++) {
+                  condition.append(orders.get(j).column.getExpression()).append(" = ? AND ");
+               }
+               condition.append(orders.get(i).column.getExpression())
+                     .append(orders.get(i).descending ? " < ?" : " > ?").append(')');
+            }
+            conditions.add(condition.append(')').toString());
+         }
+
+         for (int i = 0; i < conditions.size(); i++) {
+            sql.append(i == 0 ? " WHERE " : " AND ").append(conditions.get(i));
+         }
+
+         if (data) {
+            for (int i = 0; i < orders.size(); i++) {
+               Order order = orders.get(i);
+               sql.append(i == 0 ? " ORDER BY " : ", ").append(order.column.getExpression())
+                     .append(order.descending ? " DESC" : " ASC");
+            }
+            dialect.appendPagination(sql, new ArrayList<Object>(), offset, limit);
+         }
+         else if (limit >= 0) {
+            dialect.appendPagination(sql, new ArrayList<Object>(), -1, limit);
+            sql.insert(0, "SELECT COUNT(*) FROM (").append(") dt_capped");
+         }
+         return sql.toString();
+      }
+
+      private String like(ColumnMapping column) {
+         return "LOWER(" + dialect.castToText(column.getExpression()) + ") LIKE ? ESCAPE '" + LIKE_ESCAPE + "'";
+      }
+   }
+}
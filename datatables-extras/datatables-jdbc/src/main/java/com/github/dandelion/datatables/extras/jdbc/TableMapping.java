@@ -0,0 +1,250 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.extras.jdbc;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.github.dandelion.core.DandelionException;
+import com.github.dandelion.core.util.Validate;
+
+/**
+ * <p>
+ * Whitelist of the columns that can be searched and sorted from DataTables,
+ * mapping the {@code data} property of each column to a trusted SQL
+ * expression.
+ * </p>
+ * <p>
+ * Only the SQL fragments declared here end up in the generated queries: the
+ * values sent by DataTables are always bound as parameters and the columns
+ * that are not mapped are ignored.
+ * </p>
+ * 
+ * <pre>
+ * TableMapping mapping = new TableMapping.Builder(&quot;person p LEFT JOIN town t ON t.id = p.town_id&quot;)
+ *       .select(&quot;p.id, p.first_name, p.last_name, t.name AS town_name&quot;)
+ *       .column(&quot;id&quot;, &quot;p.id&quot;, Long.class).indexed()
+ *       .column(&quot;lastName&quot;, &quot;p.last_name&quot;).indexed()
+ *       .column(&quot;address.town.name&quot;, &quot;t.name&quot;)
+ *       .uniqueKey(&quot;id&quot;)
+ *       .build();
+ * </pre>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+public class TableMapping {
+
+   private final String from;
+   private final String select;
+   private final Map<String, ColumnMapping> columns;
+   private final ColumnMapping uniqueKey;
+
+   private TableMapping(Builder builder) {
+      this.from = builder.from;
+      this.select = builder.select;
+      this.columns = Collections.unmodifiableMap(new LinkedHashMap<String, ColumnMapping>(builder.columns));
+      this.uniqueKey = builder.uniqueKey != null ? columns.get(builder.uniqueKey) : null;
+   }
+
+   /**
+    * @return the {@code FROM} clause, without the {@code FROM} keyword.
+    */
+   public String getFrom() {
+      return from;
+   }
+
+   /**
+    * @return the select list, without the {@code SELECT} keyword.
+    */
+   public String getSelect() {
+      return select;
+   }
+
+   /**
+    * @param property
+    *           The {@code data} property of a DataTables column.
+    * @return the mapping of the column or {@code null} if it is not mapped.
+    */
+   public ColumnMapping getColumn(String property) {
+      return property != null ? columns.get(property) : null;
+   }
+
+   public Map<String, ColumnMapping> getColumns() {
+      return columns;
+   }
+
+   /**
+    * @return the column uniquely identifying a row, appended to the sort
+    *         order so that it is deterministic, or {@code null}.
+    */
+   public ColumnMapping getUniqueKey() {
+      return uniqueKey;
+   }
+
+   /**
+    * Mapping of a DataTables column to a SQL expression.
+    */
+   public static class ColumnMapping {
+
+      private final String property;
+      private final String expression;
+      private final Class<?> type;
+      private boolean indexed;
+
+      private ColumnMapping(String property, String expression, Class<?> type) {
+         this.property = property;
+         this.expression = expression;
+         this.type = type;
+      }
+
+      public String getProperty() {
+         return property;
+      }
+
+      public String getExpression() {
+         return expression;
+      }
+
+      /**
+       * @return the type the range filter bounds are converted to.
+       */
+      public Class<?> getType() {
+         return type;
+      }
+
+      /**
+       * @return {@code true} if the expression is backed by a database index
+       *         and is never {@code null}, which allows keyset pagination.
+       */
+      public boolean isIndexed() {
+         return indexed;
+      }
+   }
+
+   /**
+    * <p>
+    * Builder for {@link TableMapping}.
+    * </p>
+    */
+   public static class Builder {
+
+      private final String from;
+      private String select = "*";
+      private final Map<String, ColumnMapping> columns = new LinkedHashMap<String, ColumnMapping>();
+      private ColumnMapping lastColumn;
+      private String uniqueKey;
+
+      /**
+       * @param from
+       *           The {@code FROM} clause, without the {@code FROM} keyword,
+       *           e.g. {@code person p JOIN town t ON t.id = p.town_id}.
+       */
+      public Builder(String from) {
+         Validate.notBlank(from, "The FROM clause cannot be blank");
+         this.from = from;
+      }
+
+      /**
+       * @param select
+       *           The select list, without the {@code SELECT} keyword.
+       *           Defaults to {@code *}.
+       */
+      public Builder select(String select) {
+         Validate.notBlank(select, "The select list cannot be blank");
+         this.select = select;
+         return this;
+      }
+
+      /**
+       * <p>
+       * Maps a textual DataTables column to a SQL expression.
+       * </p>
+       */
+      public Builder column(String property, String expression) {
+         return column(property, expression, String.class);
+      }
+
+      /**
+       * <p>
+       * Maps a DataTables column to a SQL expression, whose range filter
+       * bounds are converted to the passed type. Supported types are
+       * {@link String}, the {@link Number} subclasses of {@code java.lang} and
+       * {@code java.math}, {@link java.sql.Date} and
+       * {@link java.sql.Timestamp}.
+       * </p>
+       */
+      public Builder column(String property, String expression, Class<?> type) {
+         Validate.notBlank(property, "The column property cannot be blank");
+         Validate.notBlank(expression, "The column expression cannot be blank");
+         Validate.notNull(type, "The column type cannot be null");
+         lastColumn = new ColumnMapping(property, expression, type);
+         columns.put(property, lastColumn);
+         return this;
+      }
+
+      /**
+       * <p>
+       * Declares the last mapped column as backed by a database index and
+       * never {@code null}, so that it can be used for keyset pagination.
+       * </p>
+       */
+      public Builder indexed() {
+         if (lastColumn == null) {
+            throw new DandelionException("A column must be mapped before being declared as indexed");
+         }
+         lastColumn.indexed = true;
+         return this;
+      }
+
+      /**
+       * <p>
+       * Declares the mapped column uniquely identifying a row, e.g. the primary
+       * key. It is required for keyset pagination.
+       * </p>
+       */
+      public Builder uniqueKey(String property) {
+         this.uniqueKey = property;
+         return this;
+      }
+
+      public TableMapping build() {
+         if (uniqueKey != null) {
+            ColumnMapping column = columns.get(uniqueKey);
+            if (column == null) {
+               throw new DandelionException("The unique key '" + uniqueKey + "' must be a mapped column");
+            }
+            column.indexed = true;
+         }
+         return new TableMapping(this);
+      }
+   }
+}
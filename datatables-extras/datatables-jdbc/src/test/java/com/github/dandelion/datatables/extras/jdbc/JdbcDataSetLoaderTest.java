@@ -0,0 +1,188 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.extras.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.github.dandelion.datatables.core.ajax.DataSet;
+import com.github.dandelion.datatables.core.ajax.DatatablesCriterias;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JdbcDataSetLoaderTest {
+
+	private static final int ROWS = 95;
+
+	private JdbcDataSource dataSource;
+	private Connection keepAlive;
+	private JdbcDataSetLoader<Long> loader;
+
+	@Before
+	public void setup() throws SQLException {
+		dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:datatables");
+		keepAlive = dataSource.getConnection();
+		Statement statement = keepAlive.createStatement();
+		statement.execute("CREATE TABLE person (id BIGINT PRIMARY KEY, first_name VARCHAR(50) NOT NULL, last_name VARCHAR(50))");
+		statement.close();
+		PreparedStatement insert = keepAlive.prepareStatement("INSERT INTO person VALUES (?, ?, ?)");
+		for (int i = 1; i <= ROWS; i++) {
+			insert.setLong(1, i);
+			insert.setString(2, "Name" + (i % 10));
+			insert.setString(3, i % 2 == 0 ? "Even" : "Odd");
+			insert.executeUpdate();
+		}
+		insert.close();
+
+		TableMapping mapping = new TableMapping.Builder("person")
+				.select("id")
+				.column("id", "id", Long.class).indexed()
+				.column("firstName", "first_name").indexed()
+				.column("lastName", "last_name")
+				.uniqueKey("id")
+				.build();
+		loader = new JdbcDataSetLoader<Long>(dataSource, new SqlTranslator(mapping), new RowMapper<Long>() {
+
+			@Override
+			public Long mapRow(ResultSet resultSet) throws SQLException {
+				return resultSet.getLong("id");
+			}
+		});
+	}
+
+	@After
+	public void tearDown() throws SQLException {
+		keepAlive.close();
+	}
+
+	@Test
+	public void should_page_through_the_rows_using_the_keyset_of_the_previous_page() {
+		List<Long> all = new ArrayList<Long>();
+		for (int start = 0; start < ROWS; start += 10) {
+			DataSet<Long> dataSet = loader.load(criterias(start, "", "desc"));
+			assertThat(dataSet.getTotalRecords()).isEqualTo(ROWS);
+			assertThat(dataSet.getTotalDisplayRecords()).isEqualTo(ROWS);
+			all.addAll(dataSet.getRows());
+		}
+
+		// Sorted by first name descending, then by id
+		assertThat(all).hasSize(ROWS);
+		assertThat(all.subList(0, 3)).containsExactly(9L, 19L, 29L);
+		assertThat(all.get(ROWS - 1)).isEqualTo(90L);
+
+		// Jumping to a page without a known keyset falls back to an offset
+		assertThat(loader.load(criterias(5, "", "desc")).getRows()).isEqualTo(all.subList(5, 15));
+	}
+
+	@Test
+	public void should_count_the_filtered_rows() {
+		DataSet<Long> dataSet = loader.load(criterias(0, "name3 ODD", "asc"));
+
+		assertThat(dataSet.getTotalRecords()).isEqualTo(ROWS);
+		assertThat(dataSet.getTotalDisplayRecords()).isEqualTo(10);
+		assertThat(dataSet.getRows()).containsExactly(3L, 13L, 23L, 33L, 43L, 53L, 63L, 73L, 83L, 93L);
+	}
+
+	@Test
+	public void should_remember_the_counts_until_invalidated() throws SQLException {
+		loader.load(criterias(0, "name3", "asc"));
+		Statement statement = keepAlive.createStatement();
+		statement.execute("DELETE FROM person WHERE id = 3");
+		statement.close();
+
+		DataSet<Long> dataSet = loader.load(criterias(10, "name3", "desc"));
+		assertThat(dataSet.getTotalRecords()).isEqualTo(ROWS);
+		assertThat(dataSet.getTotalDisplayRecords()).isEqualTo(10);
+
+		loader.invalidate();
+		dataSet = loader.load(criterias(0, "name3", "asc"));
+		assertThat(dataSet.getTotalRecords()).isEqualTo(ROWS - 1);
+		assertThat(dataSet.getTotalDisplayRecords()).isEqualTo(9);
+	}
+
+	@Test
+	public void should_forget_the_keysets_once_invalidated() throws SQLException {
+		assertThat(loader.load(criterias(0, "", "asc")).getRows()).endsWith(1L);
+		Statement statement = keepAlive.createStatement();
+		statement.execute("INSERT INTO person VALUES (1000, 'Name0', 'Even')");
+		statement.close();
+
+		loader.invalidate();
+		DataSet<Long> dataSet = loader.load(criterias(10, "", "asc"));
+		assertThat(dataSet.getTotalRecords()).isEqualTo(ROWS + 1);
+		assertThat(dataSet.getRows().get(0)).isEqualTo(1L);
+	}
+
+	@Test
+	public void should_cap_the_counts_at_the_threshold() {
+		JdbcDataSetLoader<Long> capped = new JdbcDataSetLoader<Long>(dataSource, new SqlTranslator(new TableMapping.Builder(
+				"person").select("id").column("id", "id", Long.class).build()), new RowMapper<Long>() {
+
+			@Override
+			public Long mapRow(ResultSet resultSet) throws SQLException {
+				return resultSet.getLong("id");
+			}
+		}, 50);
+
+		DataSet<Long> dataSet = capped.load(criterias(0, "", "asc"));
+
+		assertThat(dataSet.getTotalRecords()).isEqualTo(50);
+		assertThat(dataSet.getTotalDisplayRecords()).isEqualTo(50);
+		assertThat(dataSet.isApproximate()).isTrue();
+		assertThat(dataSet.getRows()).hasSize(10);
+	}
+
+	private DatatablesCriterias criterias(int start, String search, String direction) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addParameter("columns[0][data]", "id");
+		request.addParameter("columns[1][data]", "firstName");
+		request.addParameter("columns[1][searchable]", "true");
+		request.addParameter("columns[2][data]", "lastName");
+		request.addParameter("columns[2][searchable]", "true");
+		request.addParameter("order[0][column]", "1");
+		request.addParameter("order[0][dir]", direction);
+		request.addParameter("search[value]", search);
+		request.addParameter("start", String.valueOf(start));
+		request.addParameter("length", "10");
+		return DatatablesCriterias.getFromRequest(request);
+	}
+}
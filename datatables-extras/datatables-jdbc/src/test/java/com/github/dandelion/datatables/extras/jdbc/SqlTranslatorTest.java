@@ -0,0 +1,150 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.extras.jdbc;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.github.dandelion.datatables.core.ajax.DatatablesCriterias;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SqlTranslatorTest {
+
+	private SqlTranslator translator;
+	private MockHttpServletRequest request;
+
+	@Before
+	public void setup() {
+		TableMapping mapping = new TableMapping.Builder("person")
+				.select("id, first_name")
+				.column("id", "id", Long.class).indexed()
+				.column("firstName", "first_name").indexed()
+				.column("lastName", "last_name")
+				.uniqueKey("id")
+				.build();
+		translator = new SqlTranslator(mapping);
+		request = new MockHttpServletRequest();
+		request.addParameter("columns[0][data]", "id");
+		request.addParameter("columns[1][data]", "firstName");
+		request.addParameter("columns[1][searchable]", "true");
+		request.addParameter("columns[2][data]", "lastName");
+		request.addParameter("columns[2][searchable]", "true");
+		request.addParameter("columns[3][data]", "password");
+		request.addParameter("columns[3][searchable]", "true");
+		request.addParameter("start", "20");
+		request.addParameter("length", "10");
+	}
+
+	@Test
+	public void should_bind_the_searched_words_and_ignore_unmapped_columns() {
+		request.addParameter("search[value]", "jo 50%");
+
+		SqlQuery query = translator.filteredCountQuery(DatatablesCriterias.getFromRequest(request));
+
+		assertThat(query.getSql()).isEqualTo("SELECT COUNT(*) FROM person"
+				+ " WHERE (LOWER(CAST(first_name AS VARCHAR(255))) LIKE ? ESCAPE '!' OR LOWER(CAST(last_name AS VARCHAR(255))) LIKE ? ESCAPE '!')"
+				+ " AND (LOWER(CAST(first_name AS VARCHAR(255))) LIKE ? ESCAPE '!' OR LOWER(CAST(last_name AS VARCHAR(255))) LIKE ? ESCAPE '!')");
+		assertThat(query.getParameters()).containsExactly("%jo%", "%jo%", "%50!%%", "%50!%%");
+	}
+
+	@Test
+	public void should_convert_the_range_bounds() {
+		request.addParameter("columns[0][search][value]", "10~abc");
+
+		SqlQuery query = translator.filteredCountQuery(DatatablesCriterias.getFromRequest(request));
+
+		assertThat(query.getSql()).isEqualTo("SELECT COUNT(*) FROM person WHERE id >= ?");
+		assertThat(query.getParameters()).containsExactly(10L);
+	}
+
+	@Test
+	public void should_only_select_up_to_the_limit_before_counting() {
+		request.addParameter("columns[0][search][value]", "10~");
+
+		SqlQuery query = translator.filteredCountQuery(DatatablesCriterias.getFromRequest(request), 1000);
+
+		assertThat(query.getSql()).isEqualTo(
+				"SELECT COUNT(*) FROM (SELECT 1 AS dt_row FROM person WHERE id >= ? LIMIT ?) dt_capped");
+		assertThat(query.getParameters()).containsExactly(10L, 1000);
+		assertThat(translator.countQuery(1000).getSql()).isEqualTo(
+				"SELECT COUNT(*) FROM (SELECT 1 AS dt_row FROM person LIMIT ?) dt_capped");
+	}
+
+	@Test
+	public void should_use_an_offset_without_keyset() {
+		request.addParameter("order[0][column]", "1");
+		request.addParameter("order[0][dir]", "desc");
+
+		SqlQuery query = translator.dataQuery(DatatablesCriterias.getFromRequest(request));
+
+		assertThat(query.getSql()).isEqualTo("SELECT id, first_name, first_name AS dt_key0, id AS dt_key1 FROM person"
+				+ " ORDER BY first_name DESC, id ASC LIMIT ? OFFSET ?");
+		assertThat(query.getParameters()).containsExactly(10, 20);
+	}
+
+	@Test
+	public void should_seek_after_the_passed_keyset() {
+		request.addParameter("order[0][column]", "1");
+		request.addParameter("order[0][dir]", "desc");
+		DatatablesCriterias criterias = DatatablesCriterias.getFromRequest(request);
+
+		SqlQuery query = translator.dataQuery(criterias, new Object[] { "Joe", 12L });
+
+		assertThat(translator.isSeekable(criterias)).isTrue();
+		assertThat(query.getSql()).isEqualTo("SELECT id, first_name, first_name AS dt_key0, id AS dt_key1 FROM person"
+				+ " WHERE ((first_name < ?) OR (first_name = ? AND id > ?))"
+				+ " ORDER BY first_name DESC, id ASC LIMIT ?");
+		assertThat(query.getParameters()).containsExactly("Joe", "Joe", 12L, 10);
+	}
+
+	@Test
+	public void should_not_seek_on_a_column_that_is_not_indexed() {
+		request.addParameter("order[0][column]", "2");
+		DatatablesCriterias criterias = DatatablesCriterias.getFromRequest(request);
+
+		assertThat(translator.isSeekable(criterias)).isFalse();
+		assertThat(translator.dataQuery(criterias, new Object[] { "Doe", 12L }).getSql()).endsWith("OFFSET ?");
+	}
+
+	@Test
+	public void should_cache_the_statement_text_per_shape() {
+		request.addParameter("search[value]", "jo");
+		SqlQuery first = translator.filteredCountQuery(DatatablesCriterias.getFromRequest(request));
+
+		request.setParameter("search[value]", "ann");
+		SqlQuery second = translator.filteredCountQuery(DatatablesCriterias.getFromRequest(request));
+
+		assertThat(second.getSql()).isSameAs(first.getSql());
+		assertThat(second.getParameters()).containsExactly("%ann%", "%ann%");
+		assertThat(translator.getCachedStatementCount()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,235 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.extras.spring3.jpa;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+
+import com.github.dandelion.core.util.Validate;
+import com.github.dandelion.datatables.core.ajax.DataSet;
+import com.github.dandelion.datatables.core.ajax.DatatablesCriterias;
+import com.github.dandelion.datatables.extras.spring3.jpa.JpaCriteriasTranslator.PathResolver;
+
+/**
+ * <p>
+ * Executes {@link DatatablesCriterias} against a JPA entity, using the
+ * Criteria API.
+ * </p>
+ * <p>
+ * Only the whitelisted properties passed to the constructor can be searched,
+ * sorted or projected. Dotted properties, such as {@code address.town.name},
+ * are resolved through left joins on the to-one associations.
+ * </p>
+ * <p>
+ * Two ways of loading the rows are available:
+ * </p>
+ * <ul>
+ * <li>{@link #findAll(DatatablesCriterias)} loads the entities, fetch-joining
+ * the associations of the requested nested properties, which avoids the N+1
+ * selects problem</li>
+ * <li>{@link #findProjection(DatatablesCriterias)} only selects the requested
+ * properties, and returns them as nested maps, ready to be serialized to
+ * DataTables</li>
+ * </ul>
+ * <p>
+ * In both cases, the count queries only contain the joins required by the
+ * searches.
+ * </p>
+ * 
+ * <pre>
+ * DatatablesJpaQuery&lt;Person&gt; query = new DatatablesJpaQuery&lt;Person&gt;(entityManager, Person.class, &quot;id&quot;,
+ *       &quot;firstName&quot;, &quot;lastName&quot;, &quot;address.town.name&quot;);
+ * DataSet&lt;Person&gt; dataSet = query.findAll(criterias);
+ * </pre>
+ * 
+ * @param <T>
+ *           Type of the entity.
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+public class DatatablesJpaQuery<T> {
+
+   private final EntityManager entityManager;
+   private final Class<T> entityClass;
+   private final JpaCriteriasTranslator translator;
+
+   /**
+    * @param entityManager
+    *           The entity manager used to run the queries.
+    * @param entityClass
+    *           The queried entity.
+    * @param properties
+    *           The properties that DataTables is allowed to search, sort and
+    *           project.
+    */
+   public DatatablesJpaQuery(EntityManager entityManager, Class<T> entityClass, String... properties) {
+      Validate.notNull(entityManager, "The entity manager cannot be null");
+      Validate.notNull(entityClass, "The entity class cannot be null");
+      this.entityManager = entityManager;
+      this.entityClass = entityClass;
+      this.translator = new JpaCriteriasTranslator(properties);
+   }
+
+   /**
+    * <p>
+    * Loads the requested page of entities, along with the associations of the
+    * requested nested properties.
+    * </p>
+    */
+   public DataSet<T> findAll(DatatablesCriterias criterias) {
+      CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+      CriteriaQuery<T> query = cb.createQuery(entityClass);
+      Root<T> root = query.from(entityClass);
+      PathResolver resolver = new PathResolver(root, true);
+
+      // Fetch-joins the associations of the nested properties
+      for (String property : translator.getRequestedProperties(criterias)) {
+         resolver.get(property);
+      }
+      query.select(root);
+      applyCriterias(query, resolver, cb, criterias);
+
+      List<T> rows = page(entityManager.createQuery(query), criterias).getResultList();
+      return toDataSet(rows, criterias);
+   }
+
+   /**
+    * <p>
+    * Loads the requested page, only selecting the requested properties. Each
+    * row is returned as a map, where dotted properties are stored in nested
+    * maps, e.g. {@code address.town.name} is stored as
+    * {@code {"address": {"town": {"name": ...}}}}.
+    * </p>
+    */
+   public DataSet<Map<String, Object>> findProjection(DatatablesCriterias criterias) {
+      CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+      CriteriaQuery<Tuple> query = cb.createTupleQuery();
+      Root<T> root = query.from(entityClass);
+      PathResolver resolver = new PathResolver(root, false);
+
+      List<String> properties = translator.getRequestedProperties(criterias);
+      List<Selection<?>> selections = new ArrayList<Selection<?>>();
+      for (String property : properties) {
+         selections.add(resolver.get(property));
+      }
+      query.multiselect(selections);
+      applyCriterias(query, resolver, cb, criterias);
+
+      List<Map<String, Object>> rows = new ArrayList<Map<String, Object>>();
+      for (Tuple tuple : page(entityManager.createQuery(query), criterias).getResultList()) {
+         Map<String, Object> row = new LinkedHashMap<String, Object>();
+         for (int i = 0; i < properties.size(); i++) {
+            put(row, properties.get(i), tuple.get(i));
+         }
+         rows.add(row);
+      }
+      return toDataSet(rows, criterias);
+   }
+
+   /**
+    * @return the total number of entities.
+    */
+   public long count() {
+      CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+      CriteriaQuery<Long> query = cb.createQuery(Long.class);
+      query.select(cb.count(query.from(entityClass)));
+      return entityManager.createQuery(query).getSingleResult();
+   }
+
+   /**
+    * @return the number of entities matching the searches of the criterias.
+    */
+   public long countFiltered(DatatablesCriterias criterias) {
+      CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+      CriteriaQuery<Long> query = cb.createQuery(Long.class);
+      Root<T> root = query.from(entityClass);
+      query.select(cb.count(root));
+      Predicate predicate = translator.toPredicate(new PathResolver(root, false), cb, criterias);
+      if (predicate != null) {
+         query.where(predicate);
+      }
+      return entityManager.createQuery(query).getSingleResult();
+   }
+
+   private void applyCriterias(CriteriaQuery<?> query, PathResolver resolver, CriteriaBuilder cb,
+         DatatablesCriterias criterias) {
+      Predicate predicate = translator.toPredicate(resolver, cb, criterias);
+      if (predicate != null) {
+         query.where(predicate);
+      }
+      List<Order> orders = translator.toOrders(resolver, cb, criterias);
+      if (!orders.isEmpty()) {
+         query.orderBy(orders);
+      }
+   }
+
+   private <R> DataSet<R> toDataSet(List<R> rows, DatatablesCriterias criterias) {
+      long total = count();
+      long filtered = translator.isFiltered(criterias) ? countFiltered(criterias) : total;
+      return new DataSet<R>(rows, total, filtered);
+   }
+
+   private static <R> TypedQuery<R> page(TypedQuery<R> query, DatatablesCriterias criterias) {
+      if (criterias.getStart() != null && criterias.getStart() > 0) {
+         query.setFirstResult(criterias.getStart());
+      }
+      if (criterias.getLength() != null && criterias.getLength() >= 0) {
+         query.setMaxResults(criterias.getLength());
+      }
+      return query;
+   }
+
+   @SuppressWarnings("unchecked")
+   private static void put(Map<String, Object> row, String property, Object value) {
+      Map<String, Object> map = row;
+      String[] segments = property.split("\\.");
+      for (int i = 0; i < segments.length - 1; i++) {
+         Object child = map.get(segments[i]);
+         if (!(child instanceof Map)) {
+            child = new LinkedHashMap<String, Object>();
+            map.put(segments[i], child);
+         }
+         map = (Map<String, Object>) child;
+      }
+      map.put(segments[segments.length - 1], value);
+   }
+}
@@ -0,0 +1,142 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.extras.spring3.jpa;
+
+import java.util.List;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.github.dandelion.core.util.Validate;
+import com.github.dandelion.datatables.core.ajax.DataSet;
+import com.github.dandelion.datatables.core.ajax.DatatablesCriterias;
+import com.github.dandelion.datatables.extras.spring3.jpa.JpaCriteriasTranslator.PathResolver;
+
+/**
+ * <p>
+ * Spring Data JPA {@link Specification} built from {@link DatatablesCriterias},
+ * to be used with a {@code JpaSpecificationExecutor}:
+ * </p>
+ * 
+ * <pre>
+ * DatatablesSpecification&lt;Person&gt; specification = new DatatablesSpecification&lt;Person&gt;(criterias, &quot;id&quot;,
+ *       &quot;firstName&quot;, &quot;lastName&quot;, &quot;address.town.name&quot;);
+ * Page&lt;Person&gt; page = personRepository.findAll(specification, DatatablesSpecification.toPageable(criterias));
+ * DataSet&lt;Person&gt; dataSet = DatatablesSpecification.toDataSet(page, personRepository.count());
+ * </pre>
+ * <p>
+ * Only the whitelisted properties can be searched or sorted. When the
+ * specification is applied to the query loading the entities, the
+ * associations of the requested nested properties are fetch-joined and the
+ * sort is applied. When it is applied to the count query, only the joins
+ * required by the searches are created.
+ * </p>
+ * <p>
+ * The sort is applied by the specification itself rather than through the
+ * {@link Pageable}, so that sorting on a nested property uses the same left
+ * joins as the searches, and keeps the rows whose association is
+ * {@code null}.
+ * </p>
+ * 
+ * @param <T>
+ *           Type of the entity.
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+public class DatatablesSpecification<T> implements Specification<T> {
+
+   private final DatatablesCriterias criterias;
+   private final JpaCriteriasTranslator translator;
+
+   /**
+    * @param criterias
+    *           The criterias sent by DataTables.
+    * @param properties
+    *           The properties that DataTables is allowed to search and sort.
+    */
+   public DatatablesSpecification(DatatablesCriterias criterias, String... properties) {
+      Validate.notNull(criterias, "The criterias cannot be null");
+      this.criterias = criterias;
+      this.translator = new JpaCriteriasTranslator(properties);
+   }
+
+   @Override
+   public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+      boolean count = Long.class.equals(query.getResultType()) || long.class.equals(query.getResultType());
+      PathResolver resolver = new PathResolver(root, !count);
+
+      if (!count) {
+         for (String property : translator.getRequestedProperties(criterias)) {
+            resolver.get(property);
+         }
+         List<Order> orders = translator.toOrders(resolver, cb, criterias);
+         if (!orders.isEmpty()) {
+            query.orderBy(orders);
+         }
+      }
+      return translator.toPredicate(resolver, cb, criterias);
+   }
+
+   /**
+    * <p>
+    * Converts the pagination of the criterias into a {@link Pageable},
+    * without any sort since it is applied by the specification.
+    * </p>
+    * 
+    * @return the requested page, or {@code null} if all rows are requested.
+    */
+   public static Pageable toPageable(DatatablesCriterias criterias) {
+      Integer length = criterias.getLength();
+      if (length == null || length <= 0) {
+         return null;
+      }
+      int start = criterias.getStart() != null && criterias.getStart() > 0 ? criterias.getStart() : 0;
+      return new PageRequest(start / length, length);
+   }
+
+   /**
+    * @param page
+    *           The page loaded using a {@link DatatablesSpecification}.
+    * @param totalRecords
+    *           The total number of entities, before filtering.
+    * @return the {@link DataSet} to send back to DataTables.
+    */
+   public static <T> DataSet<T> toDataSet(Page<T> page, long totalRecords) {
+      return new DataSet<T>(page.getContent(), totalRecords, page.getTotalElements());
+   }
+}
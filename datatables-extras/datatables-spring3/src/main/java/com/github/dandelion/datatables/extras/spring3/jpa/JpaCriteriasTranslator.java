@@ -0,0 +1,391 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.extras.spring3.jpa;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Fetch;
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.Attribute.PersistentAttributeType;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.SingularAttribute;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.dandelion.core.DandelionException;
+import com.github.dandelion.core.util.StringUtils;
+import com.github.dandelion.core.util.Validate;
+import com.github.dandelion.datatables.core.ajax.ColumnDef;
+import com.github.dandelion.datatables.core.ajax.ColumnDef.SortDirection;
+import com.github.dandelion.datatables.core.ajax.DatatablesCriterias;
+
+/**
+ * <p>
+ * Translates {@link DatatablesCriterias} into JPA Criteria API predicates and
+ * orders, shared by {@link DatatablesJpaQuery} and
+ * {@link DatatablesSpecification}.
+ * </p>
+ * <p>
+ * Only the whitelisted properties can be searched, sorted or projected: the
+ * other columns sent by DataTables are ignored.
+ * </p>
+ * 
+ * @author Thibault Duchateau
+ * @since 1.1.1
+ */
+final class JpaCriteriasTranslator {
+
+   private static final Logger LOG = LoggerFactory.getLogger(JpaCriteriasTranslator.class);
+
+   private static final char LIKE_ESCAPE = '!';
+   private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+
+   private final Set<String> properties;
+
+   JpaCriteriasTranslator(String... properties) {
+      Validate.notEmpty(properties, "At least one property must be whitelisted");
+      this.properties = Collections.unmodifiableSet(new LinkedHashSet<String>(Arrays.asList(properties)));
+   }
+
+   /**
+    * @return the whitelisted properties requested by DataTables, in the order
+    *         of the columns.
+    */
+   List<String> getRequestedProperties(DatatablesCriterias criterias) {
+      Set<String> requested = new LinkedHashSet<String>();
+      if (criterias.getColumnDefs() != null) {
+         for (ColumnDef columnDef : criterias.getColumnDefs()) {
+            if (isAllowed(columnDef.getName())) {
+               requested.add(columnDef.getName());
+            }
+         }
+      }
+      return new ArrayList<String>(requested);
+   }
+
+   /**
+    * @return {@code true} if the criterias contain a global or a column
+    *         search.
+    */
+   boolean isFiltered(DatatablesCriterias criterias) {
+      return StringUtils.isNotBlank(criterias.getSearch()) || criterias.hasOneFilteredColumn();
+   }
+
+   /**
+    * @return the predicate matching the global and column searches, or
+    *         {@code null} if there is no search.
+    */
+   Predicate toPredicate(PathResolver resolver, CriteriaBuilder cb, DatatablesCriterias criterias) {
+      List<Predicate> predicates = new ArrayList<Predicate>();
+      List<ColumnDef> columnDefs = criterias.getColumnDefs() != null ? criterias.getColumnDefs() : Collections
+            .<ColumnDef> emptyList();
+
+      if (StringUtils.isNotBlank(criterias.getSearch())) {
+         List<Expression<String>> searchable = new ArrayList<Expression<String>>();
+         for (ColumnDef columnDef : columnDefs) {
+            if (columnDef.isSearchable() && isAllowed(columnDef.getName())) {
+               searchable.add(cb.lower(resolver.get(columnDef.getName()).as(String.class)));
+            }
+         }
+         for (String word : toWords(criterias.getSearch())) {
+            List<Predicate> matches = new ArrayList<Predicate>();
+            for (Expression<String> expression : searchable) {
+               matches.add(cb.like(expression, toLikePattern(word), LIKE_ESCAPE));
+            }
+            predicates.add(cb.or(matches.toArray(new Predicate[matches.size()])));
+         }
+      }
+
+      for (ColumnDef columnDef : columnDefs) {
+         if (!columnDef.isFiltered() || !isAllowed(columnDef.getName())) {
+            continue;
+         }
+         Path<?> path = resolver.get(columnDef.getName());
+         if (StringUtils.isNotBlank(columnDef.getSearch())) {
+            Expression<String> expression = cb.lower(path.as(String.class));
+            for (String word : toWords(columnDef.getSearch())) {
+               predicates.add(cb.like(expression, toLikePattern(word), LIKE_ESCAPE));
+            }
+         }
+         addRange(predicates, cb, path, columnDef);
+      }
+
+      return predicates.isEmpty() ? null : cb.and(predicates.toArray(new Predicate[predicates.size()]));
+   }
+
+   List<Order> toOrders(PathResolver resolver, CriteriaBuilder cb, DatatablesCriterias criterias) {
+      List<Order> orders = new ArrayList<Order>();
+      if (criterias.getSortedColumnDefs() != null) {
+         for (ColumnDef columnDef : criterias.getSortedColumnDefs()) {
+            if (isAllowed(columnDef.getName())) {
+               Path<?> path = resolver.get(columnDef.getName());
+               orders.add(columnDef.getSortDirection() == SortDirection.DESC ? cb.desc(path) : cb.asc(path));
+            }
+         }
+      }
+      return orders;
+   }
+
+   private boolean isAllowed(String property) {
+      if (property != null && properties.contains(property)) {
+         return true;
+      }
+      if (StringUtils.isNotBlank(property)) {
+         LOG.debug("Ignoring the property '{}', which is not whitelisted", property);
+      }
+      return false;
+   }
+
+   @SuppressWarnings({ "unchecked", "rawtypes" })
+   private static void addRange(List<Predicate> predicates, CriteriaBuilder cb, Path<?> path, ColumnDef columnDef) {
+      Comparable from = toBound(columnDef.getSearchFrom(), path);
+      if (from != null) {
+         predicates.add(cb.greaterThanOrEqualTo((Expression<Comparable>) path, from));
+      }
+      Comparable to = toBound(columnDef.getSearchTo(), path);
+      if (to != null) {
+         predicates.add(cb.lessThanOrEqualTo((Expression<Comparable>) path, to));
+      }
+   }
+
+   /**
+    * Converts a range bound to the Java type of the path, {@code null} if the
+    * bound is blank or invalid.
+    */
+   @SuppressWarnings("rawtypes")
+   private static Comparable toBound(String bound, Path<?> path) {
+      if (StringUtils.isBlank(bound)) {
+         return null;
+      }
+      String value = bound.trim();
+      Class<?> type = path.getJavaType();
+      try {
+         if (type == Long.class || type == long.class) {
+            return Long.valueOf(value);
+         }
+         else if (type == Integer.class || type == int.class) {
+            return Integer.valueOf(value);
+         }
+         else if (type == Short.class || type == short.class) {
+            return Short.valueOf(value);
+         }
+         else if (type == Double.class || type == double.class) {
+            return Double.valueOf(value);
+         }
+         else if (type == Float.class || type == float.class) {
+            return Float.valueOf(value);
+         }
+         else if (type == BigDecimal.class) {
+            return new BigDecimal(value);
+         }
+         else if (type == BigInteger.class) {
+            return new BigInteger(value);
+         }
+         else if (Date.class.isAssignableFrom(type)) {
+            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+            format.setLenient(false);
+            Date date = format.parse(value);
+            if (type == java.sql.Date.class) {
+               return new java.sql.Date(date.getTime());
+            }
+            else if (type == java.sql.Timestamp.class) {
+               return new java.sql.Timestamp(date.getTime());
+            }
+            return date;
+         }
+         else if (type == String.class) {
+            return value;
+         }
+      }
+      catch (NumberFormatException e) {
+         LOG.debug("Ignoring the invalid bound '{}' of the type {}", bound, type);
+         return null;
+      }
+      catch (ParseException e) {
+         LOG.debug("Ignoring the invalid bound '{}' of the type {}", bound, type);
+         return null;
+      }
+      LOG.debug("Ignoring the bound '{}' of the unsupported type {}", bound, type);
+      return null;
+   }
+
+   private static String toLikePattern(String word) {
+      StringBuilder pattern = new StringBuilder(word.length() + 4).append('%');
+      for (int i = 0; i < word.length(); i++) {
+         char c = word.charAt(i);
+         if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+            pattern.append(LIKE_ESCAPE);
+         }
+         pattern.append(c);
+      }
+      return pattern.append('%').toString();
+   }
+
+   private static List<String> toWords(String search) {
+      List<String> words = new ArrayList<String>();
+      for (String word : WHITESPACES.split(search.trim().toLowerCase())) {
+         if (word.length() > 0) {
+            words.add(word);
+         }
+      }
+      return words;
+   }
+
+   /**
+    * <p>
+    * Resolves dotted properties, such as {@code address.town.name}, against a
+    * root, creating each association join only once.
+    * </p>
+    * <p>
+    * Associations are joined lazily, so that a query only contains the joins
+    * it needs, and with a left join, so that rows with a {@code null}
+    * association are kept. In fetch mode, the associations are fetch-joined
+    * instead, which loads them along with the root entity and avoids the N+1
+    * selects problem.
+    * </p>
+    */
+   static final class PathResolver {
+
+      private final Root<?> root;
+      private final boolean fetch;
+      private final Map<String, From<?, ?>> joins = new HashMap<String, From<?, ?>>();
+      private final Map<String, Path<?>> paths = new HashMap<String, Path<?>>();
+
+      PathResolver(Root<?> root, boolean fetch) {
+         this.root = root;
+         this.fetch = fetch;
+      }
+
+      Path<?> get(String property) {
+         Path<?> path = paths.get(property);
+         if (path == null) {
+            path = resolve(property);
+            paths.put(property, path);
+         }
+         return path;
+      }
+
+      private Path<?> resolve(String property) {
+         String[] segments = property.split("\\.");
+         From<?, ?> from = root;
+         Path<?> path = root;
+         ManagedType<?> type = root.getModel();
+         StringBuilder prefix = new StringBuilder();
+
+         try {
+            for (int i = 0; i < segments.length; i++) {
+               String segment = segments[i];
+               Attribute<?, ?> attribute = type.getAttribute(segment);
+               if (attribute.isCollection()) {
+                  throw new DandelionException("The property '" + property
+                        + "' cannot be used, collection-valued paths are not supported");
+               }
+               prefix.append(i > 0 ? "." : "").append(segment);
+
+               if (i == segments.length - 1) {
+                  path = path.get(segment);
+               }
+               else if (isToOneAssociation(attribute)) {
+                  if (from == null) {
+                     throw new DandelionException("The property '" + property
+                           + "' cannot be used, associations of embeddables are not supported");
+                  }
+                  from = join(from, segment, prefix.toString());
+                  path = from;
+                  type = (ManagedType<?>) ((SingularAttribute<?, ?>) attribute).getType();
+               }
+               else if (attribute.getPersistentAttributeType() == PersistentAttributeType.EMBEDDED) {
+                  from = null;
+                  path = path.get(segment);
+                  type = (ManagedType<?>) ((SingularAttribute<?, ?>) attribute).getType();
+               }
+               else {
+                  throw new DandelionException("The property '" + property + "' cannot be resolved, '" + segment
+                        + "' is neither an association nor an embeddable");
+               }
+            }
+         }
+         catch (IllegalArgumentException e) {
+            throw new DandelionException("The property '" + property + "' cannot be resolved against "
+                  + root.getJavaType().getName(), e);
+         }
+         return path;
+      }
+
+      /**
+       * Relies on the attribute type rather than
+       * {@link Attribute#isAssociation()}, which some providers do not
+       * implement for to-one associations.
+       */
+      private static boolean isToOneAssociation(Attribute<?, ?> attribute) {
+         return attribute.getPersistentAttributeType() == PersistentAttributeType.MANY_TO_ONE
+               || attribute.getPersistentAttributeType() == PersistentAttributeType.ONE_TO_ONE;
+      }
+
+      private From<?, ?> join(From<?, ?> from, String attribute, String prefix) {
+         From<?, ?> join = joins.get(prefix);
+         if (join == null) {
+            if (fetch) {
+               // Most providers (e.g. Hibernate, EclipseLink) implement fetches
+               // as joins, which can then be used in predicates and orders
+               Fetch<?, ?> fetched = from.fetch(attribute, JoinType.LEFT);
+               join = fetched instanceof From ? (From<?, ?>) fetched : from.join(attribute, JoinType.LEFT);
+            }
+            else {
+               join = from.join(attribute, JoinType.LEFT);
+            }
+            joins.put(prefix, join);
+         }
+         return join;
+      }
+   }
+}
@@ -0,0 +1,101 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.extras.spring3.jpa;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.github.dandelion.datatables.core.ajax.DataSet;
+import com.github.dandelion.datatables.mock.entity.Person;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DatatablesJpaQueryTest extends JpaTest {
+
+	private DatatablesJpaQuery<Person> query() {
+		return new DatatablesJpaQuery<Person>(entityManager, Person.class, "id", "firstName", "address.town.name",
+				"age");
+	}
+
+	@Test
+	public void should_fetch_the_nested_associations_of_the_requested_page() {
+		request.addParameter("order[0][column]", "2");
+		request.addParameter("order[0][dir]", "desc");
+		request.addParameter("order[1][column]", "0");
+		request.addParameter("start", "0");
+		request.addParameter("length", "10");
+
+		DataSet<Person> dataSet = query().findAll(criterias());
+
+		assertThat(dataSet.getTotalRecords()).isEqualTo(PERSONS);
+		assertThat(dataSet.getTotalDisplayRecords()).isEqualTo(PERSONS);
+		assertThat(dataSet.getRows()).hasSize(10);
+		assertThat(dataSet.getRows()).extracting("id").containsExactly(2L, 5L, 8L, 11L, 14L, 17L, 20L, 23L, 26L, 29L);
+		for (Person person : dataSet.getRows()) {
+			assertThat(person.getAddress().getTown().getName()).isEqualTo("Nantes");
+		}
+
+		// One count and one select, the addresses and towns being fetched
+		assertThat(statistics().getPrepareStatementCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void should_keep_the_rows_without_association_when_searching() {
+		request.addParameter("search[value]", "first1");
+		request.addParameter("columns[3][search][value]", "25~35");
+		request.addParameter("order[0][column]", "0");
+
+		DataSet<Person> dataSet = query().findAll(criterias());
+
+		assertThat(dataSet.getTotalDisplayRecords()).isEqualTo(6);
+		assertThat(dataSet.getRows()).extracting("id").containsExactly(10L, 11L, 12L, 13L, 14L, 15L);
+	}
+
+	@Test
+	public void should_only_project_the_requested_and_whitelisted_properties() {
+		request.addParameter("order[0][column]", "0");
+		request.addParameter("length", "2");
+
+		DataSet<Map<String, Object>> dataSet = query().findProjection(criterias());
+
+		assertThat(dataSet.getRows()).hasSize(2);
+		Map<String, Object> row = dataSet.getRows().get(0);
+		assertThat(row.keySet()).containsExactly("id", "firstName", "address", "age");
+		assertThat(row.get("address").toString()).isEqualTo("{town={name=Lyon}}");
+	}
+
+	@Test
+	public void should_ignore_the_columns_that_are_not_whitelisted() {
+		request.addParameter("search[value]", "person7@");
+
+		assertThat(query().countFiltered(criterias())).isEqualTo(0);
+	}
+}
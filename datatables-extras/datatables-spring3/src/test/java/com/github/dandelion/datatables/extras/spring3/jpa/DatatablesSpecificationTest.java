@@ -0,0 +1,97 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.extras.spring3.jpa;
+
+import java.util.List;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.junit.Test;
+import org.springframework.data.domain.Pageable;
+
+import com.github.dandelion.datatables.core.ajax.DatatablesCriterias;
+import com.github.dandelion.datatables.mock.entity.Person;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DatatablesSpecificationTest extends JpaTest {
+
+	@Test
+	public void should_fetch_and_sort_when_loading_the_entities() {
+		request.addParameter("search[value]", "nantes");
+		request.addParameter("order[0][column]", "3");
+		request.addParameter("order[0][dir]", "desc");
+		DatatablesSpecification<Person> specification = specification(criterias());
+
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Person> query = cb.createQuery(Person.class);
+		Root<Person> root = query.from(Person.class);
+		Predicate predicate = specification.toPredicate(root, query, cb);
+		List<Person> persons = entityManager.createQuery(query.select(root).where(predicate)).getResultList();
+
+		assertThat(persons).extracting("id").containsExactly(29L, 26L, 23L, 20L, 17L, 14L, 11L, 8L, 5L, 2L);
+		assertThat(persons.get(0).getAddress().getTown().getName()).isEqualTo("Nantes");
+		assertThat(statistics().getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void should_not_fetch_in_the_count_query() {
+		request.addParameter("search[value]", "nantes");
+		request.addParameter("order[0][column]", "3");
+		DatatablesSpecification<Person> specification = specification(criterias());
+
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Long> query = cb.createQuery(Long.class);
+		Root<Person> root = query.from(Person.class);
+		Predicate predicate = specification.toPredicate(root, query, cb);
+		Long count = entityManager.createQuery(query.select(cb.count(root)).where(predicate)).getSingleResult();
+
+		assertThat(count).isEqualTo(10);
+	}
+
+	@Test
+	public void should_convert_the_pagination_into_a_pageable() {
+		request.addParameter("start", "20");
+		request.addParameter("length", "10");
+
+		Pageable pageable = DatatablesSpecification.toPageable(criterias());
+
+		assertThat(pageable.getPageNumber()).isEqualTo(2);
+		assertThat(pageable.getPageSize()).isEqualTo(10);
+		assertThat(pageable.getSort()).isNull();
+	}
+
+	private DatatablesSpecification<Person> specification(DatatablesCriterias criterias) {
+		return new DatatablesSpecification<Person>(criterias, "id", "firstName", "address.town.name", "age");
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * [The "BSD licence"]
+ * Copyright (c) 2013-2015 Dandelion
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of Dandelion nor the names of its contributors 
+ * may be used to endorse or promote products derived from this software 
+ * without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.dandelion.datatables.extras.spring3.jpa;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+import org.hibernate.ejb.HibernateEntityManagerFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.github.dandelion.datatables.core.ajax.DatatablesCriterias;
+import com.github.dandelion.datatables.mock.entity.Address;
+import com.github.dandelion.datatables.mock.entity.Person;
+import com.github.dandelion.datatables.mock.entity.Town;
+
+/**
+ * Base class used to unit test the JPA utilities against an in-memory
+ * database, containing 30 persons, every third one without address.
+ */
+public abstract class JpaTest {
+
+	protected static final int PERSONS = 30;
+	protected static final String[] TOWNS = { "Paris", "Lyon", "Nantes" };
+
+	private static EntityManagerFactory entityManagerFactory;
+	protected EntityManager entityManager;
+	protected MockHttpServletRequest request;
+
+	@BeforeClass
+	public static void createDatabase() {
+		entityManagerFactory = Persistence.createEntityManagerFactory("datatables");
+		EntityManager entityManager = entityManagerFactory.createEntityManager();
+		entityManager.getTransaction().begin();
+		Town[] towns = new Town[TOWNS.length];
+		for (int i = 0; i < TOWNS.length; i++) {
+			towns[i] = new Town((long) i, TOWNS[i]);
+			entityManager.persist(towns[i]);
+		}
+		for (long i = 1; i <= PERSONS; i++) {
+			Address address = null;
+			if (i % 3 != 0) {
+				address = new Address(i, i + " Main Street", towns[(int) (i % TOWNS.length)]);
+				entityManager.persist(address);
+			}
+			entityManager.persist(new Person(i, "First" + i, "Last" + (i % 2), "person" + i + "@mail.com",
+					(int) (20 + i), address));
+		}
+		entityManager.getTransaction().commit();
+		entityManager.close();
+	}
+
+	@AfterClass
+	public static void dropDatabase() {
+		entityManagerFactory.close();
+	}
+
+	@Before
+	public void setup() {
+		entityManager = entityManagerFactory.createEntityManager();
+		statistics().clear();
+		request = new MockHttpServletRequest();
+		request.addParameter("columns[0][data]", "id");
+		request.addParameter("columns[1][data]", "firstName");
+		request.addParameter("columns[1][searchable]", "true");
+		request.addParameter("columns[2][data]", "address.town.name");
+		request.addParameter("columns[2][searchable]", "true");
+		request.addParameter("columns[3][data]", "age");
+		request.addParameter("columns[4][data]", "mail");
+		request.addParameter("columns[4][searchable]", "true");
+	}
+
+	@After
+	public void tearDown() {
+		entityManager.close();
+	}
+
+	protected Statistics statistics() {
+		return ((HibernateEntityManagerFactory) entityManagerFactory).getSessionFactory().getStatistics();
+	}
+
+	protected DatatablesCriterias criterias() {
+		return DatatablesCriterias.getFromRequest(request);
+	}
+}
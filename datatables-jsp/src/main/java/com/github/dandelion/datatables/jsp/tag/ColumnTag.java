@@ -30,7 +30,6 @@
 package com.github.dandelion.datatables.jsp.tag;
 
 import java.lang.reflect.InvocationTargetException;
-import java.text.MessageFormat;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -40,7 +39,6 @@ import javax.servlet.jsp.tagext.BodyTagSupport;
 import javax.servlet.jsp.tagext.DynamicAttributes;
 
 import org.apache.commons.beanutils.NestedNullException;
-import org.apache.commons.beanutils.PropertyUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -54,6 +52,8 @@ import com.github.dandelion.datatables.core.html.HtmlColumn;
 import com.github.dandelion.datatables.core.html.HtmlRow;
 import com.github.dandelion.datatables.core.option.ColumnConfiguration;
 import com.github.dandelion.datatables.core.option.DatatableOptions;
+import com.github.dandelion.datatables.core.util.FormatUtils;
+import com.github.dandelion.datatables.core.util.PropertyAccessor;
 import com.github.dandelion.datatables.jsp.extension.feature.FilteringFeature;
 
 /**
@@ -386,13 +386,12 @@ public class ColumnTag extends BodyTagSupport implements DynamicAttributes {
 
          Object propertyValue = null;
          try {
-            propertyValue = PropertyUtils.getNestedProperty(parent.getCurrentObject(), this.property.trim());
+            propertyValue = PropertyAccessor.getValue(parent.getCurrentObject(), this.property);
 
             // If a MessageFormat exists, we use it to format the property
             if (StringUtils.isNotBlank(this.format) && propertyValue != null) {
 
-               MessageFormat messageFormat = new MessageFormat(this.format);
-               return messageFormat.format(new Object[] { propertyValue });
+               return FormatUtils.format(this.format, propertyValue);
             }
             else if (StringUtils.isBlank(this.format) && propertyValue != null) {
                return StringUtils.escape(propertyValue.toString());
@@ -92,6 +92,8 @@ public class ExportTag extends TagSupport {
    private String cssClass;
    private Boolean includeHeader;
    private Boolean autoSize;
+   private Boolean streaming;
+   private Boolean async;
    private String url;
    private String method;
    private String orientation;
@@ -217,6 +219,16 @@ public class ExportTag extends TagSupport {
             UrlUtils.addParameter(exportUrl, ExportUtils.DDL_DT_REQUESTPARAM_EXPORT_AUTOSIZE, autoSize);
          }
 
+         if (streaming != null) {
+            conf.setStreaming(streaming);
+            UrlUtils.addParameter(exportUrl, ExportUtils.DDL_DT_REQUESTPARAM_EXPORT_STREAMING, streaming);
+         }
+
+         if (async != null) {
+            conf.setAsync(async);
+            UrlUtils.addParameter(exportUrl, ExportUtils.DDL_DT_REQUESTPARAM_EXPORT_ASYNC, async);
+         }
+
          // Finalizes the export URL
          UrlUtils.addParameter(exportUrl, ExportUtils.DDL_DT_REQUESTPARAM_EXPORT_ID, parent.getTable().getId());
          UrlUtils.addParameter(exportUrl, ExportUtils.DDL_DT_REQUESTPARAM_EXPORT_FORMAT, format);
@@ -258,6 +270,14 @@ public class ExportTag extends TagSupport {
       this.autoSize = autoSize;
    }
 
+   public void setStreaming(Boolean streaming) {
+      this.streaming = streaming;
+   }
+
+   public void setAsync(Boolean async) {
+      this.async = async;
+   }
+
    public void setUrl(String url) {
       this.url = url;
    }
@@ -41,10 +41,10 @@ import java.util.Map;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.jsp.JspException;
+import javax.servlet.jsp.JspWriter;
 import javax.servlet.jsp.tagext.BodyTagSupport;
 import javax.servlet.jsp.tagext.DynamicAttributes;
 
-import org.apache.commons.beanutils.PropertyUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -63,6 +63,7 @@ import com.github.dandelion.datatables.core.generator.DatatableJQueryContent;
 import com.github.dandelion.datatables.core.html.HtmlTable;
 import com.github.dandelion.datatables.core.option.DatatableOptions;
 import com.github.dandelion.datatables.core.option.TableConfiguration;
+import com.github.dandelion.datatables.core.util.PropertyAccessor;
 
 /**
  * <p>
@@ -345,7 +346,7 @@ public class TableTag extends BodyTagSupport implements DynamicAttributes {
 
       if (StringUtils.isNotBlank(this.rowIdBase)) {
          try {
-            Object propertyValue = PropertyUtils.getNestedProperty(this.currentObject,
+            Object propertyValue = PropertyAccessor.getValue(this.currentObject,
                   StringUtils.escape(this.escapeXml, this.rowIdBase));
             rowId.append(propertyValue != null ? propertyValue : "");
          }
@@ -401,7 +402,9 @@ public class TableTag extends BodyTagSupport implements DynamicAttributes {
             .addGenerator(DatatableComponent.COMPONENT_NAME, javascriptGenerator);
 
       try {
-         this.pageContext.getOut().println(this.table.toHtml());
+         JspWriter out = this.pageContext.getOut();
+         this.table.renderTo(out);
+         out.println();
       }
       catch (IOException e) {
          throw new JspException("Unable to generate the HTML markup for the table " + id, e);
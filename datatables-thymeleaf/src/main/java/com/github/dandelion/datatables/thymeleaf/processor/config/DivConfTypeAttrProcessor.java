@@ -324,6 +324,18 @@ public class DivConfTypeAttrProcessor extends AbstractAttrProcessor {
          UrlUtils.addParameter(exportUrl, ExportUtils.DDL_DT_REQUESTPARAM_EXPORT_AUTOSIZE, autosize);
       }
 
+      if (hasAttribute(element, "streaming")) {
+         String streaming = getStringValue(element, "streaming");
+         conf.setStreaming(Boolean.parseBoolean(streaming));
+         UrlUtils.addParameter(exportUrl, ExportUtils.DDL_DT_REQUESTPARAM_EXPORT_STREAMING, streaming);
+      }
+
+      if (hasAttribute(element, "async")) {
+         String async = getStringValue(element, "async");
+         conf.setAsync(Boolean.parseBoolean(async));
+         UrlUtils.addParameter(exportUrl, ExportUtils.DDL_DT_REQUESTPARAM_EXPORT_ASYNC, async);
+      }
+
       if (hasAttribute(element, "exportClass")) {
          conf.setExportClass(getStringValue(element, "exportClass"));
       }